@@ -0,0 +1,90 @@
+package com.meitou.admin.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基准结果对比
+ * 对比 JMH JSON 结果（-rf json）与已提交的基线，逐项输出变化百分比；
+ * 任一基准变慢超过阈值时以非 0 退出码结束，便于在 CI 或提交前检查中发现请求路径的性能回退；
+ * 基线或结果为空时同样以非 0 退出码结束
+ *
+ * 用法：java -cp benchmarks.jar com.meitou.admin.benchmark.BaselineComparator baseline.json result.json [阈值百分比，默认10]
+ */
+public final class BaselineComparator {
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法：BaselineComparator <baseline.json> <result.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = index(objectMapper.readTree(new File(args[1])));
+
+        // 基线或结果为空时无法判断是否回退，按失败处理，避免检查在没有数据时静默通过
+        if (baseline.isEmpty()) {
+            System.err.println("基线为空，无法对比；请在基准机器上运行后提交 baseline/results.json");
+            System.exit(2);
+        }
+        if (current.isEmpty()) {
+            System.err.println("本次结果为空，请检查基准是否运行成功");
+            System.exit(2);
+        }
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : new TreeMap<>(current).entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            JsonNode now = entry.getValue();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double nowScore = now.path("primaryMetric").path("score").asDouble();
+            if (base == null) {
+                System.out.printf("%-90s %12.3f %-8s (新增)%n", entry.getKey(), nowScore, unit);
+                continue;
+            }
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double change = baseScore == 0 ? 0 : (nowScore - baseScore) / baseScore * 100;
+            // 吞吐量模式越大越好，其余模式（平均时间、采样时间）越小越好
+            double slowdown = "thrpt".equals(now.path("mode").asText()) ? -change : change;
+            boolean regressed = slowdown > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f -> %12.3f %-8s %+7.1f%%%s%n", entry.getKey(), baseScore, nowScore, unit,
+                    change, regressed ? "  回退" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d 项基准变慢超过 %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 以“基准方法名 + 参数”为键索引结果
+     */
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> indexed = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            if (params.isObject()) {
+                Map<String, String> sorted = new TreeMap<>();
+                params.fields().forEachRemaining(field -> sorted.put(field.getKey(), field.getValue().asText()));
+                sorted.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+            indexed.put(key.toString(), result);
+        }
+        return indexed;
+    }
+}
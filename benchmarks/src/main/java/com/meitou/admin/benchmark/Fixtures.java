@@ -0,0 +1,88 @@
+package com.meitou.admin.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meitou.admin.entity.ApiParameterMapping;
+import com.meitou.admin.entity.ApiPlatform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 基准测试夹具
+ * 从 classpath:fixtures/ 读取按线上数据形状整理的平台模型配置、参数映射和上游响应
+ */
+public final class Fixtures {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private Fixtures() {
+    }
+
+    /**
+     * 平台配置（supportedModels 覆盖 JSON 对象数组、字符串数组、#号分割和通用平台四种形态）
+     */
+    public static List<ApiPlatform> platforms() {
+        return read("fixtures/platforms.json", new TypeReference<>() {
+        });
+    }
+
+    /**
+     * 按类型筛选平台配置
+     */
+    public static List<ApiPlatform> platforms(String type) {
+        return platforms().stream().filter(p -> type.equals(p.getType())).toList();
+    }
+
+    /**
+     * 按 ID 查找平台配置
+     */
+    public static ApiPlatform platform(Long id) {
+        return platforms().stream()
+                .filter(p -> id.equals(p.getId()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("夹具中没有平台：" + id));
+    }
+
+    /**
+     * 参数映射配置
+     */
+    public static List<ApiParameterMapping> parameterMappings() {
+        return read("fixtures/parameter-mappings.json", new TypeReference<>() {
+        });
+    }
+
+    /**
+     * 录制的上游响应原文
+     *
+     * @param name fixtures/responses/ 下的文件名
+     */
+    public static String response(String name) {
+        try (InputStream in = open("fixtures/responses/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T read(String path, TypeReference<T> type) {
+        try (InputStream in = open(path)) {
+            return OBJECT_MAPPER.readValue(in, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream open(String path) {
+        InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            throw new IllegalArgumentException("夹具不存在：" + path);
+        }
+        return in;
+    }
+}
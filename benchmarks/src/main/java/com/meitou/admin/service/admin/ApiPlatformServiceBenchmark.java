@@ -0,0 +1,79 @@
+package com.meitou.admin.service.admin;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.meitou.admin.benchmark.Fixtures;
+import com.meitou.admin.entity.ApiPlatform;
+import com.meitou.admin.mapper.ApiInterfaceMapper;
+import com.meitou.admin.mapper.ApiPlatformMapper;
+import com.meitou.admin.util.AesEncryptUtil;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台模型匹配基准
+ * 每次生成请求都会按类型查询平台、逐个解密 apiKey 并解析 supportedModels 做模型匹配；
+ * Mapper 用 Mock 返回夹具平台的副本（解密会原地修改实体），副本构造的开销也计入结果
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiPlatformServiceBenchmark {
+
+    /**
+     * 请求的模型：JSON 对象数组命中、字符串数组命中、多平台命中（含#号分割）、未命中回退到通用平台
+     */
+    @Param({"nano-banana-pro", "midjourney-v7", "sora-image", "not-configured"})
+    public String model;
+
+    private ApiPlatformService apiPlatformService;
+
+    @Setup
+    public void setUp() {
+        // LambdaQueryWrapper 需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), ApiPlatform.class);
+
+        String encryptedKey = AesEncryptUtil.encrypt("sk-benchmark-0123456789abcdef0123456789abcdef");
+        List<ApiPlatform> platforms = Fixtures.platforms("txt2img");
+        platforms.forEach(platform -> platform.setApiKey(encryptedKey));
+
+        ApiPlatformMapper platformMapper = Mockito.mock(ApiPlatformMapper.class);
+        Mockito.when(platformMapper.selectList(ArgumentMatchers.any())).thenAnswer(invocation -> platforms.stream()
+                .map(platform -> {
+                    ApiPlatform copy = new ApiPlatform();
+                    BeanUtils.copyProperties(platform, copy);
+                    return copy;
+                })
+                .toList());
+        apiPlatformService = new ApiPlatformService(platformMapper, Mockito.mock(ApiInterfaceMapper.class));
+    }
+
+    @Benchmark
+    public ApiPlatform getPlatformByTypeAndModel() {
+        return apiPlatformService.getPlatformByTypeAndModel("txt2img", model, 1L);
+    }
+
+    @Benchmark
+    public List<ApiPlatform> getPlatformsByTypeAndModel() {
+        return apiPlatformService.getPlatformsByTypeAndModel("txt2img", model, 1L);
+    }
+}
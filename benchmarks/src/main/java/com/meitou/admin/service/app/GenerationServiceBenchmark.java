@@ -0,0 +1,142 @@
+package com.meitou.admin.service.app;
+
+import com.meitou.admin.benchmark.Fixtures;
+import com.meitou.admin.dto.app.ImageToVideoRequest;
+import com.meitou.admin.dto.app.TextToImageRequest;
+import com.meitou.admin.entity.ApiPlatform;
+import com.meitou.admin.mapper.ApiParameterMappingMapper;
+import com.meitou.admin.service.common.ApiParameterMappingCacheService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GenerationService 请求构建热路径基准
+ * 覆盖每次生成请求都会执行的参数映射、分辨率换算、计费和 SSE 响应解析；
+ * 数据库相关依赖不参与这些方法，用 null 或 Mock 代替
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationServiceBenchmark {
+
+    private static final Long IMAGE_PLATFORM_ID = 101L;
+    private static final Long VIDEO_PLATFORM_ID = 201L;
+
+    private GenerationService generationService;
+    private TextToImageRequest textToImageRequest;
+    private ImageToVideoRequest imageToVideoRequest;
+    private ApiPlatform imagePlatform;
+    private ApiPlatform videoPlatform;
+    private String sseResponse;
+
+    @Setup
+    public void setUp() {
+        generationService = newGenerationService();
+
+        textToImageRequest = new TextToImageRequest();
+        textToImageRequest.setPrompt("a cinematic photo of a red fox in a snowy forest, golden hour, 35mm, shallow depth of field");
+        textToImageRequest.setModel("nano-banana-pro");
+        textToImageRequest.setAspectRatio("3:4");
+        textToImageRequest.setResolution("2K");
+        textToImageRequest.setQuantity(2);
+        textToImageRequest.setWebHook("-1");
+        textToImageRequest.setShutProgress(false);
+
+        imageToVideoRequest = new ImageToVideoRequest();
+        imageToVideoRequest.setPrompt("the fox turns its head towards the camera and snow starts falling");
+        imageToVideoRequest.setModel("sora-2");
+        imageToVideoRequest.setAspectRatio("16:9");
+        imageToVideoRequest.setResolution("1080p");
+        imageToVideoRequest.setDuration(15);
+        imageToVideoRequest.setFirstFrameUrl("https://file.example-cdn.com/upload/fox-first.png");
+        imageToVideoRequest.setUrls(List.of("https://file.example-cdn.com/upload/fox-first.png",
+                "https://file.example-cdn.com/upload/fox-ref.png"));
+        imageToVideoRequest.setWebHook("-1");
+
+        imagePlatform = Fixtures.platform(IMAGE_PLATFORM_ID);
+        videoPlatform = Fixtures.platform(VIDEO_PLATFORM_ID);
+
+        sseResponse = Fixtures.response("sse-image-succeeded.txt");
+    }
+
+    /**
+     * 构造只加载了参数映射缓存的 GenerationService
+     */
+    static GenerationService newGenerationService() {
+        ApiParameterMappingMapper mappingMapper = Mockito.mock(ApiParameterMappingMapper.class);
+        Mockito.when(mappingMapper.selectAllIgnoreTenant()).thenReturn(Fixtures.parameterMappings());
+        ApiParameterMappingCacheService mappingCacheService = new ApiParameterMappingCacheService(mappingMapper);
+        mappingCacheService.refresh();
+
+        return new GenerationService(null, null, null, mappingCacheService, null, null,
+                null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> applyParameterMappingsTextToImage() {
+        return generationService.applyParameterMappings(new HashMap<>(), textToImageRequest,
+                IMAGE_PLATFORM_ID, textToImageRequest.getModel());
+    }
+
+    @Benchmark
+    public Map<String, Object> applyParameterMappingsImageToVideo() {
+        return generationService.applyParameterMappings(new HashMap<>(), imageToVideoRequest,
+                VIDEO_PLATFORM_ID, imageToVideoRequest.getModel());
+    }
+
+    @Benchmark
+    public Map<String, Object> addDtoToContextTextToImage() {
+        Map<String, Object> context = new HashMap<>();
+        generationService.addDtoToContext(context, textToImageRequest);
+        return context;
+    }
+
+    @Benchmark
+    public Map<String, Object> addDtoToContextImageToVideo() {
+        Map<String, Object> context = new HashMap<>();
+        generationService.addDtoToContext(context, imageToVideoRequest);
+        return context;
+    }
+
+    @Benchmark
+    public Map<String, Integer> parseResolution() {
+        return generationService.parseResolution(textToImageRequest.getResolution(), textToImageRequest.getAspectRatio());
+    }
+
+    @Benchmark
+    public Integer calculateCostCostRule() {
+        return generationService.calculateCost(imagePlatform, "nano-banana-pro", "4K", null, 2, "txt2img");
+    }
+
+    @Benchmark
+    public Integer calculateCostVideoDuration() {
+        return generationService.calculateCost(videoPlatform, "sora-2-pro", "1080p", 15, 1, "img2video");
+    }
+
+    @Benchmark
+    public Integer calculateCostUnknownModel() {
+        return generationService.calculateCost(imagePlatform, "not-configured", "1K", null, 1, "txt2img");
+    }
+
+    @Benchmark
+    public List<String> parseSseResponse() {
+        return generationService.parseSseResponse(sseResponse);
+    }
+}
@@ -0,0 +1,54 @@
+package com.meitou.admin.service.app;
+
+import com.meitou.admin.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上游响应解析基准
+ * 使用录制的 SSE 流和 JSON 响应，覆盖 parseImageUrls 的格式自动识别和各分支
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpstreamResponseParsingBenchmark {
+
+    /**
+     * 录制的上游响应（文件名:响应模式）
+     */
+    @Param({"sse-image-succeeded.txt:Stream", "sse-image-multi.txt:Stream",
+            "json-data-results.json:JSON", "json-openai-data.json:JSON"})
+    public String response;
+
+    private GenerationService generationService;
+    private String responseBody;
+    private String responseMode;
+
+    @Setup
+    public void setUp() {
+        generationService = GenerationServiceBenchmark.newGenerationService();
+        String[] parts = response.split(":");
+        responseBody = Fixtures.response(parts[0]);
+        responseMode = parts[1];
+    }
+
+    @Benchmark
+    public List<String> parseImageUrls() {
+        return generationService.parseImageUrls(responseBody, responseMode);
+    }
+}
@@ -0,0 +1,82 @@
+package com.meitou.admin.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * apiKey 加解密基准
+ * 平台查询时每个平台都要解密一次 apiKey，创建和更新平台时用 isEncrypted 判断是否需要加密
+ * decrypt 命中解密缓存，decryptUncached / decryptLegacyUncached 衡量实际解密开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AesEncryptUtilBenchmark {
+
+    private static final String API_KEY = "sk-benchmark-0123456789abcdef0123456789abcdef";
+
+    private String encryptedKey;
+    private String legacyEncryptedKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptedKey = AesEncryptUtil.encrypt(API_KEY);
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("MeitouAdminKey!X".getBytes(StandardCharsets.UTF_8), "AES"));
+        legacyEncryptedKey = Base64.getEncoder().encodeToString(cipher.doFinal(API_KEY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return AesEncryptUtil.decrypt(encryptedKey);
+    }
+
+    @Benchmark
+    public String decryptUncached() {
+        AesEncryptUtil.invalidate(encryptedKey);
+        return AesEncryptUtil.decrypt(encryptedKey);
+    }
+
+    @Benchmark
+    public String decryptLegacyUncached() {
+        AesEncryptUtil.invalidate(legacyEncryptedKey);
+        return AesEncryptUtil.decrypt(legacyEncryptedKey);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return AesEncryptUtil.encrypt(API_KEY);
+    }
+
+    @Benchmark
+    public boolean isEncryptedCiphertext() {
+        return AesEncryptUtil.isEncrypted(encryptedKey);
+    }
+
+    @Benchmark
+    public boolean isEncryptedLegacyCiphertext() {
+        return AesEncryptUtil.isEncrypted(legacyEncryptedKey);
+    }
+
+    @Benchmark
+    public boolean isEncryptedPlaintext() {
+        return AesEncryptUtil.isEncrypted(API_KEY);
+    }
+}
@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+# 测量镜像的 time-to-ready：多次启动容器，读取日志「缓存预热完成 … JVM 启动后 N ms 可接收流量」中的 N，输出中位数
+#
+# 用法：benchmarks/startup-time.sh [-n 次数] [-t 超时秒数] 镜像... [-- docker run 参数...]
+# 示例：benchmarks/startup-time.sh -n 5 meitou-backend:latest meitou-backend:optimized -- --env-file .env --network host
+set -euo pipefail
+
+runs=5
+timeout=180
+while getopts "n:t:" opt; do
+    case "$opt" in
+        n) runs="$OPTARG" ;;
+        t) timeout="$OPTARG" ;;
+        *) exit 1 ;;
+    esac
+done
+shift $((OPTIND - 1))
+
+images=()
+while [ $# -gt 0 ] && [ "$1" != "--" ]; do
+    images+=("$1")
+    shift
+done
+[ $# -gt 0 ] && shift
+if [ ${#images[@]} -eq 0 ]; then
+    echo "用法：$0 [-n 次数] [-t 超时秒数] 镜像... [-- docker run 参数...]" >&2
+    exit 1
+fi
+
+measure() {
+    local image="$1" container ready="" waited=0
+    shift
+    container=$(docker run -d "$@" "$image")
+    while [ "$waited" -lt "$timeout" ]; do
+        ready=$(docker logs "$container" 2>&1 | sed -n 's/.*JVM 启动后 \([0-9]*\) ms 可接收流量.*/\1/p' | head -n 1)
+        [ -n "$ready" ] && break
+        sleep 1
+        waited=$((waited + 1))
+    done
+    docker rm -f "$container" > /dev/null
+    if [ -z "$ready" ]; then
+        echo "$image：${timeout} 秒内未就绪" >&2
+        return 1
+    fi
+    echo "$ready"
+}
+
+for image in "${images[@]}"; do
+    values=()
+    for _ in $(seq "$runs"); do
+        values+=("$(measure "$image" "$@")")
+    done
+    sorted=$(printf '%s\n' "${values[@]}" | sort -n)
+    median=$(echo "$sorted" | sed -n "$(( (runs + 1) / 2 ))p")
+    echo "$image：time-to-ready 中位数 ${median} ms（${runs} 次：$(echo "$sorted" | paste -sd ' ')）"
+done
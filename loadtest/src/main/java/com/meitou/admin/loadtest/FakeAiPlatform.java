@@ -0,0 +1,288 @@
+package com.meitou.admin.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地假 AI 平台
+ * 模拟 GenerationService 对接的三种协议，接口路径与 grsai 类平台一致，轮询走统一结果接口：
+ *
+ * POST /v1/draw/json    同步 JSON：{"code":0,"data":{"id","status":"succeeded","results":[{"url"}]}}
+ * POST /v1/draw/sse     SSE 流：若干 running 事件后输出 succeeded 事件（接口 responseMode=Stream）
+ * POST /v1/draw/async   异步图片任务：返回 {"code":0,"data":{"id"}}，任务在 taskMs 后完成
+ * POST /v1/draw/video   异步视频任务：同上，结果为 mp4
+ * POST /v1/draw/result  查询任务：{"id":"..."} → running / succeeded / failed
+ * GET  /files/{name}    生成结果文件，用于覆盖应用“下载上游文件 → 转存对象存储”的路径
+ *
+ * 故障注入：failureRate 返回 HTTP 500（计入平台故障），rejectRate 返回业务错误 code=-1（内容审核类拒绝），
+ * taskFailureRate 使异步任务以 failed 结束；latencyMs ± jitterMs 为提交接口的响应延迟
+ */
+final class FakeAiPlatform {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final int port;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double failureRate;
+    private final double rejectRate;
+    private final long taskMs;
+    private final double taskFailureRate;
+    private final String publicUrl;
+
+    private final byte[] image;
+    private final byte[] video;
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+    private final AtomicLong submits = new AtomicLong();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * 异步任务
+     */
+    private record Task(String id, boolean video, long createdAt, boolean fail) {
+    }
+
+    private FakeAiPlatform(Options options) throws IOException {
+        this.port = options.getInt("port", 18080);
+        this.latencyMs = options.getLong("latencyMs", 800);
+        this.jitterMs = options.getLong("jitterMs", 400);
+        this.failureRate = options.getDouble("failureRate", 0);
+        this.rejectRate = options.getDouble("rejectRate", 0);
+        this.taskMs = options.getLong("taskMs", 5000);
+        this.taskFailureRate = options.getDouble("taskFailureRate", 0);
+        this.publicUrl = options.get("publicUrl", "http://127.0.0.1:" + port);
+        this.image = noisePng(options.getInt("imageSize", 512));
+        this.video = randomBytes(options.getInt("videoBytes", 2 * 1024 * 1024));
+    }
+
+    static FakeAiPlatform start(Options options) throws IOException {
+        FakeAiPlatform platform = new FakeAiPlatform(options);
+        platform.server = HttpServer.create(new InetSocketAddress(platform.port), 1024);
+        platform.executor = Executors.newFixedThreadPool(options.getInt("threads", 256), daemon("fake-platform"));
+        platform.server.setExecutor(platform.executor);
+        platform.server.createContext("/", platform::handle);
+        platform.server.start();
+
+        // 清理已结束较久的任务
+        platform.sweeper = Executors.newSingleThreadScheduledExecutor(daemon("fake-platform-sweeper"));
+        platform.sweeper.scheduleAtFixedRate(platform::sweep, 1, 1, TimeUnit.MINUTES);
+        platform.sweeper.scheduleAtFixedRate(platform::printStats, 10, 10, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(platform::stop));
+        System.out.printf("假 AI 平台已启动：%s（延迟 %d±%dms，HTTP 500 比例 %.2f，拒绝比例 %.2f，任务耗时 %dms，任务失败比例 %.2f，图片 %d 字节）%n",
+                platform.publicUrl, platform.latencyMs, platform.jitterMs, platform.failureRate, platform.rejectRate,
+                platform.taskMs, platform.taskFailureRate, platform.image.length);
+        return platform;
+    }
+
+    void awaitShutdown() throws InterruptedException {
+        stopped.await();
+    }
+
+    void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        sweeper.shutdownNow();
+        printStats();
+        stopped.countDown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if ("GET".equals(method) && path.startsWith("/files/")) {
+                serveFile(exchange, path);
+            } else if ("POST".equals(method) && path.endsWith("/v1/draw/result")) {
+                poll(exchange);
+            } else if ("POST".equals(method) && path.contains("/v1/draw/")) {
+                submit(exchange, path.substring(path.lastIndexOf('/') + 1));
+            } else {
+                send(exchange, 404, "application/json", "{\"code\":404,\"msg\":\"not found\"}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void submit(HttpExchange exchange, String mode) throws IOException, InterruptedException {
+        submits.incrementAndGet();
+        drain(exchange.getRequestBody());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latency = Math.max(0, latencyMs + (jitterMs > 0 ? random.nextLong(-jitterMs, jitterMs + 1) : 0));
+
+        if (random.nextDouble() < failureRate) {
+            injectedFailures.incrementAndGet();
+            Thread.sleep(latency);
+            send(exchange, 500, "application/json", "{\"code\":500,\"msg\":\"upstream overloaded\"}");
+            return;
+        }
+        if (random.nextDouble() < rejectRate) {
+            injectedFailures.incrementAndGet();
+            Thread.sleep(latency);
+            send(exchange, 200, "application/json", "{\"code\":-1,\"msg\":\"prompt rejected by content policy\"}");
+            return;
+        }
+
+        String id = UUID.randomUUID().toString();
+        switch (mode) {
+            case "json" -> {
+                Thread.sleep(latency);
+                send(exchange, 200, "application/json",
+                        "{\"code\":0,\"msg\":\"success\",\"data\":" + taskJson(id, "succeeded", 100, fileUrl(id, false)) + "}");
+            }
+            case "sse" -> streamSse(exchange, id, latency);
+            case "async", "video" -> {
+                Thread.sleep(latency);
+                tasks.put(id, new Task(id, "video".equals(mode), System.currentTimeMillis(), random.nextDouble() < taskFailureRate));
+                send(exchange, 200, "application/json", "{\"code\":0,\"msg\":\"success\",\"data\":{\"id\":\"" + id + "\"}}");
+            }
+            default -> send(exchange, 404, "application/json", "{\"code\":404,\"msg\":\"unknown mode " + mode + "\"}");
+        }
+    }
+
+    /**
+     * SSE：延迟均匀分布在若干个 running 事件之间，最后输出 succeeded 事件
+     */
+    private void streamSse(HttpExchange exchange, String id, long latency) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream;charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int steps = 5;
+        for (int i = 0; i < steps; i++) {
+            out.write(("data: " + taskJson(id, "running", i * 100 / steps, null) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(latency / steps);
+        }
+        out.write(("data: " + taskJson(id, "succeeded", 100, fileUrl(id, false)) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void poll(HttpExchange exchange) throws IOException {
+        polls.incrementAndGet();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Matcher matcher = ID_PATTERN.matcher(body);
+        Task task = matcher.find() ? tasks.get(matcher.group(1)) : null;
+        if (task == null) {
+            send(exchange, 404, "application/json", "{\"code\":404,\"msg\":\"task not found\"}");
+            return;
+        }
+
+        long elapsed = System.currentTimeMillis() - task.createdAt();
+        String data;
+        if (elapsed < taskMs) {
+            data = taskJson(task.id(), "running", (int) (elapsed * 100 / Math.max(1, taskMs)), null);
+        } else if (task.fail()) {
+            data = "{\"id\":\"" + task.id() + "\",\"status\":\"failed\",\"progress\":100,\"results\":[],"
+                    + "\"failure_reason\":\"injected failure\",\"error\":\"\"}";
+        } else {
+            data = taskJson(task.id(), "succeeded", 100, fileUrl(task.id(), task.video()));
+        }
+        send(exchange, 200, "application/json", "{\"code\":0,\"msg\":\"success\",\"data\":" + data + "}");
+    }
+
+    private void serveFile(HttpExchange exchange, String path) throws IOException {
+        downloads.incrementAndGet();
+        boolean isVideo = path.endsWith(".mp4");
+        exchange.getResponseHeaders().set("Content-Type", isVideo ? "video/mp4" : "image/png");
+        byte[] content = isVideo ? video : image;
+        exchange.sendResponseHeaders(200, content.length);
+        exchange.getResponseBody().write(content);
+    }
+
+    private String fileUrl(String id, boolean isVideo) {
+        return publicUrl + "/files/" + id + (isVideo ? ".mp4" : ".png");
+    }
+
+    private static String taskJson(String id, String status, int progress, String url) {
+        String results = url == null ? "[]" : "[{\"url\":\"" + url + "\",\"content\":\"\"}]";
+        return "{\"id\":\"" + id + "\",\"status\":\"" + status + "\",\"progress\":" + progress
+                + ",\"results\":" + results + ",\"failure_reason\":\"\",\"error\":\"\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + ";charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        in.transferTo(OutputStream.nullOutputStream());
+    }
+
+    private void sweep() {
+        long expireBefore = System.currentTimeMillis() - taskMs - TimeUnit.MINUTES.toMillis(10);
+        tasks.values().removeIf(task -> task.createdAt() < expireBefore);
+    }
+
+    private void printStats() {
+        System.out.printf("[fake-platform] 提交 %d，轮询 %d，文件下载 %d，注入故障 %d，进行中任务 %d%n",
+                submits.get(), polls.get(), downloads.get(), injectedFailures.get(), tasks.size());
+    }
+
+    /**
+     * 随机噪声 PNG（几乎不可压缩，大小接近真实生成图片）
+     */
+    private static byte[] noisePng(int size) throws IOException {
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                img.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    static ThreadFactory daemon(String name) {
+        AtomicLong counter = new AtomicLong();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.meitou.admin.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 延迟记录
+ * 保留全部样本（压测规模下内存可控），结束时排序计算分位数
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+
+    synchronized void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    /**
+     * @param percentile 0~100
+     * @return 分位数（毫秒），没有样本时为 0
+     */
+    synchronized double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+    }
+
+    synchronized double maxMillis() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max / 1_000_000.0;
+    }
+}
@@ -0,0 +1,362 @@
+package com.meitou.admin.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.meitou.admin.util.TokenUtil;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测驱动
+ * 每个虚拟用户循环执行：按权重选择场景 → 提交生成请求 → 返回 processing 时轮询任务状态直到成功或失败。
+ * 分场景记录提交延迟和端到端延迟，同时采样应用的 Prometheus 指标，结束时输出吞吐量、延迟分位数和饱和度峰值。
+ *
+ * 场景与 seed 写入的平台一一对应：json / sse 为同步出图，async 为异步任务，video 为异步文生视频
+ */
+final class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final Path usersFile;
+    private final int concurrency;
+    private final long durationSeconds;
+    private final long rampUpSeconds;
+    private final Map<String, Integer> mix;
+    private final long pollIntervalMs;
+    private final long pollTimeoutSeconds;
+    private final String metricsUrl;
+    private final String report;
+    private final String label;
+    private final double maxErrorRate;
+
+    private final HttpClient client;
+    private final Map<String, ScenarioStats> stats = new ConcurrentHashMap<>();
+
+    LoadDriver(Options options) {
+        this.baseUrl = options.get("baseUrl", "http://localhost:8085");
+        this.usersFile = Path.of(options.get("usersFile", "loadtest-users.txt"));
+        this.concurrency = options.getInt("concurrency", 50);
+        this.durationSeconds = options.getLong("durationSeconds", 300);
+        this.rampUpSeconds = options.getLong("rampUpSeconds", 30);
+        this.mix = parseMix(options.get("mix", "json:4,sse:2,async:3,video:1"));
+        this.pollIntervalMs = options.getLong("pollIntervalMs", 2000);
+        this.pollTimeoutSeconds = options.getLong("pollTimeoutSeconds", 300);
+        this.metricsUrl = options.get("metricsUrl", "http://localhost:8086/actuator/prometheus");
+        this.report = options.get("report", null);
+        this.label = options.get("label", "");
+        this.maxErrorRate = options.getDouble("maxErrorRate", 0.01);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 4), FakeAiPlatform.daemon("loadtest-http")))
+                .build();
+    }
+
+    /**
+     * @return 错误率不超过 maxErrorRate 时为 true
+     */
+    boolean run() throws Exception {
+        UserList users = readUsers();
+        MetricsSampler sampler = new MetricsSampler(metricsUrl);
+        sampler.start(5000);
+
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(concurrency, FakeAiPlatform.daemon("loadtest-vu"));
+        System.out.printf("开始压测：%s，并发 %d，持续 %ds（爬坡 %ds），场景权重 %s%n",
+                baseUrl, concurrency, durationSeconds, rampUpSeconds, mix);
+        for (int i = 0; i < concurrency; i++) {
+            long userId = users.ids().get(i % users.ids().size());
+            // 爬坡期间均匀启动虚拟用户
+            long delayNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds) * i / concurrency;
+            virtualUsers.execute(() -> virtualUser(users.siteId(), userId, startNanos + delayNanos, deadline));
+        }
+        virtualUsers.shutdown();
+        // 结束后等待进行中的任务轮询完成
+        virtualUsers.awaitTermination(durationSeconds + pollTimeoutSeconds + 60, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        sampler.stop();
+
+        return report(elapsedSeconds, sampler);
+    }
+
+    private void virtualUser(long siteId, long userId, long startAt, long deadline) {
+        String token = "Bearer " + TokenUtil.generateToken(userId);
+        sleepUntil(startAt);
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            String scenario = pickScenario();
+            ScenarioStats scenarioStats = stats.computeIfAbsent(scenario, k -> new ScenarioStats());
+            long begin = System.nanoTime();
+            try {
+                String outcome = execute(scenario, siteId, token, scenarioStats);
+                long elapsed = System.nanoTime() - begin;
+                if ("success".equals(outcome)) {
+                    scenarioStats.endToEnd.record(elapsed);
+                    scenarioStats.succeeded.incrementAndGet();
+                } else {
+                    scenarioStats.fail(outcome);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                scenarioStats.fail(e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * 执行一次场景
+     *
+     * @return success，或失败原因
+     */
+    private String execute(String scenario, long siteId, String token, ScenarioStats scenarioStats) throws Exception {
+        boolean video = "video".equals(scenario);
+        ObjectNode body = MAPPER.createObjectNode()
+                .put("prompt", "load test " + ThreadLocalRandom.current().nextInt(1_000_000))
+                .put("model", "lt-" + scenario)
+                .put("aspectRatio", video ? "16:9" : "1:1");
+        if (video) {
+            body.put("duration", 5).put("webHook", "-1");
+        } else {
+            body.put("resolution", "1K").put("quantity", 1);
+            if ("async".equals(scenario)) {
+                body.put("webHook", "-1");
+            }
+        }
+        String path = video ? "/api/app/generation/text-to-video" : "/api/app/generation/text-to-image";
+
+        long submitBegin = System.nanoTime();
+        HttpResponse<String> response = client.send(request(path, siteId, token)
+                        .timeout(Duration.ofSeconds(pollTimeoutSeconds))
+                        .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        scenarioStats.submit.record(System.nanoTime() - submitBegin);
+
+        JsonNode data = unwrap(response);
+        if (data == null) {
+            return "submit_" + failureCode(response);
+        }
+        String status = data.path("status").asText();
+        if (!"processing".equals(status)) {
+            return status;
+        }
+        String taskId = data.path("taskId").asText(null);
+        if (taskId == null) {
+            return "no_task_id";
+        }
+
+        long pollDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(pollTimeoutSeconds);
+        while (System.nanoTime() < pollDeadline) {
+            Thread.sleep(pollIntervalMs);
+            HttpResponse<String> poll = client.send(request("/api/app/generation/task/" + taskId, siteId, token)
+                            .timeout(Duration.ofSeconds(30)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            scenarioStats.polls.incrementAndGet();
+            JsonNode task = unwrap(poll);
+            if (task == null) {
+                return "poll_" + failureCode(poll);
+            }
+            status = task.path("status").asText();
+            if (!"processing".equals(status)) {
+                return status;
+            }
+        }
+        return "poll_timeout";
+    }
+
+    private HttpRequest.Builder request(String path, long siteId, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .header("Authorization", token)
+                .header("X-Site-Id", String.valueOf(siteId));
+    }
+
+    /**
+     * 解析 Result 包装，业务失败时返回 null
+     */
+    private static JsonNode unwrap(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        JsonNode root = MAPPER.readTree(response.body());
+        if (root.path("code").asInt() != 200) {
+            return null;
+        }
+        return root.path("data");
+    }
+
+    /**
+     * 失败码：HTTP 状态码非 200 时为 http{状态码}，否则为 Result 的业务码
+     */
+    private static String failureCode(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return "http" + response.statusCode();
+        }
+        try {
+            return String.valueOf(MAPPER.readTree(response.body()).path("code").asInt());
+        } catch (IOException e) {
+            return "invalid_body";
+        }
+    }
+
+    private String pickScenario() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("场景权重为空");
+    }
+
+    private boolean report(double elapsedSeconds, MetricsSampler sampler) throws IOException {
+        long succeeded = 0;
+        long failed = 0;
+        ObjectNode root = MAPPER.createObjectNode()
+                .put("label", label)
+                .put("baseUrl", baseUrl)
+                .put("concurrency", concurrency)
+                .put("elapsedSeconds", Math.round(elapsedSeconds));
+        ObjectNode scenarios = root.putObject("scenarios");
+
+        System.out.printf("%n%-8s %8s %8s %9s %10s %10s %10s %10s %10s%n",
+                "场景", "成功", "失败", "吞吐/s", "提交p50", "提交p99", "完成p50", "完成p99", "完成max");
+        for (String scenario : mix.keySet()) {
+            ScenarioStats s = stats.get(scenario);
+            if (s == null) {
+                continue;
+            }
+            long ok = s.succeeded.get();
+            long ko = s.failed.get();
+            succeeded += ok;
+            failed += ko;
+            System.out.printf("%-8s %8d %8d %9.2f %10.0f %10.0f %10.0f %10.0f %10.0f%n",
+                    scenario, ok, ko, ok / elapsedSeconds,
+                    s.submit.percentileMillis(50), s.submit.percentileMillis(99),
+                    s.endToEnd.percentileMillis(50), s.endToEnd.percentileMillis(99), s.endToEnd.maxMillis());
+            if (!s.failures.isEmpty()) {
+                System.out.println("         失败原因：" + s.failures);
+            }
+            ObjectNode node = scenarios.putObject(scenario)
+                    .put("succeeded", ok)
+                    .put("failed", ko)
+                    .put("polls", s.polls.get())
+                    .put("throughput", ok / elapsedSeconds)
+                    .put("submitP50Ms", s.submit.percentileMillis(50))
+                    .put("submitP99Ms", s.submit.percentileMillis(99))
+                    .put("endToEndP50Ms", s.endToEnd.percentileMillis(50))
+                    .put("endToEndP99Ms", s.endToEnd.percentileMillis(99))
+                    .put("endToEndMaxMs", s.endToEnd.maxMillis());
+            node.set("failures", MAPPER.valueToTree(s.failures));
+        }
+
+        long total = succeeded + failed;
+        double errorRate = total == 0 ? 1 : (double) failed / total;
+        System.out.printf("合计：成功 %d，失败 %d，错误率 %.2f%%，吞吐量 %.2f/s%n",
+                succeeded, failed, errorRate * 100, succeeded / elapsedSeconds);
+        root.put("succeeded", succeeded).put("failed", failed).put("errorRate", errorRate);
+
+        System.out.printf("%n饱和度（采样 %d 次，失败 %d 次）：峰值 / 结束时%n", sampler.samples(), sampler.errors());
+        ObjectNode saturation = root.putObject("saturation");
+        sampler.snapshot().forEach((series, stat) -> {
+            System.out.printf("  %-90s %12.3f %12.3f%n", series, stat[0], stat[1]);
+            saturation.putObject(series).put("max", stat[0]).put("last", stat[1]);
+        });
+
+        if (report != null) {
+            Files.writeString(Path.of(report), MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root));
+            System.out.println("报告已写入 " + Path.of(report).toAbsolutePath());
+        }
+        return errorRate <= maxErrorRate;
+    }
+
+    /**
+     * 读取 seed 写出的用户文件：首行 siteId=xx，其余每行一个用户ID
+     */
+    private UserList readUsers() throws IOException {
+        Long siteId = null;
+        List<Long> ids = new ArrayList<>();
+        for (String line : Files.readAllLines(usersFile)) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("siteId=")) {
+                siteId = Long.valueOf(line.substring("siteId=".length()));
+            } else {
+                ids.add(Long.valueOf(line));
+            }
+        }
+        if (siteId == null || ids.isEmpty()) {
+            throw new IllegalStateException("用户文件无效，请先执行 seed：" + usersFile.toAbsolutePath());
+        }
+        return new UserList(siteId, ids);
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1]) : 1;
+            if (weight > 0) {
+                result.put(kv[0], weight);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("mix 至少需要一个权重大于 0 的场景");
+        }
+        return result;
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long wait = nanoTime - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record UserList(long siteId, List<Long> ids) {
+    }
+
+    /**
+     * 单个场景的统计
+     */
+    private static final class ScenarioStats {
+        final LatencyRecorder submit = new LatencyRecorder();
+        final LatencyRecorder endToEnd = new LatencyRecorder();
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong polls = new AtomicLong();
+        final Map<String, Long> failures = new ConcurrentHashMap<>();
+
+        void fail(String reason) {
+            failed.incrementAndGet();
+            failures.merge(reason, 1L, Long::sum);
+        }
+    }
+}
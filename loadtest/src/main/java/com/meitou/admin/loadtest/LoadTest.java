@@ -0,0 +1,44 @@
+package com.meitou.admin.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 压测工具入口
+ *
+ * fake-platform  启动本地假 AI 平台（JSON / SSE / 异步任务协议，可配置延迟和故障注入）
+ * seed           在被测库中写入压测站点、指向假平台的 API 平台配置和压测用户
+ * cleanup        删除 seed 写入的数据
+ * run            对本地启动的应用执行 提交 → 轮询 → 完成 场景，输出吞吐量、延迟分位数和连接池/线程池饱和度
+ * compare        对比两次 run 的 JSON 报告（如平台线程与虚拟线程模式）
+ *
+ * 参数均为 --key=value 形式，见 loadtest/README.md
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Options options = new Options(args, 1);
+        switch (args[0]) {
+            case "fake-platform" -> FakeAiPlatform.start(options).awaitShutdown();
+            case "seed" -> new LoadTestSeeder(options).seed();
+            case "cleanup" -> new LoadTestSeeder(options).cleanup();
+            case "run" -> System.exit(new LoadDriver(options).run() ? 0 : 1);
+            case "compare" -> System.exit(new ReportComparator(options).compare() ? 0 : 1);
+            default -> {
+                System.err.println("未知命令：" + Arrays.toString(args));
+                usage();
+                System.exit(2);
+            }
+        }
+    }
+
+    private static void usage() {
+        System.out.println("用法：java -jar loadtest.jar <fake-platform|seed|cleanup|run|compare> [--key=value ...]");
+    }
+}
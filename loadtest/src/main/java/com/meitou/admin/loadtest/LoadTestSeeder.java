@@ -0,0 +1,218 @@
+package com.meitou.admin.loadtest;
+
+import com.meitou.admin.util.AesEncryptUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测数据准备
+ * 在被测库中写入压测站点、指向假 AI 平台的 API 平台和接口配置、带足够积分的压测用户，
+ * 并把用户ID写入文件供 run 使用（run 直接用 TokenUtil 签发令牌，不走登录）。
+ * 所有数据以 loadtest- 前缀标识，cleanup 只删除这些数据。
+ *
+ * 应用启动时加载平台和站点缓存，seed 需要在启动被测应用之前执行
+ */
+final class LoadTestSeeder {
+
+    static final String PREFIX = "loadtest-";
+
+    /**
+     * 压测场景对应的平台：类型、假平台路径（模式）、模型、接口响应模式
+     */
+    private record PlatformSeed(String type, String mode, String model, String responseMode) {
+    }
+
+    private static final List<PlatformSeed> PLATFORMS = List.of(
+            new PlatformSeed("txt2img", "json", "lt-json", "JSON"),
+            new PlatformSeed("txt2img", "sse", "lt-sse", "Stream"),
+            new PlatformSeed("txt2img", "async", "lt-async", "JSON"),
+            new PlatformSeed("txt2video", "video", "lt-video", "JSON"));
+
+    private final String jdbcUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final Long siteId;
+    private final String fakeUrl;
+    private final int users;
+    private final int balance;
+    private final Path usersFile;
+
+    LoadTestSeeder(Options options) {
+        this.jdbcUrl = options.get("jdbcUrl",
+                "jdbc:mysql://127.0.0.1:3306/meitou_admin?useUnicode=true&characterEncoding=utf8&serverTimezone=Asia/Shanghai");
+        this.dbUser = options.get("dbUser", "root");
+        this.dbPassword = options.get("dbPassword", "");
+        String site = options.get("siteId", null);
+        this.siteId = site == null ? null : Long.valueOf(site);
+        this.fakeUrl = options.get("fakeUrl", "http://127.0.0.1:18080");
+        this.users = options.getInt("users", 50);
+        this.balance = options.getInt("balance", 1_000_000);
+        this.usersFile = Path.of(options.get("usersFile", "loadtest-users.txt"));
+    }
+
+    void seed() throws SQLException, IOException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword)) {
+            connection.setAutoCommit(false);
+            long site = siteId != null ? siteId : ensureSite(connection);
+            deletePlatforms(connection, site);
+            String apiKey = AesEncryptUtil.encrypt("sk-loadtest");
+            for (PlatformSeed seed : PLATFORMS) {
+                long platformId = insertPlatform(connection, site, seed, apiKey);
+                insertInterface(connection, site, platformId, seed);
+            }
+            List<Long> userIds = ensureUsers(connection, site);
+            connection.commit();
+
+            Files.writeString(usersFile, "siteId=" + site + "\n" + joinLines(userIds));
+            System.out.printf("已写入压测数据：站点 %d，平台 %d 个（假平台 %s），用户 %d 个（ID 列表见 %s）%n",
+                    site, PLATFORMS.size(), fakeUrl, userIds.size(), usersFile.toAbsolutePath());
+        }
+    }
+
+    void cleanup() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword)) {
+            connection.setAutoCommit(false);
+            String userIds = "SELECT id FROM users WHERE username LIKE '" + PREFIX + "%'";
+            int records = 0;
+            try (Statement statement = connection.createStatement()) {
+                // MySQL 不允许在子查询中引用正在删除的表，这里的子查询只引用 users
+                for (String table : List.of("user_assets", "user_transactions", "generation_records")) {
+                    records += statement.executeUpdate("DELETE FROM " + table + " WHERE user_id IN (" + userIds + ")");
+                }
+                int deletedUsers = statement.executeUpdate("DELETE FROM users WHERE username LIKE '" + PREFIX + "%'");
+                int platforms = deletePlatforms(connection, null);
+                connection.commit();
+                System.out.printf("已删除压测数据：平台 %d 个，用户 %d 个，生成记录/流水/资产 %d 条%n", platforms, deletedUsers, records);
+            }
+        }
+    }
+
+    private long ensureSite(Connection connection) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("SELECT id FROM sites WHERE code = ?")) {
+            query.setString(1, "loadtest");
+            try (ResultSet rs = query.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO sites (name, code, domain, status, description) VALUES (?, ?, ?, 'active', ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, "压测站点");
+            insert.setString(2, "loadtest");
+            insert.setString(3, "loadtest.local");
+            insert.setString(4, "压测工具创建，可随时删除");
+            insert.executeUpdate();
+            return generatedKey(insert);
+        }
+    }
+
+    /**
+     * 删除压测平台及其接口
+     *
+     * @param site 站点ID，为 null 时删除所有站点下的压测平台
+     */
+    private int deletePlatforms(Connection connection, Long site) throws SQLException {
+        String condition = "name LIKE '" + PREFIX + "%'" + (site != null ? " AND site_id = " + site : "");
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM api_interfaces WHERE platform_id IN (SELECT id FROM api_platforms WHERE "
+                    + condition + ")");
+            return statement.executeUpdate("DELETE FROM api_platforms WHERE " + condition);
+        }
+    }
+
+    private long insertPlatform(Connection connection, long site, PlatformSeed seed, String apiKey) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO api_platforms (name, alias, api_key, is_enabled, description, node_info, site_id, supported_models, type, deleted) "
+                        + "VALUES (?, ?, ?, 1, ?, 'overseas', ?, ?, ?, 0)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, PREFIX + seed.mode());
+            insert.setString(2, PREFIX + seed.mode());
+            insert.setString(3, apiKey);
+            insert.setString(4, "压测假平台（" + seed.mode() + "）");
+            insert.setLong(5, site);
+            insert.setString(6, "[{\"name\":\"" + seed.model() + "\",\"label\":\"压测 " + seed.mode() + "\",\"defaultCost\":1}]");
+            insert.setString(7, seed.type());
+            insert.executeUpdate();
+            return generatedKey(insert);
+        }
+    }
+
+    private void insertInterface(Connection connection, long site, long platformId, PlatformSeed seed) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO api_interfaces (platform_id, url, method, response_mode, site_id, deleted) VALUES (?, ?, 'POST', ?, ?, 0)")) {
+            insert.setLong(1, platformId);
+            insert.setString(2, fakeUrl + "/v1/draw/" + seed.mode());
+            insert.setString(3, seed.responseMode());
+            insert.setLong(4, site);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * 补足压测用户并重置积分；密码字段不是合法的 BCrypt 串，无法用于登录
+     */
+    private List<Long> ensureUsers(Connection connection, long site) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            String username = PREFIX + i;
+            Long id = null;
+            try (PreparedStatement query = connection.prepareStatement("SELECT id FROM users WHERE username = ? AND site_id = ?")) {
+                query.setString(1, username);
+                query.setLong(2, site);
+                try (ResultSet rs = query.executeQuery()) {
+                    if (rs.next()) {
+                        id = rs.getLong(1);
+                    }
+                }
+            }
+            if (id == null) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO users (email, username, password, balance, status, site_id, deleted) VALUES (?, ?, ?, ?, 'active', ?, 0)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    insert.setString(1, username + "@loadtest.local");
+                    insert.setString(2, username);
+                    insert.setString(3, "loadtest-no-login");
+                    insert.setInt(4, balance);
+                    insert.setLong(5, site);
+                    insert.executeUpdate();
+                    id = generatedKey(insert);
+                }
+            } else {
+                try (PreparedStatement update = connection.prepareStatement("UPDATE users SET balance = ?, deleted = 0 WHERE id = ?")) {
+                    update.setInt(1, balance);
+                    update.setLong(2, id);
+                    update.executeUpdate();
+                }
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static long generatedKey(Statement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("未返回自增主键");
+            }
+            return keys.getLong(1);
+        }
+    }
+
+    private static String joinLines(List<Long> ids) {
+        StringBuilder sb = new StringBuilder();
+        ids.forEach(id -> sb.append(id).append('\n'));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.meitou.admin.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 饱和度采样
+ * 压测期间定时抓取应用的 Prometheus 端点，记录连接池、线程池、舱壁等指标每个序列的峰值和最后值
+ */
+final class MetricsSampler {
+
+    /**
+     * 关注的指标（前缀匹配）
+     */
+    static final List<String> WATCHED = List.of(
+            "hikaricp_connections_active",
+            "hikaricp_connections_pending",
+            "hikaricp_connections_max",
+            "tomcat_threads_busy_threads",
+            "tomcat_threads_config_max_threads",
+            "executor_active_threads",
+            "executor_queued_tasks",
+            "executor_pool_max_threads",
+            "resilience_bulkhead_active",
+            "resilience_circuit_open",
+            "platform_circuit_open",
+            "jvm_threads_live_threads",
+            "process_cpu_usage",
+            "jvm_gc_pause_seconds_max");
+
+    private final String url;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final Map<String, double[]> series = new TreeMap<>();
+    private ScheduledExecutorService scheduler;
+    private int samples;
+    private int errors;
+
+    MetricsSampler(String url) {
+        this.url = url;
+    }
+
+    void start(long intervalMillis) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(FakeAiPlatform.daemon("metrics-sampler"));
+        scheduler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+        sample();
+    }
+
+    private void sample() {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(5)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                errors++;
+                return;
+            }
+            parse(response.body());
+        } catch (Exception e) {
+            errors++;
+        }
+    }
+
+    synchronized void parse(String body) {
+        samples++;
+        for (String line : body.split("\n")) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            if (WATCHED.stream().noneMatch(line::startsWith)) {
+                continue;
+            }
+            int split = line.lastIndexOf(' ');
+            if (split < 0) {
+                continue;
+            }
+            String name = line.substring(0, split);
+            double value;
+            try {
+                value = Double.parseDouble(line.substring(split + 1));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            double[] stat = series.computeIfAbsent(name, k -> new double[]{Double.NEGATIVE_INFINITY, 0});
+            stat[0] = Math.max(stat[0], value);
+            stat[1] = value;
+        }
+    }
+
+    /**
+     * 序列名 → {峰值, 最后值}
+     */
+    synchronized Map<String, double[]> snapshot() {
+        Map<String, double[]> copy = new TreeMap<>();
+        series.forEach((name, stat) -> copy.put(name, stat.clone()));
+        return copy;
+    }
+
+    synchronized int samples() {
+        return samples;
+    }
+
+    synchronized int errors() {
+        return errors;
+    }
+}
@@ -0,0 +1,103 @@
+package com.meitou.admin.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 对比两次压测报告
+ * 用于同一负载下比较两种配置（如平台线程与虚拟线程模式）：分场景吞吐量、端到端延迟分位数、错误率和饱和度峰值。
+ * 两份报告的并发数和持续时间应一致，否则只输出警告
+ */
+final class ReportComparator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path baseline;
+    private final Path candidate;
+    private final double tolerance;
+
+    ReportComparator(Options options) {
+        String baselinePath = options.get("baseline", null);
+        String candidatePath = options.get("candidate", null);
+        if (baselinePath == null || candidatePath == null) {
+            throw new IllegalArgumentException("需要 --baseline 和 --candidate 两份报告");
+        }
+        this.baseline = Path.of(baselinePath);
+        this.candidate = Path.of(candidatePath);
+        this.tolerance = options.getDouble("tolerance", 0.05);
+    }
+
+    /**
+     * @return 候选报告的总吞吐量不低于基线的 (1 - tolerance) 时为 true
+     */
+    boolean compare() throws IOException {
+        JsonNode base = MAPPER.readTree(baseline.toFile());
+        JsonNode cand = MAPPER.readTree(candidate.toFile());
+        String baseLabel = label(base, "baseline");
+        String candLabel = label(cand, "candidate");
+
+        if (base.path("concurrency").asInt() != cand.path("concurrency").asInt()) {
+            System.out.printf("警告：并发数不同（%d / %d），结果不可直接比较%n",
+                    base.path("concurrency").asInt(), cand.path("concurrency").asInt());
+        }
+        if (Math.abs(base.path("elapsedSeconds").asDouble() - cand.path("elapsedSeconds").asDouble())
+                > base.path("elapsedSeconds").asDouble() * 0.2) {
+            System.out.println("警告：两次压测持续时间相差超过 20%");
+        }
+
+        System.out.printf("%n基线：%s（%s），对比：%s（%s），并发 %d%n",
+                baseLabel, baseline, candLabel, candidate, base.path("concurrency").asInt());
+        System.out.printf("%n%-8s %12s %12s %8s %12s %12s %12s %12s%n",
+                "场景", "吞吐/s 基线", "吞吐/s 对比", "变化", "完成p50 基线", "完成p50 对比", "完成p99 基线", "完成p99 对比");
+        Iterator<Map.Entry<String, JsonNode>> scenarios = base.path("scenarios").fields();
+        while (scenarios.hasNext()) {
+            Map.Entry<String, JsonNode> entry = scenarios.next();
+            JsonNode b = entry.getValue();
+            JsonNode c = cand.path("scenarios").path(entry.getKey());
+            if (c.isMissingNode()) {
+                System.out.printf("%-8s 对比报告中没有该场景%n", entry.getKey());
+                continue;
+            }
+            System.out.printf("%-8s %12.2f %12.2f %7.1f%% %12.0f %12.0f %12.0f %12.0f%n", entry.getKey(),
+                    b.path("throughput").asDouble(), c.path("throughput").asDouble(),
+                    change(b.path("throughput").asDouble(), c.path("throughput").asDouble()),
+                    b.path("endToEndP50Ms").asDouble(), c.path("endToEndP50Ms").asDouble(),
+                    b.path("endToEndP99Ms").asDouble(), c.path("endToEndP99Ms").asDouble());
+        }
+
+        double baseThroughput = base.path("succeeded").asDouble() / base.path("elapsedSeconds").asDouble(1);
+        double candThroughput = cand.path("succeeded").asDouble() / cand.path("elapsedSeconds").asDouble(1);
+        System.out.printf("合计吞吐量：%.2f/s → %.2f/s（%.1f%%），错误率：%.2f%% → %.2f%%%n",
+                baseThroughput, candThroughput, change(baseThroughput, candThroughput),
+                base.path("errorRate").asDouble() * 100, cand.path("errorRate").asDouble() * 100);
+
+        System.out.printf("%n饱和度峰值：%-72s %12s %12s%n", "", baseLabel, candLabel);
+        Iterator<Map.Entry<String, JsonNode>> series = base.path("saturation").fields();
+        while (series.hasNext()) {
+            Map.Entry<String, JsonNode> entry = series.next();
+            JsonNode c = cand.path("saturation").path(entry.getKey());
+            System.out.printf("  %-88s %12.3f %12s%n", entry.getKey(), entry.getValue().path("max").asDouble(),
+                    c.isMissingNode() ? "-" : String.format("%.3f", c.path("max").asDouble()));
+        }
+
+        boolean ok = candThroughput >= baseThroughput * (1 - tolerance);
+        if (!ok) {
+            System.out.printf("%n对比结果的吞吐量低于基线超过 %.0f%%%n", tolerance * 100);
+        }
+        return ok;
+    }
+
+    private static String label(JsonNode report, String defaultLabel) {
+        String label = report.path("label").asText("");
+        return label.isEmpty() ? defaultLabel : label;
+    }
+
+    private static double change(double base, double value) {
+        return base == 0 ? 0 : (value - base) / base * 100;
+    }
+}
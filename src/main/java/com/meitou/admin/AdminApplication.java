@@ -2,6 +2,7 @@ package com.meitou.admin;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
@@ -17,8 +18,16 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @SpringBootApplication
 public class AdminApplication {
 
+    /**
+     * 启动步骤记录上限，超过后不再记录（正常启动约 3000 步）
+     */
+    private static final int STARTUP_STEP_CAPACITY = 10000;
+
     public static void main(String[] args) {
-        SpringApplication.run(AdminApplication.class, args);
+        SpringApplication application = new SpringApplication(AdminApplication.class);
+        // 记录启动各阶段耗时，供 /actuator/startup 和 StartupTimelineReporter 使用
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+        application.run(args);
     }
 }
 
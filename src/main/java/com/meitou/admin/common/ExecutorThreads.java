@@ -0,0 +1,60 @@
+package com.meitou.admin.common;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自建线程池的线程工厂
+ *
+ * 默认创建守护平台线程。开启虚拟线程模式（spring.threads.virtual.enabled=true 且运行在 Java 21 及以上）时，
+ * 以阻塞 IO 为主的线程池（调用上游、查库、写存储）改用虚拟线程：线程数仍受线程池大小限制，
+ * 并发上限、队列和拒绝策略都不变，只是阻塞在 JDBC / HTTP 上的线程不再占用操作系统线程。
+ * CPU 密集的线程池（如图片处理）请继续使用 {@link #platform(String)}
+ */
+public final class ExecutorThreads {
+
+    /**
+     * 虚拟线程开关，与 Spring Boot 切换 Tomcat、@Scheduled 和 applicationTaskExecutor 的配置项相同
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    private ExecutorThreads() {
+    }
+
+    /**
+     * 守护平台线程，线程名为 前缀 + 序号（从 1 开始）
+     *
+     * @param namePrefix 线程名前缀，如 "export-job-"
+     */
+    public static ThreadFactory platform(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 阻塞 IO 线程池使用的线程工厂：开启虚拟线程模式时为虚拟线程，否则为守护平台线程
+     *
+     * @param namePrefix 线程名前缀
+     * @param virtualThreadsEnabled spring.threads.virtual.enabled 的值
+     */
+    public static ThreadFactory blockingIo(String namePrefix, boolean virtualThreadsEnabled) {
+        if (virtualThreadsEnabled && isVirtualThreadsSupported()) {
+            return new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory();
+        }
+        return platform(namePrefix);
+    }
+
+    /**
+     * 当前 JVM 是否支持虚拟线程（Java 21 及以上）；低版本上开启开关不生效，与 Spring Boot 的行为一致
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+}
@@ -0,0 +1,52 @@
+package com.meitou.admin.common;
+
+/**
+ * 失败重试退避
+ * 用于请求路径上的懒加载（如缓存首次加载）：加载失败后在退避期内直接放弃，不再每个请求都查库，
+ * 退避时间从初始值开始每次失败翻倍，不超过上限；成功后重置。
+ * 调用方负责串行化（通常在加载锁内调用）
+ */
+public final class RetryBackoff {
+
+    private final long initialMillis;
+    private final long maxMillis;
+
+    private volatile long nextAttemptAt;
+    private volatile long currentMillis;
+
+    /**
+     * @param initialMillis 首次失败后的退避时间（毫秒）
+     * @param maxMillis 退避时间上限（毫秒）
+     */
+    public RetryBackoff(long initialMillis, long maxMillis) {
+        this.initialMillis = Math.max(0, initialMillis);
+        this.maxMillis = Math.max(this.initialMillis, maxMillis);
+    }
+
+    /**
+     * 当前是否可以尝试（不在退避期内）
+     */
+    public boolean canAttempt() {
+        return System.currentTimeMillis() >= nextAttemptAt;
+    }
+
+    /**
+     * 记录一次失败，进入退避期
+     *
+     * @return 本次退避时间（毫秒）
+     */
+    public long onFailure() {
+        long delay = currentMillis == 0 ? initialMillis : Math.min(maxMillis, currentMillis * 2);
+        currentMillis = delay;
+        nextAttemptAt = System.currentTimeMillis() + delay;
+        return delay;
+    }
+
+    /**
+     * 记录一次成功，清除退避
+     */
+    public void onSuccess() {
+        currentMillis = 0;
+        nextAttemptAt = 0;
+    }
+}
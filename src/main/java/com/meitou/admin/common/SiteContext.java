@@ -1,34 +1,48 @@
 package com.meitou.admin.common;
 
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
 /**
  * 站点上下文工具类
  * 使用ThreadLocal存储当前请求的站点ID，供多租户插件使用
+ *
+ * 切换线程时上下文不会自动传递，未设置站点ID的查询会被多租户插件限定为 site_id=0。
+ * 异步执行请使用：
+ * 1. 自建线程池：{@link SiteContextThreadPoolExecutor}
+ * 2. Spring 线程池：{@link SiteContextTaskDecorator}
+ * 3. OkHttp 异步回调：{@link SiteContextCallback#wrap(okhttp3.Callback)}
+ * 4. 其他场景（如 CompletableFuture 使用公共线程池）：{@link #wrap(Runnable)} 等方法
+ *
+ * 按指定站点执行代码请使用 {@link #runWith(Long, Runnable)} / {@link #callWith(Long, Callable)}，
+ * 它们与 ScopedValue.where(...).run/call 的形式一致，执行完恢复原有上下文；
+ * 迁移到 ScopedValue 时只需替换这里的实现，调用方不用修改
  */
 public class SiteContext {
-    
+
     /**
      * ThreadLocal存储站点ID
      */
     private static final ThreadLocal<Long> SITE_ID_HOLDER = new ThreadLocal<>();
-    
+
     /**
      * 设置当前请求的站点ID
-     * 
+     *
      * @param siteId 站点ID
      */
     public static void setSiteId(Long siteId) {
         SITE_ID_HOLDER.set(siteId);
     }
-    
+
     /**
      * 获取当前请求的站点ID
-     * 
+     *
      * @return 站点ID，如果未设置则返回null
      */
     public static Long getSiteId() {
         return SITE_ID_HOLDER.get();
     }
-    
+
     /**
      * 清除当前请求的站点ID
      * 在请求结束后调用，避免内存泄漏
@@ -36,5 +50,91 @@ public class SiteContext {
     public static void clear() {
         SITE_ID_HOLDER.remove();
     }
-}
 
+    /**
+     * 以指定站点执行，结束后恢复原有上下文
+     *
+     * @param siteId 站点ID，为 null 时以无站点上下文执行
+     * @param runnable 执行内容
+     */
+    public static void runWith(Long siteId, Runnable runnable) {
+        Long previous = SITE_ID_HOLDER.get();
+        bind(siteId);
+        try {
+            runnable.run();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * 以指定站点执行并返回结果，结束后恢复原有上下文
+     *
+     * @param siteId 站点ID，为 null 时以无站点上下文执行
+     * @param callable 执行内容
+     * @return 执行结果
+     */
+    public static <T> T callWith(Long siteId, Callable<T> callable) throws Exception {
+        Long previous = SITE_ID_HOLDER.get();
+        bind(siteId);
+        try {
+            return callable.call();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * 以指定站点执行并返回结果，结束后恢复原有上下文
+     *
+     * @see #callWith(Long, Callable)
+     */
+    public static <T> T supplyWith(Long siteId, Supplier<T> supplier) {
+        Long previous = SITE_ID_HOLDER.get();
+        bind(siteId);
+        try {
+            return supplier.get();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * 捕获当前站点，返回在任意线程上都以该站点执行的任务
+     *
+     * @param runnable 任务
+     * @return 包装后的任务
+     */
+    public static Runnable wrap(Runnable runnable) {
+        Long siteId = SITE_ID_HOLDER.get();
+        return () -> runWith(siteId, runnable);
+    }
+
+    /**
+     * 捕获当前站点，返回在任意线程上都以该站点执行的任务
+     *
+     * @see #wrap(Runnable)
+     */
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        Long siteId = SITE_ID_HOLDER.get();
+        return () -> callWith(siteId, callable);
+    }
+
+    /**
+     * 捕获当前站点，返回在任意线程上都以该站点执行的任务，用于 CompletableFuture.supplyAsync 等
+     *
+     * @see #wrap(Runnable)
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Long siteId = SITE_ID_HOLDER.get();
+        return () -> supplyWith(siteId, supplier);
+    }
+
+    private static void bind(Long siteId) {
+        if (siteId == null) {
+            SITE_ID_HOLDER.remove();
+        } else {
+            SITE_ID_HOLDER.set(siteId);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.meitou.admin.common;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * OkHttp 异步回调的站点上下文传递
+ * 回调在 OkHttp Dispatcher 的线程上执行，且排队的请求可能由其他请求完成时所在的线程提交，
+ * 因此在 enqueue 时捕获站点，而不是包装 Dispatcher 的线程池
+ */
+public final class SiteContextCallback implements Callback {
+
+    private final Long siteId;
+    private final Callback delegate;
+
+    private SiteContextCallback(Long siteId, Callback delegate) {
+        this.siteId = siteId;
+        this.delegate = delegate;
+    }
+
+    /**
+     * 捕获当前站点，回调时以该站点执行
+     *
+     * @param callback 回调
+     * @return 包装后的回调
+     */
+    public static Callback wrap(Callback callback) {
+        return new SiteContextCallback(SiteContext.getSiteId(), callback);
+    }
+
+    @Override
+    public void onFailure(Call call, IOException e) {
+        SiteContext.runWith(siteId, () -> delegate.onFailure(call, e));
+    }
+
+    @Override
+    public void onResponse(Call call, Response response) throws IOException {
+        try {
+            SiteContext.callWith(siteId, () -> {
+                delegate.onResponse(call, response);
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.meitou.admin.common;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Spring 线程池的站点上下文传递
+ * 注册为 Bean 后由 Spring Boot 应用到自动配置的 applicationTaskExecutor（@Async 等），
+ * 自建的 ThreadPoolTaskExecutor 需要手动 setTaskDecorator
+ */
+public class SiteContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return SiteContext.wrap(runnable);
+    }
+}
@@ -0,0 +1,27 @@
+package com.meitou.admin.common;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 传递站点上下文的线程池
+ * 提交任务时捕获提交线程的站点ID，执行时在工作线程上恢复，执行完清除，不会残留到下一个任务。
+ * submit、invokeAll、CompletableFuture.supplyAsync(..., executor) 等最终都经过 execute，均会传递；
+ * 拒绝策略为 CallerRunsPolicy 时在提交线程执行，上下文不变
+ */
+public class SiteContextThreadPoolExecutor extends ThreadPoolExecutor {
+
+    public SiteContextThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                         BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+                                         RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(SiteContext.wrap(command));
+    }
+}
@@ -0,0 +1,302 @@
+package com.meitou.admin.config;
+
+import com.baomidou.mybatisplus.core.plugins.InterceptorIgnoreHelper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.schema.Column;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带缓存的多租户 SQL 改写
+ * TenantLineInnerInterceptor 每次执行都用 JSqlParser 解析并改写 SQL，租户ID以字面量写入，改写结果无法跨租户复用。
+ * 这里改写时以占位值代替租户ID，得到与租户无关的 SQL 模板，按 (MappedStatement ID, 原始 SQL) 缓存；
+ * 执行时把占位值换成 ?，租户ID作为附加参数绑定，同一语句只在首次执行时解析。
+ *
+ * 缓存在每条 SQL 的执行路径上，使用 ConcurrentHashMap 无锁读取；超过上限时由一个线程按最近访问时间淘汰最久未用的模板，
+ * 是近似 LRU：淘汰期间其他线程照常读写，条目数可能短暂超过上限
+ *
+ * 忽略规则不变：@InterceptorIgnore(tenantLine = "true") 的语句直接跳过，ignoreTable 的表在模板中不追加条件
+ */
+public class CachingTenantLineInnerInterceptor extends TenantLineInnerInterceptor {
+
+    /**
+     * 租户ID的附加参数名
+     */
+    static final String TENANT_PARAMETER = "__tenant_id";
+
+    /**
+     * 生成模板时代替租户ID的占位值，真实 SQL 中不会出现
+     */
+    static final long PLACEHOLDER = 7_208_846_113_302_416_831L;
+
+    private static final String PLACEHOLDER_TEXT = Long.toString(PLACEHOLDER);
+
+    private final TenantLineHandler tenantLineHandler;
+    private final int maxSize;
+    private final Map<CacheKey, CacheEntry> cache = new ConcurrentHashMap<>(256);
+    private final ReentrantLock evictLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record CacheKey(String statementId, String sql) {
+    }
+
+    /**
+     * 缓存条目，记录最近访问时间用于淘汰
+     */
+    private static final class CacheEntry {
+        private final SqlTemplate template;
+        private volatile long lastAccess;
+
+        private CacheEntry(SqlTemplate template) {
+            this.template = template;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param tenantLineHandler 多租户处理器
+     * @param maxSize 最多缓存的 SQL 模板数
+     */
+    public CachingTenantLineInnerInterceptor(TenantLineHandler tenantLineHandler, int maxSize) {
+        this.tenantLineHandler = tenantLineHandler;
+        this.maxSize = Math.max(1, maxSize);
+        setTenantLineHandler(new PlaceholderTenantLineHandler(tenantLineHandler));
+    }
+
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) {
+        if (InterceptorIgnoreHelper.willIgnoreTenantLine(ms.getId())) {
+            return;
+        }
+        rewrite(ms, boundSql, false);
+    }
+
+    @Override
+    public void beforePrepare(StatementHandler sh, Connection connection, Integer transactionTimeout) {
+        MappedStatement ms = PluginUtils.mpStatementHandler(sh).mappedStatement();
+        SqlCommandType sct = ms.getSqlCommandType();
+        if (sct != SqlCommandType.INSERT && sct != SqlCommandType.UPDATE && sct != SqlCommandType.DELETE) {
+            return;
+        }
+        if (InterceptorIgnoreHelper.willIgnoreTenantLine(ms.getId())) {
+            return;
+        }
+        rewrite(ms, sh.getBoundSql(), true);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * 命中率，没有请求时为 0
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 取得 SQL 模板，未缓存时解析改写
+     *
+     * @param statementId MappedStatement ID
+     * @param sql 原始 SQL
+     * @param multiStatement 是否按多语句解析（增删改）
+     */
+    SqlTemplate template(String statementId, String sql, boolean multiStatement) {
+        CacheKey key = new CacheKey(statementId, sql);
+        CacheEntry entry = cache.get(key);
+        if (entry != null) {
+            hits.increment();
+            entry.lastAccess = System.nanoTime();
+            return entry.template;
+        }
+        misses.increment();
+        String rewritten = multiStatement ? parserMulti(sql, null) : parserSingle(sql, null);
+        SqlTemplate template = SqlTemplate.parse(rewritten);
+        cache.put(key, new CacheEntry(template));
+        if (cache.size() > maxSize) {
+            evict();
+        }
+        return template;
+    }
+
+    /**
+     * 淘汰最久未访问的模板直到不超过上限，已有线程在淘汰时直接返回
+     */
+    private void evict() {
+        if (!evictLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = cache.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            // 按访问时间的快照排序，排序期间条目仍可能被访问
+            cache.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().lastAccess))
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(excess)
+                    .forEach(e -> cache.remove(e.getKey()));
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    private void rewrite(MappedStatement ms, BoundSql boundSql, boolean multiStatement) {
+        String originalSql = boundSql.getSql();
+        if (originalSql.contains(PLACEHOLDER_TEXT)) {
+            // 原始 SQL 恰好包含占位值时无法区分，按字面量改写且不缓存
+            String rewritten = multiStatement ? parserMulti(originalSql, null) : parserSingle(originalSql, null);
+            PluginUtils.mpBoundSql(boundSql).sql(rewritten.replace(PLACEHOLDER_TEXT, tenantLineHandler.getTenantId().toString()));
+            return;
+        }
+
+        SqlTemplate template = template(ms.getId(), originalSql, multiStatement);
+        PluginUtils.MPBoundSql mpBs = PluginUtils.mpBoundSql(boundSql);
+        if (template.tenantParameterIndexes().length == 0) {
+            mpBs.sql(template.sql());
+            return;
+        }
+
+        Expression tenantId = tenantLineHandler.getTenantId();
+        Object value = tenantId instanceof LongValue longValue ? Long.valueOf(longValue.getValue())
+                : tenantId instanceof StringValue stringValue ? stringValue.getValue()
+                : null;
+        List<ParameterMapping> mappings = new ArrayList<>(boundSql.getParameterMappings());
+        if (value == null || template.parameterCount() != mappings.size() + template.tenantParameterIndexes().length) {
+            // 无法作为参数绑定的租户表达式，或参数个数与占位符不一致（如 ${} 拼接），退回字面量
+            mpBs.sql(template.render(tenantId.toString()));
+            return;
+        }
+
+        ParameterMapping mapping = new ParameterMapping.Builder(ms.getConfiguration(), TENANT_PARAMETER, value.getClass()).build();
+        for (int index : template.tenantParameterIndexes()) {
+            mappings.add(index, mapping);
+        }
+        mpBs.sql(template.sql());
+        mpBs.parameterMappings(mappings);
+        boundSql.setAdditionalParameter(TENANT_PARAMETER, value);
+    }
+
+    /**
+     * SQL 模板
+     *
+     * @param sql 租户ID位置为 ? 的 SQL
+     * @param tenantParameterIndexes 租户ID参数在参数列表中的位置（升序）
+     * @param parameterCount 模板中 ? 的总数（含租户ID）
+     * @param rewritten 租户ID为占位值的改写结果
+     */
+    record SqlTemplate(String sql, int[] tenantParameterIndexes, int parameterCount, String rewritten) {
+
+        /**
+         * 把改写结果中的占位值换成 ?，并记录每个占位值之前的参数个数（跳过引号内的内容）
+         */
+        static SqlTemplate parse(String rewritten) {
+            StringBuilder sql = new StringBuilder(rewritten.length());
+            List<Integer> indexes = new ArrayList<>();
+            int parameters = 0;
+            char quote = 0;
+            int i = 0;
+            int length = rewritten.length();
+            while (i < length) {
+                char c = rewritten.charAt(i);
+                if (quote != 0) {
+                    sql.append(c);
+                    if (c == '\\' && i + 1 < length) {
+                        sql.append(rewritten.charAt(i + 1));
+                        i += 2;
+                        continue;
+                    }
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                    i++;
+                    continue;
+                }
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                } else if (c == '?') {
+                    parameters++;
+                } else if (rewritten.startsWith(PLACEHOLDER_TEXT, i) && isBoundary(rewritten, i - 1)
+                        && isBoundary(rewritten, i + PLACEHOLDER_TEXT.length())) {
+                    indexes.add(parameters++);
+                    sql.append('?');
+                    i += PLACEHOLDER_TEXT.length();
+                    continue;
+                }
+                sql.append(c);
+                i++;
+            }
+            return new SqlTemplate(sql.toString(), indexes.stream().mapToInt(Integer::intValue).toArray(), parameters, rewritten);
+        }
+
+        /**
+         * 以字面量写入租户ID
+         */
+        String render(String tenantIdLiteral) {
+            return rewritten.replace(PLACEHOLDER_TEXT, tenantIdLiteral);
+        }
+
+        private static boolean isBoundary(String sql, int index) {
+            return index < 0 || index >= sql.length() || !Character.isLetterOrDigit(sql.charAt(index));
+        }
+    }
+
+    /**
+     * 生成模板用的处理器：租户ID固定为占位值，其余规则委托原处理器
+     */
+    private record PlaceholderTenantLineHandler(TenantLineHandler delegate) implements TenantLineHandler {
+
+        @Override
+        public Expression getTenantId() {
+            return new LongValue(PLACEHOLDER);
+        }
+
+        @Override
+        public String getTenantIdColumn() {
+            return delegate.getTenantIdColumn();
+        }
+
+        @Override
+        public boolean ignoreTable(String tableName) {
+            return delegate.ignoreTable(tableName);
+        }
+
+        @Override
+        public boolean ignoreInsert(List<Column> columns, String tenantIdColumn) {
+            return delegate.ignoreInsert(columns, tenantIdColumn);
+        }
+    }
+}
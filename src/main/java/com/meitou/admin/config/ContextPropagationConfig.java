@@ -0,0 +1,19 @@
+package com.meitou.admin.config;
+
+import com.meitou.admin.common.SiteContextTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 上下文传递配置
+ * Spring Boot 会把唯一的 TaskDecorator Bean 应用到自动配置的任务线程池，异步任务继承提交线程的站点上下文
+ */
+@Configuration
+public class ContextPropagationConfig {
+
+    @Bean
+    public TaskDecorator siteContextTaskDecorator() {
+        return new SiteContextTaskDecorator();
+    }
+}
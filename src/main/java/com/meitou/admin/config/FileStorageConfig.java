@@ -13,7 +13,7 @@ import org.springframework.context.annotation.Configuration;
 public class FileStorageConfig {
     
     /**
-     * 存储类型：tencent, aliyun
+     * 存储类型：tencent, aliyun, local
      */
     private String type;
     
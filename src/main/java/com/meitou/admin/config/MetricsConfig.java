@@ -0,0 +1,13 @@
+package com.meitou.admin.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * 监控指标配置
+ * 加载 metrics.properties 中的默认值（Prometheus 抓取端点、独立管理端口等），优先级低于 application.yml，部署时可覆盖
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+}
@@ -4,10 +4,13 @@ import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
 import com.meitou.admin.common.SiteContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,18 +21,26 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class MybatisPlusConfig {
     
+    /**
+     * 多租户 SQL 模板缓存上限（按 MappedStatement ID + 原始 SQL 计）
+     */
+    @Value("${mybatis-plus.tenant.sqlCacheSize:2000}")
+    private int tenantSqlCacheSize;
+
     /**
      * 配置MyBatis Plus拦截器
      * 包含分页插件和多租户插件
      */
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(MeterRegistry meterRegistry) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
         
         // 添加多租户插件（注意：需要先添加多租户插件，再添加分页插件）
-        TenantLineInnerInterceptor tenantInterceptor = new TenantLineInnerInterceptor();
-        tenantInterceptor.setTenantLineHandler(new SiteTenantLineHandler());
+        // 改写结果按语句缓存，租户ID作为参数绑定
+        CachingTenantLineInnerInterceptor tenantInterceptor =
+                new CachingTenantLineInnerInterceptor(new SiteTenantLineHandler(), tenantSqlCacheSize);
         interceptor.addInnerInterceptor(tenantInterceptor);
+        bindMetrics(tenantInterceptor, meterRegistry);
         
         // 添加分页插件
         PaginationInnerInterceptor paginationInterceptor = new PaginationInnerInterceptor(DbType.MYSQL);
@@ -37,6 +48,26 @@ public class MybatisPlusConfig {
         
         return interceptor;
     }
+
+    /**
+     * 多租户 SQL 模板缓存指标：tenant_sql_cache_gets_total{result=hit|miss}、tenant_sql_cache_size、tenant_sql_cache_hit_ratio
+     */
+    private void bindMetrics(CachingTenantLineInnerInterceptor tenantInterceptor, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("tenant.sql.cache.gets", tenantInterceptor, CachingTenantLineInnerInterceptor::getHits)
+                .description("多租户 SQL 模板缓存查询次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("tenant.sql.cache.gets", tenantInterceptor, CachingTenantLineInnerInterceptor::getMisses)
+                .description("多租户 SQL 模板缓存查询次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("tenant.sql.cache.size", tenantInterceptor, CachingTenantLineInnerInterceptor::getSize)
+                .description("已缓存的多租户 SQL 模板数")
+                .register(meterRegistry);
+        Gauge.builder("tenant.sql.cache.hit.ratio", tenantInterceptor, CachingTenantLineInnerInterceptor::getHitRate)
+                .description("多租户 SQL 模板缓存命中率（启动以来）")
+                .register(meterRegistry);
+    }
     
     /**
      * 多租户处理器
@@ -1,20 +1,32 @@
 package com.meitou.admin.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * @ClassName RestConfig
- * @Description
+ * @Description 共享 RestTemplate，必须设置连接和读取超时，否则外部服务无响应时会无限期占用线程
  * @Author wuguan
  * @Date 2025/12/28 23:53
  * @Version 1.0
  */
 @Configuration
 public class RestConfig {
+
+    @Value("${rest.connectTimeoutMs:10000}")
+    private int connectTimeoutMs;
+
+    @Value("${rest.readTimeoutMs:120000}")
+    private int readTimeoutMs;
+
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(connectTimeoutMs);
+        factory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(factory);
     }
 }
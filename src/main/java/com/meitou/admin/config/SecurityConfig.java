@@ -54,12 +54,18 @@ public class SecurityConfig {
                         "/api/app/auth/login-by-code",
                         "/api/app/auth/login-by-password",
                         "/api/app/user/avatar/**",
+                        "/api/app/files/**",
                         "/api/app/site/**",
                         "/api/app/recharge/callback/**",
                         "/api/admin/auth/login",
                         "/api/debug/**",
+                        "/actuator/health",
+                        "/actuator/health/**",
+                        "/actuator/prometheus",
                         "/error"
                 ).permitAll()
+                // 启动时间线包含 Bean 名称和配置信息，不公开
+                .requestMatchers("/actuator/startup").hasRole("ADMIN")
                 // 管理端接口需要 ADMIN 角色
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // 用户端接口需要 USER 角色
@@ -0,0 +1,95 @@
+package com.meitou.admin.config;
+
+import com.meitou.admin.common.ExecutorThreads;
+import com.meitou.admin.service.SiteCacheService;
+import com.meitou.admin.service.admin.ApiPlatformService;
+import com.meitou.admin.service.common.ApiParameterMappingCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 启动缓存预热
+ *
+ * 容器刷新完成后在后台并行加载站点缓存、参数映射缓存和平台 apiKey 解密缓存，不阻塞启动流程。
+ * 预热完成前健康检查返回 OUT_OF_SERVICE（已加入 readiness 分组，见 metrics.properties），
+ * 负载均衡在预热完成后才把流量切过来；预热期间到达的请求由各缓存自行同步加载，结果不受影响。
+ * 单项预热失败只记录日志，对应缓存在首次访问时重试
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupCacheWarmer implements ApplicationListener<ContextRefreshedEvent>, HealthIndicator {
+
+    private final SiteCacheService siteCacheService;
+    private final ApiParameterMappingCacheService apiParameterMappingCacheService;
+    private final ApiPlatformService apiPlatformService;
+
+    /**
+     * 各项预热的结果：耗时（毫秒）或失败原因，未完成的不在其中
+     */
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+
+    private volatile CompletableFuture<Void> warmup;
+
+    /**
+     * 当Spring容器刷新完成后，开始预热
+     *
+     * @param event 上下文刷新事件
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // 避免重复初始化（Spring Boot可能会触发多次）
+        if (event.getApplicationContext().getParent() != null || warmup != null) {
+            return;
+        }
+        Map<String, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put("site", siteCacheService::initCache);
+        tasks.put("parameterMapping", apiParameterMappingCacheService::refresh);
+        tasks.put("platformApiKey", () -> log.info("平台 apiKey 解密缓存预热 {} 个", apiPlatformService.warmUpApiKeys()));
+
+        log.info("开始后台预热缓存：{}", tasks.keySet());
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), ExecutorThreads.platform("cache-warmup-"));
+        warmup = CompletableFuture.allOf(tasks.entrySet().stream()
+                        .map(task -> CompletableFuture.runAsync(() -> run(task.getKey(), task.getValue()), executor))
+                        .toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, e) -> {
+                    executor.shutdown();
+                    log.info("缓存预热完成，耗时 {} ms，JVM 启动后 {} ms 可接收流量，结果：{}",
+                            (System.nanoTime() - start) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime(), results);
+                });
+    }
+
+    @Override
+    public Health health() {
+        CompletableFuture<Void> current = warmup;
+        if (current == null || !current.isDone()) {
+            return Health.outOfService().withDetails(results).build();
+        }
+        return Health.up().withDetails(results).build();
+    }
+
+    private void run(String name, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+            results.put(name, (System.nanoTime() - start) / 1_000_000 + "ms");
+        } catch (Exception e) {
+            log.error("缓存预热失败：{}", name, e);
+            results.put(name, "failed: " + e.getMessage());
+        }
+    }
+}
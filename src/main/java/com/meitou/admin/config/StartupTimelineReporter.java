@@ -0,0 +1,88 @@
+package com.meitou.admin.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 启动耗时报告
+ * 应用就绪后读取 BufferingApplicationStartup 记录的启动步骤（见 AdminApplication），在日志中输出
+ * 按阶段汇总的耗时和自身耗时最长的步骤（扣除子步骤，如单个 Bean 的实例化），用于定位启动慢的原因。
+ * 完整时间线通过管理端口的 /actuator/startup 获取
+ */
+@Slf4j
+@Component
+public class StartupTimelineReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * 输出自身耗时最长的步骤数，0 表示不输出报告
+     */
+    @Value("${startup.timeline.topN:15}")
+    private int topN;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (topN <= 0 || !(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // 自身耗时 = 步骤耗时 - 直接子步骤耗时
+        Map<Long, Duration> childDurations = new HashMap<>();
+        for (StartupTimeline.TimelineEvent e : events) {
+            Long parentId = e.getStartupStep().getParentId();
+            if (parentId != null) {
+                childDurations.merge(parentId, e.getDuration(), Duration::plus);
+            }
+        }
+        Map<StartupTimeline.TimelineEvent, Long> selfMillis = events.stream().collect(Collectors.toMap(e -> e,
+                e -> Math.max(0, e.getDuration().minus(childDurations.getOrDefault(e.getStartupStep().getId(), Duration.ZERO)).toMillis())));
+
+        StringBuilder report = new StringBuilder();
+        Duration timeTaken = event.getTimeTaken();
+        report.append(String.format("启动耗时报告：就绪耗时 %d ms，记录 %d 个步骤%n",
+                timeTaken == null ? -1 : timeTaken.toMillis(), events.size()));
+
+        report.append("按阶段汇总（自身耗时）：\n");
+        selfMillis.entrySet().stream()
+                .collect(Collectors.groupingBy(e -> e.getKey().getStartupStep().getName(), Collectors.summingLong(Map.Entry::getValue)))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(topN)
+                .forEach(e -> report.append(String.format("  %-60s %8d ms%n", e.getKey(), e.getValue())));
+
+        report.append("自身耗时最长的步骤：\n");
+        selfMillis.entrySet().stream()
+                .sorted(Map.Entry.<StartupTimeline.TimelineEvent, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(topN)
+                .forEach(e -> report.append(String.format("  %-60s %8d ms  %s%n",
+                        e.getKey().getStartupStep().getName(), e.getValue(), describe(e.getKey().getStartupStep()))));
+        log.info(report.toString());
+    }
+
+    private static String describe(StartupStep step) {
+        StringBuilder tags = new StringBuilder();
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (!tags.isEmpty()) {
+                tags.append(", ");
+            }
+            tags.append(tag.getKey()).append('=').append(tag.getValue());
+        }
+        return tags.toString();
+    }
+}
@@ -24,6 +24,7 @@ public class DashboardController {
      * @param timeRange 时间范围
      * @param startDate 开始日期
      * @param endDate 结束日期
+     * @param exact 是否精确统计活跃用户数（默认返回估算值及误差）
      * @return 统计数据
      */
     @GetMapping("/stats")
@@ -31,8 +32,9 @@ public class DashboardController {
             @RequestParam(required = false) Long siteId,
             @RequestParam(required = false) String timeRange,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
-        Map<String, Object> stats = dashboardService.getStats(siteId, timeRange, startDate, endDate);
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        Map<String, Object> stats = dashboardService.getStats(siteId, timeRange, startDate, endDate, exact);
         return Result.success(stats);
     }
     
@@ -0,0 +1,113 @@
+package com.meitou.admin.controller.admin;
+
+import com.meitou.admin.annotation.SiteScope;
+import com.meitou.admin.common.Result;
+import com.meitou.admin.dto.ExportJobResponse;
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.service.admin.ExportService;
+import com.meitou.admin.service.admin.ExportService.ExportType;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 管理端数据导出控制器
+ * 支持导出余额流水（transactions）、充值订单（recharge-orders）、生成记录（generation-records）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/exports")
+@RequiredArgsConstructor
+public class ExportController {
+    
+    private final ExportService exportService;
+    
+    /**
+     * 直接下载 CSV（数据量超过上限时返回错误，需改用后台导出任务）
+     * 
+     * @param type 导出类型
+     * @param siteId 站点ID（必传）
+     * @param startDate 开始日期（yyyy-MM-dd）
+     * @param endDate 结束日期（yyyy-MM-dd，包含当天）
+     */
+    @GetMapping("/{type}")
+    @SiteScope // 使用 AOP 自动处理 SiteContext
+    public void download(
+            @PathVariable String type,
+            @RequestParam Long siteId,
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            HttpServletResponse response) throws IOException {
+        ExportType exportType = ExportType.fromCode(type);
+        LocalDate start = parseDate(startDate);
+        LocalDate end = parseDate(endDate);
+        checkRange(start, end);
+        exportService.checkSyncExportAllowed(exportType, siteId, start, end);
+        
+        String fileName = URLEncoder.encode(exportService.buildFileName(exportType, start, end), StandardCharsets.UTF_8);
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + fileName);
+        long rows = exportService.writeCsv(exportType, siteId, start, end, response.getOutputStream(), null);
+        log.info("导出完成：type={}, siteId={}, rows={}", type, siteId, rows);
+    }
+    
+    /**
+     * 提交后台导出任务
+     * 
+     * @param type 导出类型
+     * @param siteId 站点ID（必传）
+     * @param startDate 开始日期（yyyy-MM-dd）
+     * @param endDate 结束日期（yyyy-MM-dd，包含当天）
+     * @return 任务状态
+     */
+    @PostMapping("/{type}/jobs")
+    @SiteScope // 使用 AOP 自动处理 SiteContext
+    public Result<ExportJobResponse> submitJob(
+            @PathVariable String type,
+            @RequestParam Long siteId,
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+        LocalDate start = parseDate(startDate);
+        LocalDate end = parseDate(endDate);
+        checkRange(start, end);
+        ExportJobResponse job = exportService.submitJob(ExportType.fromCode(type), siteId, start, end);
+        return Result.success("导出任务已提交", job);
+    }
+    
+    /**
+     * 查询后台导出任务进度
+     * 
+     * @param jobId 任务ID
+     * @param siteId 站点ID（必传）
+     * @return 任务状态（完成后包含文件下载地址）
+     */
+    @GetMapping("/jobs/{jobId}")
+    @SiteScope // 使用 AOP 自动处理 SiteContext
+    public Result<ExportJobResponse> getJob(
+            @PathVariable String jobId,
+            @RequestParam Long siteId) {
+        return Result.success(exportService.getJob(jobId, siteId));
+    }
+    
+    private LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR.getCode(), "日期格式错误：" + value);
+        }
+    }
+    
+    private void checkRange(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR.getCode(), "结束日期不能早于开始日期");
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class SquareController {
     @DeleteMapping("/{id}")
     @SiteScope
     public Result<Void> delete(@PathVariable Long id, @RequestParam Long siteId) {
-        squareService.removeById(id);
+        squareService.deleteContent(id);
         return Result.success();
     }
 
@@ -0,0 +1,122 @@
+package com.meitou.admin.controller.app;
+
+import com.meitou.admin.common.Result;
+import com.meitou.admin.dto.app.DirectUploadInitRequest;
+import com.meitou.admin.dto.app.DirectUploadPartUrl;
+import com.meitou.admin.dto.app.DirectUploadPartsRequest;
+import com.meitou.admin.dto.app.DirectUploadSessionResponse;
+import com.meitou.admin.entity.UserAsset;
+import com.meitou.admin.service.app.DirectUploadService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 用户端分片直传控制器
+ * 大文件（尤其是视频）由客户端按分片直接上传到云存储，服务端只负责签名、断点续传查询和完成后登记资产
+ *
+ * 流程：
+ * 1. POST /init 申请上传会话，得到 uploadId、分片大小和分片数
+ * 2. POST /{uploadId}/parts 批量获取分片的预签名地址，客户端 PUT 分片内容
+ * 3. 中断后 GET /{uploadId} 查询已上传分片，只补传缺少的分片
+ * 4. POST /{uploadId}/complete 合并分片并登记为用户资产
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/app/assets/direct-upload")
+@RequiredArgsConstructor
+public class DirectUploadAppController {
+    
+    private final DirectUploadService directUploadService;
+    
+    /**
+     * 初始化分片直传
+     * 
+     * @param userId 用户ID（从请求头获取）
+     * @param request 文件信息
+     * @return 上传会话
+     */
+    @PostMapping("/init")
+    public Result<DirectUploadSessionResponse> init(
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+            @Valid @RequestBody DirectUploadInitRequest request) throws Exception {
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(directUploadService.init(userId, request));
+    }
+    
+    /**
+     * 获取分片上传地址
+     * 
+     * @param userId 用户ID（从请求头获取）
+     * @param uploadId 分片上传ID
+     * @param request 分片序号列表
+     * @return 分片上传地址
+     */
+    @PostMapping("/{uploadId}/parts")
+    public Result<List<DirectUploadPartUrl>> presignParts(
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+            @PathVariable String uploadId,
+            @Valid @RequestBody DirectUploadPartsRequest request) throws Exception {
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(directUploadService.presignParts(userId, uploadId, request.getPartNumbers()));
+    }
+    
+    /**
+     * 查询上传会话（断点续传）
+     * 
+     * @param userId 用户ID（从请求头获取）
+     * @param uploadId 分片上传ID
+     * @return 上传会话（包含已上传分片）
+     */
+    @GetMapping("/{uploadId}")
+    public Result<DirectUploadSessionResponse> getSession(
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+            @PathVariable String uploadId) throws Exception {
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(directUploadService.getSession(userId, uploadId));
+    }
+    
+    /**
+     * 完成上传并登记资产
+     * 
+     * @param userId 用户ID（从请求头获取）
+     * @param uploadId 分片上传ID
+     * @return 登记的资产
+     */
+    @PostMapping("/{uploadId}/complete")
+    public Result<UserAsset> complete(
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+            @PathVariable String uploadId) throws Exception {
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success("上传成功", directUploadService.complete(userId, uploadId));
+    }
+    
+    /**
+     * 取消上传
+     * 
+     * @param userId 用户ID（从请求头获取）
+     * @param uploadId 分片上传ID
+     * @return 取消结果
+     */
+    @DeleteMapping("/{uploadId}")
+    public Result<Void> abort(
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+            @PathVariable String uploadId) throws Exception {
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        directUploadService.abort(userId, uploadId);
+        return Result.success("已取消");
+    }
+}
@@ -0,0 +1,101 @@
+package com.meitou.admin.controller.app;
+
+import com.meitou.admin.storage.UploadedPart;
+import com.meitou.admin.storage.impl.LocalFileStorageServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 本地文件存储访问控制器
+ * 仅在 file.storage.type=local 时启用，提供文件读取和预签名分片上传（对应云存储的公共读访问和分片 PUT）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/app/files")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local", matchIfMissing = false)
+public class LocalFileController {
+
+    private static final String PATH_PREFIX = "/api/app/files/";
+
+    private final LocalFileStorageServiceImpl localFileStorageService;
+
+    /**
+     * 读取文件（带 expires/signature 参数时校验预签名）
+     */
+    @GetMapping("/**")
+    public ResponseEntity<Resource> getFile(HttpServletRequest request,
+                                            @RequestParam(required = false) Long expires,
+                                            @RequestParam(required = false) String signature) {
+        String uri = request.getRequestURI();
+        int index = uri.indexOf(PATH_PREFIX);
+        if (index < 0) {
+            return ResponseEntity.notFound().build();
+        }
+        // 请求 URI 未解码，对象键按 buildFileUrl 的编码还原后再校验签名和读取
+        String objectKey = UriUtils.decode(uri.substring(index + PATH_PREFIX.length()), StandardCharsets.UTF_8);
+        if (signature != null
+                && (expires == null || !localFileStorageService.verifySignature(expires, signature, "GET", objectKey))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Path file;
+        try {
+            file = localFileStorageService.resolveFile(objectKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String contentType = "application/octet-stream";
+        try {
+            String probed = Files.probeContentType(file);
+            if (probed != null) {
+                contentType = probed;
+            }
+        } catch (Exception ignored) {
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 预签名分片上传（请求体为分片内容，响应头 ETag 为分片MD5）
+     */
+    @PutMapping("/" + LocalFileStorageServiceImpl.MULTIPART_PATH + "/{uploadId}/{partNumber}")
+    public ResponseEntity<Void> uploadPart(@PathVariable String uploadId,
+                                           @PathVariable int partNumber,
+                                           @RequestParam long expires,
+                                           @RequestParam String signature,
+                                           HttpServletRequest request) {
+        if (!localFileStorageService.verifySignature(expires, signature, "PUT", uploadId, String.valueOf(partNumber))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            UploadedPart part = localFileStorageService.writePart(uploadId, partNumber, request.getInputStream());
+            return ResponseEntity.ok().eTag(part.etag()).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.warn("分片上传失败 {} #{}: {}", uploadId, partNumber, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
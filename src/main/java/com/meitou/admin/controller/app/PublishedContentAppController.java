@@ -1,6 +1,7 @@
 package com.meitou.admin.controller.app;
 
 import com.meitou.admin.common.Result;
+import com.meitou.admin.dto.app.SquareFeedResponse;
 import com.meitou.admin.entity.PublishedContent;
 import com.meitou.admin.service.app.LikeService;
 import com.meitou.admin.service.app.PublishedContentService;
@@ -111,6 +112,33 @@ public class PublishedContentAppController {
         }
     }
     
+    /**
+     * 获取发布内容列表（游标分页，适用于无限滚动）
+     * 
+     * @param type 类型筛选（可选：all/image/video）
+     * @param cursor 上一页返回的 nextCursor，第一页不传
+     * @param pageSize 每页数量，默认10
+     * @param userId 当前用户ID（可选，用于获取点赞状态）
+     * @return 当前页内容和下一页游标
+     */
+    @GetMapping("/feed")
+    public Result<SquareFeedResponse> getPublishedContentFeed(
+            @RequestParam(value = "type", required = false, defaultValue = "all") String type,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize,
+            @RequestHeader(value = "X-User-Id", required = false) Long userId
+    ) {
+        try {
+            int size = Math.max(1, Math.min(pageSize, 100));
+            SquareFeedResponse result = contentService.getPublishedContentsByCursor(type, cursor, size, userId);
+            return Result.success(result);
+            
+        } catch (Exception e) {
+            log.error("获取发布内容信息流失败：{}", e.getMessage(), e);
+            return Result.error("获取发布内容信息流失败：" + e.getMessage());
+        }
+    }
+    
     /**
      * 获取发布内容详情
      * 
@@ -3,7 +3,7 @@ package com.meitou.admin.controller.app;
 import com.meitou.admin.common.Result;
 import com.meitou.admin.entity.UserAsset;
 import com.meitou.admin.service.app.UserAssetAppService;
-import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.service.common.MediaDedupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -23,7 +23,7 @@ import java.util.Map;
 public class UserAssetAppController {
     
     private final UserAssetAppService assetService;
-    private final FileStorageService fileStorageService;
+    private final MediaDedupService mediaDedupService;
     
     /**
      * 上传资产文件
@@ -120,7 +120,7 @@ public class UserAssetAppController {
             }
             
             // 上传文件到存储服务
-            String fileUrl = fileStorageService.upload(file, storageFolder);
+            String fileUrl = mediaDedupService.storeFile(file, storageFolder);
             
             // 设置标题（如果未指定，使用文件名）
             if (title == null || title.trim().isEmpty()) {
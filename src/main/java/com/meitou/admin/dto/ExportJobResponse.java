@@ -0,0 +1,66 @@
+package com.meitou.admin.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台导出任务状态DTO
+ */
+@Data
+public class ExportJobResponse {
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 导出类型：transactions-余额流水，recharge-orders-充值订单，generation-records-生成记录
+     */
+    private String type;
+
+    /**
+     * 站点ID
+     */
+    private Long siteId;
+
+    /**
+     * 状态：pending-排队中，running-导出中，success-已完成，failed-失败
+     */
+    private String status;
+
+    /**
+     * 预计总行数（任务开始时统计）
+     */
+    private Long totalRows;
+
+    /**
+     * 已导出行数
+     */
+    private Long processedRows;
+
+    /**
+     * 进度百分比（0-100）
+     */
+    private Integer progress;
+
+    /**
+     * 导出文件下载地址（完成后返回，限时有效的预签名地址，每次查询重新签发）
+     */
+    private String fileUrl;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,46 @@
+package com.meitou.admin.dto.app;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * 初始化分片直传请求 DTO
+ */
+@Data
+public class DirectUploadInitRequest {
+    
+    /**
+     * 原始文件名（含扩展名，用于校验类型）
+     */
+    @NotBlank(message = "文件名不能为空")
+    private String fileName;
+    
+    /**
+     * 文件大小（字节）
+     */
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小无效")
+    private Long fileSize;
+    
+    /**
+     * 内容类型（可选，如 video/mp4）
+     */
+    private String contentType;
+    
+    /**
+     * 标题（可选，默认为文件名）
+     */
+    private String title;
+    
+    /**
+     * 类型：image-图片，video-视频，audio-音频（可选，根据扩展名自动判断）
+     */
+    private String type;
+    
+    /**
+     * 文件夹路径（可选）
+     */
+    private String folder;
+}
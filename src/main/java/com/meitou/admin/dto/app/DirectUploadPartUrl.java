@@ -0,0 +1,24 @@
+package com.meitou.admin.dto.app;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分片上传地址 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectUploadPartUrl {
+    
+    /**
+     * 分片序号
+     */
+    private Integer partNumber;
+    
+    /**
+     * 预签名上传地址（HTTP PUT 分片内容，响应头 ETag 无需回传）
+     */
+    private String url;
+}
@@ -0,0 +1,19 @@
+package com.meitou.admin.dto.app;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 获取分片上传地址请求 DTO
+ */
+@Data
+public class DirectUploadPartsRequest {
+    
+    /**
+     * 分片序号列表（从 1 开始）
+     */
+    @NotEmpty(message = "分片序号不能为空")
+    private List<Integer> partNumbers;
+}
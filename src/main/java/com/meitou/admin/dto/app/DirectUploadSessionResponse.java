@@ -0,0 +1,53 @@
+package com.meitou.admin.dto.app;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片直传会话响应 DTO
+ */
+@Data
+public class DirectUploadSessionResponse {
+    
+    /**
+     * 分片上传ID（后续请求使用）
+     */
+    private String uploadId;
+    
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+    
+    /**
+     * 分片大小（字节，最后一片为剩余大小）
+     */
+    private Long partSize;
+    
+    /**
+     * 分片数量
+     */
+    private Integer partCount;
+    
+    /**
+     * 状态：uploading-上传中，completed-已完成，aborted-已取消
+     */
+    private String status;
+    
+    /**
+     * 已上传完成的分片序号（断点续传时跳过这些分片）
+     */
+    private List<Integer> uploadedParts;
+    
+    /**
+     * 完成后登记的资产ID
+     */
+    private Long assetId;
+    
+    /**
+     * 会话过期时间
+     */
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.meitou.admin.dto.app;
+
+import com.meitou.admin.entity.PublishedContent;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 灵感广场游标分页响应 DTO
+ */
+@Data
+public class SquareFeedResponse {
+
+    /**
+     * 当前页内容
+     */
+    private List<PublishedContent> records;
+
+    /**
+     * 下一页游标（传给下一次请求的 cursor 参数）
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+}
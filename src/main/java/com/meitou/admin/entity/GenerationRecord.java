@@ -62,6 +62,12 @@ public class GenerationRecord {
     @TableField("thumbnail_url")
     private String thumbnailUrl;
 
+    /**
+     * 预览图URL（低分辨率）
+     */
+    @TableField("preview_url")
+    private String previewUrl;
+
     /**
      * 生成参数（JSON格式）
      */
@@ -0,0 +1,66 @@
+package com.meitou.admin.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 媒体对象索引实体类（内容寻址：相同内容只存储一份）
+ * 对应数据库表：media_objects
+ */
+@Data
+@TableName("media_objects")
+public class MediaObject {
+    
+    /**
+     * ID（主键，自增）
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 存储位置：storage-文件存储服务（file.storage.type 对应的实现），oss-生成结果使用的阿里云OSS
+     */
+    private String storage;
+    
+    /**
+     * 内容 SHA-256（十六进制）
+     */
+    @TableField("content_hash")
+    private String contentHash;
+    
+    /**
+     * 文件大小（字节）
+     */
+    @TableField("file_size")
+    private Long fileSize;
+    
+    /**
+     * 对象键
+     */
+    @TableField("object_key")
+    private String objectKey;
+    
+    /**
+     * 访问URL
+     */
+    private String url;
+    
+    /**
+     * 引用计数（为 0 且超过保留期后可被清理）
+     */
+    @TableField("ref_count")
+    private Integer refCount;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -69,6 +69,11 @@ public class PublishedContent {
      */
     private String thumbnail;
     
+    /**
+     * 预览图URL（低分辨率）
+     */
+    private String preview;
+    
     /**
      * 生成配置参数（JSON格式）
      */
@@ -0,0 +1,112 @@
+package com.meitou.admin.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 分片直传会话实体类
+ * 对应数据库表：upload_sessions
+ */
+@Data
+@TableName("upload_sessions")
+public class UploadSession {
+    
+    /**
+     * 会话ID（主键，自增）
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 云存储分片上传ID
+     */
+    @TableField("upload_id")
+    private String uploadId;
+    
+    /**
+     * 对象键（文件在云存储中的路径）
+     */
+    @TableField("object_key")
+    private String objectKey;
+    
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+    
+    /**
+     * 站点ID（多租户字段）
+     */
+    @TableField("site_id")
+    private Long siteId;
+    
+    /**
+     * 原始文件名
+     */
+    @TableField("file_name")
+    private String fileName;
+    
+    /**
+     * 资产标题
+     */
+    private String title;
+    
+    /**
+     * 资产类型：image-图片，video-视频，audio-音频
+     */
+    private String type;
+    
+    /**
+     * 资产文件夹路径
+     */
+    private String folder;
+    
+    /**
+     * 文件大小（字节）
+     */
+    @TableField("file_size")
+    private Long fileSize;
+    
+    /**
+     * 分片大小（字节，最后一片可以更小）
+     */
+    @TableField("part_size")
+    private Long partSize;
+    
+    /**
+     * 分片数量
+     */
+    @TableField("part_count")
+    private Integer partCount;
+    
+    /**
+     * 状态：uploading-上传中，completed-已完成，aborted-已取消
+     */
+    private String status;
+    
+    /**
+     * 完成后登记的资产ID
+     */
+    @TableField("asset_id")
+    private Long assetId;
+    
+    /**
+     * 过期时间（过期未完成的上传会被自动取消）
+     */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
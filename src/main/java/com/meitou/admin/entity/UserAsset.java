@@ -49,6 +49,11 @@ public class UserAsset {
      */
     private String thumbnail;
     
+    /**
+     * 预览图URL（低分辨率）
+     */
+    private String preview;
+    
     /**
      * 用户ID
      */
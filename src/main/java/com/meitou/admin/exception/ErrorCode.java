@@ -12,6 +12,7 @@ public enum ErrorCode {
     
     SUCCESS(200, "操作成功"),
     SYSTEM_ERROR(500, "系统繁忙，请稍后再试"),
+    SERVICE_UNAVAILABLE(503, "依赖服务暂时不可用，请稍后再试"),
     PARAM_ERROR(400, "参数错误"),
     UNAUTHORIZED(401, "未登录或Token已过期"),
     FORBIDDEN(403, "无权限访问"),
@@ -37,6 +38,8 @@ public enum ErrorCode {
     REFERENCE_IMAGE_REQUIRED(2006, "参考图片不能为空"),
     API_CALL_FAILED(2007, "API调用失败"),
     API_RESPONSE_ERROR(2008, "API返回错误"),
+    GENERATION_PLATFORM_UNAVAILABLE(2009, "生成平台暂时不可用，请稍后再试"),
+    API_NOT_ACCEPTED(2010, "API平台未受理请求"),
 
     // 资源/记录相关 3000-3999
     RECORD_NOT_FOUND(3001, "记录不存在"),
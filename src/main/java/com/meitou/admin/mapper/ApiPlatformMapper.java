@@ -1,13 +1,23 @@
 package com.meitou.admin.mapper;
 
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.meitou.admin.entity.ApiPlatform;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * API平台 Mapper 接口
  */
 @Mapper
 public interface ApiPlatformMapper extends BaseMapper<ApiPlatform> {
-}
 
+    /**
+     * 查询所有站点平台的 apiKey 密文（忽略租户限制），用于启动时预热解密缓存
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Select("SELECT api_key FROM api_platforms WHERE deleted = 0 AND api_key IS NOT NULL AND api_key <> ''")
+    List<String> selectApiKeysIgnoreTenant();
+}
@@ -0,0 +1,104 @@
+package com.meitou.admin.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.meitou.admin.entity.GenerationRecord;
+import com.meitou.admin.entity.RechargeOrder;
+import com.meitou.admin.entity.UserTransaction;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据导出 Mapper 接口
+ * 所有查询以流式方式逐行回调 ResultHandler，不在内存中保留结果集；
+ * MySQL 驱动只有在 fetchSize = Integer.MIN_VALUE 且结果集只读、仅向前时才会逐行读取
+ * （否则会一次性把整个结果集读入内存）
+ *
+ * 站点由参数显式指定，忽略多租户插件（导出在后台线程执行时没有 SiteContext）
+ */
+@Mapper
+@InterceptorIgnore(tenantLine = "true")
+public interface ExportMapper {
+
+    /**
+     * 流式读取的 fetchSize
+     */
+    int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
+    @Select("""
+            SELECT id, user_id, type, amount, balance_after, reference_id, description, site_id, created_at
+            FROM user_transactions
+            WHERE site_id = #{siteId} AND deleted = 0
+              AND created_at >= #{start} AND created_at < #{end}
+            ORDER BY id ASC
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = STREAM_FETCH_SIZE)
+    @ResultType(UserTransaction.class)
+    void streamTransactions(@Param("siteId") Long siteId,
+                            @Param("start") LocalDateTime start,
+                            @Param("end") LocalDateTime end,
+                            ResultHandler<UserTransaction> handler);
+
+    @Select("""
+            SELECT id, order_no, user_id, amount, points, payment_type, status, third_party_order_no,
+                   paid_at, completed_at, created_at, site_id
+            FROM recharge_orders
+            WHERE site_id = #{siteId} AND deleted = 0
+              AND created_at >= #{start} AND created_at < #{end}
+            ORDER BY id ASC
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = STREAM_FETCH_SIZE)
+    @ResultType(RechargeOrder.class)
+    void streamRechargeOrders(@Param("siteId") Long siteId,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end,
+                              ResultHandler<RechargeOrder> handler);
+
+    @Select("""
+            SELECT id, user_id, username, type, model, prompt, file_type, cost, status, content_url,
+                   failure_reason, site_id, created_at
+            FROM generation_records
+            WHERE site_id = #{siteId} AND deleted = 0
+              AND created_at >= #{start} AND created_at < #{end}
+            ORDER BY id ASC
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = STREAM_FETCH_SIZE)
+    @ResultType(GenerationRecord.class)
+    void streamGenerationRecords(@Param("siteId") Long siteId,
+                                 @Param("start") LocalDateTime start,
+                                 @Param("end") LocalDateTime end,
+                                 ResultHandler<GenerationRecord> handler);
+
+    @Select("""
+            SELECT COUNT(*) FROM user_transactions
+            WHERE site_id = #{siteId} AND deleted = 0
+              AND created_at >= #{start} AND created_at < #{end}
+            """)
+    long countTransactions(@Param("siteId") Long siteId,
+                           @Param("start") LocalDateTime start,
+                           @Param("end") LocalDateTime end);
+
+    @Select("""
+            SELECT COUNT(*) FROM recharge_orders
+            WHERE site_id = #{siteId} AND deleted = 0
+              AND created_at >= #{start} AND created_at < #{end}
+            """)
+    long countRechargeOrders(@Param("siteId") Long siteId,
+                             @Param("start") LocalDateTime start,
+                             @Param("end") LocalDateTime end);
+
+    @Select("""
+            SELECT COUNT(*) FROM generation_records
+            WHERE site_id = #{siteId} AND deleted = 0
+              AND created_at >= #{start} AND created_at < #{end}
+            """)
+    long countGenerationRecords(@Param("siteId") Long siteId,
+                                @Param("start") LocalDateTime start,
+                                @Param("end") LocalDateTime end);
+}
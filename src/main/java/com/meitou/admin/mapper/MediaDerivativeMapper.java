@@ -0,0 +1,48 @@
+package com.meitou.admin.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.meitou.admin.entity.PublishedContent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 缩略图/预览图回写 Mapper 接口
+ * 派生任务在后台线程执行，没有 SiteContext，按主键更新时忽略多租户插件；
+ * 更新条件带上源文件URL，源文件已变更的记录不会被旧的派生结果覆盖
+ */
+@Mapper
+@InterceptorIgnore(tenantLine = "true")
+public interface MediaDerivativeMapper {
+
+    @Update("""
+            UPDATE generation_records SET thumbnail_url = #{thumbnailUrl}, preview_url = #{previewUrl}
+            WHERE id = #{id} AND content_url = #{sourceUrl} AND deleted = 0
+            """)
+    int updateGenerationRecord(@Param("id") Long id,
+                               @Param("sourceUrl") String sourceUrl,
+                               @Param("thumbnailUrl") String thumbnailUrl,
+                               @Param("previewUrl") String previewUrl);
+
+    @Update("""
+            UPDATE user_assets SET thumbnail = #{thumbnailUrl}, preview = #{previewUrl}
+            WHERE id = #{id} AND url = #{sourceUrl} AND deleted = 0
+            """)
+    int updateUserAsset(@Param("id") Long id,
+                        @Param("sourceUrl") String sourceUrl,
+                        @Param("thumbnailUrl") String thumbnailUrl,
+                        @Param("previewUrl") String previewUrl);
+
+    @Update("""
+            UPDATE published_contents SET thumbnail = #{thumbnailUrl}, preview = #{previewUrl}
+            WHERE id = #{id} AND content_url = #{sourceUrl} AND deleted = 0
+            """)
+    int updatePublishedContent(@Param("id") Long id,
+                               @Param("sourceUrl") String sourceUrl,
+                               @Param("thumbnailUrl") String thumbnailUrl,
+                               @Param("previewUrl") String previewUrl);
+
+    @Select("SELECT * FROM published_contents WHERE id = #{id} AND deleted = 0")
+    PublishedContent selectPublishedContent(@Param("id") Long id);
+}
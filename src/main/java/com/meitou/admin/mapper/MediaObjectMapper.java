@@ -0,0 +1,81 @@
+package com.meitou.admin.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.meitou.admin.entity.MediaObject;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 媒体对象索引 Mapper 接口
+ * 相同内容跨站点共享一份存储，索引表不区分站点，所有方法均忽略多租户插件
+ */
+@Mapper
+@InterceptorIgnore(tenantLine = "true")
+public interface MediaObjectMapper extends BaseMapper<MediaObject> {
+
+    @Select("""
+            SELECT * FROM media_objects
+            WHERE storage = #{storage} AND content_hash = #{contentHash} AND file_size = #{fileSize}
+            """)
+    MediaObject selectByHash(@Param("storage") String storage,
+                             @Param("contentHash") String contentHash,
+                             @Param("fileSize") long fileSize);
+
+    /**
+     * 命中已有内容时增加引用
+     */
+    @Update("""
+            UPDATE media_objects SET ref_count = ref_count + 1, updated_at = NOW()
+            WHERE storage = #{storage} AND content_hash = #{contentHash} AND file_size = #{fileSize}
+            """)
+    int retainByHash(@Param("storage") String storage,
+                     @Param("contentHash") String contentHash,
+                     @Param("fileSize") long fileSize);
+
+    /**
+     * 登记新上传的内容（并发上传相同内容时合并为一条并累加引用）
+     */
+    @Insert("""
+            INSERT INTO media_objects (storage, content_hash, file_size, object_key, url, ref_count)
+            VALUES (#{storage}, #{contentHash}, #{fileSize}, #{objectKey}, #{url}, 1)
+            ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = NOW()
+            """)
+    int insertOrRetain(@Param("storage") String storage,
+                       @Param("contentHash") String contentHash,
+                       @Param("fileSize") long fileSize,
+                       @Param("objectKey") String objectKey,
+                       @Param("url") String url);
+
+    @Update("UPDATE media_objects SET ref_count = ref_count + 1, updated_at = NOW() WHERE url = #{url}")
+    int retainByUrl(@Param("url") String url);
+
+    @Update("UPDATE media_objects SET ref_count = ref_count - 1, updated_at = NOW() WHERE url = #{url} AND ref_count > 0")
+    int releaseByUrl(@Param("url") String url);
+
+    @Select("""
+            SELECT * FROM media_objects
+            WHERE storage = #{storage} AND ref_count = 0 AND updated_at < #{before}
+            ORDER BY id ASC
+            LIMIT #{limit}
+            """)
+    List<MediaObject> selectUnreferenced(@Param("storage") String storage,
+                                         @Param("before") LocalDateTime before,
+                                         @Param("limit") int limit);
+
+    /**
+     * 锁定仍未被引用的对象（清理期间阻塞并发的命中，避免返回即将删除的URL）
+     */
+    @Select("SELECT * FROM media_objects WHERE id = #{id} AND ref_count = 0 FOR UPDATE")
+    MediaObject lockUnreferenced(@Param("id") Long id);
+
+    @Delete("DELETE FROM media_objects WHERE id = #{id} AND ref_count = 0")
+    int deleteUnreferenced(@Param("id") Long id);
+}
@@ -0,0 +1,36 @@
+package com.meitou.admin.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 支付回调去重记录 Mapper 接口
+ * 回调没有站点上下文，且通知ID全局唯一，忽略多租户插件
+ */
+@Mapper
+@InterceptorIgnore(tenantLine = "true")
+public interface PaymentCallbackRecordMapper {
+
+    @Select("SELECT COUNT(*) FROM payment_callback_records WHERE payment_type = #{paymentType} AND notify_id = #{notifyId}")
+    int countByNotifyId(@Param("paymentType") String paymentType, @Param("notifyId") String notifyId);
+
+    /**
+     * 登记已处理的通知，已存在时返回 0（并发重复通知由唯一索引拦截）
+     */
+    @Insert("""
+            INSERT IGNORE INTO payment_callback_records (payment_type, notify_id, order_no, created_at)
+            VALUES (#{paymentType}, #{notifyId}, #{orderNo}, NOW())
+            """)
+    int insertIgnore(@Param("paymentType") String paymentType,
+                     @Param("notifyId") String notifyId,
+                     @Param("orderNo") String orderNo);
+
+    @Delete("DELETE FROM payment_callback_records WHERE created_at < #{before} LIMIT #{limit}")
+    int deleteBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
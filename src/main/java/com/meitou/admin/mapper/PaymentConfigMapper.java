@@ -18,5 +18,12 @@ public interface PaymentConfigMapper extends BaseMapper<PaymentConfig> {
     @InterceptorIgnore(tenantLine = "true")
     @Select("SELECT * FROM payment_configs WHERE payment_type = #{paymentType} AND is_enabled = 1 AND deleted = 0")
     List<PaymentConfig> selectEnabledByPaymentTypeIgnoreTenant(@Param("paymentType") String paymentType);
+
+    /**
+     * 查询指定站点的支付配置（忽略多租户过滤，不要求启用：停用前创建的订单仍需对账）
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Select("SELECT * FROM payment_configs WHERE site_id = #{siteId} AND payment_type = #{paymentType} AND deleted = 0 LIMIT 1")
+    PaymentConfig selectBySiteAndTypeIgnoreTenant(@Param("siteId") Long siteId, @Param("paymentType") String paymentType);
 }
 
@@ -9,6 +9,10 @@ import com.meitou.admin.entity.PublishedContent;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 发布内容 Mapper 接口
@@ -16,6 +20,28 @@ import org.apache.ibatis.annotations.Select;
 @Mapper
 public interface PublishedContentMapper extends BaseMapper<PublishedContent> {
 
+    /**
+     * 批量累加点赞数（原子的 like_count = like_count + delta，由点赞计数聚合任务写回，忽略多租户插件）
+     * @param deltas 增量列表，每项包含 contentId、delta
+     * @return 更新行数
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Update("""
+            <script>
+            UPDATE published_contents
+            SET like_count = GREATEST(like_count + CASE id
+            <foreach collection="deltas" item="item">
+                WHEN #{item.contentId} THEN #{item.delta}
+            </foreach>
+                ELSE 0 END, 0)
+            WHERE id IN
+            <foreach collection="deltas" item="item" open="(" separator="," close=")">
+                #{item.contentId}
+            </foreach>
+            </script>
+            """)
+    int batchIncrementLikeCount(@Param("deltas") List<Map<String, Object>> deltas);
+
 //    /**
 //     * 管理后台分页查询，忽略多租户插件
 //     * 用于管理后台查询（可以查询所有站点或指定站点）
@@ -6,6 +6,10 @@ import com.meitou.admin.entity.RechargeOrder;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 充值订单 Mapper 接口
@@ -23,5 +27,76 @@ public interface RechargeOrderMapper extends BaseMapper<RechargeOrder> {
     @InterceptorIgnore(tenantLine = "true")
     @Select("SELECT * FROM recharge_orders WHERE order_no = #{orderNo} AND deleted = 0 LIMIT 1")
     RechargeOrder selectByOrderNo(@Param("orderNo") String orderNo);
-}
 
+    /**
+     * 标记订单已支付（条件更新，忽略多租户过滤）
+     * 只有尚未入账的订单才会被更新，并发的重复回调中只有一个能更新成功，由返回的行数决定是否入账
+     *
+     * @return 更新行数，0 表示订单已入账或不存在
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Update("""
+            UPDATE recharge_orders
+            SET status = 'paid', third_party_order_no = #{thirdPartyOrderNo}, paid_at = #{paidAt}, completed_at = #{paidAt}
+            WHERE order_no = #{orderNo} AND status IN ('pending', 'paying', 'cancelled', 'failed') AND deleted = 0
+            """)
+    int markPaid(@Param("orderNo") String orderNo,
+                 @Param("thirdPartyOrderNo") String thirdPartyOrderNo,
+                 @Param("paidAt") LocalDateTime paidAt);
+
+    /**
+     * 标记订单支付失败（已入账的订单不受影响）
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Update("""
+            UPDATE recharge_orders SET status = 'failed'
+            WHERE order_no = #{orderNo} AND status IN ('pending', 'paying') AND deleted = 0
+            """)
+    int markFailed(@Param("orderNo") String orderNo);
+
+    /**
+     * 保存回调原文
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Update("UPDATE recharge_orders SET callback_info = #{callbackInfo} WHERE order_no = #{orderNo}")
+    int updateCallbackInfo(@Param("orderNo") String orderNo, @Param("callbackInfo") String callbackInfo);
+
+    /**
+     * 按主键游标分页查询未完成的订单（对账用，忽略多租户过滤）
+     * 走 idx_status（二级索引隐含主键，等价于 (status, id)），不使用 OFFSET，翻页代价与页码无关
+     *
+     * @param lastId 上一页最后一条订单ID，首页传 0
+     * @param createdBefore 只查询该时间之前创建的订单（给回调留出时间）
+     * @param limit 每页数量
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Select("""
+            SELECT * FROM recharge_orders
+            WHERE status IN ('pending', 'paying') AND deleted = 0
+              AND id > #{lastId} AND created_at < #{createdBefore}
+            ORDER BY id
+            LIMIT #{limit}
+            """)
+    List<RechargeOrder> selectUnfinishedAfter(@Param("lastId") long lastId,
+                                              @Param("createdBefore") LocalDateTime createdBefore,
+                                              @Param("limit") int limit);
+
+    /**
+     * 批量将超时未支付的订单置为已取消（已入账或状态已变化的订单不受影响）
+     * 取消后迟到的支付通知仍可入账，见 markPaid
+     *
+     * @return 更新行数
+     */
+    @InterceptorIgnore(tenantLine = "true")
+    @Update("""
+            <script>
+            UPDATE recharge_orders SET status = 'cancelled', updated_at = NOW()
+            WHERE status IN ('pending', 'paying') AND deleted = 0
+              AND id IN
+              <foreach collection="ids" item="id" open="(" separator="," close=")">
+                  #{id}
+              </foreach>
+            </script>
+            """)
+    int cancelUnfinished(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,241 @@
+package com.meitou.admin.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.meitou.admin.entity.GenerationRecord;
+import com.meitou.admin.entity.User;
+import com.meitou.admin.entity.UserTransaction;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据概览汇总表 Mapper 接口
+ * 汇总表跨站点维护，所有方法均忽略多租户插件，站点过滤由参数显式指定
+ */
+@Mapper
+@InterceptorIgnore(tenantLine = "true")
+public interface StatRollupMapper {
+
+    // ==================== 水位 ====================
+
+    @Insert("INSERT IGNORE INTO stat_rollup_watermarks (name, last_id) VALUES (#{name}, 0)")
+    int initWatermark(@Param("name") String name);
+
+    @Select("SELECT last_id FROM stat_rollup_watermarks WHERE name = #{name}")
+    Long selectWatermark(@Param("name") String name);
+
+    /**
+     * 推进水位（CAS，多实例同时执行时只有一个能成功）
+     */
+    @Update("UPDATE stat_rollup_watermarks SET last_id = #{next} WHERE name = #{name} AND last_id = #{expected}")
+    int advanceWatermark(@Param("name") String name, @Param("expected") long expected, @Param("next") long next);
+
+    // ==================== 增量数据源 ====================
+
+    @Select("""
+            SELECT id, user_id, type, amount, site_id, created_at
+            FROM user_transactions
+            WHERE id > #{lastId}
+            ORDER BY id ASC
+            LIMIT #{limit}
+            """)
+    List<UserTransaction> selectTransactionsAfter(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    @Select("""
+            SELECT id, site_id, created_at
+            FROM users
+            WHERE id > #{lastId}
+            ORDER BY id ASC
+            LIMIT #{limit}
+            """)
+    List<User> selectUsersAfter(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    @Select("""
+            SELECT id, type, site_id, created_at
+            FROM generation_records
+            WHERE id > #{lastId}
+            ORDER BY id ASC
+            LIMIT #{limit}
+            """)
+    List<GenerationRecord> selectGenerationsAfter(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    // ==================== 汇总写入 ====================
+
+    /**
+     * 累加站点每日汇总，每项包含 siteId、statDate、newUsers、consumption、recharge、refunds
+     */
+    @Insert("""
+            <script>
+            INSERT INTO stat_daily_site (site_id, stat_date, new_users, consumption, recharge, refunds)
+            VALUES
+            <foreach collection="rows" item="row" separator=",">
+                (#{row.siteId}, #{row.statDate}, #{row.newUsers}, #{row.consumption}, #{row.recharge}, #{row.refunds})
+            </foreach>
+            ON DUPLICATE KEY UPDATE
+                new_users = new_users + VALUES(new_users),
+                consumption = consumption + VALUES(consumption),
+                recharge = recharge + VALUES(recharge),
+                refunds = refunds + VALUES(refunds)
+            </script>
+            """)
+    int upsertDailySite(@Param("rows") List<Map<String, Object>> rows);
+
+    /**
+     * 累加用户每日消耗，每项包含 siteId、statDate、userId、consumption
+     */
+    @Insert("""
+            <script>
+            INSERT INTO stat_daily_user_consumption (site_id, stat_date, user_id, consumption)
+            VALUES
+            <foreach collection="rows" item="row" separator=",">
+                (#{row.siteId}, #{row.statDate}, #{row.userId}, #{row.consumption})
+            </foreach>
+            ON DUPLICATE KEY UPDATE consumption = consumption + VALUES(consumption)
+            </script>
+            """)
+    int upsertDailyUserConsumption(@Param("rows") List<Map<String, Object>> rows);
+
+    /**
+     * 累加每日生成任务数，每项包含 siteId、statDate、generationType、generationCount
+     */
+    @Insert("""
+            <script>
+            INSERT INTO stat_daily_generation (site_id, stat_date, generation_type, generation_count)
+            VALUES
+            <foreach collection="rows" item="row" separator=",">
+                (#{row.siteId}, #{row.statDate}, #{row.generationType}, #{row.generationCount})
+            </foreach>
+            ON DUPLICATE KEY UPDATE generation_count = generation_count + VALUES(generation_count)
+            </script>
+            """)
+    int upsertDailyGeneration(@Param("rows") List<Map<String, Object>> rows);
+
+    /**
+     * 按用户每日消耗表重新计算某天的活跃消耗用户数
+     */
+    @Update("""
+            UPDATE stat_daily_site
+            SET active_consumers = (
+                SELECT COUNT(*) FROM stat_daily_user_consumption
+                WHERE site_id = #{siteId} AND stat_date = #{statDate}
+            )
+            WHERE site_id = #{siteId} AND stat_date = #{statDate}
+            """)
+    int refreshActiveConsumers(@Param("siteId") Long siteId, @Param("statDate") LocalDate statDate);
+
+    /**
+     * 查询某天的消耗用户草图（HyperLogLog 寄存器），返回 sketch 列
+     */
+    @Select("SELECT sketch FROM stat_daily_consumer_sketch WHERE site_id = #{siteId} AND stat_date = #{statDate}")
+    Map<String, Object> selectConsumerSketch(@Param("siteId") Long siteId, @Param("statDate") LocalDate statDate);
+
+    @Insert("""
+            INSERT INTO stat_daily_consumer_sketch (site_id, stat_date, sketch)
+            VALUES (#{siteId}, #{statDate}, #{sketch})
+            ON DUPLICATE KEY UPDATE sketch = VALUES(sketch)
+            """)
+    int upsertConsumerSketch(@Param("siteId") Long siteId,
+                             @Param("statDate") LocalDate statDate,
+                             @Param("sketch") byte[] sketch);
+
+    // ==================== 汇总查询 ====================
+
+    /**
+     * 汇总时间范围内的站点指标（siteId 为空表示全部站点）
+     */
+    @Select("""
+            <script>
+            SELECT COALESCE(SUM(new_users), 0) AS newUsers,
+                   COALESCE(SUM(consumption), 0) AS consumption,
+                   COALESCE(SUM(recharge), 0) AS recharge,
+                   COALESCE(SUM(refunds), 0) AS refunds
+            FROM stat_daily_site
+            WHERE 1 = 1
+            <if test="siteId != null">AND site_id = #{siteId}</if>
+            <if test="startDate != null">AND stat_date &gt;= #{startDate}</if>
+            <if test="endDate != null">AND stat_date &lt;= #{endDate}</if>
+            </script>
+            """)
+    Map<String, Object> sumDailySite(@Param("siteId") Long siteId,
+                                     @Param("startDate") LocalDate startDate,
+                                     @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按天汇总（趋势图）
+     */
+    @Select("""
+            <script>
+            SELECT stat_date AS statDate,
+                   SUM(new_users) AS newUsers,
+                   SUM(consumption) AS consumption
+            FROM stat_daily_site
+            WHERE stat_date &gt;= #{startDate} AND stat_date &lt;= #{endDate}
+            <if test="siteId != null">AND site_id = #{siteId}</if>
+            GROUP BY stat_date
+            </script>
+            """)
+    List<Map<String, Object>> selectDailyTrend(@Param("siteId") Long siteId,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    /**
+     * 时间范围内产生消耗的去重用户数（精确值，用于对账）
+     */
+    @Select("""
+            <script>
+            SELECT COUNT(DISTINCT user_id)
+            FROM stat_daily_user_consumption
+            WHERE 1 = 1
+            <if test="siteId != null">AND site_id = #{siteId}</if>
+            <if test="startDate != null">AND stat_date &gt;= #{startDate}</if>
+            <if test="endDate != null">AND stat_date &lt;= #{endDate}</if>
+            </script>
+            """)
+    Long countDistinctConsumers(@Param("siteId") Long siteId,
+                                @Param("startDate") LocalDate startDate,
+                                @Param("endDate") LocalDate endDate);
+
+    /**
+     * 时间范围内各天的消耗用户草图，返回 sketch 列（按站点、日期合并后即为去重用户数的估计）
+     */
+    @Select("""
+            <script>
+            SELECT sketch
+            FROM stat_daily_consumer_sketch
+            WHERE 1 = 1
+            <if test="siteId != null">AND site_id = #{siteId}</if>
+            <if test="startDate != null">AND stat_date &gt;= #{startDate}</if>
+            <if test="endDate != null">AND stat_date &lt;= #{endDate}</if>
+            </script>
+            """)
+    List<Map<String, Object>> selectConsumerSketches(@Param("siteId") Long siteId,
+                                                     @Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    /**
+     * 时间范围内消耗排名
+     */
+    @Select("""
+            <script>
+            SELECT user_id AS userId, SUM(consumption) AS total
+            FROM stat_daily_user_consumption
+            WHERE 1 = 1
+            <if test="siteId != null">AND site_id = #{siteId}</if>
+            <if test="startDate != null">AND stat_date &gt;= #{startDate}</if>
+            <if test="endDate != null">AND stat_date &lt;= #{endDate}</if>
+            GROUP BY user_id
+            ORDER BY total DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<Map<String, Object>> selectTopConsumers(@Param("siteId") Long siteId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate,
+                                                 @Param("limit") int limit);
+}
@@ -0,0 +1,51 @@
+package com.meitou.admin.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.meitou.admin.entity.UploadSession;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片直传会话 Mapper 接口
+ */
+@Mapper
+public interface UploadSessionMapper extends BaseMapper<UploadSession> {
+
+    /**
+     * 条件更新状态（只有处于 expectedStatus 时才更新，用于防止重复完成/取消）
+     */
+    @Update("""
+            UPDATE upload_sessions
+            SET status = #{status}, asset_id = #{assetId}, updated_at = NOW()
+            WHERE id = #{id} AND status = #{expectedStatus}
+            """)
+    int updateStatus(@Param("id") Long id,
+                     @Param("expectedStatus") String expectedStatus,
+                     @Param("status") String status,
+                     @Param("assetId") Long assetId);
+
+    @InterceptorIgnore(tenantLine = "true")
+    @Select("""
+            SELECT *
+            FROM upload_sessions
+            WHERE status = 'uploading'
+              AND expires_at < #{now}
+            ORDER BY id ASC
+            LIMIT #{limit}
+            """)
+    List<UploadSession> selectExpiredIgnoreTenant(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @InterceptorIgnore(tenantLine = "true")
+    @Update("""
+            UPDATE upload_sessions
+            SET status = 'aborted', updated_at = NOW()
+            WHERE id = #{id} AND status = 'uploading'
+            """)
+    int markAbortedIgnoreTenant(@Param("id") Long id);
+}
@@ -3,11 +3,42 @@ package com.meitou.admin.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.meitou.admin.entity.UserAsset;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 用户资产 Mapper 接口
  */
 @Mapper
 public interface UserAssetMapper extends BaseMapper<UserAsset> {
-}
 
+    /**
+     * 批量查询多个文件夹下最新的图片和视频（每个文件夹每种类型各一条）
+     * 用于文件夹列表缩略图，一次查询代替每个文件夹两次 LIMIT 1 查询
+     * @param userId 用户ID
+     * @param folders 文件夹路径列表
+     * @return 资产列表（仅包含 folder、type、url、thumbnail）
+     */
+    @Select("""
+            <script>
+            SELECT folder, type, url, thumbnail
+            FROM (
+                SELECT folder, type, url, thumbnail,
+                       ROW_NUMBER() OVER (PARTITION BY folder, type ORDER BY upload_date DESC, id DESC) AS rn
+                FROM user_assets
+                WHERE deleted = 0
+                  AND user_id = #{userId}
+                  AND type IN ('image', 'video')
+                  AND folder IN
+                  <foreach collection="folders" item="folder" open="(" separator="," close=")">
+                      #{folder}
+                  </foreach>
+            ) latest
+            WHERE rn = 1
+            </script>
+            """)
+    List<UserAsset> selectLatestByFolders(@Param("userId") Long userId, @Param("folders") Collection<String> folders);
+}
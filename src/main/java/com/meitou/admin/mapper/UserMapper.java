@@ -41,6 +41,17 @@ public interface UserMapper extends BaseMapper<User> {
     @InterceptorIgnore(tenantLine = "true")
     List<User> selectListIgnoreTenant(@Param(Constants.WRAPPER) Wrapper<User> queryWrapper);
 
+    /**
+     * 根据分类和关键词查询用户（见 UserMapper.xml）
+     *
+     * @param category 分类（可选）
+     * @param search 关键词（可选，首尾空白会被去掉）
+     * @param fulltext 是否走全文索引，取 SearchService.useFulltext(search) 的结果
+     * @return 用户列表
+     */
+    List<User> selectByCategoryAndSearch(@Param("category") String category, @Param("search") String search,
+                                         @Param("fulltext") boolean fulltext);
+
     /**
      * 扣减用户余额
      * @param userId 用户ID
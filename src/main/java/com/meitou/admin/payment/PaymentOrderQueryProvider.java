@@ -0,0 +1,26 @@
+package com.meitou.admin.payment;
+
+import com.meitou.admin.entity.PaymentConfig;
+import com.meitou.admin.entity.RechargeOrder;
+
+/**
+ * 支付订单查询接口
+ * 充值对账任务通过它主动向支付平台查询订单状态，每种支付方式一个实现
+ */
+public interface PaymentOrderQueryProvider {
+
+    /**
+     * 支持的支付方式（与 RechargeOrder.paymentType 一致，如 wechat、alipay）
+     */
+    String getPaymentType();
+
+    /**
+     * 查询订单在支付平台侧的状态
+     *
+     * @param order 充值订单
+     * @param paymentConfig 订单所属站点的支付配置
+     * @return 订单状态
+     * @throws Exception 查询失败（网络错误、支付平台返回错误等），本轮对账跳过该订单
+     */
+    PaymentOrderStatus query(RechargeOrder order, PaymentConfig paymentConfig) throws Exception;
+}
@@ -0,0 +1,43 @@
+package com.meitou.admin.payment;
+
+import java.util.Map;
+
+/**
+ * 支付平台侧的订单状态（对账查询结果）
+ *
+ * @param state 归一化后的状态
+ * @param thirdPartyOrderNo 第三方支付订单号（已支付时返回）
+ * @param orderData 支付平台返回的原始字段，入账时作为回调信息保存
+ */
+public record PaymentOrderStatus(State state, String thirdPartyOrderNo, Map<String, String> orderData) {
+
+    /**
+     * 归一化的订单状态
+     */
+    public enum State {
+        /**
+         * 已支付
+         */
+        PAID,
+        /**
+         * 未支付（含用户尚未扫码、支付平台侧订单不存在）
+         */
+        NOT_PAID,
+        /**
+         * 用户支付中，不能过期
+         */
+        PAYING,
+        /**
+         * 支付平台侧已关闭
+         */
+        CLOSED,
+        /**
+         * 无法判断（如已退款），保持原状等待人工处理
+         */
+        UNKNOWN
+    }
+
+    public static PaymentOrderStatus of(State state, Map<String, String> orderData) {
+        return new PaymentOrderStatus(state, null, orderData);
+    }
+}
@@ -0,0 +1,41 @@
+package com.meitou.admin.payment.impl;
+
+import com.meitou.admin.entity.PaymentConfig;
+import com.meitou.admin.entity.RechargeOrder;
+import com.meitou.admin.payment.PaymentOrderQueryProvider;
+import com.meitou.admin.payment.PaymentOrderStatus;
+import com.meitou.admin.service.app.PaymentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 支付宝订单查询（alipay.trade.query）
+ */
+@Component
+@RequiredArgsConstructor
+public class AlipayOrderQueryProvider implements PaymentOrderQueryProvider {
+
+    private final PaymentService paymentService;
+
+    @Override
+    public String getPaymentType() {
+        return "alipay";
+    }
+
+    @Override
+    public PaymentOrderStatus query(RechargeOrder order, PaymentConfig paymentConfig) throws Exception {
+        Map<String, String> orderData = paymentService.queryAlipayOrder(order.getOrderNo(), paymentConfig);
+        String tradeStatus = orderData.get("trade_status");
+        if ("TRADE_SUCCESS".equals(tradeStatus) || "TRADE_FINISHED".equals(tradeStatus)) {
+            return new PaymentOrderStatus(PaymentOrderStatus.State.PAID, orderData.get("trade_no"), orderData);
+        }
+        PaymentOrderStatus.State state = switch (tradeStatus == null ? "" : tradeStatus) {
+            case "WAIT_BUYER_PAY" -> PaymentOrderStatus.State.NOT_PAID;
+            case "TRADE_CLOSED" -> PaymentOrderStatus.State.CLOSED;
+            default -> PaymentOrderStatus.State.UNKNOWN;
+        };
+        return PaymentOrderStatus.of(state, orderData);
+    }
+}
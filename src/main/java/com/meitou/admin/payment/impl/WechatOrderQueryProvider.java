@@ -0,0 +1,42 @@
+package com.meitou.admin.payment.impl;
+
+import com.meitou.admin.entity.PaymentConfig;
+import com.meitou.admin.entity.RechargeOrder;
+import com.meitou.admin.payment.PaymentOrderQueryProvider;
+import com.meitou.admin.payment.PaymentOrderStatus;
+import com.meitou.admin.service.app.PaymentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 微信支付订单查询（APIv3 查询订单接口）
+ */
+@Component
+@RequiredArgsConstructor
+public class WechatOrderQueryProvider implements PaymentOrderQueryProvider {
+
+    private final PaymentService paymentService;
+
+    @Override
+    public String getPaymentType() {
+        return "wechat";
+    }
+
+    @Override
+    public PaymentOrderStatus query(RechargeOrder order, PaymentConfig paymentConfig) throws Exception {
+        Map<String, String> orderData = paymentService.queryWechatOrder(order.getOrderNo(), paymentConfig);
+        String tradeState = orderData.get("trade_state");
+        if ("SUCCESS".equals(tradeState)) {
+            return new PaymentOrderStatus(PaymentOrderStatus.State.PAID, orderData.get("transaction_id"), orderData);
+        }
+        PaymentOrderStatus.State state = switch (tradeState == null ? "" : tradeState) {
+            case "NOTPAY" -> PaymentOrderStatus.State.NOT_PAID;
+            case "USERPAYING" -> PaymentOrderStatus.State.PAYING;
+            case "CLOSED", "REVOKED", "PAYERROR" -> PaymentOrderStatus.State.CLOSED;
+            default -> PaymentOrderStatus.State.UNKNOWN;
+        };
+        return PaymentOrderStatus.of(state, orderData);
+    }
+}
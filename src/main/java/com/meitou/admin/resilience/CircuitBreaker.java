@@ -0,0 +1,103 @@
+package com.meitou.admin.resilience;
+
+/**
+ * 熔断器
+ * 连续失败达到阈值后打开，打开期间拒绝请求；冷却时间过后进入半开状态，只放行一个试探请求，
+ * 试探成功则关闭，失败则重新打开。失败阈值小于等于 0 时熔断器不生效（始终关闭）
+ */
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param failureThreshold 连续失败多少次打开熔断器，小于等于 0 表示不熔断
+     * @param openNanos 打开后的冷却时间（纳秒）
+     */
+    public CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否可以参与路由（关闭、冷却结束待试探、半开且没有试探请求在途）
+     */
+    public synchronized boolean isAvailable(long now) {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> now - openedAt >= openNanos;
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    /**
+     * 申请发送请求的许可，获得许可后必须调用 onSuccess 或 onFailure
+     *
+     * @return 是否允许发送
+     */
+    public synchronized boolean tryAcquire(long now) {
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        trialInFlight = false;
+    }
+
+    /**
+     * @return 本次失败是否使熔断器从关闭变为打开
+     */
+    public synchronized boolean onFailure(long now) {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (failureThreshold <= 0) {
+            return false;
+        }
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            boolean opened = state == State.CLOSED;
+            state = State.OPEN;
+            openedAt = now;
+            return opened;
+        }
+        return false;
+    }
+
+    /**
+     * 释放未使用的许可（获得许可后请求未实际发出，如被舱壁拒绝）
+     */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+}
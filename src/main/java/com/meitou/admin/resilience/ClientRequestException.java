@@ -0,0 +1,17 @@
+package com.meitou.admin.resilience;
+
+/**
+ * 请求本身有误导致的失败
+ * 依赖正常响应，但因调用方传入的参数拒绝了请求（对象不存在、分片上传已结束、参数错误等），
+ * 换个时间重试也不会成功。ResilienceGuard 不把这类异常计入依赖故障，避免用户的错误请求打开熔断器
+ */
+public class ClientRequestException extends Exception {
+
+    public ClientRequestException(String message) {
+        super(message);
+    }
+
+    public ClientRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,50 @@
+package com.meitou.admin.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 外部依赖
+ * 每个依赖有独立的舱壁（并发上限）、熔断器和超时预算，默认值可通过 resilience.{key}.* 覆盖：
+ * maxConcurrent、timeoutMs、failureThreshold（0 表示不熔断）、openSeconds
+ */
+@Getter
+@AllArgsConstructor
+public enum Dependency {
+
+    /**
+     * AI 平台接口（提交和查询任务）
+     * 平台级熔断由 PlatformRouter 按平台处理，这里只做并发隔离和超时
+     */
+    AI_UPSTREAM("ai", "AI平台", 64, 310_000, 0, 30),
+
+    /**
+     * 文件存储（OSS/COS/本地）
+     */
+    STORAGE("storage", "文件存储服务", 32, 600_000, 10, 30),
+
+    /**
+     * 短信服务
+     */
+    SMS("sms", "短信服务", 8, 10_000, 5, 60),
+
+    /**
+     * 默认头像服务（DiceBear）
+     */
+    AVATAR("avatar", "头像服务", 4, 3_000, 3, 300),
+
+    /**
+     * 支付平台（微信支付、支付宝）
+     */
+    PAYMENT("payment", "支付平台", 16, 15_000, 5, 30);
+
+    /**
+     * 配置键（resilience.{key}.*）和指标标签
+     */
+    private final String key;
+    private final String label;
+    private final int defaultMaxConcurrent;
+    private final long defaultTimeoutMs;
+    private final int defaultFailureThreshold;
+    private final long defaultOpenSeconds;
+}
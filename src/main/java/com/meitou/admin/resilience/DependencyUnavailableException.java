@@ -0,0 +1,47 @@
+package com.meitou.admin.resilience;
+
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import lombok.Getter;
+
+/**
+ * 外部依赖不可用异常
+ * 由 ResilienceGuard 在舱壁已满、熔断打开或超过超时预算时抛出，请求没有执行或已被放弃
+ */
+@Getter
+public class DependencyUnavailableException extends BusinessException {
+
+    /**
+     * 不可用原因
+     */
+    public enum Reason {
+        /**
+         * 舱壁已满（并发数达到上限）
+         */
+        REJECTED,
+        /**
+         * 熔断器打开
+         */
+        CIRCUIT_OPEN,
+        /**
+         * 超过超时预算
+         */
+        TIMEOUT
+    }
+
+    private final Dependency dependency;
+    private final Reason reason;
+
+    public DependencyUnavailableException(Dependency dependency, Reason reason, Throwable cause) {
+        super(ErrorCode.SERVICE_UNAVAILABLE.getCode(), dependency.getLabel() + switch (reason) {
+            case REJECTED -> "繁忙，请稍后再试";
+            case CIRCUIT_OPEN -> "暂时不可用，请稍后再试";
+            case TIMEOUT -> "响应超时，请稍后再试";
+        });
+        this.dependency = dependency;
+        this.reason = reason;
+        if (cause != null) {
+            initCause(cause);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.meitou.admin.resilience;
+
+import com.meitou.admin.common.ExecutorThreads;
+import com.meitou.admin.common.SiteContextThreadPoolExecutor;
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 外部依赖隔离
+ * 每个外部依赖（AI平台、文件存储、短信、头像、支付）使用独立的舱壁线程池执行调用：
+ * 并发数达到上限时立即拒绝，而不是在请求线程上排队；调用方最多等待超时预算，超时即放弃，
+ * 避免单个依赖卡死时耗尽 Servlet 线程池、拖垮无关接口。连续失败达到阈值时熔断，冷却期内直接拒绝。
+ *
+ * 调用结果按依赖和结果记录到 resilience_calls_total{dependency,outcome}，
+ * 舱壁占用和熔断状态分别为 resilience_bulkhead_active、resilience_circuit_open
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResilienceGuard {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_CIRCUIT_OPEN = "circuit_open";
+    public static final String OUTCOME_FALLBACK = "fallback";
+
+    /**
+     * 当前线程所属的舱壁，嵌套调用同一依赖时直接执行，避免占满线程池后互相等待
+     */
+    private static final ThreadLocal<Dependency> CURRENT = new ThreadLocal<>();
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Dependency, Compartment> compartments = new EnumMap<>(Dependency.class);
+
+    /**
+     * 单个依赖的舱壁、熔断器和超时预算
+     */
+    private record Compartment(ThreadPoolExecutor executor, CircuitBreaker breaker, long timeoutMs) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // 舱壁线程大部分时间阻塞在外部调用上，虚拟线程模式下改用虚拟线程
+        boolean virtualThreads = environment.getProperty(ExecutorThreads.VIRTUAL_THREADS_PROPERTY, Boolean.class, false);
+        for (Dependency dependency : Dependency.values()) {
+            String prefix = "resilience." + dependency.getKey() + ".";
+            int maxConcurrent = Math.max(1, environment.getProperty(prefix + "maxConcurrent", Integer.class,
+                    dependency.getDefaultMaxConcurrent()));
+            long timeoutMs = environment.getProperty(prefix + "timeoutMs", Long.class, dependency.getDefaultTimeoutMs());
+            int failureThreshold = environment.getProperty(prefix + "failureThreshold", Integer.class,
+                    dependency.getDefaultFailureThreshold());
+            long openSeconds = environment.getProperty(prefix + "openSeconds", Long.class, dependency.getDefaultOpenSeconds());
+
+            // 不排队：线程全部占用时直接拒绝；隔离线程中需要当前请求的多租户上下文
+            ThreadPoolExecutor executor = new SiteContextThreadPoolExecutor(maxConcurrent, maxConcurrent, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), ExecutorThreads.blockingIo("resilience-" + dependency.getKey() + "-", virtualThreads),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            CircuitBreaker breaker = new CircuitBreaker(failureThreshold, TimeUnit.SECONDS.toNanos(openSeconds));
+            compartments.put(dependency, new Compartment(executor, breaker, timeoutMs));
+
+            Gauge.builder("resilience.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("舱壁中正在执行的调用数")
+                    .tag("dependency", dependency.getKey())
+                    .register(meterRegistry);
+            Gauge.builder("resilience.circuit.open", breaker, b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .description("熔断器是否打开（含半开）")
+                    .tag("dependency", dependency.getKey())
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        compartments.values().forEach(compartment -> compartment.executor().shutdownNow());
+    }
+
+    /**
+     * 在依赖的舱壁中执行调用，调用抛出的异常原样传播
+     *
+     * @param dependency 依赖
+     * @param call 调用
+     * @return 调用结果
+     * @throws DependencyUnavailableException 舱壁已满、熔断打开或超时
+     */
+    public <T> T call(Dependency dependency, Callable<T> call) throws Exception {
+        if (CURRENT.get() == dependency) {
+            return call.call();
+        }
+        Compartment compartment = compartments.get(dependency);
+        CircuitBreaker breaker = compartment.breaker();
+        if (!breaker.tryAcquire(System.nanoTime())) {
+            record(dependency, OUTCOME_CIRCUIT_OPEN);
+            throw new DependencyUnavailableException(dependency, DependencyUnavailableException.Reason.CIRCUIT_OPEN, null);
+        }
+
+        Future<T> future;
+        try {
+            future = compartment.executor().submit(() -> {
+                CURRENT.set(dependency);
+                try {
+                    return call.call();
+                } finally {
+                    CURRENT.remove();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            breaker.release();
+            record(dependency, OUTCOME_REJECTED);
+            throw new DependencyUnavailableException(dependency, DependencyUnavailableException.Reason.REJECTED, e);
+        }
+
+        try {
+            T result = future.get(compartment.timeoutMs(), TimeUnit.MILLISECONDS);
+            breaker.onSuccess();
+            record(dependency, OUTCOME_SUCCESS);
+            return result;
+        } catch (TimeoutException e) {
+            // 中断执行线程；阻塞 IO 不响应中断时，线程会在客户端自身超时后释放，期间仍占用舱壁
+            future.cancel(true);
+            onFailure(dependency, breaker);
+            record(dependency, OUTCOME_TIMEOUT);
+            throw new DependencyUnavailableException(dependency, DependencyUnavailableException.Reason.TIMEOUT, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            breaker.release();
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isDependencyFailure(cause)) {
+                onFailure(dependency, breaker);
+                record(dependency, OUTCOME_FAILURE);
+            } else {
+                // 依赖正常响应但拒绝了请求，不计入依赖故障
+                breaker.onSuccess();
+                record(dependency, OUTCOME_SUCCESS);
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在依赖的舱壁中执行不抛受检异常的调用
+     *
+     * @see #call(Dependency, Callable)
+     */
+    public <T> T supply(Dependency dependency, Supplier<T> call) {
+        try {
+            return call(dependency, call::get);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // Supplier 不会抛出受检异常，只可能是等待时被中断
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE.getCode(), dependency.getLabel() + "调用被中断");
+        }
+    }
+
+    /**
+     * 在依赖的舱壁中执行调用，任何失败（包括舱壁已满、熔断、超时）都返回降级结果
+     *
+     * @param dependency 依赖
+     * @param call 调用
+     * @param fallback 降级结果
+     * @return 调用结果或降级结果
+     */
+    public <T> T supply(Dependency dependency, Supplier<T> call, Supplier<T> fallback) {
+        try {
+            return supply(dependency, call);
+        } catch (RuntimeException e) {
+            log.warn("{}调用失败，使用降级结果：{}", dependency.getLabel(), e.getMessage());
+            record(dependency, OUTCOME_FALLBACK);
+            return fallback.get();
+        }
+    }
+
+    /**
+     * 判断异常是否属于依赖故障。以下由请求本身引起的失败不属于故障，否则任何用户都能用错误请求打开熔断器：
+     * 依赖明确拒绝请求（API_RESPONSE_ERROR，如参数错误、内容审核）、参数校验失败（IllegalArgumentException）、
+     * 存储实现报告的客户端错误（ClientRequestException，如对象或分片上传不存在）
+     */
+    public static boolean isDependencyFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IllegalArgumentException || t instanceof ClientRequestException
+                    || (t instanceof BusinessException be && ErrorCode.API_RESPONSE_ERROR.getCode().equals(be.getCode()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 依赖的熔断器状态
+     */
+    public CircuitBreaker.State getState(Dependency dependency) {
+        return compartments.get(dependency).breaker().getState();
+    }
+
+    private void onFailure(Dependency dependency, CircuitBreaker breaker) {
+        if (breaker.onFailure(System.nanoTime())) {
+            log.warn("{}连续失败，熔断器打开", dependency.getLabel());
+        }
+    }
+
+    private void record(Dependency dependency, String outcome) {
+        Counter.builder("resilience.calls")
+                .description("外部依赖调用次数")
+                .tag("dependency", dependency.getKey())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -1,19 +1,25 @@
 package com.meitou.admin.service;
 
+import com.meitou.admin.common.RetryBackoff;
 import com.meitou.admin.entity.Site;
 import com.meitou.admin.mapper.SiteMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 站点缓存服务
  * 在系统启动时加载所有站点信息到内存缓存，提供快速查询
+ *
+ * 启动时由 StartupCacheWarmer 在后台加载，不阻塞启动；加载完成前的查询会同步加载一次
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SiteCacheService {
@@ -34,31 +40,78 @@ public class SiteCacheService {
      * 站点缓存：按代码存储
      */
     private final Map<String, Site> siteCacheByCode = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已加载过（加载失败时保持 false，下次查询时重试）
+     */
+    private volatile boolean loaded;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /**
+     * 同步加载失败后的退避，避免数据库不可用时每个请求都查库
+     */
+    private final RetryBackoff loadBackoff = new RetryBackoff(1_000, 30_000);
     
     /**
      * 初始化站点缓存
      * 从数据库加载所有启用的站点到内存
      */
     public void initCache() {
-        // 清空现有缓存
-        siteCacheById.clear();
-        siteCacheByDomain.clear();
-        siteCacheByCode.clear();
-        
-        // 从数据库查询所有未删除的站点
-        List<Site> sites = siteMapper.selectList(null);
-        
-        // 加载到缓存
-        for (Site site : sites) {
-            if (site.getDeleted() == null || site.getDeleted() == 0) {
-                siteCacheById.put(site.getId(), site);
-                if (StringUtils.hasText(site.getDomain())) {
-                    siteCacheByDomain.put(site.getDomain(), site);
-                }
-                if (StringUtils.hasText(site.getCode())) {
-                    siteCacheByCode.put(site.getCode(), site);
+        loadLock.lock();
+        try {
+            // 从数据库查询所有未删除的站点（先查询再清空，缩短缓存为空的时间）
+            List<Site> sites = siteMapper.selectList(null);
+
+            // 清空现有缓存
+            siteCacheById.clear();
+            siteCacheByDomain.clear();
+            siteCacheByCode.clear();
+
+            // 加载到缓存
+            for (Site site : sites) {
+                if (site.getDeleted() == null || site.getDeleted() == 0) {
+                    siteCacheById.put(site.getId(), site);
+                    if (StringUtils.hasText(site.getDomain())) {
+                        siteCacheByDomain.put(site.getDomain(), site);
+                    }
+                    if (StringUtils.hasText(site.getCode())) {
+                        siteCacheByCode.put(site.getCode(), site);
+                    }
                 }
             }
+            loaded = true;
+            loadBackoff.onSuccess();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * 是否已完成加载
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 后台预热尚未完成时同步加载，保证启动期间的请求也能识别站点；
+     * 加载失败后在退避期内不再重试，期间的查询按缓存中已有的数据返回
+     */
+    private void ensureLoaded() {
+        if (loaded || !loadBackoff.canAttempt()) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded && loadBackoff.canAttempt()) {
+                log.info("站点缓存尚未预热完成，同步加载");
+                initCache();
+            }
+        } catch (Exception e) {
+            log.error("加载站点缓存失败，{} ms 后重试", loadBackoff.onFailure(), e);
+        } finally {
+            loadLock.unlock();
         }
     }
     
@@ -72,6 +125,7 @@ public class SiteCacheService {
         if (siteId == null) {
             return null;
         }
+        ensureLoaded();
         return siteCacheById.get(siteId);
     }
     
@@ -85,6 +139,7 @@ public class SiteCacheService {
         if (!StringUtils.hasText(domain)) {
             return null;
         }
+        ensureLoaded();
         return siteCacheByDomain.get(domain);
     }
     
@@ -98,6 +153,7 @@ public class SiteCacheService {
         if (!StringUtils.hasText(code)) {
             return null;
         }
+        ensureLoaded();
         return siteCacheByCode.get(code);
     }
     
@@ -115,6 +171,7 @@ public class SiteCacheService {
      * @return 所有站点列表
      */
     public List<Site> getAllSites() {
+        ensureLoaded();
         return siteCacheById.values().stream().toList();
     }
 }
@@ -15,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -96,6 +97,22 @@ public class ApiPlatformService extends ServiceImpl<ApiPlatformMapper, ApiPlatfo
         return platforms;
     }
 
+    /**
+     * 预热所有站点平台 apiKey 的解密缓存
+     * 启动时调用，避免发布后的第一批出图请求各自解密
+     *
+     * @return 成功解密的密钥数
+     */
+    public int warmUpApiKeys() {
+        int count = 0;
+        for (String apiKey : platformMapper.selectApiKeysIgnoreTenant()) {
+            if (AesEncryptUtil.decrypt(apiKey) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * 根据类型和模型获取平台（解密apiKey版本）
      * 优先匹配支持该模型的平台，其次返回未配置模型限制的平台
@@ -106,77 +123,90 @@ public class ApiPlatformService extends ServiceImpl<ApiPlatformMapper, ApiPlatfo
      * @return 匹配的平台，未找到返回null
      */
     public ApiPlatform getPlatformByTypeAndModel(String type, String model, Long siteId) {
-        List<ApiPlatform> platforms = getPlatformsByTypeWithDecryptedKey(type, siteId);
+        List<ApiPlatform> platforms = getPlatformsByTypeAndModel(type, model, siteId);
+        return platforms.isEmpty() ? null : platforms.get(0);
+    }
 
+    /**
+     * 根据类型和模型获取所有可用平台（解密apiKey版本，用于多平台路由和故障切换）
+     * 明确支持该模型的平台在前，未配置模型限制的通用平台在后，同类按创建时间倒序
+     *
+     * @param type API类型
+     * @param model 模型名称
+     * @param siteId 站点ID（可选）
+     * @return 匹配的平台列表，未找到返回空列表
+     */
+    public List<ApiPlatform> getPlatformsByTypeAndModel(String type, String model, Long siteId) {
+        List<ApiPlatform> platforms = getPlatformsByTypeWithDecryptedKey(type, siteId);
+        List<ApiPlatform> matched = new ArrayList<>();
         if (platforms.isEmpty()) {
-            return null;
+            return matched;
         }
 
-        // 1. 优先查找明确支持该模型的平台
+        // 1. 明确支持该模型的平台
         if (model != null && !model.isEmpty()) {
             for (ApiPlatform platform : platforms) {
-                String supportedModels = platform.getSupportedModels();
-                if (supportedModels != null && !supportedModels.isEmpty()) {
-                    try {
-                        if (supportedModels.trim().startsWith("[")) {
-                            // 尝试解析JSON (新格式)
-                            JsonNode modelsNode = objectMapper.readTree(supportedModels);
-                            for (JsonNode m : modelsNode) {
-                                // 处理字符串数组 ["flux-1.0", "flux-2.0"]
-                                if (m.isTextual()) {
-                                    if (m.asText().equals(model)) {
-                                        return platform;
-                                    }
-                                } 
-                                // 处理对象数组 [{"name": "flux-1.0", "label": "Flux 1.0"}]
-                                else if (m.isObject()) {
-                                    // 优先匹配 name 字段（对应前端 ModelInfo.id）
-                                    if (m.has("name") && m.get("name").asText().equals(model)) {
-                                        return platform;
-                                    }
-                                    // 兼容 id 字段
-                                    if (m.has("id") && m.get("id").asText().equals(model)) {
-                                        return platform;
-                                    }
-                                    // 兼容 value 字段
-                                    if (m.has("value") && m.get("value").asText().equals(model)) {
-                                        return platform;
-                                    }
-                                }
-                            }
-                        } else {
-                            // 旧格式兼容：#号分割
-                            String[] models = supportedModels.split("#");
-                            for (String m : models) {
-                                if (m.trim().equals(model)) {
-                                    return platform;
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        // 解析JSON失败，尝试旧的#分割方式
-                        String[] models = supportedModels.split("#");
-                        for (String m : models) {
-                            if (m.trim().equals(model)) {
-                                return platform;
-                            }
-                        }
-                    }
+                if (supportsModel(platform.getSupportedModels(), model)) {
+                    matched.add(platform);
                 }
             }
         }
 
-        // 2. 如果没有明确支持的，查找未配置模型限制的平台（通用平台）
+        // 2. 未配置模型限制的平台（通用平台）
         for (ApiPlatform platform : platforms) {
             String supportedModels = platform.getSupportedModels();
             if (supportedModels == null || supportedModels.trim().isEmpty() || "[]".equals(supportedModels.trim())) {
-                return platform;
+                matched.add(platform);
             }
         }
 
-        // 3. 如果还是没找到，且列表不为空，是否默认返回第一个？
-        // 为了严格匹配，建议返回null，让上层决定是否报错
-        return null;
+        // 都没有时返回空列表（严格匹配），让上层决定是否报错
+        return matched;
+    }
+
+    /**
+     * 判断平台的模型配置是否包含指定模型
+     *
+     * @param supportedModels 平台支持的模型（JSON数组或#号分割）
+     * @param model 模型名称
+     */
+    private boolean supportsModel(String supportedModels, String model) {
+        if (supportedModels == null || supportedModels.isEmpty()) {
+            return false;
+        }
+        try {
+            if (supportedModels.trim().startsWith("[")) {
+                // 尝试解析JSON (新格式)
+                JsonNode modelsNode = objectMapper.readTree(supportedModels);
+                for (JsonNode m : modelsNode) {
+                    // 处理字符串数组 ["flux-1.0", "flux-2.0"]
+                    if (m.isTextual()) {
+                        if (m.asText().equals(model)) {
+                            return true;
+                        }
+                    }
+                    // 处理对象数组 [{"name": "flux-1.0", "label": "Flux 1.0"}]
+                    else if (m.isObject()) {
+                        // 优先匹配 name 字段（对应前端 ModelInfo.id），兼容 id、value 字段
+                        for (String field : new String[]{"name", "id", "value"}) {
+                            if (m.has(field) && m.get(field).asText().equals(model)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                return false;
+            }
+        } catch (Exception e) {
+            // 解析JSON失败，尝试旧的#分割方式
+        }
+        // 旧格式兼容：#号分割
+        for (String m : supportedModels.split("#")) {
+            if (m.trim().equals(model)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -193,10 +223,12 @@ public class ApiPlatformService extends ServiceImpl<ApiPlatformMapper, ApiPlatfo
             platform.setIsEnabled(true);
         }
         
-        // 加密apiKey（如果存在且未加密）
+        // 加密apiKey（如果存在且未加密，旧版密文转为当前格式）
         if (platform.getApiKey() != null && !platform.getApiKey().isEmpty()) {
             if (!AesEncryptUtil.isEncrypted(platform.getApiKey())) {
                 platform.setApiKey(AesEncryptUtil.encrypt(platform.getApiKey()));
+            } else {
+                platform.setApiKey(AesEncryptUtil.migrate(platform.getApiKey()));
             }
         }
         
@@ -250,8 +282,16 @@ public class ApiPlatformService extends ServiceImpl<ApiPlatformMapper, ApiPlatfo
             if (!AesEncryptUtil.isEncrypted(apiKeyToSave)) {
                 // 如果未加密，则加密
                 apiKeyToSave = AesEncryptUtil.encrypt(apiKeyToSave);
+            } else {
+                apiKeyToSave = AesEncryptUtil.migrate(apiKeyToSave);
+            }
+            if (!apiKeyToSave.equals(existing.getApiKey())) {
+                AesEncryptUtil.invalidate(existing.getApiKey());
             }
             existing.setApiKey(apiKeyToSave);
+        } else if (AesEncryptUtil.isLegacyEncrypted(existing.getApiKey())) {
+            // 未修改apiKey时顺带把旧版密文转为当前格式
+            existing.setApiKey(AesEncryptUtil.migrate(existing.getApiKey()));
         }
         if (platform.getDescription() != null) {
             existing.setDescription(platform.getDescription());
@@ -349,8 +389,9 @@ public class ApiPlatformService extends ServiceImpl<ApiPlatformMapper, ApiPlatfo
      */
     @Transactional
     public void deletePlatform(Long id) {
-        getPlatformById(id);
+        ApiPlatform platform = getPlatformById(id);
         platformMapper.deleteById(id);
+        AesEncryptUtil.invalidate(platform.getApiKey());
         // 接口会通过外键级联删除
     }
 }
@@ -1,12 +1,11 @@
 package com.meitou.admin.service.admin;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.meitou.admin.common.SiteContext;
 import com.meitou.admin.entity.User;
-import com.meitou.admin.entity.UserTransaction;
+import com.meitou.admin.mapper.StatRollupMapper;
 import com.meitou.admin.mapper.UserMapper;
-import com.meitou.admin.mapper.UserTransactionMapper;
+import com.meitou.admin.util.HyperLogLog;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +13,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,12 +24,14 @@ import java.util.stream.Collectors;
 public class DashboardService {
     
     private final UserMapper userMapper;
-    private final UserTransactionMapper userTransactionMapper;
+    private final StatRollupMapper statRollupMapper;
     
     /**
      * 获取统计数据
+     *
+     * @param exact 是否精确统计活跃用户数（默认合并 HyperLogLog 草图估算，对账时可要求精确值）
      */
-    public Map<String, Object> getStats(Long siteId, String timeRange, String startDateStr, String endDateStr) {
+    public Map<String, Object> getStats(Long siteId, String timeRange, String startDateStr, String endDateStr, boolean exact) {
         // If current user is not super admin (siteId != 0), force filter by their siteId
         Long contextSiteId = SiteContext.getSiteId();
         if (contextSiteId != null && contextSiteId != 0L) {
@@ -58,48 +58,39 @@ public class DashboardService {
         }
         stats.put("totalBalance", totalBalance);
         
+        // 以下指标读取每日汇总表（由 DashboardRollupTask 增量维护），不再扫描用户表和流水表
+        LocalDate startDate = start != null ? start.toLocalDate() : null;
+        LocalDate endDate = end != null ? end.toLocalDate() : null;
+        
         // 2. 商家总数 (Total Users)
-        QueryWrapper<User> userWrapper = new QueryWrapper<>();
-        if (siteId != null) {
-            userWrapper.eq("site_id", siteId);
-        }
-        long totalUsers = userMapper.selectCountIgnoreTenant(userWrapper);
-        stats.put("totalUsers", totalUsers);
+        Map<String, Object> allTime = statRollupMapper.sumDailySite(siteId, null, null);
+        stats.put("totalUsers", toLong(allTime, "newUsers"));
         
         // 3. 产生消耗商家数 (Active Users)
         // Count distinct users who consumed in the time range
-        QueryWrapper<UserTransaction> activeUserWrapper = new QueryWrapper<>();
-        activeUserWrapper.select("count(distinct user_id) as count")
-                .eq("type", "CONSUME")
-                .ge(start != null, "created_at", start)
-                .le(end != null, "created_at", end);
-        if (siteId != null) {
-            activeUserWrapper.eq("site_id", siteId);
-        }
-        List<Map<String, Object>> activeUserList = userTransactionMapper.selectMapsIgnoreTenant(activeUserWrapper);
-        Map<String, Object> activeUserResult = (activeUserList != null && !activeUserList.isEmpty()) ? activeUserList.get(0) : null;
-        long activeUsers = 0;
-        if (activeUserResult != null && activeUserResult.get("count") != null) {
-            activeUsers = Long.parseLong(activeUserResult.get("count").toString());
+        if (exact) {
+            Long activeUsers = statRollupMapper.countDistinctConsumers(siteId, startDate, endDate);
+            stats.put("activeUsers", activeUsers != null ? activeUsers : 0L);
+            stats.put("activeUsersApproximate", false);
+            stats.put("activeUsersErrorRate", 0.0);
+        } else {
+            // 合并范围内每个 (站点, 日期) 的草图，估算值的相对标准误差见 activeUsersErrorRate
+            HyperLogLog sketch = new HyperLogLog();
+            for (Map<String, Object> row : statRollupMapper.selectConsumerSketches(siteId, startDate, endDate)) {
+                if (row != null && row.get("sketch") instanceof byte[] bytes) {
+                    sketch.merge(HyperLogLog.fromBytes(bytes));
+                }
+            }
+            stats.put("activeUsers", sketch.cardinality());
+            stats.put("activeUsersApproximate", true);
+            stats.put("activeUsersErrorRate", sketch.relativeStandardError());
         }
-        stats.put("activeUsers", activeUsers);
         
         // 4. 该类目总消耗 (Total Consumption)
-        QueryWrapper<UserTransaction> consumptionWrapper = new QueryWrapper<>();
-        consumptionWrapper.select("sum(abs(amount)) as total")
-                .eq("type", "CONSUME")
-                .ge(start != null, "created_at", start)
-                .le(end != null, "created_at", end);
-        if (siteId != null) {
-            consumptionWrapper.eq("site_id", siteId);
-        }
-        List<Map<String, Object>> consumptionList = userTransactionMapper.selectMapsIgnoreTenant(consumptionWrapper);
-        Map<String, Object> consumptionResult = (consumptionList != null && !consumptionList.isEmpty()) ? consumptionList.get(0) : null;
-        long totalConsumption = 0;
-        if (consumptionResult != null && consumptionResult.get("total") != null) {
-            totalConsumption = Long.parseLong(consumptionResult.get("total").toString()); // Assuming amount is Integer but sum can be Long
-        }
-        stats.put("totalConsumption", totalConsumption);
+        Map<String, Object> inRange = statRollupMapper.sumDailySite(siteId, startDate, endDate);
+        stats.put("totalConsumption", toLong(inRange, "consumption"));
+        stats.put("totalRecharge", toLong(inRange, "recharge"));
+        stats.put("totalRefunds", toLong(inRange, "refunds"));
         
         return stats;
     }
@@ -127,55 +118,24 @@ public class DashboardService {
         LocalDate currentDate = start.toLocalDate();
         LocalDate endDate = end.toLocalDate();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd");
-        DateTimeFormatter sqlFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
         while (!currentDate.isAfter(endDate)) {
             dateList.add(currentDate.format(formatter));
             currentDate = currentDate.plusDays(1);
         }
         
-        // Query New Merchants (Users) Group by Date
-        QueryWrapper<User> userWrapper = new QueryWrapper<>();
-        userWrapper.select("DATE_FORMAT(created_at, '%m-%d') as date, count(*) as count")
-                .ge("created_at", start)
-                .le("created_at", end)
-                .groupBy("date");
-        if (siteId != null) {
-            userWrapper.eq("site_id", siteId);
-        }
-        List<Map<String, Object>> userTrend = userMapper.selectMapsIgnoreTenant(userWrapper);
-        Map<String, Long> userTrendMap = userTrend.stream()
-                .filter(m -> m != null && m.get("date") != null)
-                .collect(Collectors.toMap(
-                m -> (String) m.get("date"),
-                m -> {
-                    Object count = m.get("count");
-                    return count != null ? Long.parseLong(count.toString()) : 0L;
-                },
-                (v1, v2) -> v1 // Merge function in case of duplicate keys (shouldn't happen with group by)
-        ));
-        
-        // Query Consumption Group by Date
-        QueryWrapper<UserTransaction> consumeWrapper = new QueryWrapper<>();
-        consumeWrapper.select("DATE_FORMAT(created_at, '%m-%d') as date, sum(abs(amount)) as total")
-                .eq("type", "CONSUME")
-                .ge("created_at", start)
-                .le("created_at", end)
-                .groupBy("date");
-        if (siteId != null) {
-            consumeWrapper.eq("site_id", siteId);
+        // Query New Merchants (Users) and Consumption Group by Date from daily rollups
+        List<Map<String, Object>> dailyRows = statRollupMapper.selectDailyTrend(siteId, start.toLocalDate(), endDate);
+        Map<String, Long> userTrendMap = new HashMap<>();
+        Map<String, Long> consumeTrendMap = new HashMap<>();
+        for (Map<String, Object> row : dailyRows) {
+            if (row == null || row.get("statDate") == null) {
+                continue;
+            }
+            String dateKey = LocalDate.parse(row.get("statDate").toString()).format(formatter);
+            userTrendMap.put(dateKey, toLong(row, "newUsers"));
+            consumeTrendMap.put(dateKey, toLong(row, "consumption"));
         }
-        List<Map<String, Object>> consumeTrend = userTransactionMapper.selectMapsIgnoreTenant(consumeWrapper);
-        Map<String, Long> consumeTrendMap = consumeTrend.stream()
-                .filter(m -> m != null && m.get("date") != null)
-                .collect(Collectors.toMap(
-                m -> (String) m.get("date"),
-                m -> {
-                    Object total = m.get("total");
-                    return total != null ? Long.parseLong(total.toString()) : 0L;
-                },
-                (v1, v2) -> v1
-        ));
         
         // Combine
         List<Map<String, Object>> trendData = new ArrayList<>();
@@ -209,32 +169,21 @@ public class DashboardService {
         LocalDateTime start = getStartDateTime(timeRange, startDateStr, endDateStr);
         LocalDateTime end = getEndDateTime(timeRange, startDateStr, endDateStr);
         
-        // Top 5 users by consumption
-        QueryWrapper<UserTransaction> rankingWrapper = new QueryWrapper<>();
-        rankingWrapper.select("user_id, sum(abs(amount)) as total")
-                .eq("type", "CONSUME")
-                .ge(start != null, "created_at", start)
-                .le(end != null, "created_at", end);
-        if (siteId != null) {
-            rankingWrapper.eq("site_id", siteId);
-        }
-        rankingWrapper.groupBy("user_id")
-                .orderByDesc("total")
-                .last("LIMIT 5");
-        
-        List<Map<String, Object>> rankingList = userTransactionMapper.selectMapsIgnoreTenant(rankingWrapper);
+        // Top 5 users by consumption (from per-user daily rollups)
+        List<Map<String, Object>> rankingList = statRollupMapper.selectTopConsumers(siteId,
+                start != null ? start.toLocalDate() : null, end != null ? end.toLocalDate() : null, 5);
         
         List<Map<String, Object>> finalRanking = new ArrayList<>();
         if (!rankingList.isEmpty()) {
             List<Long> userIds = rankingList.stream()
-                    .map(m -> Long.parseLong(m.get("user_id").toString()))
+                    .map(m -> Long.parseLong(m.get("userId").toString()))
                     .collect(Collectors.toList());
             
             List<User> users = userMapper.selectListIgnoreTenant(new QueryWrapper<User>().in("id", userIds));
             Map<Long, String> userNameMap = users.stream().collect(Collectors.toMap(User::getId, u -> u.getUsername() != null ? u.getUsername() : "User " + u.getId()));
             
             for (Map<String, Object> item : rankingList) {
-                Long userId = Long.parseLong(item.get("user_id").toString());
+                Long userId = Long.parseLong(item.get("userId").toString());
                 Map<String, Object> rankItem = new HashMap<>();
                 rankItem.put("name", userNameMap.getOrDefault(userId, "Unknown"));
                 rankItem.put("value", Long.parseLong(item.get("total").toString()));
@@ -246,6 +195,13 @@ public class DashboardService {
         return result;
     }
     
+    private long toLong(Map<String, Object> row, String key) {
+        if (row == null || row.get(key) == null) {
+            return 0L;
+        }
+        return ((Number) row.get(key)).longValue();
+    }
+    
     private LocalDateTime getStartDateTime(String timeRange, String startDateStr, String endDateStr) {
         if ("custom".equals(timeRange) && startDateStr != null && !startDateStr.isEmpty()) {
             return LocalDate.parse(startDateStr).atStartOfDay();
@@ -0,0 +1,453 @@
+package com.meitou.admin.service.admin;
+
+import com.meitou.admin.common.ExecutorThreads;
+import com.meitou.admin.common.SiteContextThreadPoolExecutor;
+import com.meitou.admin.dto.ExportJobResponse;
+import com.meitou.admin.entity.GenerationRecord;
+import com.meitou.admin.entity.RechargeOrder;
+import com.meitou.admin.entity.UserTransaction;
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.mapper.ExportMapper;
+import com.meitou.admin.storage.FileStorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * 数据导出服务
+ * 以 CSV（UTF-8 BOM，Excel 可直接打开）导出站点在日期范围内的余额流水、充值订单、生成记录；
+ * 查询通过 ResultHandler 逐行回调并直接写入输出流，内存占用与导出行数无关
+ *
+ * 数据量不超过 export.sync.maxRows 时可直接下载；更大的导出作为后台任务执行，
+ * 写入临时文件后上传到文件存储，期间可查询进度；导出文件不公开，查询任务时返回限时有效的预签名下载地址，
+ * 任务状态过期清理时一并删除文件
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final List<Column<UserTransaction>> TRANSACTION_COLUMNS = List.of(
+            new Column<>("ID", UserTransaction::getId),
+            new Column<>("用户ID", UserTransaction::getUserId),
+            new Column<>("类型", UserTransaction::getType),
+            new Column<>("变动积分", UserTransaction::getAmount),
+            new Column<>("变动后余额", UserTransaction::getBalanceAfter),
+            new Column<>("关联ID", UserTransaction::getReferenceId),
+            new Column<>("描述", UserTransaction::getDescription),
+            new Column<>("创建时间", UserTransaction::getCreatedAt)
+    );
+
+    private static final List<Column<RechargeOrder>> RECHARGE_ORDER_COLUMNS = List.of(
+            new Column<>("ID", RechargeOrder::getId),
+            new Column<>("订单号", RechargeOrder::getOrderNo),
+            new Column<>("用户ID", RechargeOrder::getUserId),
+            new Column<>("金额（元）", RechargeOrder::getAmount),
+            new Column<>("算力", RechargeOrder::getPoints),
+            new Column<>("支付方式", RechargeOrder::getPaymentType),
+            new Column<>("状态", RechargeOrder::getStatus),
+            new Column<>("第三方订单号", RechargeOrder::getThirdPartyOrderNo),
+            new Column<>("支付时间", RechargeOrder::getPaidAt),
+            new Column<>("完成时间", RechargeOrder::getCompletedAt),
+            new Column<>("创建时间", RechargeOrder::getCreatedAt)
+    );
+
+    private static final List<Column<GenerationRecord>> GENERATION_RECORD_COLUMNS = List.of(
+            new Column<>("ID", GenerationRecord::getId),
+            new Column<>("用户ID", GenerationRecord::getUserId),
+            new Column<>("用户名", GenerationRecord::getUsername),
+            new Column<>("类型", GenerationRecord::getType),
+            new Column<>("模型", GenerationRecord::getModel),
+            new Column<>("提示词", GenerationRecord::getPrompt),
+            new Column<>("文件类型", GenerationRecord::getFileType),
+            new Column<>("消耗积分", GenerationRecord::getCost),
+            new Column<>("状态", GenerationRecord::getStatus),
+            new Column<>("内容URL", GenerationRecord::getContentUrl),
+            new Column<>("失败原因", GenerationRecord::getFailureReason),
+            new Column<>("创建时间", GenerationRecord::getCreatedAt)
+    );
+
+    private final ExportMapper exportMapper;
+    private final FileStorageService fileStorageService;
+
+    /**
+     * 直接下载允许的最大行数，超过时需使用后台导出任务
+     */
+    @Value("${export.sync.maxRows:200000}")
+    private long syncMaxRows;
+
+    /**
+     * 后台导出线程数（同时执行的导出任务数）
+     */
+    @Value("${export.job.threads:2}")
+    private int jobThreads;
+
+    /**
+     * 任务状态保留时长（分钟）
+     */
+    @Value("${export.job.retentionMinutes:1440}")
+    private long retentionMinutes;
+
+    /**
+     * 导出文件下载地址有效期（分钟），每次查询任务时重新签发
+     */
+    @Value("${export.job.downloadExpiryMinutes:10}")
+    private long downloadExpiryMinutes;
+
+    /**
+     * 是否开启虚拟线程模式，见 {@link ExecutorThreads}
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService jobExecutor;
+
+    /**
+     * 导出类型
+     */
+    public enum ExportType {
+        TRANSACTIONS("transactions", "余额流水"),
+        RECHARGE_ORDERS("recharge-orders", "充值订单"),
+        GENERATION_RECORDS("generation-records", "生成记录");
+
+        private final String code;
+        private final String label;
+
+        ExportType(String code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static ExportType fromCode(String code) {
+            for (ExportType type : values()) {
+                if (type.code.equals(code)) {
+                    return type;
+                }
+            }
+            throw new BusinessException(ErrorCode.PARAM_ERROR.getCode(), "不支持的导出类型：" + code);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(1, jobThreads);
+        jobExecutor = new SiteContextThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), ExecutorThreads.blockingIo("export-job-", virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * 统计导出行数
+     */
+    public long count(ExportType type, Long siteId, LocalDate startDate, LocalDate endDate) {
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        return switch (type) {
+            case TRANSACTIONS -> exportMapper.countTransactions(siteId, start, end);
+            case RECHARGE_ORDERS -> exportMapper.countRechargeOrders(siteId, start, end);
+            case GENERATION_RECORDS -> exportMapper.countGenerationRecords(siteId, start, end);
+        };
+    }
+
+    /**
+     * 校验是否允许直接下载（数据量过大时提示使用后台导出）
+     */
+    public void checkSyncExportAllowed(ExportType type, Long siteId, LocalDate startDate, LocalDate endDate) {
+        long rows = count(type, siteId, startDate, endDate);
+        if (rows > syncMaxRows) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR.getCode(),
+                    "导出数据量过大（" + rows + " 条），请使用后台导出任务");
+        }
+    }
+
+    /**
+     * 构建导出文件名
+     */
+    public String buildFileName(ExportType type, LocalDate startDate, LocalDate endDate) {
+        return type.getCode() + "_" + startDate.format(FILE_DATE_FORMATTER) + "_" + endDate.format(FILE_DATE_FORMATTER) + ".csv";
+    }
+
+    /**
+     * 以 CSV 格式流式写出
+     *
+     * @param onRow 每写出一行后回调已写出的行数（可为 null）
+     * @return 导出行数
+     */
+    public long writeCsv(ExportType type, Long siteId, LocalDate startDate, LocalDate endDate,
+                         OutputStream out, LongConsumer onRow) throws IOException {
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // UTF-8 BOM，保证 Excel 正确识别中文
+        writer.write('\uFEFF');
+        long rows;
+        try {
+            rows = switch (type) {
+                case TRANSACTIONS -> stream(writer, TRANSACTION_COLUMNS, onRow,
+                        handler -> exportMapper.streamTransactions(siteId, start, end, handler));
+                case RECHARGE_ORDERS -> stream(writer, RECHARGE_ORDER_COLUMNS, onRow,
+                        handler -> exportMapper.streamRechargeOrders(siteId, start, end, handler));
+                case GENERATION_RECORDS -> stream(writer, GENERATION_RECORD_COLUMNS, onRow,
+                        handler -> exportMapper.streamGenerationRecords(siteId, start, end, handler));
+            };
+        } catch (RuntimeException e) {
+            // MyBatis 会把 ResultHandler 中抛出的异常包装为 PersistenceException，这里还原写出失败的 IOException
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+            }
+            throw e;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * 提交后台导出任务
+     */
+    public ExportJobResponse submitJob(ExportType type, Long siteId, LocalDate startDate, LocalDate endDate) {
+        Job job = new Job(UUID.randomUUID().toString().replace("-", ""), type, siteId, startDate, endDate);
+        jobs.put(job.jobId, job);
+        try {
+            jobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+        }
+        log.info("提交导出任务：jobId={}, type={}, siteId={}, {} ~ {}", job.jobId, type.getCode(), siteId, startDate, endDate);
+        return job.toResponse();
+    }
+
+    /**
+     * 查询后台导出任务（只能查询本站点的任务）
+     */
+    public ExportJobResponse getJob(String jobId, Long siteId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.siteId.equals(siteId)) {
+            throw new BusinessException(ErrorCode.RECORD_NOT_FOUND);
+        }
+        ExportJobResponse response = job.toResponse();
+        if (job.objectKey != null) {
+            try {
+                response.setFileUrl(fileStorageService.presignDownload(job.objectKey, Duration.ofMinutes(downloadExpiryMinutes)));
+            } catch (Exception e) {
+                log.error("生成导出文件下载地址失败：jobId={}, {}", jobId, e.getMessage(), e);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 清理过期的任务状态和导出文件；文件删除失败时保留任务，下次清理时重试
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void cleanupJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(retentionMinutes);
+        for (Job job : jobs.values()) {
+            if (job.finishedAt == null || !job.finishedAt.isBefore(expireBefore)) {
+                continue;
+            }
+            if (job.objectKey != null) {
+                try {
+                    fileStorageService.delete(job.objectKey);
+                } catch (Exception e) {
+                    log.warn("删除导出文件失败：jobId={}, key={}, {}", job.jobId, job.objectKey, e.getMessage());
+                    continue;
+                }
+            }
+            jobs.remove(job.jobId);
+        }
+    }
+
+    private void runJob(Job job) {
+        job.status = "running";
+        Path tempFile = null;
+        try {
+            job.totalRows = count(job.type, job.siteId, job.startDate, job.endDate);
+            tempFile = Files.createTempFile("export-", ".csv");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                writeCsv(job.type, job.siteId, job.startDate, job.endDate, out, rows -> job.processedRows = rows);
+            }
+            // 文件名带随机前缀，避免被猜测
+            String fileName = job.jobId + "_" + buildFileName(job.type, job.startDate, job.endDate);
+            // 按文件上传：已知长度，云存储边读边传，不在内存中缓存整个文件
+            String folder = "exports/" + job.siteId + "/";
+            fileStorageService.upload(tempFile, folder, fileName);
+            job.objectKey = FileStorageService.buildObjectKey(folder, fileName);
+            job.status = "success";
+            log.info("导出任务完成：jobId={}, rows={}", job.jobId, job.processedRows);
+        } catch (Exception e) {
+            job.status = "failed";
+            job.errorMessage = e.getMessage();
+            log.error("导出任务失败：jobId={}, {}", job.jobId, e.getMessage(), e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除导出临时文件失败：{}", tempFile);
+                }
+            }
+        }
+    }
+
+    private <T> long stream(Writer writer, List<Column<T>> columns, LongConsumer onRow,
+                            Consumer<ResultHandler<T>> query) throws IOException {
+        writeLine(writer, columns.stream().<Object>map(Column::header).toList());
+        long[] rows = {0};
+        query.accept(context -> {
+            T row = context.getResultObject();
+            try {
+                writeLine(writer, columns.stream().map(c -> c.value().apply(row)).toList());
+            } catch (IOException e) {
+                // 客户端断开等写出失败时中止查询
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+            if (onRow != null) {
+                onRow.accept(rows[0]);
+            }
+        });
+        return rows[0];
+    }
+
+    private void writeLine(Writer writer, List<Object> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * CSV 转义；文本以 = + - @ 开头时加单引号前缀，防止在 Excel 中被当作公式执行
+     */
+    static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof LocalDateTime time) {
+            text = time.format(DATE_TIME_FORMATTER);
+        } else if (value instanceof String s) {
+            text = !s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0 ? "'" + s : s;
+        } else {
+            text = value.toString();
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    /**
+     * 导出列定义
+     */
+    private record Column<T>(String header, Function<T, Object> value) {
+    }
+
+    /**
+     * 后台导出任务（状态字段由导出线程写、查询线程读）
+     */
+    private static final class Job {
+        private final String jobId;
+        private final ExportType type;
+        private final Long siteId;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile String status = "pending";
+        private volatile long totalRows;
+        private volatile long processedRows;
+        private volatile String objectKey;
+        private volatile String errorMessage;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String jobId, ExportType type, Long siteId, LocalDate startDate, LocalDate endDate) {
+            this.jobId = jobId;
+            this.type = type;
+            this.siteId = siteId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        private ExportJobResponse toResponse() {
+            ExportJobResponse response = new ExportJobResponse();
+            response.setJobId(jobId);
+            response.setType(type.getCode());
+            response.setSiteId(siteId);
+            response.setStatus(status);
+            response.setTotalRows(totalRows);
+            response.setProcessedRows(processedRows);
+            int progress;
+            if ("success".equals(status)) {
+                progress = 100;
+            } else if (totalRows > 0) {
+                // 统计行数之后新增的数据也会被导出，进度封顶 99%
+                progress = (int) Math.min(99, processedRows * 100 / totalRows);
+            } else {
+                progress = 0;
+            }
+            response.setProgress(progress);
+            response.setErrorMessage(errorMessage);
+            response.setCreatedAt(createdAt);
+            response.setFinishedAt(finishedAt);
+            return response;
+        }
+    }
+}
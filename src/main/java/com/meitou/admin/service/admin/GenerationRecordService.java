@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.meitou.admin.entity.GenerationRecord;
 import com.meitou.admin.mapper.GenerationRecordMapper;
+import com.meitou.admin.service.common.MediaDedupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -17,6 +18,7 @@ import java.util.List;
 public class GenerationRecordService extends ServiceImpl<GenerationRecordMapper, GenerationRecord> {
     
     private final GenerationRecordMapper recordMapper;
+    private final MediaDedupService mediaDedupService;
     
     /**
      * 获取生成记录列表（按站点ID）
@@ -114,6 +116,7 @@ public class GenerationRecordService extends ServiceImpl<GenerationRecordMapper,
         
         // 逻辑删除（MyBatis-Plus会自动处理）
         recordMapper.deleteById(id);
+        mediaDedupService.release(existing.getContentUrl());
     }
 }
 
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.meitou.admin.entity.InvitationCode;
 import com.meitou.admin.mapper.InvitationCodeMapper;
+import com.meitou.admin.service.common.SearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -22,6 +23,7 @@ import java.util.Random;
 public class InvitationCodeService extends ServiceImpl<InvitationCodeMapper, InvitationCode> {
     
     private final InvitationCodeMapper codeMapper;
+    private final SearchService searchService;
     
     /**
      * 获取邀请码列表（按站点分类）
@@ -63,12 +65,8 @@ public class InvitationCodeService extends ServiceImpl<InvitationCodeMapper, Inv
     public IPage<InvitationCode> getPage(Page<InvitationCode> page, String code, String channel, String status) {
         LambdaQueryWrapper<InvitationCode> wrapper = new LambdaQueryWrapper<>();
         
-        if (StringUtils.hasText(code)) {
-            wrapper.like(InvitationCode::getCode, code);
-        }
-        if (StringUtils.hasText(channel)) {
-            wrapper.like(InvitationCode::getChannel, channel);
-        }
+        searchService.applyKeyword(wrapper, SearchService.SearchIndex.INVITATION_CODE, code);
+        searchService.applyKeyword(wrapper, SearchService.SearchIndex.INVITATION_CHANNEL, channel);
         if (StringUtils.hasText(status) && !"all".equals(status)) {
             wrapper.eq(InvitationCode::getStatus, status);
         }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.meitou.admin.entity.PaymentConfig;
 import com.meitou.admin.mapper.PaymentConfigMapper;
+import com.meitou.admin.service.common.PaymentClientRegistry;
 import com.meitou.admin.util.AesEncryptUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,7 @@ import java.util.*;
 public class PaymentConfigService extends ServiceImpl<PaymentConfigMapper, PaymentConfig> {
     
     private final PaymentConfigMapper paymentConfigMapper;
+    private final PaymentClientRegistry paymentClientRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     // 敏感字段集合，需要加密存储和脱敏显示
@@ -137,6 +139,8 @@ public class PaymentConfigService extends ServiceImpl<PaymentConfigMapper, Payme
                 existing.setIsEnabled(config.getIsEnabled());
             }
             paymentConfigMapper.updateById(existing);
+            // 配置已变更，丢弃按旧配置构建的支付客户端
+            paymentClientRegistry.invalidate(existing.getId());
             return existing;
         }
     }
@@ -170,6 +174,7 @@ public class PaymentConfigService extends ServiceImpl<PaymentConfigMapper, Payme
         }
         
         paymentConfigMapper.updateById(existing);
+        paymentClientRegistry.invalidate(existing.getId());
         return existing;
     }
     
@@ -184,7 +189,12 @@ public class PaymentConfigService extends ServiceImpl<PaymentConfigMapper, Payme
         if (config == null) {
             throw new RuntimeException("支付配置不存在：paymentType=" + paymentType + ", siteId=" + siteId);
         }
+        PaymentConfig raw = paymentConfigMapper.selectById(config.getId());
         paymentConfigMapper.deleteById(config.getId());
+        paymentClientRegistry.invalidate(config.getId());
+        if (raw != null) {
+            invalidateSecrets(raw.getConfigJson());
+        }
     }
 
     // ================== 私有辅助方法 ==================
@@ -245,9 +255,9 @@ public class PaymentConfigService extends ServiceImpl<PaymentConfigMapper, Payme
                     String val = newMap.get(key);
                     // 检查是否为掩码（包含****）或者为空
                     if (val == null || val.contains("****")) {
-                        // 如果是掩码，尝试保留原有加密值
+                        // 如果是掩码，尝试保留原有加密值（旧版密文转为当前格式）
                         if (existingMap.containsKey(key)) {
-                            newMap.put(key, existingMap.get(key));
+                            newMap.put(key, AesEncryptUtil.migrate(existingMap.get(key)));
                         } else {
                             // 如果没有原有值，且新值为掩码，这通常不应该发生，除非前端逻辑错误
                             // 这里我们保留原值（即掩码），或者设为空？
@@ -267,12 +277,34 @@ public class PaymentConfigService extends ServiceImpl<PaymentConfigMapper, Payme
                     }
                 }
             }
+            // 被替换的密文不再使用，移除解密缓存
+            for (String key : SENSITIVE_FIELDS) {
+                String previous = existingMap.get(key);
+                if (previous != null && !previous.equals(newMap.get(key))) {
+                    AesEncryptUtil.invalidate(previous);
+                }
+            }
             return objectMapper.writeValueAsString(newMap);
         } catch (Exception e) {
             throw new RuntimeException("处理支付配置加密失败", e);
         }
     }
 
+    /**
+     * 移除配置中敏感字段密文的解密缓存
+     */
+    private void invalidateSecrets(String encryptedJson) {
+        if (encryptedJson == null || encryptedJson.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, String> map = objectMapper.readValue(encryptedJson, new TypeReference<Map<String, String>>() {});
+            SENSITIVE_FIELDS.forEach(key -> AesEncryptUtil.invalidate(map.get(key)));
+        } catch (Exception e) {
+            log.warn("解析支付配置JSON失败", e);
+        }
+    }
+
     /**
      * 字符串脱敏：保留前4后4，中间替换为****
      */
@@ -8,6 +8,9 @@ import com.meitou.admin.entity.PublishedContent;
 import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
 import com.meitou.admin.mapper.PublishedContentMapper;
+import com.meitou.admin.service.common.MediaDedupService;
+import com.meitou.admin.service.common.SearchService;
+import com.meitou.admin.service.common.SquareFeedCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +20,10 @@ import org.springframework.util.StringUtils;
 @RequiredArgsConstructor
 public class SquareService extends ServiceImpl<PublishedContentMapper, PublishedContent> {
 
+    private final SquareFeedCacheService feedCacheService;
+    private final SearchService searchService;
+    private final MediaDedupService mediaDedupService;
+
     public IPage<PublishedContent> getPage(Page<PublishedContent> page, Long siteId, String type, String keyword) {
         LambdaQueryWrapper<PublishedContent> wrapper = new LambdaQueryWrapper<>();
         
@@ -29,11 +36,7 @@ public class SquareService extends ServiceImpl<PublishedContentMapper, Published
             wrapper.eq(PublishedContent::getType, type);
         }
 
-        if (StringUtils.hasText(keyword)) {
-            wrapper.and(w -> w.like(PublishedContent::getTitle, keyword)
-                    .or()
-                    .like(PublishedContent::getUserName, keyword));
-        }
+        searchService.applyKeyword(wrapper, SearchService.SearchIndex.PUBLISHED_CONTENT, keyword);
 
         wrapper.orderByDesc(PublishedContent::getIsPinned);
         wrapper.orderByDesc(PublishedContent::getPublishedAt);
@@ -51,6 +54,11 @@ public class SquareService extends ServiceImpl<PublishedContentMapper, Published
         String newStatus = "published".equals(content.getStatus()) ? "hidden" : "published";
         content.setStatus(newStatus);
         this.updateById(content);
+        if ("published".equals(newStatus)) {
+            feedCacheService.onPublished(content);
+        } else {
+            feedCacheService.onHidden(content);
+        }
     }
 
     @Transactional
@@ -63,6 +71,20 @@ public class SquareService extends ServiceImpl<PublishedContentMapper, Published
         boolean currentPin = Boolean.TRUE.equals(content.getIsPinned());
         content.setIsPinned(!currentPin);
         this.updateById(content);
+        feedCacheService.onUpdated(content);
+    }
+
+    @Transactional
+    public void deleteContent(Long id) {
+        PublishedContent content = this.getById(id);
+        if (content == null) {
+            throw new BusinessException(ErrorCode.CONTENT_NOT_FOUND);
+        }
+        this.removeById(id);
+        mediaDedupService.release(content.getContentUrl());
+        if ("published".equals(content.getStatus())) {
+            feedCacheService.onHidden(content);
+        }
     }
 
     @Transactional
@@ -73,5 +95,6 @@ public class SquareService extends ServiceImpl<PublishedContentMapper, Published
         }
         content.setLikeCount(count);
         this.updateById(content);
+        feedCacheService.onUpdated(content);
     }
 }
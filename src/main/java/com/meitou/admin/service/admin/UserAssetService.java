@@ -6,6 +6,8 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.meitou.admin.entity.UserAsset;
 import com.meitou.admin.mapper.UserAssetMapper;
+import com.meitou.admin.service.common.MediaDedupService;
+import com.meitou.admin.service.common.SearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -20,6 +22,8 @@ import java.util.List;
 public class UserAssetService extends ServiceImpl<UserAssetMapper, UserAsset> {
     
     private final UserAssetMapper assetMapper;
+    private final SearchService searchService;
+    private final MediaDedupService mediaDedupService;
     
     /**
      * 获取资产列表（支持类型、搜索、分页）
@@ -38,10 +42,7 @@ public class UserAssetService extends ServiceImpl<UserAssetMapper, UserAsset> {
         if (StringUtils.hasText(type) && !"all".equals(type)) {
             wrapper.eq(UserAsset::getType, type);
         }
-        if (StringUtils.hasText(search)) {
-            wrapper.and(w -> w.like(UserAsset::getTitle, search)
-                    .or().like(UserAsset::getUserName, search));
-        }
+        searchService.applyKeyword(wrapper, SearchService.SearchIndex.USER_ASSET, search);
         
         wrapper.orderByDesc(UserAsset::getCreatedAt);
         
@@ -89,8 +90,9 @@ public class UserAssetService extends ServiceImpl<UserAssetMapper, UserAsset> {
      * @param id 资产ID
      */
     public void deleteAsset(Long id) {
-        getAssetById(id);
+        UserAsset asset = getAssetById(id);
         assetMapper.deleteById(id);
+        mediaDedupService.release(asset.getUrl());
     }
     
 //    /**
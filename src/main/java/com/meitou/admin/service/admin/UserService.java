@@ -8,10 +8,10 @@ import com.meitou.admin.entity.User;
 import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
 import com.meitou.admin.mapper.UserMapper;
+import com.meitou.admin.service.common.SearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 
 import java.util.List;
 
@@ -25,6 +25,7 @@ public class UserService extends ServiceImpl<UserMapper, User> {
     
     private final UserMapper userMapper; // 用户Mapper
     private final BCryptPasswordEncoder passwordEncoder; // 密码编码器（通过依赖注入）
+    private final SearchService searchService; // 统一搜索服务
     
     /**
      * 获取用户列表（支持站点ID和搜索，分页）
@@ -41,11 +42,7 @@ public class UserService extends ServiceImpl<UserMapper, User> {
         if (siteId != null) {
             wrapper.eq(User::getSiteId, siteId);
         }
-        if (StringUtils.hasText(search)) {
-            wrapper.and(w -> w.like(User::getUsername, search)
-                    .or().like(User::getEmail, search)
-                    .or().like(User::getPhone, search));
-        }
+        searchService.applyKeyword(wrapper, SearchService.SearchIndex.USER, search);
         wrapper.orderByDesc(User::getCreatedAt);
         
         Page<User> pageParam = new Page<>(page, size);
@@ -17,6 +17,9 @@ import com.meitou.admin.mapper.AnalysisRecordMapper;
 import com.meitou.admin.mapper.GenerationRecordMapper;
 import com.meitou.admin.mapper.UserMapper;
 import com.meitou.admin.service.admin.ApiPlatformService;
+import com.meitou.admin.service.common.UpstreamMetrics;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
@@ -40,6 +43,8 @@ public class AnalysisService {
     private final GenerationRecordMapper generationRecordMapper;
     private final AnalysisRecordMapper analysisRecordMapper;
     private final UserMapper userMapper;
+    private final UpstreamMetrics upstreamMetrics;
+    private final ResilienceGuard resilienceGuard;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -49,11 +54,15 @@ public class AnalysisService {
     public AnalysisService(ApiPlatformService apiPlatformService, 
                            GenerationRecordMapper generationRecordMapper,
                            AnalysisRecordMapper analysisRecordMapper,
-                           UserMapper userMapper) {
+                           UserMapper userMapper,
+                           UpstreamMetrics upstreamMetrics,
+                           ResilienceGuard resilienceGuard) {
         this.apiPlatformService = apiPlatformService;
         this.generationRecordMapper = generationRecordMapper;
         this.analysisRecordMapper = analysisRecordMapper;
         this.userMapper = userMapper;
+        this.upstreamMetrics = upstreamMetrics;
+        this.resilienceGuard = resilienceGuard;
         
         // 配置RestTemplate的超时时间
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
@@ -99,7 +108,7 @@ public class AnalysisService {
             Map<String, Object> apiRequest = buildImageAnalysisRequest(request, platform);
             
             // 调用API
-            String responseJson = callApi(analysisInterface, platform, apiRequest);
+            String responseJson = callApi(analysisInterface, platform, apiRequest, "image_analysis", request.getModel());
             
             // 解析响应
             String result = parseAnalysisResult(responseJson, analysisInterface.getResponseMode());
@@ -192,7 +201,7 @@ public class AnalysisService {
             Map<String, Object> apiRequest = buildVideoAnalysisRequest(request, platform);
             
             // 调用API
-            String responseJson = callApi(analysisInterface, platform, apiRequest);
+            String responseJson = callApi(analysisInterface, platform, apiRequest, "video_analysis", request.getModel());
             
             // 解析响应
             String result = parseAnalysisResult(responseJson, analysisInterface.getResponseMode());
@@ -299,9 +308,14 @@ public class AnalysisService {
     }
     
     /**
-     * 调用API平台接口
+     * 调用API平台接口，记录调用耗时和结果
      */
-    private String callApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams) {
+    private String callApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams, String type, String model) {
+        return upstreamMetrics.record(UpstreamMetrics.PHASE_SUBMIT, platform, type, model,
+                () -> resilienceGuard.supply(Dependency.AI_UPSTREAM, () -> doCallApi(apiInterface, platform, requestParams)));
+    }
+
+    private String doCallApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams) {
         try {
             // 构建请求头
             HttpHeaders headers = new HttpHeaders();
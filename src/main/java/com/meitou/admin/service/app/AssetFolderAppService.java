@@ -14,7 +14,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 用户端文件夹服务类
@@ -128,35 +132,43 @@ public class AssetFolderAppService extends ServiceImpl<AssetFolderMapper, AssetF
 
     /**
      * 填充文件夹缩略图
+     * 优先取文件夹内最新图片的缩略图（或URL），没有图片时取最新视频的缩略图
+     * 所有文件夹通过一次窗口函数查询批量获取，查询次数与文件夹数量无关
      */
     private void populateThumbnails(List<AssetFolder> folders) {
         if (folders == null || folders.isEmpty()) {
             return;
         }
         
+        // 同一次列表查询的文件夹属于同一用户
+        Long userId = folders.get(0).getUserId();
+        Set<String> folderPaths = folders.stream()
+                .map(AssetFolder::getFolderPath)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+        if (folderPaths.isEmpty()) {
+            return;
+        }
+        
+        Map<String, UserAsset> latestImages = new HashMap<>();
+        Map<String, UserAsset> latestVideos = new HashMap<>();
+        for (UserAsset asset : userAssetMapper.selectLatestByFolders(userId, folderPaths)) {
+            if ("image".equals(asset.getType())) {
+                latestImages.put(asset.getFolder(), asset);
+            } else if ("video".equals(asset.getType())) {
+                latestVideos.put(asset.getFolder(), asset);
+            }
+        }
+        
         for (AssetFolder folder : folders) {
-            // 查询文件夹下最新的一个图片资产
-            LambdaQueryWrapper<UserAsset> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(UserAsset::getUserId, folder.getUserId());
-            wrapper.eq(UserAsset::getFolder, folder.getFolderPath());
-            wrapper.eq(UserAsset::getType, "image"); // 优先展示图片
-            wrapper.orderByDesc(UserAsset::getUploadDate);
-            wrapper.last("LIMIT 1");
-            
-            UserAsset asset = userAssetMapper.selectOne(wrapper);
-            if (asset != null) {
-                folder.setThumbnail(asset.getThumbnail() != null ? asset.getThumbnail() : asset.getUrl());
+            UserAsset image = latestImages.get(folder.getFolderPath());
+            if (image != null) {
+                folder.setThumbnail(image.getThumbnail() != null ? image.getThumbnail() : image.getUrl());
             } else {
-                // 如果没有图片，尝试查找视频的缩略图
-                wrapper = new LambdaQueryWrapper<>();
-                wrapper.eq(UserAsset::getUserId, folder.getUserId());
-                wrapper.eq(UserAsset::getFolder, folder.getFolderPath());
-                wrapper.eq(UserAsset::getType, "video");
-                wrapper.orderByDesc(UserAsset::getUploadDate);
-                wrapper.last("LIMIT 1");
-                asset = userAssetMapper.selectOne(wrapper);
-                if (asset != null && asset.getThumbnail() != null) {
-                    folder.setThumbnail(asset.getThumbnail());
+                // 如果没有图片，尝试使用视频的缩略图
+                UserAsset video = latestVideos.get(folder.getFolderPath());
+                if (video != null && video.getThumbnail() != null) {
+                    folder.setThumbnail(video.getThumbnail());
                 }
             }
         }
@@ -12,20 +12,26 @@ import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
 import com.meitou.admin.mapper.InvitationCodeMapper;
 import com.meitou.admin.mapper.UserMapper;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
 import com.meitou.admin.util.PasswordValidator;
 import com.meitou.admin.util.TokenUtil;
 import com.meitou.admin.service.common.LoginAttemptService;
 import com.meitou.admin.storage.FileStorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -37,6 +43,11 @@ import java.time.LocalDateTime;
 @Service
 @RequiredArgsConstructor
 public class AuthAppService {
+
+    /**
+     * 内置默认头像（classpath）
+     */
+    private static final String DEFAULT_AVATAR = "static/avatar/default-avatar.svg";
     
     private final UserMapper userMapper;
     private final InvitationCodeMapper invitationCodeMapper;
@@ -45,6 +56,7 @@ public class AuthAppService {
     private final LoginAttemptService loginAttemptService;
     private final FileStorageService fileStorageService;
     private final RestTemplate restTemplate;
+    private final ResilienceGuard resilienceGuard;
 
     private static final String NO_PASSWORD_PLACEHOLDER = "NO_PASSWORD_CODE_LOGIN";
     
@@ -254,6 +266,7 @@ public class AuthAppService {
 
     /**
      * 生成并上传默认头像
+     * 头像服务不可用（舱壁已满、熔断、超时或返回异常）时使用内置的默认头像，不阻塞注册流程
      * 
      * @param user 用户对象
      */
@@ -263,24 +276,27 @@ public class AuthAppService {
             String diceBearUrl = "https://api.dicebear.com/7.x/avataaars/svg?seed=" + user.getId();
             
             // 下载 SVG 内容
-            ResponseEntity<byte[]> response = restTemplate.getForEntity(diceBearUrl, byte[].class);
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                byte[] svgBytes = response.getBody();
+            byte[] svgBytes = resilienceGuard.supply(Dependency.AVATAR, () -> {
+                ResponseEntity<byte[]> response = restTemplate.getForEntity(diceBearUrl, byte[].class);
+                if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                    throw new IllegalStateException("头像服务返回异常：" + response.getStatusCode());
+                }
+                return response.getBody();
+            }, this::loadDefaultAvatar);
+            
+            // 上传到 OSS
+            try (InputStream inputStream = new ByteArrayInputStream(svgBytes)) {
+                String fileName = "avatar_" + user.getId() + "_" + System.currentTimeMillis() + ".svg";
+                String avatarUrl = fileStorageService.upload(inputStream, "avatars/", fileName);
+                
+                // 更新用户头像 URL
+                user.setAvatarUrl(avatarUrl);
+                // 注意：如果是 createNewUser 调用，这里会再次更新；
+                // 如果是 restoreDeletedUser 调用，这里更新的是内存对象，后续 restoreUser 会保存到数据库（但 restoreUser 可能不更新 avatarUrl 字段，需要检查）
                 
-                // 上传到 OSS
-                try (InputStream inputStream = new ByteArrayInputStream(svgBytes)) {
-                    String fileName = "avatar_" + user.getId() + "_" + System.currentTimeMillis() + ".svg";
-                    String avatarUrl = fileStorageService.upload(inputStream, "avatars/", fileName);
-                    
-                    // 更新用户头像 URL
-                    user.setAvatarUrl(avatarUrl);
-                    // 注意：如果是 createNewUser 调用，这里会再次更新；
-                    // 如果是 restoreDeletedUser 调用，这里更新的是内存对象，后续 restoreUser 会保存到数据库（但 restoreUser 可能不更新 avatarUrl 字段，需要检查）
-                    
-                    // 对于 createNewUser，userMapper.insert 后已经有 ID，这里 updateById 是安全的
-                    if (user.getId() != null) {
-                         userMapper.updateById(user);
-                    }
+                // 对于 createNewUser，userMapper.insert 后已经有 ID，这里 updateById 是安全的
+                if (user.getId() != null) {
+                     userMapper.updateById(user);
                 }
             }
         } catch (Exception e) {
@@ -288,6 +304,17 @@ public class AuthAppService {
             // 失败不影响注册流程，用户可以稍后自己上传
         }
     }
+
+    /**
+     * 读取内置的默认头像（头像服务不可用时的降级结果）
+     */
+    private byte[] loadDefaultAvatar() {
+        try (InputStream in = new ClassPathResource(DEFAULT_AVATAR).getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
     
     /**
      * 处理邀请码逻辑
@@ -11,6 +11,8 @@ import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
 import com.meitou.admin.mapper.CharacterMapper;
 import com.meitou.admin.mapper.GenerationRecordMapper;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
 import com.meitou.admin.service.admin.ApiPlatformService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +41,7 @@ public class CharacterService {
     private final GenerationRecordMapper generationRecordMapper;
     private final ApiPlatformService apiPlatformService;
     private final RestTemplate restTemplate;
+    private final ResilienceGuard resilienceGuard;
     private final ObjectMapper objectMapper;
 
     /**
@@ -151,12 +154,12 @@ public class CharacterService {
             HttpEntity<String> httpEntity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
             
             log.info("调用保存角色API: {}", apiInterface.getUrl());
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = resilienceGuard.supply(Dependency.AI_UPSTREAM, () -> restTemplate.exchange(
                     apiInterface.getUrl(),
                     HttpMethod.valueOf(apiInterface.getMethod().toUpperCase()),
                     httpEntity,
                     String.class
-            );
+            ));
 
             if (!response.getStatusCode().is2xxSuccessful()) {
                 throw new BusinessException(ErrorCode.API_CALL_FAILED.getCode(), "API调用失败: " + response.getStatusCode());
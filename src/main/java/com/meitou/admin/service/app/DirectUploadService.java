@@ -0,0 +1,311 @@
+package com.meitou.admin.service.app;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.dto.app.DirectUploadInitRequest;
+import com.meitou.admin.dto.app.DirectUploadPartUrl;
+import com.meitou.admin.dto.app.DirectUploadSessionResponse;
+import com.meitou.admin.entity.UploadSession;
+import com.meitou.admin.entity.UserAsset;
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.mapper.UploadSessionMapper;
+import com.meitou.admin.mapper.UserAssetMapper;
+import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.storage.UploadedPart;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 分片直传服务
+ * 客户端先申请上传会话，再按分片获取预签名地址直接 PUT 到云存储（OSS/COS），
+ * 全部分片上传后调用完成接口，由服务端校验分片、合并文件并登记用户资产；
+ * 应用服务器不经手文件内容，网络中断后可查询已上传分片继续上传
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DirectUploadService {
+
+    /**
+     * 云存储要求除最后一片外每片不小于 5MB，且最多 10000 片
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PART_COUNT = 10000;
+
+    private static final String STATUS_UPLOADING = "uploading";
+    private static final String STATUS_COMPLETED = "completed";
+    private static final String STATUS_ABORTED = "aborted";
+
+    private final FileStorageService fileStorageService;
+    private final UploadSessionMapper uploadSessionMapper;
+    private final UserAssetMapper userAssetMapper;
+    private final UserAssetAppService userAssetAppService;
+
+    /**
+     * 默认分片大小（字节）
+     */
+    @Value("${upload.direct.partSize:8388608}")
+    private long defaultPartSize;
+
+    /**
+     * 单个文件最大大小（字节）
+     */
+    @Value("${upload.direct.maxFileSize:5368709120}")
+    private long maxFileSize;
+
+    /**
+     * 分片上传地址有效期（秒）
+     */
+    @Value("${upload.direct.urlExpireSeconds:3600}")
+    private long urlExpireSeconds;
+
+    /**
+     * 上传会话有效期（小时），过期未完成的上传会被自动取消
+     */
+    @Value("${upload.direct.sessionExpireHours:24}")
+    private long sessionExpireHours;
+
+    /**
+     * 单次最多签发的分片地址数
+     */
+    @Value("${upload.direct.maxUrlsPerRequest:100}")
+    private int maxUrlsPerRequest;
+
+    /**
+     * 初始化分片直传
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public DirectUploadSessionResponse init(Long userId, DirectUploadInitRequest request) throws Exception {
+        if (!fileStorageService.supportsMultipartUpload()) {
+            throw new BusinessException("当前存储不支持分片直传，请使用普通上传");
+        }
+        Long siteId = SiteContext.getSiteId();
+        if (siteId == null) {
+            throw new BusinessException(ErrorCode.SITE_NOT_FOUND);
+        }
+        if (request.getFileSize() > maxFileSize) {
+            throw new BusinessException("文件过大，最大支持 " + (maxFileSize / 1024 / 1024) + "MB");
+        }
+
+        String fileName = request.getFileName();
+        int dot = fileName.lastIndexOf(".");
+        if (dot == -1 || dot == fileName.length() - 1) {
+            throw new BusinessException("文件名无效");
+        }
+        String ext = fileName.substring(dot + 1).toLowerCase();
+        String type = detectType(ext);
+        if (type == null) {
+            throw new BusinessException("不支持的文件类型: " + ext);
+        }
+        if (request.getType() != null && !request.getType().isBlank() && !type.equals(request.getType())) {
+            log.warn("用户直传文件类型 {} 与后缀检测类型 {} 不一致，修正为 {}", request.getType(), type, type);
+        }
+
+        long partSize = Math.max(Math.max(defaultPartSize, MIN_PART_SIZE),
+                (request.getFileSize() + MAX_PART_COUNT - 1) / MAX_PART_COUNT);
+        int partCount = (int) ((request.getFileSize() + partSize - 1) / partSize);
+
+        String objectKey = buildStorageFolder(type, request.getFolder())
+                + UUID.randomUUID().toString().replace("-", "") + "." + ext;
+        String uploadId = fileStorageService.initiateMultipartUpload(objectKey, request.getContentType());
+
+        UploadSession session = new UploadSession();
+        session.setUploadId(uploadId);
+        session.setObjectKey(objectKey);
+        session.setUserId(userId);
+        session.setSiteId(siteId);
+        session.setFileName(fileName);
+        session.setTitle(request.getTitle() == null || request.getTitle().isBlank()
+                ? fileName.substring(0, dot) : request.getTitle());
+        session.setType(type);
+        session.setFolder(request.getFolder());
+        session.setFileSize(request.getFileSize());
+        session.setPartSize(partSize);
+        session.setPartCount(partCount);
+        session.setStatus(STATUS_UPLOADING);
+        session.setExpiresAt(LocalDateTime.now().plusHours(sessionExpireHours));
+        uploadSessionMapper.insert(session);
+
+        log.info("用户 {} 初始化分片直传：{}，大小 {}，分片 {} x {}", userId, objectKey, request.getFileSize(), partCount, partSize);
+        return toResponse(session, List.of());
+    }
+
+    /**
+     * 签发分片上传地址
+     */
+    public List<DirectUploadPartUrl> presignParts(Long userId, String uploadId, List<Integer> partNumbers) throws Exception {
+        UploadSession session = getUploadingSession(userId, uploadId);
+        if (partNumbers.size() > maxUrlsPerRequest) {
+            throw new BusinessException("单次最多获取 " + maxUrlsPerRequest + " 个分片地址");
+        }
+        Duration expiry = Duration.ofSeconds(urlExpireSeconds);
+        List<DirectUploadPartUrl> urls = new ArrayList<>(partNumbers.size());
+        for (Integer partNumber : partNumbers) {
+            if (partNumber == null || partNumber < 1 || partNumber > session.getPartCount()) {
+                throw new BusinessException("分片序号无效: " + partNumber);
+            }
+            urls.add(new DirectUploadPartUrl(partNumber,
+                    fileStorageService.presignUploadPart(session.getObjectKey(), uploadId, partNumber, expiry)));
+        }
+        return urls;
+    }
+
+    /**
+     * 查询上传会话（包含已上传分片，用于断点续传）
+     */
+    public DirectUploadSessionResponse getSession(Long userId, String uploadId) throws Exception {
+        UploadSession session = getSessionOfUser(userId, uploadId);
+        List<Integer> uploaded = STATUS_UPLOADING.equals(session.getStatus())
+                ? fileStorageService.listParts(session.getObjectKey(), uploadId).stream().map(UploadedPart::partNumber).sorted().toList()
+                : List.of();
+        return toResponse(session, uploaded);
+    }
+
+    /**
+     * 完成上传：校验分片、合并文件并登记用户资产（重复调用返回已登记的资产）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public UserAsset complete(Long userId, String uploadId) throws Exception {
+        UploadSession session = getSessionOfUser(userId, uploadId);
+        if (STATUS_COMPLETED.equals(session.getStatus())) {
+            return userAssetMapper.selectById(session.getAssetId());
+        }
+        if (!STATUS_UPLOADING.equals(session.getStatus())) {
+            throw new BusinessException("上传已取消，请重新上传");
+        }
+
+        List<UploadedPart> parts = new ArrayList<>(fileStorageService.listParts(session.getObjectKey(), uploadId));
+        parts.sort(Comparator.comparingInt(UploadedPart::partNumber));
+        long totalSize = parts.stream().mapToLong(UploadedPart::size).sum();
+        if (parts.size() != session.getPartCount()
+                || parts.get(parts.size() - 1).partNumber() != session.getPartCount()
+                || totalSize != session.getFileSize()) {
+            throw new BusinessException("分片未全部上传（已上传 " + parts.size() + "/" + session.getPartCount() + "）");
+        }
+
+        String fileUrl = fileStorageService.completeMultipartUpload(session.getObjectKey(), uploadId, parts);
+
+        UserAsset asset = userAssetAppService.uploadAsset(
+                userId,
+                session.getTitle(),
+                session.getType(),
+                fileUrl,
+                null,
+                session.getFolder()
+        );
+        if (uploadSessionMapper.updateStatus(session.getId(), STATUS_UPLOADING, STATUS_COMPLETED, asset.getId()) == 0) {
+            // 并发完成，回滚本次登记
+            throw new BusinessException("上传已由其他请求完成");
+        }
+        log.info("用户 {} 分片直传完成：{} -> 资产 {}", userId, fileUrl, asset.getId());
+        return asset;
+    }
+
+    /**
+     * 取消上传
+     */
+    public void abort(Long userId, String uploadId) throws Exception {
+        UploadSession session = getUploadingSession(userId, uploadId);
+        if (uploadSessionMapper.updateStatus(session.getId(), STATUS_UPLOADING, STATUS_ABORTED, null) > 0) {
+            fileStorageService.abortMultipartUpload(session.getObjectKey(), uploadId);
+        }
+    }
+
+    /**
+     * 取消已过期的上传（释放云存储中残留的分片）
+     *
+     * @return 本次取消的会话数
+     */
+    public int abortExpired(int limit) {
+        List<UploadSession> expired = uploadSessionMapper.selectExpiredIgnoreTenant(LocalDateTime.now(), limit);
+        int aborted = 0;
+        for (UploadSession session : expired) {
+            try {
+                if (uploadSessionMapper.markAbortedIgnoreTenant(session.getId()) > 0) {
+                    fileStorageService.abortMultipartUpload(session.getObjectKey(), session.getUploadId());
+                    aborted++;
+                }
+            } catch (Exception e) {
+                log.warn("取消过期分片上传失败 uploadId={}: {}", session.getUploadId(), e.getMessage());
+            }
+        }
+        return aborted;
+    }
+
+    private UploadSession getSessionOfUser(Long userId, String uploadId) {
+        UploadSession session = uploadSessionMapper.selectOne(new LambdaQueryWrapper<UploadSession>()
+                .eq(UploadSession::getUploadId, uploadId));
+        if (session == null || !session.getUserId().equals(userId)) {
+            throw new BusinessException(ErrorCode.RECORD_NOT_FOUND);
+        }
+        return session;
+    }
+
+    private UploadSession getUploadingSession(Long userId, String uploadId) {
+        UploadSession session = getSessionOfUser(userId, uploadId);
+        if (!STATUS_UPLOADING.equals(session.getStatus())) {
+            throw new BusinessException("上传会话已结束");
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("上传会话已过期，请重新上传");
+        }
+        return session;
+    }
+
+    /**
+     * 根据扩展名判断资产类型（与普通上传接口保持一致）
+     */
+    private String detectType(String ext) {
+        if (ext.matches("jpg|jpeg|png|gif|webp|bmp|svg|ico|tiff")) {
+            return "image";
+        } else if (ext.matches("mp4|avi|mov|wmv|flv|mkv|webm")) {
+            return "video";
+        } else if (ext.matches("mp3|wav|flac|aac|ogg|m4a")) {
+            return "audio";
+        }
+        return null;
+    }
+
+    /**
+     * 存储文件夹：类型目录 + 用户指定的文件夹（与普通上传接口保持一致）
+     */
+    private String buildStorageFolder(String type, String folder) {
+        String storageFolder = switch (type) {
+            case "image" -> "images/";
+            case "video" -> "videos/";
+            case "audio" -> "audios/";
+            default -> "";
+        };
+        if (folder != null && !folder.trim().isEmpty()) {
+            storageFolder = storageFolder + folder.replace("\\", "/").trim();
+            if (!storageFolder.endsWith("/")) {
+                storageFolder += "/";
+            }
+        }
+        return storageFolder;
+    }
+
+    private DirectUploadSessionResponse toResponse(UploadSession session, List<Integer> uploadedParts) {
+        DirectUploadSessionResponse response = new DirectUploadSessionResponse();
+        response.setUploadId(session.getUploadId());
+        response.setFileSize(session.getFileSize());
+        response.setPartSize(session.getPartSize());
+        response.setPartCount(session.getPartCount());
+        response.setStatus(session.getStatus());
+        response.setUploadedParts(uploadedParts);
+        response.setAssetId(session.getAssetId());
+        response.setExpiresAt(session.getExpiresAt());
+        return response;
+    }
+}
@@ -27,11 +27,18 @@ import com.meitou.admin.entity.ApiInterface;
 import com.meitou.admin.entity.ApiParameterMapping;
 import com.meitou.admin.entity.ApiPlatform;
 import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.common.SiteContextCallback;
 import com.meitou.admin.entity.GenerationRecord;
 import com.meitou.admin.entity.User;
 import com.meitou.admin.mapper.AnalysisRecordMapper;
 import com.meitou.admin.mapper.GenerationRecordMapper;
 import com.meitou.admin.service.common.ApiParameterMappingCacheService;
+import com.meitou.admin.service.common.MediaDerivativeService;
+import com.meitou.admin.service.common.PlatformRouter;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.DependencyUnavailableException;
+import com.meitou.admin.resilience.ResilienceGuard;
+import com.meitou.admin.service.common.UpstreamMetrics;
 import com.meitou.admin.mapper.UserMapper;
 import com.meitou.admin.service.admin.ApiPlatformService;
 import com.meitou.admin.exception.BusinessException;
@@ -43,9 +50,18 @@ import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.net.ssl.SSLHandshakeException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * 图片生成服务类
@@ -61,7 +77,11 @@ public class GenerationService {
     private final ApiParameterMappingCacheService apiParameterMappingCacheService;
     private final UserMapper userMapper;
     private final UserTransactionMapper userTransactionMapper;
-    private final com.meitou.admin.service.common.AliyunOssService aliyunOssService;
+    private final com.meitou.admin.service.common.MediaDedupService mediaDedupService;
+    private final com.meitou.admin.service.common.MediaDerivativeService mediaDerivativeService;
+    private final UpstreamMetrics upstreamMetrics;
+    private final PlatformRouter platformRouter;
+    private final ResilienceGuard resilienceGuard;
     
     private final OkHttpClient okHttpClient = new OkHttpClient.Builder()
             .connectTimeout(30, TimeUnit.SECONDS)
@@ -81,7 +101,11 @@ public class GenerationService {
                              ApiParameterMappingCacheService apiParameterMappingCacheService,
                              UserMapper userMapper,
                              UserTransactionMapper userTransactionMapper,
-                             com.meitou.admin.service.common.AliyunOssService aliyunOssService,
+                             com.meitou.admin.service.common.MediaDedupService mediaDedupService,
+                             com.meitou.admin.service.common.MediaDerivativeService mediaDerivativeService,
+                             UpstreamMetrics upstreamMetrics,
+                             PlatformRouter platformRouter,
+                             ResilienceGuard resilienceGuard,
                              TransactionTemplate transactionTemplate) {
         this.apiPlatformService = apiPlatformService;
         this.generationRecordMapper = generationRecordMapper;
@@ -89,7 +113,11 @@ public class GenerationService {
         this.apiParameterMappingCacheService = apiParameterMappingCacheService;
         this.userMapper = userMapper;
         this.userTransactionMapper = userTransactionMapper;
-        this.aliyunOssService = aliyunOssService;
+        this.mediaDedupService = mediaDedupService;
+        this.mediaDerivativeService = mediaDerivativeService;
+        this.upstreamMetrics = upstreamMetrics;
+        this.platformRouter = platformRouter;
+        this.resilienceGuard = resilienceGuard;
         this.transactionTemplate = transactionTemplate;
         
         // 配置RestTemplate的超时时间
@@ -113,16 +141,10 @@ public class GenerationService {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND);
         }
         
-        // 根据类型查找对应的API平台（type=txt2img）
-        ApiPlatform platform = findPlatformByType("txt2img", request.getModel(), null);
-        if (platform == null) {
-            throw new BusinessException(ErrorCode.GENERATION_PLATFORM_NOT_CONFIGURED.getCode(), "文生图平台未配置，或未找到支持该模型的平台");
-        }
-        
-        // 检查apiKey是否有效（解密后不为null）
-        if (platform.getApiKey() == null || platform.getApiKey().isEmpty()) {
-            throw new BusinessException(ErrorCode.API_KEY_ERROR);
-        }
+        // 查找支持该模型的API平台（type=txt2img），按健康度排序，熔断中的平台不参与
+        Route route = routePlatforms("txt2img", request.getModel(), "文生图平台未配置，或未找到支持该模型的平台");
+        List<ApiPlatform> platforms = route.candidates();
+        ApiPlatform platform = platforms.get(0);
         
         // 获取文生图接口配置
         ApiInterface txt2imgInterface = findTextToImageInterface(platform.getId());
@@ -130,22 +152,20 @@ public class GenerationService {
             throw new BusinessException(ErrorCode.GENERATION_INTERFACE_NOT_CONFIGURED.getCode(), "文生图接口未配置");
         }
         
-        // 计算消耗
-        Integer cost = calculateCost(platform, request.getModel(), request.getResolution(), null, request.getQuantity(), "txt2img");
+        // 计算消耗（按定价平台计费，与展示价格一致，不随路由和故障切换变化）
+        Integer cost = calculateCost(route.pricingPlatform(), request.getModel(), request.getResolution(), null, request.getQuantity(), "txt2img");
         
         // 阶段一：开启任务（扣费+记录）
         GenerationRecord record = startGenerationTask(userId, user.getUsername(), "txt2img", "image", request.getModel(), request.getPrompt(), cost, request);
 
         try {
             // 阶段二：调用API+上传OSS（无事务）
-            // 构建请求参数
-            Map<String, Object> apiRequest = buildTextToImageRequest(request, platform);
-            
-            // 应用参数映射（如果接口配置了参数映射）
-            apiRequest = applyParameterMapping(apiRequest, txt2imgInterface);
-            
-            // 调用API
-            String responseJson = callApi(txt2imgInterface, platform, apiRequest);
+            // 构建请求参数（应用接口配置的参数映射）并调用API，提交失败时切换到下一个可用平台
+            Submission submission = submitWithFailover(record, platforms, txt2imgInterface, this::findTextToImageInterface,
+                    (candidate, apiInterface) -> applyParameterMapping(buildTextToImageRequest(request, candidate), apiInterface));
+            platform = submission.platform();
+            txt2imgInterface = submission.apiInterface();
+            String responseJson = submission.responseJson();
 
             // 检查是否为异步任务（webHook="-1"）
             if ("-1".equals(request.getWebHook())) {
@@ -184,6 +204,7 @@ public class GenerationService {
                             params = objectMapper.readValue(record.getGenerationParams(), Map.class);
                         }
                         params.put("taskId", taskId);
+                        params.put("platformId", platform.getId());
                         record.setGenerationParams(objectMapper.writeValueAsString(params));
                         record.setPid(taskId); // 保存外部任务ID
                         generationRecordMapper.updateById(record);
@@ -211,7 +232,7 @@ public class GenerationService {
                 if (url.contains("aliyuncs.com") || url.contains("myqcloud.com")) {
                     ossUrls.add(url);
                 } else {
-                    String ossUrl = aliyunOssService.uploadFromUrl(url, "images/");
+                    String ossUrl = mediaDedupService.ingestFromUrl(url, "images/");
                     ossUrls.add(ossUrl);
                 }
             }
@@ -219,7 +240,9 @@ public class GenerationService {
             
             // 阶段三：完成任务（更新记录并拆分）
             String thumbnailUrl = !imageUrls.isEmpty() ? imageUrls.get(0) : null;
-            completeAndSplitGenerationTask(record.getId(), imageUrls, thumbnailUrl);
+            if (completeAndSplitGenerationTask(record.getId(), imageUrls, thumbnailUrl)) {
+                recordCompletion(platform, record, UpstreamMetrics.OUTCOME_SUCCESS);
+            }
             
             // 构建响应
             ImageGenerationResponse response = new ImageGenerationResponse();
@@ -232,7 +255,9 @@ public class GenerationService {
             log.error("文生图失败：{}", e.getMessage(), e);
             
             // 阶段三：失败处理（更新记录+退款）
-            failGenerationTask(record.getId(), userId, cost, e.getMessage());
+            if (failGenerationTask(record.getId(), userId, cost, e.getMessage())) {
+                recordCompletion(platform, record, UpstreamMetrics.outcomeOf(e));
+            }
             
             throw new BusinessException(ErrorCode.GENERATION_FAILED.getCode(), "文生图失败：" + e.getMessage());
         }
@@ -252,16 +277,10 @@ public class GenerationService {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND);
         }
         
-        // 根据类型查找对应的API平台（type=img2img）
-        ApiPlatform platform = findPlatformByType("img2img", request.getModel(), null);
-        if (platform == null) {
-            throw new BusinessException(ErrorCode.GENERATION_PLATFORM_NOT_CONFIGURED.getCode(), "图生图平台未配置，或未找到支持该模型的平台");
-        }
-        
-        // 检查apiKey是否有效（解密后不为null）
-        if (platform.getApiKey() == null || platform.getApiKey().isEmpty()) {
-            throw new BusinessException(ErrorCode.API_KEY_ERROR);
-        }
+        // 查找支持该模型的API平台（type=img2img），按健康度排序，熔断中的平台不参与
+        Route route = routePlatforms("img2img", request.getModel(), "图生图平台未配置，或未找到支持该模型的平台");
+        List<ApiPlatform> platforms = route.candidates();
+        ApiPlatform platform = platforms.get(0);
         
         // 获取图生图接口配置
         ApiInterface img2imgInterface = findImageToImageInterface(platform.getId());
@@ -270,21 +289,19 @@ public class GenerationService {
         }
         
         // 计算消耗
-        Integer cost = calculateCost(platform, request.getModel(), request.getResolution(), null, request.getQuantity(), "img2img");
+        Integer cost = calculateCost(route.pricingPlatform(), request.getModel(), request.getResolution(), null, request.getQuantity(), "img2img");
         
         // 阶段一：开启任务（扣费+记录）
         GenerationRecord record = startGenerationTask(userId, user.getUsername(), "img2img", "image", request.getModel(), request.getPrompt(), cost, request);
 
         try {
             // 阶段二：调用API+上传OSS（无事务）
-            // 构建请求参数
-            Map<String, Object> apiRequest = buildImageToImageRequest(request, platform);
-            
-            // 应用参数映射（如果接口配置了参数映射）
-            apiRequest = applyParameterMapping(apiRequest, img2imgInterface);
-            
-            // 调用API
-            String responseJson = callApi(img2imgInterface, platform, apiRequest);
+            // 构建请求参数（应用接口配置的参数映射）并调用API，提交失败时切换到下一个可用平台
+            Submission submission = submitWithFailover(record, platforms, img2imgInterface, this::findImageToImageInterface,
+                    (candidate, apiInterface) -> applyParameterMapping(buildImageToImageRequest(request, candidate), apiInterface));
+            platform = submission.platform();
+            img2imgInterface = submission.apiInterface();
+            String responseJson = submission.responseJson();
 
             // 检查是否为异步任务（webHook="-1"）
             if ("-1".equals(request.getWebHook())) {
@@ -323,6 +340,7 @@ public class GenerationService {
                             params = objectMapper.readValue(record.getGenerationParams(), Map.class);
                         }
                         params.put("taskId", taskId);
+                        params.put("platformId", platform.getId());
                         record.setGenerationParams(objectMapper.writeValueAsString(params));
                         record.setPid(taskId); // 保存外部任务ID
                         generationRecordMapper.updateById(record);
@@ -349,7 +367,7 @@ public class GenerationService {
                 if (url.contains("aliyuncs.com") || url.contains("myqcloud.com")) {
                     ossUrls.add(url);
                 } else {
-                    String ossUrl = aliyunOssService.uploadFromUrl(url, "images/");
+                    String ossUrl = mediaDedupService.ingestFromUrl(url, "images/");
                     ossUrls.add(ossUrl);
                 }
             }
@@ -357,7 +375,9 @@ public class GenerationService {
             
             // 阶段三：完成任务（更新记录并拆分）
             String thumbnailUrl = !imageUrls.isEmpty() ? imageUrls.get(0) : null;
-            completeAndSplitGenerationTask(record.getId(), imageUrls, thumbnailUrl);
+            if (completeAndSplitGenerationTask(record.getId(), imageUrls, thumbnailUrl)) {
+                recordCompletion(platform, record, UpstreamMetrics.OUTCOME_SUCCESS);
+            }
             
             // 构建响应
             ImageGenerationResponse response = new ImageGenerationResponse();
@@ -370,7 +390,9 @@ public class GenerationService {
             log.error("图生图失败：{}", e.getMessage(), e);
             
             // 阶段三：失败处理（更新记录+退款）
-            failGenerationTask(record.getId(), userId, cost, e.getMessage());
+            if (failGenerationTask(record.getId(), userId, cost, e.getMessage())) {
+                recordCompletion(platform, record, UpstreamMetrics.outcomeOf(e));
+            }
             
             throw new BusinessException(ErrorCode.GENERATION_FAILED.getCode(), "图生图失败：" + e.getMessage());
         }
@@ -386,10 +408,10 @@ public class GenerationService {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND);
         }
         
-        ApiPlatform platform = findPlatformByType("txt2video", request.getModel(), null);
-        if (platform == null) {
-            throw new BusinessException(ErrorCode.GENERATION_PLATFORM_NOT_CONFIGURED.getCode(), "文生视频平台未配置，或未找到支持该模型的平台");
-        }
+        // 查找支持该模型的API平台（type=txt2video），按健康度排序，熔断中的平台不参与
+        Route route = routePlatforms("txt2video", request.getModel(), "文生视频平台未配置，或未找到支持该模型的平台");
+        List<ApiPlatform> platforms = route.candidates();
+        ApiPlatform platform = platforms.get(0);
         
         ApiInterface txt2videoInterface = findTextToImageInterface(platform.getId()); // 复用
         if (txt2videoInterface == null) {
@@ -397,15 +419,18 @@ public class GenerationService {
         }
         
         // 计算消耗
-        Integer cost = calculateCost(platform, request.getModel(), request.getResolution(), request.getDuration(), 1, "txt2video");
+        Integer cost = calculateCost(route.pricingPlatform(), request.getModel(), request.getResolution(), request.getDuration(), 1, "txt2video");
         
         // 阶段一：开启任务（扣费+记录）
         GenerationRecord record = startGenerationTask(userId, user.getUsername(), "txt2video", "video", request.getModel(), request.getPrompt(), cost, request);
 
         try {
             // 阶段二：调用API+上传OSS（无事务）
-            Map<String, Object> apiRequest = buildTextToVideoRequest(request, platform);
-            String responseJson = callApi(txt2videoInterface, platform, apiRequest);
+            // 提交失败时切换到下一个可用平台
+            Submission submission = submitWithFailover(record, platforms, txt2videoInterface, this::findTextToImageInterface,
+                    (candidate, apiInterface) -> buildTextToVideoRequest(request, candidate));
+            platform = submission.platform();
+            String responseJson = submission.responseJson();
 
             // 检查是否为异步任务（webHook="-1"）
             if ("-1".equals(request.getWebHook())) {
@@ -438,6 +463,7 @@ public class GenerationService {
                             params = objectMapper.readValue(record.getGenerationParams(), Map.class);
                         }
                         params.put("taskId", taskId);
+                        params.put("platformId", platform.getId());
                         record.setGenerationParams(objectMapper.writeValueAsString(params));
                         record.setPid(taskId); // 保存外部任务ID
                         generationRecordMapper.updateById(record);
@@ -473,16 +499,13 @@ public class GenerationService {
             if (videoUrl.contains("aliyuncs.com") || videoUrl.contains("myqcloud.com")) {
                 ossUrl = videoUrl;
             } else {
-                ossUrl = aliyunOssService.uploadFromUrl(videoUrl, "videos/");
+                ossUrl = mediaDedupService.ingestFromUrl(videoUrl, "videos/");
             }
             
-            // 阶段三：完成任务（更新记录）
-            // 假设使用了阿里云OSS，可以直接添加截帧参数作为缩略图
-            String thumbnailUrl = null;
-            if (ossUrl.contains("aliyuncs.com")) {
-                thumbnailUrl = ossUrl + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_800,h_0,m_fast";
+            // 阶段三：完成任务（更新记录），缩略图由派生任务截帧生成
+            if (completeGenerationTask(record.getId(), ossUrl, null, pid, failureReason)) {
+                recordCompletion(platform, record, UpstreamMetrics.OUTCOME_SUCCESS);
             }
-            completeGenerationTask(record.getId(), ossUrl, thumbnailUrl, pid, failureReason);
             
             VideoGenerationResponse response = new VideoGenerationResponse();
             response.setVideoUrl(ossUrl);
@@ -495,7 +518,9 @@ public class GenerationService {
             log.error("文生视频失败：{}", e.getMessage(), e);
             
             // 阶段三：失败处理（更新记录+退款）
-            failGenerationTask(record.getId(), userId, cost, e.getMessage());
+            if (failGenerationTask(record.getId(), userId, cost, e.getMessage())) {
+                recordCompletion(platform, record, UpstreamMetrics.outcomeOf(e));
+            }
             
             String errorMsg = e.getMessage();
             if (errorMsg != null && (errorMsg.contains("Unrecognized token") || errorMsg.contains("JsonParseException"))) {
@@ -519,10 +544,10 @@ public class GenerationService {
             throw new BusinessException(ErrorCode.PARAM_ERROR.getCode(), "最多只能上传3张参考图片");
         }
         
-        ApiPlatform platform = findPlatformByType("img2video", request.getModel(), null);
-        if (platform == null) {
-            throw new BusinessException(ErrorCode.GENERATION_PLATFORM_NOT_CONFIGURED.getCode(), "图生视频平台未配置，或未找到支持该模型的平台");
-        }
+        // 查找支持该模型的API平台（type=img2video），按健康度排序，熔断中的平台不参与
+        Route route = routePlatforms("img2video", request.getModel(), "图生视频平台未配置，或未找到支持该模型的平台");
+        List<ApiPlatform> platforms = route.candidates();
+        ApiPlatform platform = platforms.get(0);
         
         ApiInterface img2videoInterface = findImageToImageInterface(platform.getId()); // 复用
         if (img2videoInterface == null) {
@@ -530,15 +555,18 @@ public class GenerationService {
         }
         
         // 计算消耗
-        Integer cost = calculateCost(platform, request.getModel(), request.getResolution(), request.getDuration(), 1, "img2video");
+        Integer cost = calculateCost(route.pricingPlatform(), request.getModel(), request.getResolution(), request.getDuration(), 1, "img2video");
         
         // 阶段一：开启任务（扣费+记录）
         GenerationRecord record = startGenerationTask(userId, user.getUsername(), "img2video", "video", request.getModel(), request.getPrompt(), cost, request);
 
         try {
             // 阶段二：调用API+上传OSS（无事务）
-            Map<String, Object> apiRequest = buildImageToVideoRequest(request, platform);
-            String responseJson = callApi(img2videoInterface, platform, apiRequest);
+            // 提交失败时切换到下一个可用平台
+            Submission submission = submitWithFailover(record, platforms, img2videoInterface, this::findImageToImageInterface,
+                    (candidate, apiInterface) -> buildImageToVideoRequest(request, candidate));
+            platform = submission.platform();
+            String responseJson = submission.responseJson();
 
             // 检查是否为异步任务（webHook="-1"）
             if ("-1".equals(request.getWebHook())) {
@@ -571,6 +599,7 @@ public class GenerationService {
                             params = objectMapper.readValue(record.getGenerationParams(), Map.class);
                         }
                         params.put("taskId", taskId);
+                        params.put("platformId", platform.getId());
                         record.setGenerationParams(objectMapper.writeValueAsString(params));
                         record.setPid(taskId); // 保存外部任务ID
                         generationRecordMapper.updateById(record);
@@ -606,18 +635,14 @@ public class GenerationService {
             if (videoUrl.contains("aliyuncs.com") || videoUrl.contains("myqcloud.com")) {
                 ossUrl = videoUrl;
             } else {
-                ossUrl = aliyunOssService.uploadFromUrl(videoUrl, "videos/");
+                ossUrl = mediaDedupService.ingestFromUrl(videoUrl, "videos/");
             }
             
             // 阶段三：完成任务（更新记录）
-            // 设置缩略图为参考图，或者OSS截帧
-            String thumbnailUrl = null;
-            if (request.getImage() != null) {
-                thumbnailUrl = request.getImage();
-            } else if (ossUrl.contains("aliyuncs.com")) {
-                thumbnailUrl = ossUrl + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_800,h_0,m_fast";
+            // 派生任务截帧完成前先以参考图作为缩略图
+            if (completeGenerationTask(record.getId(), ossUrl, request.getImage(), pid, failureReason)) {
+                recordCompletion(platform, record, UpstreamMetrics.OUTCOME_SUCCESS);
             }
-            completeGenerationTask(record.getId(), ossUrl, thumbnailUrl, pid, failureReason);
             
             VideoGenerationResponse response = new VideoGenerationResponse();
             response.setVideoUrl(ossUrl);
@@ -630,7 +655,9 @@ public class GenerationService {
             log.error("图生视频失败：{}", e.getMessage(), e);
             
             // 阶段三：失败处理（更新记录+退款）
-            failGenerationTask(record.getId(), userId, cost, e.getMessage());
+            if (failGenerationTask(record.getId(), userId, cost, e.getMessage())) {
+                recordCompletion(platform, record, UpstreamMetrics.outcomeOf(e));
+            }
             
             String errorMsg = e.getMessage();
             if (errorMsg != null && (errorMsg.contains("Unrecognized token") || errorMsg.contains("JsonParseException"))) {
@@ -686,6 +713,7 @@ public class GenerationService {
             throw new BusinessException(ErrorCode.PERMISSION_DENIED.getCode(), "无权删除此记录");
         }
         generationRecordMapper.deleteById(id);
+        mediaDedupService.release(record.getContentUrl());
     }
 
     /**
@@ -945,7 +973,7 @@ public class GenerationService {
      * 开启生成任务（事务：扣费+记录+流水）
      */
     private GenerationRecord startGenerationTask(Long userId, String username, String type, String fileType, String model, String prompt, Integer cost, Object requestParams) {
-        return transactionTemplate.execute(status -> {
+        GenerationRecord started = transactionTemplate.execute(status -> {
             int updateRows = userMapper.deductBalance(userId, cost);
             if (updateRows == 0) {
                 throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE);
@@ -982,21 +1010,23 @@ public class GenerationService {
             
             return record;
         });
+        upstreamMetrics.recordCredits(UpstreamMetrics.CREDITS_CHARGED, type, model, cost);
+        return started;
     }
 
     /**
      * 完成生成任务并拆分记录（事务：更新记录+创建新记录）
      * 用于处理一次生成多张图片的情况，将每张图片存为一条独立的记录
      */
-    private void completeAndSplitGenerationTask(Long recordId, List<String> contentUrls, String firstThumbnailUrl) {
-        transactionTemplate.execute(status -> {
+    private boolean completeAndSplitGenerationTask(Long recordId, List<String> contentUrls, String firstThumbnailUrl) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
             if (contentUrls == null || contentUrls.isEmpty()) {
-                return null;
+                return false;
             }
 
             GenerationRecord originalRecord = generationRecordMapper.selectById(recordId);
             if (originalRecord == null) {
-                return null;
+                return false;
             }
 
             UpdateWrapper<GenerationRecord> updateOriginal = new UpdateWrapper<>();
@@ -1004,11 +1034,12 @@ public class GenerationService {
             updateOriginal.eq("status", "processing");
             updateOriginal.set("status", "success");
             updateOriginal.set("content_url", contentUrls.get(0));
+            // 派生任务生成缩略图前先使用原图
             updateOriginal.set("thumbnail_url", firstThumbnailUrl != null ? firstThumbnailUrl : contentUrls.get(0));
 
             int updatedRows = generationRecordMapper.update(null, updateOriginal);
             if (updatedRows == 0) {
-                return null;
+                return false;
             }
 
             for (int i = 1; i < contentUrls.size(); i++) {
@@ -1028,14 +1059,18 @@ public class GenerationService {
                 newRecord.setThumbnailUrl(url);
 
                 generationRecordMapper.insert(newRecord);
+                mediaDerivativeService.submit(MediaDerivativeService.Target.GENERATION_RECORD,
+                        newRecord.getId(), url, "image");
             }
+            mediaDerivativeService.submit(MediaDerivativeService.Target.GENERATION_RECORD,
+                    recordId, contentUrls.get(0), "image");
 
-            return null;
-        });
+            return true;
+        }));
     }
 
-    private void completeGenerationTask(Long recordId, String contentUrl, String thumbnailUrl, String pid, String failureReason) {
-        transactionTemplate.execute(status -> {
+    private boolean completeGenerationTask(Long recordId, String contentUrl, String thumbnailUrl, String pid, String failureReason) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
             UpdateWrapper<GenerationRecord> update = new UpdateWrapper<>();
             update.eq("id", recordId);
             update.eq("status", "processing");
@@ -1051,16 +1086,22 @@ public class GenerationService {
                 update.set("failure_reason", failureReason);
             }
 
-            generationRecordMapper.update(null, update);
-            return null;
-        });
+            if (generationRecordMapper.update(null, update) > 0) {
+                mediaDerivativeService.submit(MediaDerivativeService.Target.GENERATION_RECORD,
+                        recordId, contentUrl, "video");
+                return true;
+            }
+            return false;
+        }));
     }
 
     /**
      * 失败处理（事务：更新记录+退款+流水）
+     *
+     * @return 是否本次退款（任务已结束时返回 false）
      */
-    private void failGenerationTask(Long recordId, Long userId, Integer cost, String failureReason) {
-        transactionTemplate.execute(status -> {
+    private boolean failGenerationTask(Long recordId, Long userId, Integer cost, String failureReason) {
+        GenerationRecord refunded = transactionTemplate.execute(status -> {
             GenerationRecord record = generationRecordMapper.selectById(recordId);
             // 幂等性检查：只有状态为processing时才退款
             if (record != null && "processing".equals(record.getStatus())) {
@@ -1083,9 +1124,19 @@ public class GenerationService {
                 transaction.setDescription("任务失败退款: " + record.getType());
                 transaction.setSiteId(SiteContext.getSiteId());
                 userTransactionMapper.insert(transaction);
+                return record;
             }
             return null;
         });
+        if (refunded == null) {
+            return false;
+        }
+        upstreamMetrics.recordCredits(UpstreamMetrics.CREDITS_REFUNDED, refunded.getType(), refunded.getModel(), cost);
+        return true;
+    }
+
+    private void recordCompletion(ApiPlatform platform, GenerationRecord record, String outcome) {
+        upstreamMetrics.recordCompletion(platform, record.getType(), record.getModel(), record.getCreatedAt(), outcome);
     }
 
     /**
@@ -1154,9 +1205,12 @@ public class GenerationService {
             Request okRequest = requestBuilder.build();
             
             // 4. Execute
-            okHttpClient.newCall(okRequest).enqueue(new Callback() {
+            long submitStart = System.nanoTime();
+            okHttpClient.newCall(okRequest).enqueue(SiteContextCallback.wrap(new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
+                    upstreamMetrics.recordCall(UpstreamMetrics.PHASE_SUBMIT, platform, "prompt_optimize", request.getModel(),
+                            System.nanoTime() - submitStart, UpstreamMetrics.outcomeOf(e));
                     // Update Analysis Record (Failed)
                     analysisRecord.setStatus(2);
                     analysisRecord.setErrorMsg(e.getMessage());
@@ -1171,6 +1225,9 @@ public class GenerationService {
 
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
+                    upstreamMetrics.recordCall(UpstreamMetrics.PHASE_SUBMIT, platform, "prompt_optimize", request.getModel(),
+                            System.nanoTime() - submitStart,
+                            response.isSuccessful() ? UpstreamMetrics.OUTCOME_SUCCESS : UpstreamMetrics.OUTCOME_FAILURE);
                     StringBuilder fullResponse = new StringBuilder();
                     try (ResponseBody responseBody = response.body()) {
                         if (!response.isSuccessful()) {
@@ -1219,7 +1276,7 @@ public class GenerationService {
                          emitter.completeWithError(e);
                     }
                 }
-            });
+            }));
             
         } catch (Exception e) {
             // Update Analysis Record (Failed)
@@ -1232,6 +1289,112 @@ public class GenerationService {
         return emitter;
     }
 
+    /**
+     * 提交结果：实际受理任务的平台、接口和平台响应
+     */
+    private record Submission(ApiPlatform platform, ApiInterface apiInterface, String responseJson) {
+    }
+
+    /**
+     * 路由结果
+     *
+     * @param pricingPlatform 定价平台：按配置顺序的第一个平台（与 getPlatformByTypeAndModel 一致），扣费只按它计算
+     * @param candidates 按健康度和权重排序的候选平台
+     */
+    private record Route(ApiPlatform pricingPlatform, List<ApiPlatform> candidates) {
+    }
+
+    /**
+     * 查找支持该类型和模型的全部平台，并按健康度排序（熔断中的平台不参与）
+     *
+     * @param type API类型
+     * @param model 模型名称
+     * @param notConfiguredMessage 未找到平台时的提示
+     * @return 定价平台和排序后的可用平台（至少一个）
+     */
+    private Route routePlatforms(String type, String model, String notConfiguredMessage) {
+        List<ApiPlatform> platforms = apiPlatformService.getPlatformsByTypeAndModel(type, model, null);
+        if (platforms.isEmpty()) {
+            throw new BusinessException(ErrorCode.GENERATION_PLATFORM_NOT_CONFIGURED.getCode(), notConfiguredMessage);
+        }
+        // 检查apiKey是否有效（解密后不为null）
+        List<ApiPlatform> withApiKey = platforms.stream()
+                .filter(p -> p.getApiKey() != null && !p.getApiKey().isEmpty())
+                .toList();
+        if (withApiKey.isEmpty()) {
+            throw new BusinessException(ErrorCode.API_KEY_ERROR);
+        }
+        List<ApiPlatform> routed = platformRouter.route(withApiKey);
+        if (routed.isEmpty()) {
+            throw new BusinessException(ErrorCode.GENERATION_PLATFORM_UNAVAILABLE);
+        }
+        return new Route(platforms.get(0), routed);
+    }
+
+    /**
+     * 按路由顺序提交任务，请求确定未被平台受理（连接失败、限流、503、本地舱壁已满或熔断）时切换到下一个平台，
+     * 全部失败才交给调用方退款；读超时等发送后的故障和平台明确拒绝请求（参数错误等）时直接抛出，不再尝试其他平台
+     *
+     * @param record 生成记录
+     * @param platforms 排序后的候选平台
+     * @param primaryInterface 第一个平台的接口
+     * @param interfaceFinder 按平台ID查找接口
+     * @param requestBuilder 按平台和接口构建请求参数
+     * @return 提交结果
+     */
+    private Submission submitWithFailover(GenerationRecord record, List<ApiPlatform> platforms, ApiInterface primaryInterface,
+                                          Function<Long, ApiInterface> interfaceFinder,
+                                          BiFunction<ApiPlatform, ApiInterface, Map<String, Object>> requestBuilder) {
+        RuntimeException lastError = null;
+        int attempts = 0;
+        for (int i = 0; i < platforms.size() && attempts < platformRouter.getMaxAttempts(); i++) {
+            ApiPlatform candidate = platforms.get(i);
+            ApiInterface apiInterface = i == 0 ? primaryInterface : interfaceFinder.apply(candidate.getId());
+            if (apiInterface == null) {
+                continue;
+            }
+            Map<String, Object> apiRequest = requestBuilder.apply(candidate, apiInterface);
+            if (!platformRouter.tryAcquire(candidate)) {
+                continue;
+            }
+            attempts++;
+            try {
+                String responseJson = platformRouter.execute(candidate,
+                        () -> callApi(apiInterface, candidate, apiRequest, record.getType(), record.getModel()));
+                if (i > 0) {
+                    log.info("任务 {} 已切换到平台 {} 提交成功", record.getId(), candidate.getName());
+                }
+                return new Submission(candidate, apiInterface, responseJson);
+            } catch (RuntimeException e) {
+                if (!isSafeToFailover(e)) {
+                    throw e;
+                }
+                lastError = e;
+                log.warn("平台 {} 提交任务 {} 失败，尝试下一个平台：{}", candidate.getName(), record.getId(), e.getMessage());
+            }
+        }
+        if (lastError != null) {
+            throw lastError;
+        }
+        throw new BusinessException(ErrorCode.GENERATION_PLATFORM_UNAVAILABLE);
+    }
+
+    /**
+     * 查找受理任务的平台
+     * 提交时记录了平台ID（可能经过故障切换）则按ID查找，否则按类型和模型查找（兼容旧记录）
+     */
+    private ApiPlatform findTaskPlatform(GenerationRecord record, JsonNode params) {
+        if (params.hasNonNull("platformId")) {
+            try {
+                return apiPlatformService.getPlatformByIdWithDecryptedKey(params.get("platformId").asLong());
+            } catch (Exception e) {
+                log.warn("受理任务 {} 的平台 {} 已不存在", record.getId(), params.get("platformId").asText());
+                return null;
+            }
+        }
+        return findPlatformByType(record.getType(), record.getModel(), null);
+    }
+
     /**
      * 根据类型和模型查找API平台（apiKey已解密）
      * 
@@ -1272,8 +1435,9 @@ public class GenerationService {
     
     /**
      * 应用参数映射
+     * 请求构建热路径上的方法（参数映射、分辨率、计费、响应解析）为包级可见，供 benchmarks 模块的 JMH 基准直接调用
      */
-    private Map<String, Object> applyParameterMappings(Map<String, Object> currentParams, Object requestDto, Long platformId, String model) {
+    Map<String, Object> applyParameterMappings(Map<String, Object> currentParams, Object requestDto, Long platformId, String model) {
         // 从缓存获取映射配置（已排序：通用在前，特定模型在后）
         List<ApiParameterMapping> mappings = apiParameterMappingCacheService.getMappings(platformId, model);
         
@@ -1322,7 +1486,7 @@ public class GenerationService {
         return newParams;
     }
 
-    private void addDtoToContext(Map<String, Object> context, Object dto) {
+    void addDtoToContext(Map<String, Object> context, Object dto) {
         if (dto == null) return;
         
         String resolution = null;
@@ -1442,7 +1606,7 @@ public class GenerationService {
     /**
      * 解析分辨率
      */
-    private Map<String, Integer> parseResolution(String resolution, String aspectRatio) {
+    Map<String, Integer> parseResolution(String resolution, String aspectRatio) {
         Map<String, Integer> size = new HashMap<>();
         
         // 根据分辨率设置基础尺寸
@@ -1527,9 +1691,14 @@ public class GenerationService {
     }
     
     /**
-     * 调用API平台接口
+     * 调用API平台接口（提交任务），记录调用耗时和结果
      */
-    private String callApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams) {
+    private String callApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams, String type, String model) {
+        return upstreamMetrics.record(UpstreamMetrics.PHASE_SUBMIT, platform, type, model,
+                () -> resilienceGuard.supply(Dependency.AI_UPSTREAM, () -> doCallApi(apiInterface, platform, requestParams)));
+    }
+
+    private String doCallApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams) {
         try {
             // 构建请求头
             HttpHeaders headers = new HttpHeaders();
@@ -1587,10 +1756,51 @@ public class GenerationService {
             log.debug("API响应: {}", response.getBody());
             return response.getBody();
             
+        } catch (HttpClientErrorException e) {
+            // 4xx 表示平台拒绝了请求（参数错误、内容审核等），换平台也不会成功；408/429 属于平台过载，请求未被受理
+            log.error("调用API平台接口失败：{}", e.getMessage(), e);
+            int status = e.getStatusCode().value();
+            ErrorCode errorCode = status == 408 || status == 429 ? ErrorCode.API_NOT_ACCEPTED : ErrorCode.API_RESPONSE_ERROR;
+            throw new BusinessException(errorCode.getCode(), "调用API平台接口失败：" + e.getMessage());
+        } catch (HttpServerErrorException e) {
+            // 503 表示平台暂不受理；其他 5xx 无法确定任务是否已创建
+            log.error("调用API平台接口失败：{}", e.getMessage(), e);
+            ErrorCode errorCode = e.getStatusCode().value() == 503 ? ErrorCode.API_NOT_ACCEPTED : ErrorCode.API_CALL_FAILED;
+            throw new BusinessException(errorCode.getCode(), "调用API平台接口失败：" + e.getMessage());
         } catch (Exception e) {
             log.error("调用API平台接口失败：{}", e.getMessage(), e);
-            throw new BusinessException(ErrorCode.API_CALL_FAILED.getCode(), "调用API平台接口失败：" + e.getMessage());
+            ErrorCode errorCode = isNotSent(e) ? ErrorCode.API_NOT_ACCEPTED : ErrorCode.API_CALL_FAILED;
+            throw new BusinessException(errorCode.getCode(), "调用API平台接口失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 判断请求是否确定没有发到平台：域名解析失败、连接被拒绝、连接超时、TLS 握手失败。
+     * 读超时等发送后的错误无法确定平台是否已创建任务，不属于此类
+     */
+    static boolean isNotSent(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof UnknownHostException || t instanceof ConnectException
+                    || t instanceof NoRouteToHostException || t instanceof SSLHandshakeException) {
+                return true;
+            }
+            if (t instanceof SocketTimeoutException && t.getMessage() != null
+                    && t.getMessage().toLowerCase().contains("connect timed out")) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * 判断提交失败后能否切换到下一个平台：只有请求确定没有被平台受理时才切换，
+     * 否则（读超时、超过超时预算、5xx）平台可能已创建任务，再提交到其他平台会重复生成、重复计费
+     */
+    static boolean isSafeToFailover(Throwable e) {
+        if (e instanceof DependencyUnavailableException de) {
+            return de.getReason() != DependencyUnavailableException.Reason.TIMEOUT;
+        }
+        return e instanceof BusinessException be && ErrorCode.API_NOT_ACCEPTED.getCode().equals(be.getCode());
     }
     
     /**
@@ -1599,7 +1809,7 @@ public class GenerationService {
      * @param responseJson 响应JSON字符串
      * @param responseMode 响应模式：JSON、Stream、Result
      */
-    private List<String> parseImageUrls(String responseJson, String responseMode) {
+    List<String> parseImageUrls(String responseJson, String responseMode) {
         List<String> imageUrls = new ArrayList<>();
         
         try {
@@ -1747,7 +1957,7 @@ public class GenerationService {
      * @param sseResponse SSE格式的响应字符串
      * @return 图片URL列表
      */
-    private List<String> parseSseResponse(String sseResponse) {
+    List<String> parseSseResponse(String sseResponse) {
         List<String> imageUrls = new ArrayList<>();
         JsonNode lastDataNode = null;
         String lastStatus = null;
@@ -1897,7 +2107,7 @@ public class GenerationService {
     /**
      * 计算消耗积分
      */
-    private Integer calculateCost(ApiPlatform platform, String model, String resolution, Integer duration, Integer quantity, String type) {
+    Integer calculateCost(ApiPlatform platform, String model, String resolution, Integer duration, Integer quantity, String type) {
         // 简单计算：文生图每个10积分，图生图每个15积分，视频每个20积分
         int baseCost;
         if ("txt2img".equals(type)) {
@@ -2001,7 +2211,7 @@ public class GenerationService {
                 else if (params.has("externalTaskId")) externalTaskId = params.get("externalTaskId").asText();
                 
                 if (externalTaskId != null) {
-                    ApiPlatform platform = findPlatformByType(record.getType(), record.getModel(), null);
+                    ApiPlatform platform = findTaskPlatform(record, params);
                     if (platform != null) {
                         ApiInterface apiInterface = null;
                         if ("txt2img".equals(record.getType()) || "txt2video".equals(record.getType())) {
@@ -2039,7 +2249,7 @@ public class GenerationService {
 
                             if (isUnifiedResultApi && fetchUrl != null) {
                                 try {
-                                    statusJson = callPostResultApi(fetchUrl, externalTaskId, platform, apiInterface);
+                                    statusJson = callPostResultApi(fetchUrl, externalTaskId, platform, apiInterface, record);
                                 } catch (Exception e) {
                                     log.warn("POST查询任务状态失败，尝试降级到GET推导URL: {}", e.getMessage());
                                 }
@@ -2047,7 +2257,7 @@ public class GenerationService {
                             
                             if (statusJson == null) {
                                 String deducedUrl = deduceFetchUrl(apiInterface.getUrl(), externalTaskId);
-                                statusJson = callGetApi(deducedUrl, platform, apiInterface);
+                                statusJson = callGetApi(deducedUrl, platform, apiInterface, record);
                             }
                             
                             JsonNode root = objectMapper.readTree(statusJson);
@@ -2074,23 +2284,20 @@ public class GenerationService {
                                         ossUrl = videoUrl;
                                     } else {
                                         try {
-                                            ossUrl = aliyunOssService.uploadFromUrl(videoUrl, "videos/");
+                                            ossUrl = mediaDedupService.ingestFromUrl(videoUrl, "videos/");
                                         } catch (Exception e) {
                                             ossUrl = videoUrl;
                                             log.warn("视频上传OSS失败: {}", e.getMessage());
                                         }
                                     }
                                     
-                                    // 视频缩略图逻辑
-                                    String thumbnailUrl = null;
-                                    if (ossUrl.contains("aliyuncs.com")) {
-                                        thumbnailUrl = ossUrl + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_800,h_0,m_fast";
-                                    }
-                                    
                                     // 尝试提取PID
                                     String pid = extractPidFromNode(root);
                                     
-                                    completeGenerationTask(record.getId(), ossUrl, thumbnailUrl, pid, null);
+                                    // 视频缩略图由派生任务截帧生成
+                                    if (completeGenerationTask(record.getId(), ossUrl, null, pid, null)) {
+                                        recordCompletion(platform, record, UpstreamMetrics.OUTCOME_SUCCESS);
+                                    }
                                     response.setVideoUrl(ossUrl);
                                     response.setStatus("success");
                                     response.setPid(pid);
@@ -2105,7 +2312,7 @@ public class GenerationService {
                                                 ossUrls.add(url);
                                             } else {
                                                 try {
-                                                    String ossUrl = aliyunOssService.uploadFromUrl(url, "images/");
+                                                    String ossUrl = mediaDedupService.ingestFromUrl(url, "images/");
                                                     ossUrls.add(ossUrl);
                                                 } catch (Exception e) {
                                                     ossUrls.add(url);
@@ -2114,7 +2321,9 @@ public class GenerationService {
                                         }
                                         
                                         String thumbnailUrl = !ossUrls.isEmpty() ? ossUrls.get(0) : null;
-                                        completeAndSplitGenerationTask(record.getId(), ossUrls, thumbnailUrl);
+                                        if (completeAndSplitGenerationTask(record.getId(), ossUrls, thumbnailUrl)) {
+                                            recordCompletion(platform, record, UpstreamMetrics.OUTCOME_SUCCESS);
+                                        }
                                         
                                         response.setImageUrls(ossUrls);
                                         response.setStatus("success");
@@ -2133,7 +2342,9 @@ public class GenerationService {
                                     reason += ": " + dataNode.get("error").asText();
                                 }
                                 
-                                failGenerationTask(record.getId(), record.getUserId(), record.getCost(), reason);
+                                if (failGenerationTask(record.getId(), record.getUserId(), record.getCost(), reason)) {
+                                    recordCompletion(platform, record, UpstreamMetrics.OUTCOME_FAILURE);
+                                }
                                 response.setStatus("failed");
                                 response.setErrorMessage(reason);
                             } else if ("RUNNING".equalsIgnoreCase(status)) {
@@ -2147,7 +2358,9 @@ public class GenerationService {
                 // 如果是404，说明任务可能不存在或URL错误，直接标记为失败，避免前端无限轮询
                 if (e.getMessage() != null && e.getMessage().contains("404")) {
                     // 确保退款和更新状态
-                    failGenerationTask(record.getId(), record.getUserId(), record.getCost(), e.getMessage());
+                    if (failGenerationTask(record.getId(), record.getUserId(), record.getCost(), e.getMessage())) {
+                        recordCompletion(null, record, UpstreamMetrics.OUTCOME_FAILURE);
+                    }
                     
                     response.setStatus("failed");
                     response.setErrorMessage("查询任务失败: 任务不存在或已过期 (404)");
@@ -2188,7 +2401,12 @@ public class GenerationService {
         return submitUrl + "/" + taskId; 
     }
     
-    private String callGetApi(String url, ApiPlatform platform, ApiInterface apiInterface) {
+    private String callGetApi(String url, ApiPlatform platform, ApiInterface apiInterface, GenerationRecord record) {
+        return upstreamMetrics.record(UpstreamMetrics.PHASE_POLL, platform, record.getType(), record.getModel(),
+                () -> resilienceGuard.supply(Dependency.AI_UPSTREAM, () -> doCallGetApi(url, platform, apiInterface)));
+    }
+
+    private String doCallGetApi(String url, ApiPlatform platform, ApiInterface apiInterface) {
          HttpHeaders headers = new HttpHeaders();
          if (apiInterface.getHeaders() != null && !apiInterface.getHeaders().isEmpty()) {
              try {
@@ -2218,7 +2436,12 @@ public class GenerationService {
         }
     }
 
-    private String callPostResultApi(String url, String taskId, ApiPlatform platform, ApiInterface apiInterface) {
+    private String callPostResultApi(String url, String taskId, ApiPlatform platform, ApiInterface apiInterface, GenerationRecord record) {
+        return upstreamMetrics.record(UpstreamMetrics.PHASE_POLL, platform, record.getType(), record.getModel(),
+                () -> resilienceGuard.supply(Dependency.AI_UPSTREAM, () -> doCallPostResultApi(url, taskId, platform, apiInterface)));
+    }
+
+    private String doCallPostResultApi(String url, String taskId, ApiPlatform platform, ApiInterface apiInterface) {
          HttpHeaders headers = new HttpHeaders();
          headers.setContentType(MediaType.APPLICATION_JSON);
          
@@ -6,7 +6,10 @@ import com.meitou.admin.entity.Like;
 import com.meitou.admin.entity.PublishedContent;
 import com.meitou.admin.mapper.LikeMapper;
 import com.meitou.admin.mapper.PublishedContentMapper;
+import com.meitou.admin.service.common.LikeCounterService;
+import com.meitou.admin.service.common.LikedSetCacheService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,9 +28,12 @@ public class LikeService extends ServiceImpl<LikeMapper, Like> {
     
     private final LikeMapper likeMapper;
     private final PublishedContentMapper contentMapper;
+    private final LikeCounterService likeCounterService;
+    private final LikedSetCacheService likedSetCacheService;
     
     /**
      * 切换点赞状态（点赞/取消点赞）
+     * 只写 likes 表，点赞数变化交给 {@link LikeCounterService} 聚合后批量写回，不再对内容行做读-改-写
      * 
      * @param userId 用户ID
      * @param contentId 发布内容ID
@@ -48,21 +54,25 @@ public class LikeService extends ServiceImpl<LikeMapper, Like> {
         Like existingLike = likeMapper.selectOne(wrapper);
         
         if (existingLike != null) {
-            // 已点赞，取消点赞
-            likeMapper.deleteById(existingLike.getId());
-            // 更新点赞数
-            content.setLikeCount(Math.max(0, content.getLikeCount() - 1));
-            contentMapper.updateById(content);
+            // 已点赞，取消点赞；并发重复取消时只有真正删除成功的一次计数
+            if (likeMapper.deleteById(existingLike.getId()) > 0) {
+                likeCounterService.record(content.getSiteId(), contentId, -1);
+            }
+            likedSetCacheService.onToggled(userId, contentId, false);
             return false;
         } else {
-            // 未点赞，添加点赞
+            // 未点赞，添加点赞；并发重复点赞由唯一索引 uk_user_content 拦截，不重复计数
             Like like = new Like();
             like.setUserId(userId);
             like.setContentId(contentId);
-            likeMapper.insert(like);
-            // 更新点赞数
-            content.setLikeCount(content.getLikeCount() + 1);
-            contentMapper.updateById(content);
+            try {
+                likeMapper.insert(like);
+            } catch (DuplicateKeyException e) {
+                likedSetCacheService.onToggled(userId, contentId, true);
+                return true;
+            }
+            likeCounterService.record(content.getSiteId(), contentId, 1);
+            likedSetCacheService.onToggled(userId, contentId, true);
             return true;
         }
     }
@@ -75,6 +85,12 @@ public class LikeService extends ServiceImpl<LikeMapper, Like> {
      * @return 是否已点赞
      */
     public boolean isLiked(Long userId, Long contentId) {
+        // 优先使用用户点赞集合缓存
+        Boolean cached = likedSetCacheService.isLiked(userId, contentId);
+        if (cached != null) {
+            return cached;
+        }
+        
         LambdaQueryWrapper<Like> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Like::getUserId, userId);
         wrapper.eq(Like::getContentId, contentId);
@@ -93,6 +109,12 @@ public class LikeService extends ServiceImpl<LikeMapper, Like> {
             return Collections.emptySet();
         }
         
+        // 优先在用户点赞集合缓存中求交集，用户点赞数过多无法缓存时回退到 IN 查询
+        Set<Long> cached = likedSetCacheService.getLikedContentIds(userId, contentIds);
+        if (cached != null) {
+            return cached;
+        }
+        
         LambdaQueryWrapper<Like> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Like::getUserId, userId);
         wrapper.in(Like::getContentId, contentIds);
@@ -6,16 +6,20 @@ import com.alipay.api.CertAlipayRequest;
 import com.alipay.api.DefaultAlipayClient;
 import com.alipay.api.domain.AlipayTradePrecreateModel;
 import com.alipay.api.domain.AlipayTradePagePayModel;
+import com.alipay.api.domain.AlipayTradeQueryModel;
 import com.alipay.api.domain.AlipayTradeWapPayModel;
 import com.alipay.api.request.AlipayTradePrecreateRequest;
 import com.alipay.api.request.AlipayTradePagePayRequest;
+import com.alipay.api.request.AlipayTradeQueryRequest;
 import com.alipay.api.request.AlipayTradeWapPayRequest;
 import com.alipay.api.response.AlipayTradePrecreateResponse;
+import com.alipay.api.response.AlipayTradeQueryResponse;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.binarywang.wxpay.bean.notify.SignatureHeader;
 import com.github.binarywang.wxpay.bean.notify.WxPayNotifyV3Result;
 import com.github.binarywang.wxpay.bean.request.WxPayUnifiedOrderV3Request;
+import com.github.binarywang.wxpay.bean.result.WxPayOrderQueryV3Result;
 import com.github.binarywang.wxpay.bean.result.WxPayUnifiedOrderV3Result;
 import com.github.binarywang.wxpay.bean.result.enums.TradeTypeEnum;
 import com.github.binarywang.wxpay.config.WxPayConfig;
@@ -24,8 +28,12 @@ import com.github.binarywang.wxpay.service.impl.WxPayServiceImpl;
 import com.github.binarywang.wxpay.exception.WxPayException;
 import com.github.binarywang.wxpay.v3.auth.Verifier;
 import com.meitou.admin.config.PaymentProperties;
+import com.meitou.admin.entity.PaymentConfig;
 import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
+import com.meitou.admin.service.common.PaymentClientRegistry;
 import com.meitou.admin.util.AesEncryptUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -50,13 +58,32 @@ import java.util.*;
 /**
  * 支付服务类
  * 处理微信支付和支付宝支付的统一下单、回调验证等功能
+ * SDK 客户端按支付配置缓存在 PaymentClientRegistry 中，配置不变时下单和回调不再重复解析、解密和构建
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
     
+    private static final String CLIENT_WECHAT = "wechat";
+    private static final String CLIENT_ALIPAY = "alipay";
+
+    private final PaymentClientRegistry clientRegistry;
+    private final ResilienceGuard resilienceGuard;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 已构建的微信支付客户端（解密后的配置 + WxPayService）
+     */
+    record WechatPayClient(PaymentProperties.WechatPayConfig config, WxPayService wxPayService) {
+    }
+
+    /**
+     * 已构建的支付宝客户端（解密后的配置 + AlipayClient）
+     */
+    record AlipayPayClient(PaymentProperties.AlipayConfig config, AlipayClient alipayClient) {
+    }
     
     /**
      * 创建微信支付订单
@@ -64,22 +91,22 @@ public class PaymentService {
      * @param orderNo 订单号
      * @param amount 金额（元）
      * @param description 商品描述
-     * @param configJson 支付配置JSON（可选，如果提供则优先使用，否则使用application.yml中的配置）
+     * @param paymentConfig 支付配置（数据库中的站点配置）
      * @return 支付参数（包含二维码URL或支付链接等）
      */
-    public Map<String, String> createWechatPayment(String orderNo, String amount, String description, String configJson) {
+    public Map<String, String> createWechatPayment(String orderNo, String amount, String description, PaymentConfig paymentConfig) {
         try {
             log.info("创建微信支付订单：订单号={}, 金额={}, 描述={}", orderNo, amount, description);
             
-            // 解析配置（优先使用传入的configJson，否则使用application.yml中的配置）
-            PaymentProperties.WechatPayConfig config = parseWechatConfig(configJson);
+            WechatPayClient client = getWechatClient(paymentConfig);
+            PaymentProperties.WechatPayConfig config = client.config();
 
             int totalFen = new BigDecimal(amount)
                 .multiply(new BigDecimal("100"))
                 .setScale(0, RoundingMode.HALF_UP)
                 .intValueExact();
 
-            WxPayService wxPayService = buildWxPayServiceForV3(config, null);
+            WxPayService wxPayService = client.wxPayService();
 
             WxPayUnifiedOrderV3Request request = new WxPayUnifiedOrderV3Request()
                 .setAppid(config.getAppId())
@@ -90,7 +117,7 @@ public class PaymentService {
                 .setAmount(new WxPayUnifiedOrderV3Request.Amount().setTotal(totalFen).setCurrency("CNY"))
                 .setSceneInfo(new WxPayUnifiedOrderV3Request.SceneInfo().setPayerClientIp("127.0.0.1"));
 
-            WxPayUnifiedOrderV3Result result = wxPayService.unifiedOrderV3(TradeTypeEnum.NATIVE, request);
+            WxPayUnifiedOrderV3Result result = callPayment(() -> wxPayService.unifiedOrderV3(TradeTypeEnum.NATIVE, request));
 
             String codeUrl = result.getCodeUrl();
             Map<String, String> paymentParams = new HashMap<>();
@@ -110,14 +137,19 @@ public class PaymentService {
         }
     }
 
-    public Map<String, String> parseWechatCallbackV3(String callbackBody, SignatureHeader signatureHeader, String configJson) {
-        return parseWechatCallbackV3(callbackBody, signatureHeader, configJson, null);
+    public Map<String, String> parseWechatCallbackV3(String callbackBody, SignatureHeader signatureHeader, PaymentConfig paymentConfig) {
+        return parseWechatCallbackV3(callbackBody, signatureHeader, paymentConfig, null);
     }
 
-    Map<String, String> parseWechatCallbackV3(String callbackBody, SignatureHeader signatureHeader, String configJson, Verifier verifierOverride) {
+    Map<String, String> parseWechatCallbackV3(String callbackBody, SignatureHeader signatureHeader, PaymentConfig paymentConfig, Verifier verifierOverride) {
         try {
-            PaymentProperties.WechatPayConfig config = parseWechatConfig(configJson);
-            WxPayService wxPayService = buildWxPayServiceForV3(config, verifierOverride);
+            WxPayService wxPayService;
+            if (verifierOverride != null) {
+                // 自定义验签器只用于单次调用，不进入缓存
+                wxPayService = buildWxPayServiceForV3(parseWechatConfig(paymentConfig.getConfigJson()), verifierOverride);
+            } else {
+                wxPayService = getWechatClient(paymentConfig).wxPayService();
+            }
             WxPayNotifyV3Result notifyResult = wxPayService.parseOrderNotifyV3Result(callbackBody, signatureHeader);
             WxPayNotifyV3Result.DecryptNotifyResult result = notifyResult.getResult();
 
@@ -152,21 +184,20 @@ public class PaymentService {
      * @param orderNo 订单号
      * @param amount 金额（元）
      * @param description 商品描述
-     * @param configJson 支付配置JSON（可选，如果提供则优先使用，否则使用application.yml中的配置）
+     * @param paymentConfig 支付配置（数据库中的站点配置）
      * @return 支付参数（包含支付链接或二维码URL等）
      */
-    public Map<String, String> createAlipayPayment(String orderNo, String amount, String description, String configJson) {
-        return createAlipayPayment(orderNo, amount, description, configJson, null);
+    public Map<String, String> createAlipayPayment(String orderNo, String amount, String description, PaymentConfig paymentConfig) {
+        return createAlipayPayment(orderNo, amount, description, paymentConfig, null);
     }
 
-    public Map<String, String> createAlipayPayment(String orderNo, String amount, String description, String configJson, String userAgent) {
+    public Map<String, String> createAlipayPayment(String orderNo, String amount, String description, PaymentConfig paymentConfig, String userAgent) {
         try {
             log.info("创建支付宝支付订单：订单号={}, 金额={}, 描述={}", orderNo, amount, description);
             
-            // 解析配置（优先使用传入的configJson，否则使用application.yml中的配置）
-            PaymentProperties.AlipayConfig config = parseAlipayConfig(configJson);
-
-            AlipayClient alipayClient = buildAlipayClient(config);
+            AlipayPayClient client = getAlipayClient(paymentConfig);
+            PaymentProperties.AlipayConfig config = client.config();
+            AlipayClient alipayClient = client.alipayClient();
 
             if (isMobileUserAgent(userAgent)) {
                 String paymentForm = createAlipayWapPayForm(alipayClient, config, orderNo, amount, description);
@@ -187,7 +218,7 @@ public class PaymentService {
             request.setBizModel(model);
             
             // 调用支付宝接口
-            AlipayTradePrecreateResponse response = alipayClient.execute(request);
+            AlipayTradePrecreateResponse response = callPayment(() -> alipayClient.execute(request));
             
             if (!response.isSuccess()) {
                 log.error(
@@ -237,6 +268,121 @@ public class PaymentService {
         }
     }
 
+    /**
+     * 查询微信支付订单状态（用于回调丢失时的对账）
+     *
+     * @param orderNo 商户订单号
+     * @param paymentConfig 支付配置
+     * @return 订单数据（与回调数据字段一致：trade_state、transaction_id、amount_total），订单不存在时 trade_state 为 NOTPAY
+     */
+    public Map<String, String> queryWechatOrder(String orderNo, PaymentConfig paymentConfig) throws WxPayException {
+        Map<String, String> orderData = new HashMap<>();
+        orderData.put("out_trade_no", orderNo);
+        WxPayService wxPayService = getWechatClient(paymentConfig).wxPayService();
+        // 订单不存在是正常的查询结果（用户未扫码），在舱壁内处理，不计入支付平台故障
+        WxPayOrderQueryV3Result result = callPayment(() -> {
+            try {
+                return wxPayService.queryOrderV3(null, orderNo);
+            } catch (WxPayException e) {
+                if (!"ORDER_NOT_EXIST".equals(e.getErrCode())) {
+                    throw e;
+                }
+                return null;
+            }
+        });
+        if (result == null) {
+            orderData.put("trade_state", "NOTPAY");
+            return orderData;
+        }
+        orderData.put("trade_state", result.getTradeState());
+        orderData.put("transaction_id", result.getTransactionId());
+        orderData.put("success_time", result.getSuccessTime());
+        if (result.getAmount() != null && result.getAmount().getTotal() != null) {
+            orderData.put("amount_total", String.valueOf(result.getAmount().getTotal()));
+        }
+        return orderData;
+    }
+
+    /**
+     * 查询支付宝订单状态（用于回调丢失时的对账）
+     *
+     * @param orderNo 商户订单号
+     * @param paymentConfig 支付配置
+     * @return 订单数据（与回调数据字段一致：trade_status、trade_no、total_amount），用户未扫码时交易不存在，trade_status 为 WAIT_BUYER_PAY
+     */
+    public Map<String, String> queryAlipayOrder(String orderNo, PaymentConfig paymentConfig) throws AlipayApiException {
+        AlipayTradeQueryRequest request = new AlipayTradeQueryRequest();
+        AlipayTradeQueryModel model = new AlipayTradeQueryModel();
+        model.setOutTradeNo(orderNo);
+        request.setBizModel(model);
+
+        AlipayClient alipayClient = getAlipayClient(paymentConfig).alipayClient();
+        AlipayTradeQueryResponse response = callPayment(() -> alipayClient.execute(request));
+        Map<String, String> orderData = new HashMap<>();
+        orderData.put("out_trade_no", orderNo);
+        if (response.isSuccess()) {
+            orderData.put("trade_status", response.getTradeStatus());
+            orderData.put("trade_no", response.getTradeNo());
+            orderData.put("total_amount", response.getTotalAmount());
+        } else if ("ACQ.TRADE_NOT_EXIST".equals(response.getSubCode())) {
+            orderData.put("trade_status", "WAIT_BUYER_PAY");
+        } else {
+            throw new AlipayApiException(response.getSubCode(), response.getSubMsg());
+        }
+        return orderData;
+    }
+
+    /**
+     * 支付平台调用
+     */
+    @FunctionalInterface
+    private interface PaymentCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * 在支付舱壁中调用支付平台 SDK，SDK 异常原样抛出，舱壁已满、熔断或超时抛出 DependencyUnavailableException
+     */
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T callPayment(PaymentCall<T, E> call) throws E {
+        try {
+            return resilienceGuard.call(Dependency.PAYMENT, call::call);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE.getCode(), "支付平台调用被中断");
+        } catch (Exception e) {
+            // 舱壁只会传播调用本身抛出的异常，受检异常只能是 E
+            throw (E) e;
+        }
+    }
+
+    /**
+     * 获取（或构建并缓存）微信支付客户端
+     */
+    private WechatPayClient getWechatClient(PaymentConfig paymentConfig) {
+        return clientRegistry.get(CLIENT_WECHAT, paymentConfig.getId(), paymentConfig.getConfigJson(), configJson -> {
+            PaymentProperties.WechatPayConfig config = parseWechatConfig(configJson);
+            return new WechatPayClient(config, buildWxPayServiceForV3(config, null));
+        });
+    }
+
+    /**
+     * 获取（或构建并缓存）支付宝客户端
+     */
+    private AlipayPayClient getAlipayClient(PaymentConfig paymentConfig) {
+        return clientRegistry.get(CLIENT_ALIPAY, paymentConfig.getId(), paymentConfig.getConfigJson(), configJson -> {
+            PaymentProperties.AlipayConfig config = parseAlipayConfig(configJson);
+            try {
+                return new AlipayPayClient(config, buildAlipayClient(config));
+            } catch (AlipayApiException e) {
+                log.error("构建支付宝客户端失败", e);
+                throw new BusinessException(ErrorCode.PAYMENT_CONFIG_ERROR.getCode(), "支付宝配置错误：" + e.getErrMsg());
+            }
+        });
+    }
+
     boolean isMobileUserAgent(String userAgent) {
         if (!StringUtils.hasText(userAgent)) {
             return false;
@@ -429,15 +575,14 @@ public class PaymentService {
      * 验证支付宝支付回调签名
      * 
      * @param callbackData 回调数据（Map格式）
-     * @param configJson 支付配置JSON（可选）
+     * @param paymentConfig 支付配置
      * @return 是否验证通过
      */
-    public boolean verifyAlipayCallback(Map<String, String> callbackData, String configJson) {
+    public boolean verifyAlipayCallback(Map<String, String> callbackData, PaymentConfig paymentConfig) {
         try {
             log.info("验证支付宝支付回调签名：订单号={}", callbackData.get("out_trade_no"));
             
-            // 解析配置
-            PaymentProperties.AlipayConfig config = parseAlipayConfig(configJson);
+            PaymentProperties.AlipayConfig config = getAlipayClient(paymentConfig).config();
             
             // 获取签名
             String sign = callbackData.get("sign");
@@ -3,10 +3,15 @@ package com.meitou.admin.service.app;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.dto.app.SquareFeedResponse;
 import com.meitou.admin.entity.PublishedContent;
 import com.meitou.admin.entity.User;
 import com.meitou.admin.mapper.PublishedContentMapper;
 import com.meitou.admin.mapper.UserMapper;
+import com.meitou.admin.service.common.LikeCounterService;
+import com.meitou.admin.service.common.MediaDedupService;
+import com.meitou.admin.service.common.MediaDerivativeService;
+import com.meitou.admin.service.common.SquareFeedCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +36,10 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
     private final PublishedContentMapper contentMapper;
     private final UserMapper userMapper;
     private final LikeService likeService;
+    private final SquareFeedCacheService feedCacheService;
+    private final LikeCounterService likeCounterService;
+    private final MediaDedupService mediaDedupService;
+    private final MediaDerivativeService mediaDerivativeService;
     
     /**
      * 发布内容
@@ -72,16 +81,9 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         content.setDescription(description);
         content.setContentUrl(contentUrl);
         
-        // 处理缩略图逻辑：如果是视频且缩略图为空或与内容URL相同，尝试自动生成（针对阿里云OSS）
-        if ("video".equals(type) && (thumbnail == null || thumbnail.isEmpty() || thumbnail.equals(contentUrl))) {
-            if (contentUrl != null && contentUrl.contains("aliyuncs.com")) {
-                content.setThumbnail(contentUrl + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_800,h_0,m_fast");
-            } else {
-                content.setThumbnail(thumbnail);
-            }
-        } else {
-            content.setThumbnail(thumbnail);
-        }
+        content.setThumbnail(thumbnail);
+        // 缩略图为空或直接使用原文件时，发布后异步生成缩略图和预览图
+        boolean needsDerivative = thumbnail == null || thumbnail.isEmpty() || thumbnail.equals(contentUrl);
         
         content.setType(type);
         content.setGenerationType(generationType);
@@ -89,11 +91,17 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         content.setStatus("published"); // 默认状态为展示中
         content.setIsPinned(false); // 默认不置顶
         content.setLikeCount(0); // 默认点赞数为0
-        content.setPublishedAt(LocalDateTime.now()); // 设置发布时间
+        content.setPublishedAt(LocalDateTime.now().withNano(0)); // 设置发布时间（秒级，与数据库精度一致，保证缓存排序和游标一致）
         content.setSiteId(siteId);
         
         // 保存到数据库
         contentMapper.insert(content);
+        // 发布内容与生成记录共享同一存储对象，增加引用计数，避免任一方删除后对象被回收
+        mediaDedupService.retain(contentUrl);
+        feedCacheService.onPublished(content);
+        if (needsDerivative) {
+            mediaDerivativeService.submit(MediaDerivativeService.Target.PUBLISHED_CONTENT, content.getId(), contentUrl, type);
+        }
         
         return content;
     }
@@ -107,6 +115,88 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
      * @return 分页发布内容列表
      */
     public IPage<PublishedContent> getPublishedContents(Page<PublishedContent> page, String type, Long userId) {
+        IPage<PublishedContent> result;
+        
+        // 优先从内存信息流分页，超出缓存窗口时回退到数据库查询
+        SquareFeedCacheService.FeedSlice slice = feedCacheService.page(type, page.offset(), (int) page.getSize());
+        if (slice != null) {
+            result = new Page<>(page.getCurrent(), page.getSize(), slice.getTotal());
+            result.setRecords(slice.getRecords());
+        } else {
+            LambdaQueryWrapper<PublishedContent> wrapper = buildFeedWrapper(type);
+            result = contentMapper.selectPage(page, wrapper);
+        }
+        
+        likeCounterService.applyPending(result.getRecords());
+        fillLikedStatus(result.getRecords(), userId);
+        return result;
+    }
+
+    /**
+     * 获取发布内容列表（游标分页，适用于无限滚动）
+     * 
+     * @param type 类型筛选
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size 每页数量
+     * @param userId 当前用户ID（可选，用于检查点赞状态）
+     * @return 当前页内容和下一页游标
+     */
+    public SquareFeedResponse getPublishedContentsByCursor(String type, String cursor, int size, Long userId) {
+        List<PublishedContent> records;
+        String nextCursor;
+        boolean hasMore;
+        
+        SquareFeedCacheService.FeedSlice slice = feedCacheService.pageByCursor(type, cursor, size);
+        if (slice != null) {
+            records = slice.getRecords();
+            nextCursor = slice.getNextCursor();
+            hasMore = slice.isHasMore();
+        } else {
+            LambdaQueryWrapper<PublishedContent> wrapper = buildFeedWrapper(type);
+            PublishedContent key = StringUtils.hasText(cursor) ? SquareFeedCacheService.decodeCursor(cursor) : null;
+            if (key != null) {
+                // 键集分页：按 (is_pinned DESC, published_at DESC, id DESC) 排在游标之后，
+                // 发布时间为空的内容在倒序中排在最后（MySQL 倒序时 NULL 在后，与缓存排序一致）
+                boolean pinned = Boolean.TRUE.equals(key.getIsPinned());
+                if (key.getPublishedAt() == null) {
+                    wrapper.and(w -> w.lt(PublishedContent::getIsPinned, pinned)
+                            .or(o -> o.eq(PublishedContent::getIsPinned, pinned)
+                                    .isNull(PublishedContent::getPublishedAt)
+                                    .lt(PublishedContent::getId, key.getId())));
+                } else {
+                    wrapper.and(w -> w.lt(PublishedContent::getIsPinned, pinned)
+                            .or(o -> o.eq(PublishedContent::getIsPinned, pinned)
+                                    .and(t -> t.lt(PublishedContent::getPublishedAt, key.getPublishedAt())
+                                            .or().isNull(PublishedContent::getPublishedAt)))
+                            .or(o -> o.eq(PublishedContent::getIsPinned, pinned)
+                                    .eq(PublishedContent::getPublishedAt, key.getPublishedAt())
+                                    .lt(PublishedContent::getId, key.getId())));
+                }
+            }
+            // 多查一条用于判断是否还有下一页
+            wrapper.last("LIMIT " + (size + 1));
+            records = contentMapper.selectList(wrapper);
+            hasMore = records.size() > size;
+            if (hasMore) {
+                records = records.subList(0, size);
+            }
+            nextCursor = records.isEmpty() ? null : SquareFeedCacheService.encodeCursor(records.get(records.size() - 1));
+        }
+        
+        likeCounterService.applyPending(records);
+        fillLikedStatus(records, userId);
+        
+        SquareFeedResponse response = new SquareFeedResponse();
+        response.setRecords(records);
+        response.setNextCursor(nextCursor);
+        response.setHasMore(hasMore);
+        return response;
+    }
+    
+    /**
+     * 构建广场列表查询条件：已发布、类型筛选、置顶优先、发布时间倒序
+     */
+    private LambdaQueryWrapper<PublishedContent> buildFeedWrapper(String type) {
         LambdaQueryWrapper<PublishedContent> wrapper = new LambdaQueryWrapper<>();
         
         // 只查询已发布的内容
@@ -120,27 +210,30 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         // 按置顶优先、发布时间倒序排列
         wrapper.orderByDesc(PublishedContent::getIsPinned);
         wrapper.orderByDesc(PublishedContent::getPublishedAt);
-        
-        IPage<PublishedContent> result = contentMapper.selectPage(page, wrapper);
-        
+        wrapper.orderByDesc(PublishedContent::getId);
+        return wrapper;
+    }
+    
+    /**
+     * 批量设置当前用户的点赞状态
+     */
+    private void fillLikedStatus(List<PublishedContent> records, Long userId) {
         // 如果有用户ID且结果不为空，批量获取点赞状态
-        if (userId != null && !result.getRecords().isEmpty()) {
-            List<Long> contentIds = result.getRecords().stream()
+        if (userId != null && !records.isEmpty()) {
+            List<Long> contentIds = records.stream()
                     .map(PublishedContent::getId)
                     .collect(Collectors.toList());
             
             Set<Long> likedIds = likeService.getLikedContentIds(userId, contentIds);
             
             // 设置isLiked状态
-            result.getRecords().forEach(item -> {
+            records.forEach(item -> {
                 item.setIsLiked(likedIds.contains(item.getId()));
             });
         } else {
             // 没登录或者没数据，全部设为false
-            result.getRecords().forEach(item -> item.setIsLiked(false));
+            records.forEach(item -> item.setIsLiked(false));
         }
-        
-        return result;
     }
 
     /**
@@ -168,6 +261,8 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         if (!"published".equals(content.getStatus())) {
             throw new RuntimeException("发布内容不存在或已下架");
         }
+        // 合并尚未写回的点赞数增量
+        content.setLikeCount(likeCounterService.merge(content.getId(), content.getLikeCount()));
         return content;
     }
     
@@ -192,6 +287,11 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         }
         
         contentMapper.updateById(content);
+        if ("published".equals(content.getStatus())) {
+            feedCacheService.onPublished(content);
+        } else {
+            feedCacheService.onHidden(content);
+        }
         return content;
     }
     
@@ -212,6 +312,7 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         content.setIsPinned(!content.getIsPinned());
         
         contentMapper.updateById(content);
+        feedCacheService.onUpdated(content);
         return content;
     }
     
@@ -233,5 +334,9 @@ public class PublishedContentService extends ServiceImpl<PublishedContentMapper,
         
         // 逻辑删除
         contentMapper.deleteById(contentId);
+        mediaDedupService.release(content.getContentUrl());
+        if ("published".equals(content.getStatus())) {
+            feedCacheService.onHidden(content);
+        }
     }
 }
@@ -0,0 +1,343 @@
+package com.meitou.admin.service.app;
+
+import com.meitou.admin.common.ExecutorThreads;
+import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.common.SiteContextThreadPoolExecutor;
+import com.meitou.admin.entity.PaymentConfig;
+import com.meitou.admin.entity.RechargeOrder;
+import com.meitou.admin.mapper.PaymentConfigMapper;
+import com.meitou.admin.mapper.RechargeOrderMapper;
+import com.meitou.admin.payment.PaymentOrderQueryProvider;
+import com.meitou.admin.payment.PaymentOrderStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 充值订单对账服务
+ * 定时扫描未完成的充值订单：向支付平台查询支付中订单的状态，回调丢失但已支付的订单走与回调相同的幂等路径补入账，
+ * 超时未支付的订单批量置为已取消。
+ *
+ * 订单按主键游标分批读取（游标跨轮保留，扫到末尾后从头开始），每批内并发查询支付平台（查询是网络 IO，串行时一批几百单要数分钟），
+ * 查询结果汇总后一次批量更新过期订单
+ *
+ * 指标：recharge_reconcile_runs_total、recharge_reconcile_orders_total{result=scanned|queried|settled|expired|failed}、
+ * recharge_reconcile_duration_seconds（每轮耗时）、recharge_reconcile_last_throughput（最近一轮每秒扫描订单数）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RechargeReconcileService {
+
+    /**
+     * 单个订单的对账结果
+     */
+    enum Outcome {
+        /**
+         * 本次补入账
+         */
+        SETTLED,
+        /**
+         * 保持原状（未到过期时间、用户支付中、状态无法判断或已被回调入账）
+         */
+        UNCHANGED,
+        /**
+         * 可过期（未支付且已超时）
+         */
+        EXPIRABLE,
+        /**
+         * 查询失败或超时，下一轮重试
+         */
+        FAILED
+    }
+
+    /**
+     * 一轮对账的统计
+     *
+     * @param scanned 扫描订单数
+     * @param queried 向支付平台查询的订单数
+     * @param settled 补入账订单数
+     * @param expired 过期订单数
+     * @param failed 查询失败订单数
+     * @param elapsedMillis 耗时（毫秒）
+     */
+    public record RunSummary(int scanned, int queried, int settled, int expired, int failed, long elapsedMillis) {
+
+        /**
+         * 吞吐量（扫描订单数/秒）
+         */
+        public double ordersPerSecond() {
+            return elapsedMillis > 0 ? scanned * 1000.0 / elapsedMillis : scanned;
+        }
+    }
+
+    private final RechargeOrderMapper rechargeOrderMapper;
+    private final PaymentConfigMapper paymentConfigMapper;
+    private final RechargeService rechargeService;
+    private final List<PaymentOrderQueryProvider> providers;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.reconcile.batchSize:200}")
+    private int batchSize;
+
+    /**
+     * 单轮最多处理的订单数，避免积压过多时一轮运行过久
+     */
+    @Value("${payment.reconcile.maxOrdersPerRun:5000}")
+    private int maxOrdersPerRun;
+
+    /**
+     * 并发查询线程数
+     */
+    @Value("${payment.reconcile.threads:4}")
+    private int threads;
+
+    /**
+     * 订单创建多久后开始对账（分钟），给正常回调留出时间
+     */
+    @Value("${payment.reconcile.minAgeMinutes:5}")
+    private long minAgeMinutes;
+
+    /**
+     * 订单创建多久后未支付即过期（分钟），与支付二维码有效期一致
+     */
+    @Value("${payment.reconcile.expireMinutes:120}")
+    private long expireMinutes;
+
+    /**
+     * 每批查询的等待时间（秒），超时的订单下一轮重试
+     */
+    @Value("${payment.reconcile.batchTimeoutSeconds:60}")
+    private long batchTimeoutSeconds;
+
+    /**
+     * 是否开启虚拟线程模式，见 {@link ExecutorThreads}
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private Map<String, PaymentOrderQueryProvider> providerByType;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong totalRuns = new AtomicLong();
+    private final AtomicLong totalScanned = new AtomicLong();
+    private final AtomicLong totalQueried = new AtomicLong();
+    private final AtomicLong totalSettled = new AtomicLong();
+    private final AtomicLong totalExpired = new AtomicLong();
+    private final AtomicLong totalFailed = new AtomicLong();
+    private volatile RunSummary lastRun;
+    private Timer runTimer;
+
+    /**
+     * 对账游标：上一轮处理到的订单ID，跨轮保留（单实例内存状态，重启后从头开始）
+     */
+    private volatile long cursor;
+
+    @PostConstruct
+    public void init() {
+        providerByType = providers.stream()
+                .collect(Collectors.toMap(PaymentOrderQueryProvider::getPaymentType, Function.identity()));
+        int poolSize = Math.max(1, threads);
+        // 队列满时由对账线程自己执行查询，起到限流作用
+        executor = new SiteContextThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchSize)), ExecutorThreads.blockingIo("recharge-reconcile-", virtualThreads),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        bindMetrics();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 执行一轮对账
+     *
+     * @return 本轮统计
+     */
+    public RunSummary reconcile() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minusMinutes(minAgeMinutes);
+        LocalDateTime expireBefore = now.minusMinutes(expireMinutes);
+        // 同一轮内站点的支付配置只查一次
+        Map<String, Optional<PaymentConfig>> configs = new HashMap<>();
+        AtomicInteger queried = new AtomicInteger();
+
+        int scanned = 0;
+        int settled = 0;
+        int expired = 0;
+        int failed = 0;
+        // 从上一轮停下的位置继续，扫到末尾后从头开始，直到回到本轮起点，避免积压超过单轮上限时后面的订单一直轮不到
+        long startId = cursor;
+        long lastId = startId;
+        boolean wrapped = false;
+        boolean lapCompleted = false;
+        while (scanned < maxOrdersPerRun) {
+            List<RechargeOrder> batch = rechargeOrderMapper.selectUnfinishedAfter(lastId, createdBefore, batchSize);
+            boolean reachedEnd = batch.size() < batchSize;
+            if (wrapped) {
+                // 从头开始的这一段只处理到本轮起点，之后的订单本轮已经处理过
+                List<RechargeOrder> beforeStart = batch.stream().filter(order -> order.getId() <= startId).toList();
+                reachedEnd |= beforeStart.size() < batch.size();
+                batch = beforeStart;
+            }
+            if (batch.isEmpty()) {
+                if (reachedEnd && !wrapped && startId > 0) {
+                    wrapped = true;
+                    lastId = 0;
+                    continue;
+                }
+                lapCompleted = true;
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            scanned += batch.size();
+
+            List<CompletableFuture<Outcome>> futures = new ArrayList<>(batch.size());
+            for (RechargeOrder order : batch) {
+                PaymentConfig config = configs.computeIfAbsent(order.getSiteId() + ":" + order.getPaymentType(),
+                        key -> Optional.ofNullable(paymentConfigMapper.selectBySiteAndTypeIgnoreTenant(
+                                order.getSiteId(), order.getPaymentType()))).orElse(null);
+                futures.add(CompletableFuture.supplyAsync(() -> check(order, config, expireBefore, queried), executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(batchTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                log.warn("充值对账查询超时，未完成的订单下一轮重试");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ignored) {
+                // check 内部已处理异常
+            }
+
+            List<Long> expirable = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                switch (futures.get(i).getNow(Outcome.FAILED)) {
+                    case SETTLED -> settled++;
+                    case EXPIRABLE -> expirable.add(batch.get(i).getId());
+                    case FAILED -> failed++;
+                    default -> {
+                    }
+                }
+            }
+            if (!expirable.isEmpty()) {
+                expired += rechargeOrderMapper.cancelUnfinished(expirable);
+            }
+            if (reachedEnd) {
+                if (wrapped || startId == 0) {
+                    lapCompleted = true;
+                    break;
+                }
+                wrapped = true;
+                lastId = 0;
+            }
+        }
+        cursor = lapCompleted ? 0 : lastId;
+
+        RunSummary summary = new RunSummary(scanned, queried.get(), settled, expired, failed,
+                System.currentTimeMillis() - start);
+        record(summary);
+        return summary;
+    }
+
+    /**
+     * 对账单个订单（在查询线程中执行）
+     */
+    private Outcome check(RechargeOrder order, PaymentConfig config, LocalDateTime expireBefore, AtomicInteger queried) {
+        boolean stale = order.getCreatedAt() == null || order.getCreatedAt().isBefore(expireBefore);
+        PaymentOrderQueryProvider provider = providerByType.get(order.getPaymentType());
+        // pending 表示下单时没有拿到支付参数，支付平台侧不存在该订单，无需查询
+        if (!"paying".equals(order.getStatus()) || provider == null || config == null) {
+            return stale ? Outcome.EXPIRABLE : Outcome.UNCHANGED;
+        }
+
+        PaymentOrderStatus status;
+        try {
+            queried.incrementAndGet();
+            status = provider.query(order, config);
+        } catch (Exception e) {
+            log.warn("查询支付订单状态失败：订单号={}, 支付方式={}, 原因={}",
+                    order.getOrderNo(), order.getPaymentType(), e.getMessage());
+            return Outcome.FAILED;
+        }
+
+        return switch (status.state()) {
+            case PAID -> settle(order, status) ? Outcome.SETTLED : Outcome.UNCHANGED;
+            case NOT_PAID, CLOSED -> stale ? Outcome.EXPIRABLE : Outcome.UNCHANGED;
+            case PAYING, UNKNOWN -> Outcome.UNCHANGED;
+        };
+    }
+
+    private boolean settle(RechargeOrder order, PaymentOrderStatus status) {
+        // 入账涉及用户表和流水表，需要按订单所属站点设置多租户上下文
+        return SiteContext.supplyWith(order.getSiteId(), () -> {
+            try {
+                return rechargeService.settleReconciledOrder(order, status.thirdPartyOrderNo(), status.orderData());
+            } catch (Exception e) {
+                log.error("对账入账失败：订单号={}", order.getOrderNo(), e);
+                return false;
+            }
+        });
+    }
+
+    private void record(RunSummary summary) {
+        totalRuns.incrementAndGet();
+        totalScanned.addAndGet(summary.scanned());
+        totalQueried.addAndGet(summary.queried());
+        totalSettled.addAndGet(summary.settled());
+        totalExpired.addAndGet(summary.expired());
+        totalFailed.addAndGet(summary.failed());
+        lastRun = summary;
+        runTimer.record(summary.elapsedMillis(), TimeUnit.MILLISECONDS);
+        if (summary.scanned() > 0) {
+            log.info("充值对账完成：扫描 {} 单，查询 {} 单，补入账 {} 单，过期 {} 单，失败 {} 单，耗时 {}ms（{} 单/秒）",
+                    summary.scanned(), summary.queried(), summary.settled(), summary.expired(), summary.failed(),
+                    summary.elapsedMillis(), String.format("%.1f", summary.ordersPerSecond()));
+        }
+    }
+
+    private void bindMetrics() {
+        FunctionCounter.builder("recharge.reconcile.runs", totalRuns, AtomicLong::get)
+                .description("充值对账运行轮数")
+                .register(meterRegistry);
+        Map<String, AtomicLong> orders = Map.of("scanned", totalScanned, "queried", totalQueried,
+                "settled", totalSettled, "expired", totalExpired, "failed", totalFailed);
+        orders.forEach((result, counter) -> FunctionCounter.builder("recharge.reconcile.orders", counter, AtomicLong::get)
+                .description("充值对账处理的订单数")
+                .tag("result", result)
+                .register(meterRegistry));
+        runTimer = Timer.builder("recharge.reconcile.duration")
+                .description("每轮充值对账耗时")
+                .register(meterRegistry);
+        Gauge.builder("recharge.reconcile.last.throughput", this, s -> s.lastRun == null ? 0 : s.lastRun.ordersPerSecond())
+                .description("最近一轮充值对账吞吐量（扫描订单数/秒）")
+                .register(meterRegistry);
+    }
+}
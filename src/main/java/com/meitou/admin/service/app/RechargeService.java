@@ -4,7 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.binarywang.wxpay.bean.notify.SignatureHeader;
+import com.meitou.admin.common.ExecutorThreads;
 import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.common.SiteContextThreadPoolExecutor;
 import com.meitou.admin.dto.app.*;
 import com.meitou.admin.entity.PaymentConfig;
 import com.meitou.admin.entity.RechargeOrder;
@@ -12,14 +14,19 @@ import com.meitou.admin.entity.User;
 import com.meitou.admin.entity.UserTransaction;
 import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.mapper.PaymentCallbackRecordMapper;
 import com.meitou.admin.mapper.PaymentConfigMapper;
 import com.meitou.admin.mapper.RechargeOrderMapper;
 import com.meitou.admin.mapper.UserMapper;
 import com.meitou.admin.mapper.UserTransactionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.RoundingMode;
 import java.math.BigDecimal;
@@ -28,6 +35,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 充值服务
@@ -44,7 +54,37 @@ public class RechargeService {
     private final PaymentConfigMapper paymentConfigMapper;
     private final RechargeConfigService rechargeConfigService;
     private final PaymentService paymentService;
+    private final PaymentCallbackRecordMapper paymentCallbackRecordMapper;
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 回调后续处理线程数（保存回调原文等不影响入账结果的写入）
+     */
+    @Value("${payment.callback.sideEffectThreads:2}")
+    private int sideEffectThreads;
+
+    /**
+     * 是否开启虚拟线程模式，见 {@link ExecutorThreads}
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor sideEffectExecutor;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, sideEffectThreads);
+        // 队列满时由回调线程自己执行，后续处理不丢失
+        sideEffectExecutor = new SiteContextThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), ExecutorThreads.blockingIo("payment-callback-", virtualThreads),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sideEffectExecutor.shutdown();
+    }
     
     /**
      * 创建充值订单
@@ -104,14 +144,14 @@ public class RechargeService {
                     orderNo,
                     request.getAmount().toString(),
                     "算力充值",
-                    paymentConfig.getConfigJson()
+                    paymentConfig
                 );
             } else if ("alipay".equals(request.getPaymentType())) {
                 paymentParams = paymentService.createAlipayPayment(
                     orderNo,
                     request.getAmount().toString(),
                     "算力充值",
-                    paymentConfig.getConfigJson(),
+                    paymentConfig,
                     userAgent
                 );
             } else {
@@ -147,8 +187,22 @@ public class RechargeService {
         return response;
     }
 
-    @Transactional
+    /**
+     * 处理微信支付V3回调
+     * 不在外层开启事务：验签等耗时操作不占用数据库连接，入账使用独立的短事务
+     *
+     * @param callbackBody 回调报文
+     * @param headers 回调请求头（签名信息）
+     * @return 是否处理成功
+     */
     public boolean handleWechatPaymentCallbackV3(String callbackBody, Map<String, String> headers) {
+        // 已处理过的通知（支付平台重试）直接确认，不再验签
+        String notifyId = extractWechatNotifyId(callbackBody);
+        if (isProcessedNotification("wechat", notifyId)) {
+            log.info("重复的微信支付通知，直接确认：{}", notifyId);
+            return true;
+        }
+
         Long originalSiteId = SiteContext.getSiteId();
 
         try {
@@ -158,12 +212,12 @@ public class RechargeService {
             Map<String, String> callbackData = null;
 
             if (paymentConfig != null && Boolean.TRUE.equals(paymentConfig.getIsEnabled())) {
-                callbackData = paymentService.parseWechatCallbackV3(callbackBody, signatureHeader, paymentConfig.getConfigJson());
+                callbackData = paymentService.parseWechatCallbackV3(callbackBody, signatureHeader, paymentConfig);
             } else {
                 List<PaymentConfig> enabledWechatConfigs = paymentConfigMapper.selectEnabledByPaymentTypeIgnoreTenant("wechat");
                 for (PaymentConfig candidate : enabledWechatConfigs) {
                     try {
-                        callbackData = paymentService.parseWechatCallbackV3(callbackBody, signatureHeader, candidate.getConfigJson());
+                        callbackData = paymentService.parseWechatCallbackV3(callbackBody, signatureHeader, candidate);
                         paymentConfig = candidate;
                         break;
                     } catch (BusinessException ignored) {
@@ -179,7 +233,7 @@ public class RechargeService {
                 SiteContext.setSiteId(paymentConfig.getSiteId());
             }
 
-            return handleVerifiedWechatV3Callback(callbackData);
+            return handleVerifiedWechatV3Callback(callbackData, notifyId);
         } catch (Exception e) {
             log.error("处理微信支付回调失败", e);
             return false;
@@ -194,12 +248,12 @@ public class RechargeService {
 
     /**
      * 处理支付回调
+     * 不在外层开启事务：验签等耗时操作不占用数据库连接，入账使用独立的短事务
      * 
      * @param paymentType 支付方式
      * @param callbackData 回调数据
      * @return 是否处理成功
      */
-    @Transactional
     public boolean handlePaymentCallback(String paymentType, Map<String, String> callbackData) {
         // 保存原始站点ID（虽然回调通常没有上下文，但为了安全起见）
         Long originalSiteId = SiteContext.getSiteId();
@@ -211,6 +265,13 @@ public class RechargeService {
                 log.error("支付回调缺少订单号");
                 return false;
             }
+
+            // 已处理过的通知（支付平台重试）直接确认，不再验签
+            String notifyId = callbackData.get("notify_id");
+            if (isProcessedNotification(paymentType, notifyId)) {
+                log.info("重复的支付通知，直接确认：{}", notifyId);
+                return true;
+            }
             
             // 查询订单（使用忽略多租户过滤的方法，因为回调没有上下文）
             // 原来的 selectOne 会加上 site_id = 0 的条件，导致查不到订单
@@ -246,7 +307,7 @@ public class RechargeService {
                 log.error("微信支付回调已升级到V3，请使用JSON回调入口");
                 return false;
             } else if ("alipay".equals(paymentType)) {
-                verified = paymentService.verifyAlipayCallback(callbackData, paymentConfig.getConfigJson());
+                verified = paymentService.verifyAlipayCallback(callbackData, paymentConfig);
             }
             
             if (!verified) {
@@ -261,27 +322,15 @@ public class RechargeService {
             
             if (!"SUCCESS".equals(paymentStatus) && !"TRADE_SUCCESS".equals(paymentStatus)) {
                 log.warn("支付未成功：订单号={}, 状态={}", orderNo, paymentStatus);
-                order.setStatus("failed");
-                rechargeOrderMapper.updateById(order);
+                rechargeOrderMapper.markFailed(orderNo);
                 return false;
             }
             
-            // 更新订单状态
-            order.setStatus("paid");
-            order.setThirdPartyOrderNo(callbackData.get("transaction_id") != null 
+            // 更新订单状态并入账
+            String thirdPartyOrderNo = callbackData.get("transaction_id") != null 
                 ? callbackData.get("transaction_id") 
-                : callbackData.get("trade_no"));
-            order.setPaidAt(LocalDateTime.now());
-            order.setCompletedAt(LocalDateTime.now());
-            try {
-                order.setCallbackInfo(objectMapper.writeValueAsString(callbackData));
-            } catch (Exception e) {
-                log.error("序列化回调信息失败", e);
-            }
-            rechargeOrderMapper.updateById(order);
-            
-            // 更新用户余额（原子操作）
-            applyRechargeToUser(order);
+                : callbackData.get("trade_no");
+            settlePaidOrder(paymentType, notifyId, order, thirdPartyOrderNo, callbackData);
             
             return true;
         } catch (Exception e) {
@@ -441,7 +490,6 @@ public class RechargeService {
      * @param callbackXml 回调XML字符串
      * @return 是否处理成功
      */
-    @Transactional
     public boolean handleWechatPaymentCallback(String callbackXml) {
         try {
             // 解析XML为Map
@@ -479,7 +527,7 @@ public class RechargeService {
         return result;
     }
 
-    private boolean handleVerifiedWechatV3Callback(Map<String, String> callbackData) {
+    private boolean handleVerifiedWechatV3Callback(Map<String, String> callbackData, String notifyId) {
         String orderNo = callbackData.get("out_trade_no");
         if (orderNo == null || orderNo.isBlank()) {
             return false;
@@ -503,31 +551,106 @@ public class RechargeService {
         String tradeState = callbackData.get("trade_state");
         if (!"SUCCESS".equals(tradeState)) {
             log.warn("支付未成功：订单号={}, 状态={}", orderNo, tradeState);
-            order.setStatus("failed");
-            rechargeOrderMapper.updateById(order);
+            rechargeOrderMapper.markFailed(orderNo);
             return false;
         }
 
         if (!verifyWechatAmount(order, callbackData)) {
             log.error("订单金额校验失败：订单号={}", orderNo);
-            order.setStatus("failed");
-            rechargeOrderMapper.updateById(order);
+            rechargeOrderMapper.markFailed(orderNo);
             return false;
         }
 
-        order.setStatus("paid");
-        order.setThirdPartyOrderNo(callbackData.get("transaction_id"));
-        order.setPaidAt(LocalDateTime.now());
-        order.setCompletedAt(LocalDateTime.now());
+        settlePaidOrder("wechat", notifyId, order, callbackData.get("transaction_id"), callbackData);
+        return true;
+    }
+
+    /**
+     * 入账：登记通知、条件更新订单状态、增加用户算力（同一短事务）
+     * 条件更新保证并发的重复回调只有一个能入账；保存回调原文在事务提交后异步执行，尽快响应支付平台
+     */
+    private boolean settlePaidOrder(String paymentType, String notifyId, RechargeOrder order,
+                                    String thirdPartyOrderNo, Map<String, String> callbackData) {
+        Boolean settled = transactionTemplate.execute(status -> {
+            if (notifyId != null && !notifyId.isBlank()
+                    && paymentCallbackRecordMapper.insertIgnore(paymentType, notifyId, order.getOrderNo()) == 0) {
+                log.info("重复的支付通知，跳过处理：{}", notifyId);
+                return false;
+            }
+            if (rechargeOrderMapper.markPaid(order.getOrderNo(), thirdPartyOrderNo, LocalDateTime.now()) == 0) {
+                log.info("订单已入账，跳过处理：{}", order.getOrderNo());
+                return false;
+            }
+            applyRechargeToUser(order);
+            return true;
+        });
+        if (Boolean.TRUE.equals(settled)) {
+            log.info("充值入账成功：订单号={}, 用户ID={}, 算力={}", order.getOrderNo(), order.getUserId(), order.getPoints());
+            sideEffectExecutor.execute(() -> saveCallbackInfo(order.getOrderNo(), callbackData));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 对账入账：主动查询确认已支付、但回调丢失的订单，走与回调相同的幂等入账路径
+     * 调用方需已按订单设置 SiteContext
+     *
+     * @param order 充值订单
+     * @param thirdPartyOrderNo 第三方支付订单号
+     * @param orderData 支付平台查询返回的订单数据
+     * @return 是否本次入账（订单已被回调入账时返回 false）
+     */
+    public boolean settleReconciledOrder(RechargeOrder order, String thirdPartyOrderNo, Map<String, String> orderData) {
+        if (!verifyPaidAmount(order, orderData)) {
+            log.error("对账金额不一致：订单号={}, 订单金额={}, 查询结果={}", order.getOrderNo(), order.getAmount(), orderData);
+            return false;
+        }
+        boolean settled = settlePaidOrder(order.getPaymentType(), null, order, thirdPartyOrderNo, orderData);
+        if (settled) {
+            log.warn("订单回调缺失，已通过对账入账：订单号={}", order.getOrderNo());
+        }
+        return settled;
+    }
+
+    private boolean verifyPaidAmount(RechargeOrder order, Map<String, String> orderData) {
+        if ("wechat".equals(order.getPaymentType())) {
+            return verifyWechatAmount(order, orderData);
+        }
+        String totalAmount = orderData.get("total_amount");
+        if (totalAmount == null || totalAmount.isBlank() || order.getAmount() == null) {
+            return true;
+        }
         try {
-            order.setCallbackInfo(objectMapper.writeValueAsString(callbackData));
+            return new BigDecimal(totalAmount).compareTo(order.getAmount()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void saveCallbackInfo(String orderNo, Map<String, String> callbackData) {
+        try {
+            rechargeOrderMapper.updateCallbackInfo(orderNo, objectMapper.writeValueAsString(callbackData));
         } catch (Exception e) {
-            log.error("序列化回调信息失败", e);
+            log.error("保存回调信息失败：订单号={}", orderNo, e);
         }
-        rechargeOrderMapper.updateById(order);
+    }
 
-        applyRechargeToUser(order);
-        return true;
+    private boolean isProcessedNotification(String paymentType, String notifyId) {
+        return notifyId != null && !notifyId.isBlank()
+                && paymentCallbackRecordMapper.countByNotifyId(paymentType, notifyId) > 0;
+    }
+
+    /**
+     * 微信支付通知ID（报文顶层的 id 字段，同一通知重试时不变）
+     */
+    private String extractWechatNotifyId(String callbackBody) {
+        try {
+            String id = objectMapper.readTree(callbackBody).path("id").asText(null);
+            return id == null || id.isBlank() ? null : id;
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     private boolean verifyWechatAmount(RechargeOrder order, Map<String, String> callbackData) {
@@ -4,6 +4,9 @@ import com.aliyun.dysmsapi20170525.Client;
 import com.aliyun.dysmsapi20170525.models.SendSmsRequest;
 import com.aliyun.dysmsapi20170525.models.SendSmsResponse;
 import com.aliyun.teaopenapi.models.Config;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -22,7 +25,10 @@ import java.time.temporal.ChronoUnit;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class SmsCodeService {
+
+    private final ResilienceGuard resilienceGuard;
     
     /**
      * 短信服务类型：aliyun（阿里云短信）或 mock（测试模式，仅打印不发送）
@@ -171,8 +177,8 @@ public class SmsCodeService {
                 .setTemplateCode(templateCode)
                 .setTemplateParam("{\"code\":\"" + code + "\"}"); // 模板参数，code为验证码变量名
             
-            // 发送短信
-            SendSmsResponse response = aliyunSmsClient.sendSms(request);
+            // 发送短信（短信舱壁内执行，短信服务卡顿时不占用请求线程）
+            SendSmsResponse response = resilienceGuard.call(Dependency.SMS, () -> aliyunSmsClient.sendSms(request));
             
             
             // 检查发送结果
@@ -9,6 +9,8 @@ import com.meitou.admin.mapper.UserMapper;
 import com.meitou.admin.entity.User;
 import com.meitou.admin.exception.BusinessException;
 import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.service.common.MediaDedupService;
+import com.meitou.admin.service.common.MediaDerivativeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +30,8 @@ public class UserAssetAppService extends ServiceImpl<UserAssetMapper, UserAsset>
     
     private final UserAssetMapper assetMapper;
     private final UserMapper userMapper;
+    private final MediaDedupService mediaDedupService;
+    private final MediaDerivativeService mediaDerivativeService;
     
     /**
      * 上传资产（图片、视频、音频）
@@ -72,6 +76,10 @@ public class UserAssetAppService extends ServiceImpl<UserAssetMapper, UserAsset>
         
         // 保存到数据库
         assetMapper.insert(asset);
+        // 未提供缩略图时异步生成缩略图和预览图
+        if (thumbnail == null || thumbnail.isEmpty()) {
+            mediaDerivativeService.submit(MediaDerivativeService.Target.USER_ASSET, asset.getId(), url, type);
+        }
         
         return asset;
     }
@@ -194,6 +202,7 @@ public class UserAssetAppService extends ServiceImpl<UserAssetMapper, UserAsset>
         
         // 逻辑删除
         assetMapper.deleteById(assetId);
+        mediaDedupService.release(asset.getUrl());
     }
     
     /**
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.common.SiteContextCallback;
 import com.meitou.admin.dto.app.VideoAnalysisRequest;
 import com.meitou.admin.entity.*;
 import com.meitou.admin.exception.BusinessException;
@@ -13,6 +14,7 @@ import com.meitou.admin.mapper.AnalysisRecordMapper;
 import com.meitou.admin.mapper.UserMapper;
 import com.meitou.admin.mapper.UserTransactionMapper;
 import com.meitou.admin.service.admin.ApiPlatformService;
+import com.meitou.admin.service.common.UpstreamMetrics;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -32,6 +35,7 @@ public class VideoAnalysisService {
     private final UserTransactionMapper userTransactionMapper;
     private final AnalysisRecordMapper analysisRecordMapper;
     private final TransactionTemplate transactionTemplate;
+    private final UpstreamMetrics upstreamMetrics;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final OkHttpClient okHttpClient = new OkHttpClient.Builder()
@@ -40,30 +44,18 @@ public class VideoAnalysisService {
             .writeTimeout(60, TimeUnit.SECONDS)
             .build();
 
-    private void runWithSiteContext(Long siteId, Runnable runnable) {
-        Long originalSiteId = SiteContext.getSiteId();
-        try {
-            SiteContext.setSiteId(siteId);
-            runnable.run();
-        } finally {
-            if (originalSiteId == null) {
-                SiteContext.clear();
-            } else {
-                SiteContext.setSiteId(originalSiteId);
-            }
-        }
-    }
-
     public VideoAnalysisService(ApiPlatformService apiPlatformService,
                                 UserMapper userMapper,
                                 UserTransactionMapper userTransactionMapper,
                                 AnalysisRecordMapper analysisRecordMapper,
-                                TransactionTemplate transactionTemplate) {
+                                TransactionTemplate transactionTemplate,
+                                UpstreamMetrics upstreamMetrics) {
         this.apiPlatformService = apiPlatformService;
         this.userMapper = userMapper;
         this.userTransactionMapper = userTransactionMapper;
         this.analysisRecordMapper = analysisRecordMapper;
         this.transactionTemplate = transactionTemplate;
+        this.upstreamMetrics = upstreamMetrics;
     }
 
     public SseEmitter analyzeVideo(VideoAnalysisRequest request, Long userId) {
@@ -168,10 +160,11 @@ public class VideoAnalysisService {
 
             return record;
         });
+        upstreamMetrics.recordCredits(UpstreamMetrics.CREDITS_CHARGED, "video_analysis", finalModel, finalCost);
+        LocalDateTime submittedAt = LocalDateTime.now();
 
         // 6. Call API and Stream
         SseEmitter emitter = new SseEmitter(300000L); // 5 mins timeout for video
-        Long recordSiteId = analysisRecord.getSiteId();
 
         try {
             // Build Body
@@ -234,14 +227,16 @@ public class VideoAnalysisService {
                 }
             }
 
-            okHttpClient.newCall(reqBuilder.build()).enqueue(new Callback() {
+            long submitStart = System.nanoTime();
+            okHttpClient.newCall(reqBuilder.build()).enqueue(SiteContextCallback.wrap(new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
-                    runWithSiteContext(recordSiteId, () -> {
-                        analysisRecord.setStatus(2);
-                        analysisRecord.setErrorMsg(e.getMessage());
-                        analysisRecordMapper.updateById(analysisRecord);
-                    });
+                    upstreamMetrics.recordCall(UpstreamMetrics.PHASE_SUBMIT, platform, "video_analysis", finalModel,
+                            System.nanoTime() - submitStart, UpstreamMetrics.outcomeOf(e));
+                    upstreamMetrics.recordCompletion(platform, "video_analysis", finalModel, submittedAt, UpstreamMetrics.outcomeOf(e));
+                    analysisRecord.setStatus(2);
+                    analysisRecord.setErrorMsg(e.getMessage());
+                    analysisRecordMapper.updateById(analysisRecord);
 
                     try {
                         emitter.send(SseEmitter.event().name("error").data(e.getMessage()));
@@ -253,17 +248,20 @@ public class VideoAnalysisService {
 
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
+                    upstreamMetrics.recordCall(UpstreamMetrics.PHASE_SUBMIT, platform, "video_analysis", finalModel,
+                            System.nanoTime() - submitStart,
+                            response.isSuccessful() ? UpstreamMetrics.OUTCOME_SUCCESS : UpstreamMetrics.OUTCOME_FAILURE);
                     StringBuilder fullResponse = new StringBuilder();
                     try (ResponseBody responseBody = response.body()) {
                         if (!response.isSuccessful()) {
                             String errorBody = responseBody != null ? responseBody.string() : "";
                             log.error("API Error: {} - {}", response.code(), errorBody);
 
-                            runWithSiteContext(recordSiteId, () -> {
-                                analysisRecord.setStatus(2);
-                                analysisRecord.setErrorMsg("API Error: " + response.code());
-                                analysisRecordMapper.updateById(analysisRecord);
-                            });
+                            upstreamMetrics.recordCompletion(platform, "video_analysis", finalModel, submittedAt, UpstreamMetrics.OUTCOME_FAILURE);
+
+                            analysisRecord.setStatus(2);
+                            analysisRecord.setErrorMsg("API Error: " + response.code());
+                            analysisRecordMapper.updateById(analysisRecord);
 
                             emitter.send(SseEmitter.event().name("error").data("API Error: " + response.code()));
                             emitter.complete();
@@ -296,11 +294,10 @@ public class VideoAnalysisService {
                                     String data = line.substring(6).trim();
                                     if ("[DONE]".equals(data)) {
                                         isFinished = true;
-                                        runWithSiteContext(recordSiteId, () -> {
-                                            analysisRecord.setStatus(1);
-                                            analysisRecord.setResult(fullResponse.toString());
-                                            analysisRecordMapper.updateById(analysisRecord);
-                                        });
+                                        upstreamMetrics.recordCompletion(platform, "video_analysis", finalModel, submittedAt, UpstreamMetrics.OUTCOME_SUCCESS);
+                                        analysisRecord.setStatus(1);
+                                        analysisRecord.setResult(fullResponse.toString());
+                                        analysisRecordMapper.updateById(analysisRecord);
                                         emitter.complete();
                                         return;
                                     }
@@ -344,20 +341,18 @@ public class VideoAnalysisService {
                         }
 
                         if (!isFinished && fullResponse.length() > 0) {
-                            runWithSiteContext(recordSiteId, () -> {
-                                analysisRecord.setStatus(1);
-                                analysisRecord.setResult(fullResponse.toString());
-                                analysisRecordMapper.updateById(analysisRecord);
-                            });
+                            upstreamMetrics.recordCompletion(platform, "video_analysis", finalModel, submittedAt, UpstreamMetrics.OUTCOME_SUCCESS);
+                            analysisRecord.setStatus(1);
+                            analysisRecord.setResult(fullResponse.toString());
+                            analysisRecordMapper.updateById(analysisRecord);
                         }
 
                         emitter.complete();
                     } catch (Exception e) {
-                        runWithSiteContext(recordSiteId, () -> {
-                            analysisRecord.setStatus(2);
-                            analysisRecord.setErrorMsg(e.getMessage());
-                            analysisRecordMapper.updateById(analysisRecord);
-                        });
+                        upstreamMetrics.recordCompletion(platform, "video_analysis", finalModel, submittedAt, UpstreamMetrics.outcomeOf(e));
+                        analysisRecord.setStatus(2);
+                        analysisRecord.setErrorMsg(e.getMessage());
+                        analysisRecordMapper.updateById(analysisRecord);
 
                         try {
                             emitter.send(SseEmitter.event().name("error").data(e.getMessage()));
@@ -367,14 +362,12 @@ public class VideoAnalysisService {
                         }
                     }
                 }
-            });
+            }));
 
         } catch (Exception e) {
-            runWithSiteContext(recordSiteId, () -> {
-                analysisRecord.setStatus(2);
-                analysisRecord.setErrorMsg(e.getMessage());
-                analysisRecordMapper.updateById(analysisRecord);
-            });
+            analysisRecord.setStatus(2);
+            analysisRecord.setErrorMsg(e.getMessage());
+            analysisRecordMapper.updateById(analysisRecord);
             emitter.completeWithError(e);
         }
 
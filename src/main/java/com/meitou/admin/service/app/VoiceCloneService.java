@@ -12,6 +12,9 @@ import com.meitou.admin.entity.User;
 import com.meitou.admin.mapper.GenerationRecordMapper;
 import com.meitou.admin.mapper.UserMapper;
 import com.meitou.admin.service.admin.ApiPlatformService;
+import com.meitou.admin.service.common.UpstreamMetrics;
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
@@ -34,6 +37,8 @@ public class VoiceCloneService {
     private final ApiPlatformService apiPlatformService;
     private final GenerationRecordMapper generationRecordMapper;
     private final UserMapper userMapper;
+    private final UpstreamMetrics upstreamMetrics;
+    private final ResilienceGuard resilienceGuard;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -42,10 +47,14 @@ public class VoiceCloneService {
      */
     public VoiceCloneService(ApiPlatformService apiPlatformService, 
                             GenerationRecordMapper generationRecordMapper,
-                            UserMapper userMapper) {
+                            UserMapper userMapper,
+                            UpstreamMetrics upstreamMetrics,
+                            ResilienceGuard resilienceGuard) {
         this.apiPlatformService = apiPlatformService;
         this.generationRecordMapper = generationRecordMapper;
         this.userMapper = userMapper;
+        this.upstreamMetrics = upstreamMetrics;
+        this.resilienceGuard = resilienceGuard;
         
         // 配置RestTemplate的超时时间
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
@@ -91,7 +100,7 @@ public class VoiceCloneService {
             Map<String, Object> apiRequest = buildVoiceCloneRequest(request, platform);
             
             // 调用API
-            String responseJson = callApi(voiceCloneInterface, platform, apiRequest);
+            String responseJson = callApi(voiceCloneInterface, platform, apiRequest, "voice_clone", request.getModel());
             
             // 解析响应
             String audioUrl = parseAudioUrl(responseJson, voiceCloneInterface.getResponseMode());
@@ -172,9 +181,14 @@ public class VoiceCloneService {
     }
     
     /**
-     * 调用API平台接口
+     * 调用API平台接口，记录调用耗时和结果
      */
-    private String callApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams) {
+    private String callApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams, String type, String model) {
+        return upstreamMetrics.record(UpstreamMetrics.PHASE_SUBMIT, platform, type, model,
+                () -> resilienceGuard.supply(Dependency.AI_UPSTREAM, () -> doCallApi(apiInterface, platform, requestParams)));
+    }
+
+    private String doCallApi(ApiInterface apiInterface, ApiPlatform platform, Map<String, Object> requestParams) {
         try {
             // 构建请求头
             HttpHeaders headers = new HttpHeaders();
@@ -1,44 +1,86 @@
 package com.meitou.admin.service.common;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.meitou.admin.common.RetryBackoff;
 import com.meitou.admin.entity.ApiParameterMapping;
 import com.meitou.admin.mapper.ApiParameterMappingMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * 参数映射缓存服务
- * 在应用启动时加载，并在数据变更时刷新
+ * 在应用启动时由 StartupCacheWarmer 在后台加载，并在数据变更时刷新；加载完成前的查询会同步加载一次
  */
 @Slf4j
 @Service
-public class ApiParameterMappingCacheService implements CommandLineRunner {
+public class ApiParameterMappingCacheService {
 
     private final ApiParameterMappingMapper apiParameterMappingMapper;
 
     // 缓存: PlatformId -> List<ApiParameterMapping>
-    private Map<Long, List<ApiParameterMapping>> cache = new ConcurrentHashMap<>();
+    private volatile Map<Long, List<ApiParameterMapping>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 串行化刷新。刷新期间要查库，使用 ReentrantLock 而不是 synchronized，
+     * 虚拟线程在锁内阻塞时可以让出载体线程
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    /**
+     * 是否已成功加载过
+     */
+    private volatile boolean loaded;
+
+    /**
+     * 同步加载失败后的退避，避免数据库不可用时每个请求都查库
+     */
+    private final RetryBackoff loadBackoff = new RetryBackoff(1_000, 30_000);
 
     public ApiParameterMappingCacheService(ApiParameterMappingMapper apiParameterMappingMapper) {
         this.apiParameterMappingMapper = apiParameterMappingMapper;
     }
 
-    @Override
-    public void run(String... args) {
-        refresh();
+    /**
+     * 刷新缓存
+     */
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            doRefresh();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 后台预热尚未完成时同步加载，并发的请求只加载一次；
+     * 加载失败后在退避期内不再重试，期间按没有参数映射处理
+     */
+    private void ensureLoaded() {
+        if (loaded || !loadBackoff.canAttempt()) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            if (!loaded && loadBackoff.canAttempt() && !doRefresh()) {
+                log.warn("参数映射缓存加载失败，{} ms 后重试", loadBackoff.onFailure());
+            }
+        } finally {
+            refreshLock.unlock();
+        }
     }
 
     /**
-     * 刷新缓存
+     * @return 是否刷新成功
      */
-    public synchronized void refresh() {
+    private boolean doRefresh() {
         log.info("开始刷新参数映射缓存...");
         try {
             // 使用自定义方法查询所有数据，忽略租户限制
@@ -46,8 +88,10 @@ public class ApiParameterMappingCacheService implements CommandLineRunner {
             
             if (all == null || all.isEmpty()) {
                 this.cache = new ConcurrentHashMap<>();
+                loaded = true;
+                loadBackoff.onSuccess();
                 log.info("参数映射缓存已清空（无数据）");
-                return;
+                return true;
             }
 
             // 按 platformId 分组
@@ -55,12 +99,23 @@ public class ApiParameterMappingCacheService implements CommandLineRunner {
                     .collect(Collectors.groupingBy(ApiParameterMapping::getPlatformId));
             
             this.cache = new ConcurrentHashMap<>(newCache);
+            loaded = true;
+            loadBackoff.onSuccess();
             log.info("参数映射缓存刷新完成，共加载 {} 个平台的配置", newCache.size());
+            return true;
         } catch (Exception e) {
             log.error("刷新参数映射缓存失败", e);
+            return false;
         }
     }
 
+    /**
+     * 是否已完成加载
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
     /**
      * 获取指定平台和模型的参数映射配置
      * @param platformId 平台ID
@@ -72,6 +127,7 @@ public class ApiParameterMappingCacheService implements CommandLineRunner {
             return Collections.emptyList();
         }
 
+        ensureLoaded();
         List<ApiParameterMapping> platformMappings = cache.get(platformId);
         if (platformMappings == null || platformMappings.isEmpty()) {
             return Collections.emptyList();
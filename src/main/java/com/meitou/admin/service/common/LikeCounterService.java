@@ -0,0 +1,187 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.entity.PublishedContent;
+import com.meitou.admin.mapper.PublishedContentMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 点赞计数聚合服务（write-behind）
+ * 点赞/取消点赞只写 likes 表，点赞数的变化先累加到内存中的计数器（ConcurrentHashMap 按桶加锁的原子 merge，天然分段），
+ * 由定时任务批量以 like_count = like_count + delta 的方式原子写回 published_contents，
+ * 避免热门内容在每次点赞时对同一行做读-改-写，既丢失并发增量又锁住热点行
+ *
+ * 展示点赞数时使用 {@link #merge} 合并已持久化的值和尚未写回的增量
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikeCounterService {
+
+    private final PublishedContentMapper contentMapper;
+    private final SquareFeedCacheService feedCacheService;
+
+    /**
+     * 单次写回的最大条数
+     */
+    @Value("${like.counter.flushBatchSize:500}")
+    private int flushBatchSize;
+
+    /**
+     * 待写回的增量：contentId -> 增量
+     */
+    private final Map<Long, PendingDelta> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已取出、正在写回数据库的增量，写回完成前展示时仍需计入
+     */
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 记录点赞数变化（在事务提交后计入，事务回滚则不计）
+     *
+     * @param siteId 站点ID
+     * @param contentId 内容ID
+     * @param delta 变化量（+1 / -1）
+     */
+    public void record(Long siteId, Long contentId, int delta) {
+        if (contentId == null || delta == 0) {
+            return;
+        }
+        Runnable action = () -> add(contentId, siteId, delta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 获取尚未写回的增量
+     */
+    public long getPendingDelta(Long contentId) {
+        if (contentId == null) {
+            return 0;
+        }
+        PendingDelta delta = pending.get(contentId);
+        return (delta == null ? 0 : delta.delta()) + inFlight.getOrDefault(contentId, 0L);
+    }
+
+    /**
+     * 合并已持久化的点赞数和尚未写回的增量
+     */
+    public int merge(Long contentId, Integer persistedCount) {
+        long count = (persistedCount == null ? 0 : persistedCount) + getPendingDelta(contentId);
+        return (int) Math.max(0, count);
+    }
+
+    /**
+     * 将待写回增量合并到内容的点赞数上（用于展示）
+     */
+    public void applyPending(List<PublishedContent> contents) {
+        if ((pending.isEmpty() && inFlight.isEmpty()) || contents == null) {
+            return;
+        }
+        contents.forEach(content -> content.setLikeCount(merge(content.getId(), content.getLikeCount())));
+    }
+
+    /**
+     * 定时写回点赞数增量
+     */
+    @Scheduled(fixedDelayString = "${like.counter.flushIntervalMs:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        List<Drained> drained = new ArrayList<>();
+        for (Long contentId : pending.keySet()) {
+            // remove 与 record 中的 merge 对同一个 key 是原子的，取出后新的增量会进入新条目，不会丢失
+            PendingDelta pendingDelta = pending.remove(contentId);
+            if (pendingDelta == null || pendingDelta.delta() == 0) {
+                continue;
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("contentId", contentId);
+            item.put("delta", pendingDelta.delta());
+            batch.add(item);
+            inFlight.merge(contentId, pendingDelta.delta(), Long::sum);
+            drained.add(new Drained(contentId, pendingDelta.siteId(), pendingDelta.delta()));
+
+            if (batch.size() >= flushBatchSize) {
+                writeBack(batch, drained);
+                batch = new ArrayList<>();
+                drained = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBack(batch, drained);
+        }
+    }
+
+    /**
+     * 应用关闭前写回剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBack(List<Map<String, Object>> batch, List<Drained> drained) {
+        try {
+            long writeStartedNanos = System.nanoTime();
+            contentMapper.batchIncrementLikeCount(batch);
+            long writeFinishedNanos = System.nanoTime();
+            // 写回成功后，缓存中写回前加载的窗口同步加上已写回的增量（写回后加载的窗口已包含增量）
+            for (Drained d : drained) {
+                feedCacheService.adjustLikeCount(d.siteId, d.contentId, (int) d.delta, writeStartedNanos, writeFinishedNanos);
+            }
+            log.debug("点赞数增量写回完成，共 {} 条", batch.size());
+        } catch (Exception e) {
+            // 写回失败，把增量放回计数器，下一轮重试
+            log.error("点赞数增量写回失败，将在下一轮重试: {}", e.getMessage());
+            for (Drained d : drained) {
+                add(d.contentId, d.siteId, d.delta);
+            }
+        } finally {
+            for (Drained d : drained) {
+                inFlight.computeIfPresent(d.contentId, (k, v) -> v - d.delta == 0 ? null : v - d.delta);
+            }
+        }
+    }
+
+    private void add(Long contentId, Long siteId, long delta) {
+        pending.merge(contentId, new PendingDelta(siteId, delta),
+                (a, b) -> new PendingDelta(a.siteId() != null ? a.siteId() : b.siteId(), a.delta() + b.delta()));
+    }
+
+    /**
+     * 单个内容的待写回增量
+     */
+    private record PendingDelta(Long siteId, long delta) {
+    }
+
+    /**
+     * 本轮已取出的增量
+     */
+    private record Drained(Long contentId, Long siteId, long delta) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.meitou.admin.service.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.meitou.admin.entity.Like;
+import com.meitou.admin.mapper.LikeMapper;
+import com.meitou.admin.util.SortedLongSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 用户点赞集合缓存服务
+ * 按用户缓存其点赞过的内容ID（{@link SortedLongSet}，原始有序 long 数组），首次访问时懒加载，
+ * 由点赞/取消点赞在事务提交后增量维护；广场列表的点赞状态直接在内存中求交集，不再每页执行 IN 查询
+ *
+ * 说明：
+ * 1. 缓存用户数有上限（LRU 淘汰）
+ * 2. 点赞数超过单用户上限的用户不缓存，调用方回退到数据库查询
+ * 3. 增量维护只覆盖本节点的点赞操作，条目超过 TTL 后下次访问重新加载，用于兜底多实例部署下其他节点的写入
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikedSetCacheService {
+
+    private final LikeMapper likeMapper;
+
+    /**
+     * 最多缓存的用户数
+     */
+    @Value("${like.cache.maxUsers:20000}")
+    private int maxUsers;
+
+    /**
+     * 单个用户最多缓存的点赞数
+     */
+    @Value("${like.cache.maxLikesPerUser:5000}")
+    private int maxLikesPerUser;
+
+    /**
+     * 点赞集合的有效期（秒）
+     */
+    @Value("${like.cache.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    /**
+     * 缓存：userId -> 点赞集合（LRU）
+     */
+    private final Map<Long, Entry> cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxUsers;
+        }
+    });
+
+    /**
+     * 批量获取已点赞的内容ID
+     *
+     * @param userId 用户ID
+     * @param contentIds 内容ID列表
+     * @return 已点赞的内容ID集合；该用户无法缓存时返回 null
+     */
+    public Set<Long> getLikedContentIds(Long userId, List<Long> contentIds) {
+        SortedLongSet liked = getLikedSet(userId);
+        if (liked == null) {
+            return null;
+        }
+        long[] candidates = contentIds.stream()
+                .filter(id -> id != null)
+                .mapToLong(Long::longValue)
+                .toArray();
+        long[] matched = liked.intersect(candidates);
+        Set<Long> result = new HashSet<>(matched.length * 2);
+        for (long id : matched) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * 判断是否已点赞
+     *
+     * @return 是否已点赞；该用户无法缓存时返回 null
+     */
+    public Boolean isLiked(Long userId, Long contentId) {
+        if (contentId == null) {
+            return false;
+        }
+        SortedLongSet liked = getLikedSet(userId);
+        return liked == null ? null : liked.contains(contentId);
+    }
+
+    /**
+     * 点赞状态变更（事务提交后更新已缓存的用户）
+     */
+    public void onToggled(Long userId, Long contentId, boolean liked) {
+        Runnable action = () -> {
+            Entry entry = cache.get(userId);
+            if (entry == null) {
+                return;
+            }
+            synchronized (entry) {
+                if (entry.ids == null) {
+                    // 正在加载中，加载结果可能已过期，丢弃
+                    entry.dirty = true;
+                    return;
+                }
+                entry.ids = liked ? entry.ids.add(contentId) : entry.ids.remove(contentId);
+                if (entry.ids.size() > maxLikesPerUser) {
+                    cache.remove(userId, entry);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private SortedLongSet getLikedSet(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        Entry entry = cache.get(userId);
+        if (entry != null && entry.ids != null && !entry.isExpired(ttlSeconds)) {
+            return entry.ids;
+        }
+
+        // 先放入占位，加载期间发生的点赞变更会把它标记为 dirty
+        Entry loading = new Entry();
+        cache.put(userId, loading);
+
+        LambdaQueryWrapper<Like> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Like::getUserId, userId);
+        wrapper.select(Like::getContentId);
+        wrapper.last("LIMIT " + (maxLikesPerUser + 1));
+        List<Long> ids = likeMapper.selectList(wrapper).stream()
+                .map(Like::getContentId)
+                .collect(Collectors.toList());
+
+        if (ids.size() > maxLikesPerUser) {
+            cache.remove(userId, loading);
+            return null;
+        }
+        SortedLongSet liked = SortedLongSet.of(ids);
+        synchronized (loading) {
+            if (loading.dirty) {
+                cache.remove(userId, loading);
+            } else {
+                loading.ids = liked;
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * 缓存条目，ids 为 null 表示正在加载；loadedAt 取查询之前的时间，加载期间其他节点的写入也会在 TTL 内被覆盖
+     */
+    private static class Entry {
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile SortedLongSet ids;
+        private boolean dirty;
+
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.entity.MediaObject;
+import com.meitou.admin.mapper.MediaObjectMapper;
+import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.util.RemoteUrlGuard;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * 媒体内容去重服务（内容寻址存储）
+ * 以内容的 SHA-256 作为对象键，media_objects 记录 哈希 -> 对象 的索引和引用计数：
+ * 相同内容再次上传时直接返回已有URL并增加引用，不再重复上传；删除资产/生成记录/发布内容时释放引用，
+ * 引用归零且超过保留期的对象由 MediaObjectGcTask 清理（默认关闭）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaDedupService {
+
+    /**
+     * 文件存储服务（file.storage.type 对应的实现）
+     */
+    public static final String STORAGE_FILE = "storage";
+
+    /**
+     * 阿里云OSS（历史数据：生成结果曾固定转存到 file.storage.aliyun 配置的 bucket，新文件统一使用 STORAGE_FILE）
+     */
+    public static final String STORAGE_OSS = "oss";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MediaObjectMapper mediaObjectMapper;
+    private final FileStorageService fileStorageService;
+    private final RestTemplate restTemplate;
+    private final UpstreamMetrics upstreamMetrics;
+
+    @Value("${media.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.storage.type:}")
+    private String storageType;
+
+    /**
+     * 去重上传用户文件：边读边计算哈希，命中则直接返回已有URL
+     *
+     * @param file 上传的文件
+     * @param folder 存储文件夹路径
+     * @return 文件的访问URL
+     */
+    public String storeFile(MultipartFile file, String folder) throws Exception {
+        long start = System.nanoTime();
+        String contentHash;
+        try (InputStream in = file.getInputStream()) {
+            contentHash = sha256(in);
+        }
+        String fileName = contentFileName(contentHash, extensionOf(file.getOriginalFilename()));
+        String normalizedFolder = folder == null || folder.isEmpty() || folder.endsWith("/") ? folder : folder + "/";
+        String objectKey = (normalizedFolder == null ? "" : normalizedFolder) + fileName;
+        boolean success = false;
+        try {
+            String url = store(STORAGE_FILE, contentHash, file.getSize(), objectKey, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return fileStorageService.upload(in, normalizedFolder, fileName, file.getSize());
+                }
+            });
+            success = true;
+            return url;
+        } finally {
+            upstreamMetrics.recordTransfer("upload", storageType, file.getSize(), System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 转存网络图片/视频（如AI平台返回的生成结果）
+     * 下载时边写临时文件边计算哈希，不在内存中缓存完整文件；命中已有内容时不再上传
+     *
+     * @param url 网络文件URL
+     * @param folder 存储文件夹路径（如 images/、videos/）
+     * @return 文件的访问URL
+     */
+    public String ingestFromUrl(String url, String folder) {
+        // 只转存 http/https 地址，不允许读取服务器本地文件
+        RemoteUrlGuard.requireHttp(url);
+        String extension = extensionOf(url.contains("?") ? url.substring(0, url.indexOf("?")) : url);
+        if (extension.isEmpty() || extension.contains("/")) {
+            extension = "png"; // 默认扩展名
+        }
+        long start = System.nanoTime();
+        long size = 0;
+        boolean success = false;
+        try {
+            if (!enabled) {
+                String stored = fileStorageService.uploadFromUrl(url, folder,
+                        UUID.randomUUID().toString().replace("-", "") + "." + extension);
+                success = true;
+                return stored;
+            }
+            Path temp = Files.createTempFile("media-ingest-", "." + extension);
+            try {
+                String contentHash = restTemplate.execute(url, HttpMethod.GET, null, response -> {
+                    MessageDigest digest = newDigest();
+                    try (InputStream in = new DigestInputStream(response.getBody(), digest)) {
+                        Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return HexFormat.of().formatHex(digest.digest());
+                });
+                size = Files.size(temp);
+                if (contentHash == null || size == 0) {
+                    throw new IOException("下载文件失败: " + url);
+                }
+                String fileName = contentFileName(contentHash, extension);
+                String stored = store(STORAGE_FILE, contentHash, size, FileStorageService.buildObjectKey(folder, fileName),
+                        () -> fileStorageService.upload(temp, folder, fileName));
+                success = true;
+                return stored;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (Exception e) {
+            log.error("转存文件失败: {}", e.getMessage(), e);
+            throw new RuntimeException("上传文件失败: " + e.getMessage());
+        } finally {
+            upstreamMetrics.recordTransfer("ingest", storageType, size, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 去重存储
+     * 命中已有内容时增加引用并返回已有URL；未命中时按 objectKey 上传并登记
+     *
+     * @param storage 存储位置
+     * @param contentHash 内容 SHA-256
+     * @param size 内容大小（字节）
+     * @param objectKey 未命中时使用的对象键（应由内容哈希生成，并发上传相同内容时写入同一对象）
+     * @param upload 上传操作，返回访问URL
+     * @return 访问URL
+     */
+    public String store(String storage, String contentHash, long size, String objectKey, Callable<String> upload) throws Exception {
+        if (!enabled) {
+            return upload.call();
+        }
+        if (mediaObjectMapper.retainByHash(storage, contentHash, size) > 0) {
+            MediaObject existing = mediaObjectMapper.selectByHash(storage, contentHash, size);
+            if (existing != null) {
+                log.info("内容已存在，复用已有文件：{} -> {}", contentHash, existing.getUrl());
+                return existing.getUrl();
+            }
+        }
+        String url = upload.call();
+        mediaObjectMapper.insertOrRetain(storage, contentHash, size, objectKey, url);
+        return url;
+    }
+
+    /**
+     * 增加引用（同一文件被新的记录引用时调用，如发布生成结果）
+     */
+    public void retain(String url) {
+        if (enabled && url != null && !url.isEmpty()) {
+            mediaObjectMapper.retainByUrl(url);
+        }
+    }
+
+    /**
+     * 释放引用（引用文件的记录被删除时调用；不在索引中的URL忽略）
+     */
+    public void release(String url) {
+        if (enabled && url != null && !url.isEmpty()) {
+            mediaObjectMapper.releaseByUrl(url);
+        }
+    }
+
+    /**
+     * 流式计算 SHA-256
+     */
+    public static String sha256(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * 内容寻址文件名：哈希前两位作为子目录，避免单目录对象过多
+     */
+    public static String contentFileName(String contentHash, String extension) {
+        String name = contentHash.substring(0, 2) + "/" + contentHash;
+        return extension == null || extension.isEmpty() ? name : name + "." + extension;
+    }
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf(".");
+        return dot == -1 || dot == fileName.length() - 1 ? "" : fileName.substring(dot + 1).toLowerCase();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
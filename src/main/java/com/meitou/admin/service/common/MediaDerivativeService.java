@@ -0,0 +1,415 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.common.SiteContextThreadPoolExecutor;
+import com.meitou.admin.entity.PublishedContent;
+import com.meitou.admin.mapper.MediaDerivativeMapper;
+import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.util.ImageResizer;
+import com.meitou.admin.util.RemoteUrlGuard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缩略图/预览图派生服务
+ * 图片或视频入库后异步生成固定尺寸的缩略图和低分辨率预览图（JPEG），通过 FileStorageService 上传，
+ * 因此阿里云OSS和腾讯云COS部署都可用；视频先用 ffmpeg 截取一帧再按图片处理。
+ *
+ * 缩放是 CPU 密集型操作，使用独立的有界线程池，队列满时直接放弃（记录保留原有缩略图），不占用请求线程
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaDerivativeService {
+
+    /**
+     * 派生结果回写的目标表
+     */
+    public enum Target {
+        GENERATION_RECORD,
+        USER_ASSET,
+        PUBLISHED_CONTENT
+    }
+
+    /**
+     * 派生结果
+     */
+    public record Derivatives(String thumbnailUrl, String previewUrl) {
+    }
+
+    private static final String FOLDER_THUMBNAIL = "derivatives/thumbnail/";
+    private static final String FOLDER_PREVIEW = "derivatives/preview/";
+
+    /**
+     * ffmpeg 允许的输入容器格式
+     */
+    private static final String VIDEO_FORMATS = "mov,mp4,m4a,3gp,3g2,mj2,matroska,webm,avi,flv,mpegts";
+
+    private final FileStorageService fileStorageService;
+    private final MediaDerivativeMapper mediaDerivativeMapper;
+    private final SquareFeedCacheService feedCacheService;
+
+    @Value("${media.derivative.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 派生线程数，0 表示取 CPU 核数的一半
+     */
+    @Value("${media.derivative.threads:0}")
+    private int threads;
+
+    @Value("${media.derivative.queueCapacity:200}")
+    private int queueCapacity;
+
+    /**
+     * 缩略图最长边（像素）
+     */
+    @Value("${media.derivative.thumbnailSize:360}")
+    private int thumbnailSize;
+
+    /**
+     * 预览图最长边（像素）
+     */
+    @Value("${media.derivative.previewSize:1080}")
+    private int previewSize;
+
+    @Value("${media.derivative.jpegQuality:0.82}")
+    private float jpegQuality;
+
+    /**
+     * 源文件大小上限（字节），超过则不派生
+     */
+    @Value("${media.derivative.maxSourceBytes:52428800}")
+    private long maxSourceBytes;
+
+    @Value("${media.derivative.ffmpegPath:ffmpeg}")
+    private String ffmpegPath;
+
+    /**
+     * 视频截帧时间点（秒），视频短于该时长时改为截取第一帧
+     */
+    @Value("${media.derivative.videoFrameSecond:1}")
+    private int videoFrameSecond;
+
+    @Value("${media.derivative.ffmpegTimeoutSeconds:30}")
+    private long ffmpegTimeoutSeconds;
+
+    @Value("${rest.connectTimeoutMs:10000}")
+    private int connectTimeoutMs;
+
+    @Value("${rest.readTimeoutMs:120000}")
+    private int readTimeoutMs;
+
+    /**
+     * 下载源图片用的 RestTemplate：与共享实例超时相同，但不自动跟随重定向
+     */
+    private RestTemplate downloadTemplate;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * ffmpeg 不可用时只告警一次，之后视频直接走兜底逻辑
+     */
+    private volatile boolean ffmpegAvailable = true;
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                connection.setInstanceFollowRedirects(false);
+            }
+        };
+        factory.setConnectTimeout(connectTimeoutMs);
+        factory.setReadTimeout(readTimeoutMs);
+        downloadTemplate = new RestTemplate(factory);
+        // 非 2xx 响应在回调中处理
+        downloadTemplate.setErrorHandler(new NoOpResponseErrorHandler());
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        // 缩放和转码以 CPU 为主，虚拟线程模式下仍使用平台线程
+        executor = new SiteContextThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "media-derivative-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交派生任务（在事务中调用时等事务提交后再提交，避免读到未提交的记录或为回滚的记录生成文件）
+     *
+     * @param target 回写目标
+     * @param id 记录ID
+     * @param sourceUrl 源文件URL
+     * @param fileType 文件类型：image-图片，video-视频，其他类型忽略
+     */
+    public void submit(Target target, Long id, String sourceUrl, String fileType) {
+        if (!enabled || id == null || !StringUtils.hasText(sourceUrl)
+                || !("image".equals(fileType) || "video".equals(fileType))) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                executor.execute(() -> process(target, id, sourceUrl, fileType));
+            } catch (RejectedExecutionException e) {
+                log.warn("缩略图派生队列已满，跳过 {} {}", target, id);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    private void process(Target target, Long id, String sourceUrl, String fileType) {
+        long start = System.currentTimeMillis();
+        try {
+            Derivatives derivatives = derive(sourceUrl, fileType);
+            if (derivatives == null) {
+                return;
+            }
+            int updated = switch (target) {
+                case GENERATION_RECORD -> mediaDerivativeMapper.updateGenerationRecord(
+                        id, sourceUrl, derivatives.thumbnailUrl(), derivatives.previewUrl());
+                case USER_ASSET -> mediaDerivativeMapper.updateUserAsset(
+                        id, sourceUrl, derivatives.thumbnailUrl(), derivatives.previewUrl());
+                case PUBLISHED_CONTENT -> mediaDerivativeMapper.updatePublishedContent(
+                        id, sourceUrl, derivatives.thumbnailUrl(), derivatives.previewUrl());
+            };
+            if (updated > 0 && target == Target.PUBLISHED_CONTENT) {
+                PublishedContent content = mediaDerivativeMapper.selectPublishedContent(id);
+                if (content != null) {
+                    feedCacheService.onUpdated(content);
+                }
+            }
+            log.debug("缩略图派生完成 {} {}，耗时 {}ms", target, id, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("缩略图派生失败 {} {}: {}", target, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 生成缩略图和预览图并上传
+     *
+     * @param sourceUrl 源文件URL
+     * @param fileType 文件类型：image-图片，video-视频
+     * @return 派生结果，源文件无法解码时返回 null
+     */
+    public Derivatives derive(String sourceUrl, String fileType) throws Exception {
+        // 源地址可能来自用户提交（如发布作品的 contentUrl），访问前先校验
+        boolean storageUrl = checkSource(sourceUrl);
+        BufferedImage source = "video".equals(fileType) ? grabVideoFrame(sourceUrl, storageUrl) : downloadImage(sourceUrl);
+        if (source == null) {
+            if ("video".equals(fileType)) {
+                String fallback = fallbackVideoThumbnail(sourceUrl);
+                return fallback != null ? new Derivatives(fallback, fallback) : null;
+            }
+            log.warn("无法解码图片，跳过缩略图派生: {}", sourceUrl);
+            return null;
+        }
+
+        // 派生文件名由源URL决定，同一源文件重复派生时覆盖同一对象
+        String fileName = MediaDedupService.contentFileName(
+                MediaDedupService.sha256(sourceUrl.getBytes(StandardCharsets.UTF_8)), "jpg");
+        BufferedImage preview = ImageResizer.fit(source, previewSize);
+        // 缩略图从预览图缩放，避免再次处理大图
+        BufferedImage thumbnail = ImageResizer.fit(preview, thumbnailSize);
+        return new Derivatives(
+                uploadJpeg(thumbnail, FOLDER_THUMBNAIL, fileName),
+                uploadJpeg(preview, FOLDER_PREVIEW, fileName));
+    }
+
+    private String uploadJpeg(BufferedImage image, String folder, String fileName) throws Exception {
+        byte[] jpeg = ImageResizer.toJpeg(image, jpegQuality);
+        return fileStorageService.upload(new ByteArrayInputStream(jpeg), folder, fileName, jpeg.length);
+    }
+
+    /**
+     * 校验源文件地址：存储服务自身的地址直接放行，其他地址只允许解析到公网的 http/https
+     *
+     * @return 是否为存储服务自身的地址
+     * @throws IllegalArgumentException 地址不允许访问
+     */
+    private boolean checkSource(String sourceUrl) {
+        URI uri = RemoteUrlGuard.requireHttp(sourceUrl);
+        String storagePrefix = fileStorageService.buildFileUrl("");
+        if (StringUtils.hasText(storagePrefix) && uri.toString().startsWith(storagePrefix)) {
+            return true;
+        }
+        RemoteUrlGuard.requirePublicHttp(sourceUrl);
+        return false;
+    }
+
+    /**
+     * 流式下载并解码图片（解码时按预览图尺寸降采样）
+     * 不跟随重定向（重定向目标未经校验）；没有 Content-Length 时在读取过程中限制大小
+     */
+    private BufferedImage downloadImage(String url) {
+        return downloadTemplate.execute(url, HttpMethod.GET, null, response -> {
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                log.warn("下载源文件失败（HTTP {}），跳过缩略图派生: {}", response.getStatusCode().value(), url);
+                return null;
+            }
+            long contentLength = response.getHeaders().getContentLength();
+            if (contentLength > maxSourceBytes) {
+                log.warn("源文件过大（{} 字节），跳过缩略图派生: {}", contentLength, url);
+                return null;
+            }
+            return ImageResizer.read(new LimitedInputStream(response.getBody(), maxSourceBytes), previewSize);
+        });
+    }
+
+    /**
+     * 使用 ffmpeg 截取视频帧（直接读取远程URL，ffmpeg 按需发起范围请求，无需下载完整视频）
+     */
+    private BufferedImage grabVideoFrame(String url, boolean storageUrl) throws Exception {
+        if (!ffmpegAvailable) {
+            return null;
+        }
+        BufferedImage frame = runFfmpeg(url, storageUrl, videoFrameSecond);
+        if (frame == null && videoFrameSecond > 0) {
+            frame = runFfmpeg(url, storageUrl, 0);
+        }
+        return frame;
+    }
+
+    private BufferedImage runFfmpeg(String url, boolean storageUrl, int second) throws Exception {
+        // 只允许网络协议（禁止 file:、concat: 等读取本地文件），只允许普通视频容器（禁止 HLS 播放列表、concat 引用其他地址）；
+        // 明文 http 只对存储服务自身的地址开放（本地存储）
+        String protocols = storageUrl && url.startsWith("http:") ? "http,https,tls,tcp" : "https,tls,tcp";
+        ProcessBuilder builder = new ProcessBuilder(List.of(
+                ffmpegPath, "-v", "error", "-rw_timeout", String.valueOf(TimeUnit.SECONDS.toMicros(ffmpegTimeoutSeconds)),
+                "-protocol_whitelist", protocols, "-format_whitelist", VIDEO_FORMATS,
+                "-ss", String.valueOf(second), "-i", url,
+                "-frames:v", "1", "-f", "image2pipe", "-vcodec", "png", "-"));
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            ffmpegAvailable = false;
+            log.warn("ffmpeg 不可用（{}），视频缩略图将使用兜底逻辑: {}", ffmpegPath, e.getMessage());
+            return null;
+        }
+        try {
+            byte[] png;
+            try (InputStream out = process.getInputStream()) {
+                png = out.readAllBytes();
+            }
+            if (!process.waitFor(ffmpegTimeoutSeconds, TimeUnit.SECONDS) || process.exitValue() != 0 || png.length == 0) {
+                return null;
+            }
+            return ImageResizer.read(new ByteArrayInputStream(png), previewSize);
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * 无法截帧时的兜底：阿里云OSS可使用对象处理参数实时截帧，其他存储不设置
+     */
+    private String fallbackVideoThumbnail(String url) {
+        if (url.contains("aliyuncs.com")) {
+            return url + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_" + previewSize + ",h_0,m_fast";
+        }
+        return null;
+    }
+
+    /**
+     * 读取超过上限时抛出异常的输入流（响应没有 Content-Length 时仍然限制下载大小）
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                consume(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consume(skipped);
+            return skipped;
+        }
+
+        private void consume(long n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new IOException("源文件超过大小上限");
+            }
+        }
+    }
+
+    private static class NoOpResponseErrorHandler implements ResponseErrorHandler {
+
+        @Override
+        public boolean hasError(ClientHttpResponse response) {
+            return false;
+        }
+
+        @Override
+        public void handleError(ClientHttpResponse response) {
+        }
+    }
+}
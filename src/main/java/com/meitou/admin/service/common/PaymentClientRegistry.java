@@ -0,0 +1,91 @@
+package com.meitou.admin.service.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 支付客户端注册表
+ * 按支付配置ID缓存已构建好的微信/支付宝 SDK 客户端（含解析、解密后的配置和加载好的密钥），
+ * 避免每次下单、每次回调都重新解析配置JSON、解密敏感字段、反射构建客户端和解析PEM密钥。
+ *
+ * 缓存项以配置JSON内容作为版本：updatedAt 在 updateById 时不一定刷新，而比较内容也能发现
+ * 其他实例保存的配置变更；PaymentConfigService 保存/删除配置时会主动失效对应缓存项
+ */
+@Slf4j
+@Service
+public class PaymentClientRegistry {
+
+    /**
+     * 缓存键：客户端类型 + 支付配置ID
+     */
+    private record Key(String kind, Long configId) {
+    }
+
+    /**
+     * 缓存项：构建客户端时使用的配置JSON（版本）和客户端本身
+     */
+    private record Entry(String configJson, Object client) {
+    }
+
+    private final Map<Key, Entry> clients = new ConcurrentHashMap<>();
+
+    /**
+     * 获取客户端，不存在或配置已变化时使用 builder 重新构建
+     *
+     * @param kind 客户端类型（如 wechat、alipay）
+     * @param configId 支付配置ID，为空时不缓存
+     * @param configJson 支付配置JSON
+     * @param builder 客户端构建函数（入参为配置JSON），抛出的异常原样传播且不会缓存
+     * @return 客户端
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, Long configId, String configJson, Function<String, T> builder) {
+        if (configId == null || configJson == null) {
+            return builder.apply(configJson);
+        }
+        Key key = new Key(kind, configId);
+        Entry entry = clients.get(key);
+        if (entry != null && entry.configJson().equals(configJson)) {
+            return (T) entry.client();
+        }
+        // 同一配置并发未命中时只构建一次
+        entry = clients.compute(key, (k, current) -> {
+            if (current != null && current.configJson().equals(configJson)) {
+                return current;
+            }
+            log.info("构建支付客户端：type={}, configId={}", kind, configId);
+            return new Entry(configJson, builder.apply(configJson));
+        });
+        return (T) entry.client();
+    }
+
+    /**
+     * 失效指定支付配置的所有客户端
+     *
+     * @param configId 支付配置ID
+     */
+    public void invalidate(Long configId) {
+        if (configId == null) {
+            return;
+        }
+        clients.keySet().removeIf(key -> configId.equals(key.configId()));
+    }
+
+    /**
+     * 清空所有缓存的客户端
+     */
+    public void invalidateAll() {
+        clients.clear();
+    }
+
+    /**
+     * 当前缓存的客户端数量
+     */
+    public int size() {
+        return clients.size();
+    }
+}
@@ -0,0 +1,253 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.entity.ApiPlatform;
+import com.meitou.admin.resilience.CircuitBreaker;
+import com.meitou.admin.resilience.DependencyUnavailableException;
+import com.meitou.admin.resilience.ResilienceGuard;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 生成平台路由
+ * 为每个平台维护滚动健康度（提交耗时 EWMA、错误率 EWMA）和熔断器，
+ * 在支持同一模型的多个平台之间按健康度加权随机排序，供调用方依次尝试（故障切换）。
+ * 熔断器连续失败达到阈值后打开，打开期间不再向该平台发请求，冷却后放行一个试探请求
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlatformRouter {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * EWMA 平滑系数，越大越偏向最近的调用
+     */
+    @Value("${platform.routing.ewmaAlpha:0.2}")
+    private double ewmaAlpha;
+
+    /**
+     * 耗时参考值（毫秒），EWMA 耗时等于该值时权重减半
+     */
+    @Value("${platform.routing.latencyReferenceMs:5000}")
+    private long latencyReferenceMs;
+
+    /**
+     * 连续失败多少次打开熔断器
+     */
+    @Value("${platform.routing.breaker.failureThreshold:5}")
+    private int failureThreshold;
+
+    /**
+     * 熔断器打开后的冷却时间（秒）
+     */
+    @Value("${platform.routing.breaker.openSeconds:30}")
+    private long openSeconds;
+
+    /**
+     * 单次请求最多尝试的平台数（含首个平台）
+     */
+    @Value("${platform.routing.maxAttempts:3}")
+    private int maxAttempts;
+
+    private final Map<Long, PlatformHealth> healthByPlatform = new ConcurrentHashMap<>();
+
+    /**
+     * 对候选平台排序：过滤掉熔断中的平台，其余按健康度加权随机排序（健康度越高越可能排在前面）
+     *
+     * @param candidates 候选平台（支持该类型和模型的全部已启用平台）
+     * @return 排序后的可用平台，全部熔断时返回空列表
+     */
+    public List<ApiPlatform> route(List<ApiPlatform> candidates) {
+        List<ApiPlatform> available = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        long now = System.nanoTime();
+        for (ApiPlatform platform : candidates) {
+            PlatformHealth health = health(platform);
+            if (health.breaker.isAvailable(now)) {
+                available.add(platform);
+                weights.add(health.score(latencyReferenceMs));
+            }
+        }
+
+        // 加权随机不放回抽样，健康平台承担大部分流量，同时保留少量流量探测其他平台的恢复情况
+        List<ApiPlatform> ordered = new ArrayList<>(available.size());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!available.isEmpty()) {
+            double total = 0;
+            for (double weight : weights) {
+                total += weight;
+            }
+            double point = random.nextDouble() * total;
+            int index = 0;
+            for (; index < available.size() - 1; index++) {
+                point -= weights.get(index);
+                if (point < 0) {
+                    break;
+                }
+            }
+            ordered.add(available.remove(index));
+            weights.remove(index);
+        }
+        return ordered;
+    }
+
+    /**
+     * 申请向平台发送请求的许可
+     * 熔断打开时拒绝；半开时只放行一个试探请求
+     *
+     * @return 是否允许发送
+     */
+    public boolean tryAcquire(ApiPlatform platform) {
+        return health(platform).breaker.tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * 执行一次已获得许可的平台调用，并根据结果更新健康度和熔断器
+     *
+     * @param platform 平台
+     * @param call 调用
+     * @return 调用结果，异常原样抛出
+     */
+    public <T> T execute(ApiPlatform platform, Supplier<T> call) {
+        PlatformHealth health = health(platform);
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            health.onSuccess(System.nanoTime() - start, ewmaAlpha);
+            return result;
+        } catch (RuntimeException e) {
+            if (e instanceof DependencyUnavailableException de && de.getReason() != DependencyUnavailableException.Reason.TIMEOUT) {
+                // 本地舱壁已满，请求没有发到平台
+                health.breaker.release();
+            } else if (isPlatformFailure(e)) {
+                if (health.onFailure(System.nanoTime() - start, ewmaAlpha)) {
+                    log.warn("平台 {} 连续失败 {} 次，熔断 {} 秒", platform.getName(), failureThreshold, openSeconds);
+                }
+            } else {
+                // 平台正常响应但拒绝了请求（参数错误等），不计入平台故障
+                health.onSuccess(System.nanoTime() - start, ewmaAlpha);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 判断异常是否属于平台故障（网络错误、超时、5xx、限流、本地舱壁已满），这类错误换平台可能成功；
+     * 平台明确拒绝请求（API_RESPONSE_ERROR，如参数错误、内容审核）时换平台也不会成功
+     */
+    public static boolean isPlatformFailure(Throwable e) {
+        return ResilienceGuard.isDependencyFailure(e);
+    }
+
+    /**
+     * 单次请求最多尝试的平台数
+     */
+    public int getMaxAttempts() {
+        return Math.max(1, maxAttempts);
+    }
+
+    /**
+     * 平台的熔断器状态
+     */
+    public CircuitBreaker.State getState(Long platformId) {
+        PlatformHealth health = healthByPlatform.get(platformId);
+        return health != null ? health.breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * 各平台健康度快照
+     *
+     * @return 平台ID -> 耗时EWMA、错误率、健康分、熔断状态
+     */
+    public Map<Long, Map<String, Object>> snapshot() {
+        Map<Long, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        healthByPlatform.forEach((platformId, health) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", health.name);
+            item.put("latencyEwmaMs", Math.round(health.latencyEwmaMs));
+            item.put("errorRate", health.errorRate);
+            item.put("score", health.score(latencyReferenceMs));
+            item.put("state", health.breaker.getState());
+            snapshot.put(platformId, item);
+        });
+        return snapshot;
+    }
+
+    private PlatformHealth health(ApiPlatform platform) {
+        return healthByPlatform.computeIfAbsent(platform.getId(), id -> {
+            PlatformHealth health = new PlatformHealth(platform.getName(),
+                    new CircuitBreaker(failureThreshold, openSeconds * 1_000_000_000L));
+            String tag = platform.getName() != null ? platform.getName() : String.valueOf(id);
+            Gauge.builder("platform.health.score", health, h -> h.score(latencyReferenceMs))
+                    .description("平台健康分（0-1）")
+                    .tag("platform", tag)
+                    .register(meterRegistry);
+            Gauge.builder("platform.circuit.open", health, h -> h.breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .description("平台熔断器是否打开（含半开）")
+                    .tag("platform", tag)
+                    .register(meterRegistry);
+            return health;
+        });
+    }
+
+    /**
+     * 单个平台的滚动健康度和熔断器状态
+     */
+    static final class PlatformHealth {
+
+        /**
+         * 权重下限，保证健康度很低的平台仍有少量流量用于探测恢复
+         */
+        private static final double MIN_SCORE = 0.01;
+
+        private final String name;
+        private final CircuitBreaker breaker;
+        private volatile double latencyEwmaMs;
+        private volatile double errorRate;
+
+        PlatformHealth(String name, CircuitBreaker breaker) {
+            this.name = name;
+            this.breaker = breaker;
+        }
+
+        /**
+         * 健康分：(1 - 错误率) / (1 + 耗时/参考耗时)，未调用过的平台为 1
+         */
+        double score(long latencyReferenceMs) {
+            double score = (1 - errorRate) / (1 + latencyEwmaMs / Math.max(1, latencyReferenceMs));
+            return Math.max(MIN_SCORE, score);
+        }
+
+        synchronized void onSuccess(long elapsedNanos, double alpha) {
+            updateEwma(elapsedNanos, 0, alpha);
+            breaker.onSuccess();
+        }
+
+        /**
+         * @return 本次失败是否使熔断器从关闭变为打开
+         */
+        synchronized boolean onFailure(long elapsedNanos, double alpha) {
+            updateEwma(elapsedNanos, 1, alpha);
+            return breaker.onFailure(System.nanoTime());
+        }
+
+        private void updateEwma(long elapsedNanos, double error, double alpha) {
+            double elapsedMs = elapsedNanos / 1_000_000.0;
+            latencyEwmaMs = latencyEwmaMs == 0 ? elapsedMs : alpha * elapsedMs + (1 - alpha) * latencyEwmaMs;
+            errorRate = alpha * error + (1 - alpha) * errorRate;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.meitou.admin.service.common;
+
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * 统一搜索服务
+ * 管理后台的关键词搜索统一通过这里拼接条件：关键词长度满足 ngram 分词长度时使用 MySQL FULLTEXT（ngram 解析器）索引，
+ * 否则（或未启用全文索引时）回退到原来的 LIKE '%keyword%'
+ *
+ * 全文索引由 db/migration/add_fulltext_search_indexes.sql 创建，站点过滤仍由多租户插件或调用方条件负责。
+ * 索引必须在关闭停用词（innodb_ft_enable_stopword=OFF）时创建：ngram 解析器会丢弃包含停用词（如 a、is、com）的分词，
+ * 开启停用词时包含这些字母组合的关键词查不到 LIKE 能查到的数据；已按旧脚本建索引的环境需执行
+ * rebuild_fulltext_search_indexes_without_stopwords.sql 重建
+ */
+@Service
+public class SearchService {
+
+    /**
+     * 是否启用全文索引（未执行索引迁移的环境可关闭）
+     */
+    @Value("${search.fulltext.enabled:true}")
+    private boolean fulltextEnabled;
+
+    /**
+     * ngram 分词长度，需与 MySQL 的 ngram_token_size 保持一致
+     */
+    @Value("${search.fulltext.ngramTokenSize:2}")
+    private int ngramTokenSize;
+
+    /**
+     * 可搜索的索引定义（列顺序需与 FULLTEXT 索引定义一致）
+     */
+    @Getter
+    public enum SearchIndex {
+        PUBLISHED_CONTENT("title", "user_name"),
+        USER("username", "email", "phone"),
+        USER_ASSET("title", "user_name"),
+        INVITATION_CODE("code"),
+        INVITATION_CHANNEL("channel");
+
+        private final String[] columns;
+
+        SearchIndex(String... columns) {
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * 为查询条件追加关键词搜索
+     *
+     * @param wrapper 查询条件
+     * @param index 搜索的索引
+     * @param keyword 关键词，为空时不追加
+     */
+    public void applyKeyword(AbstractWrapper<?, ?, ?> wrapper, SearchIndex index, String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return;
+        }
+        String trimmed = keyword.trim();
+        String[] columns = index.getColumns();
+        if (useFulltext(trimmed)) {
+            // BOOLEAN MODE 下的短语查询要求 ngram 连续出现；索引关闭停用词时，与子串匹配的结果一致
+            wrapper.apply("MATCH(" + String.join(", ", columns) + ") AGAINST ({0} IN BOOLEAN MODE)",
+                    toPhrase(trimmed));
+        } else {
+            StringBuilder sql = new StringBuilder("(");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    sql.append(" OR ");
+                }
+                sql.append(columns[i]).append(" LIKE {0}");
+            }
+            sql.append(")");
+            wrapper.apply(sql.toString(), "%" + trimmed + "%");
+        }
+    }
+
+    /**
+     * 关键词是否走全文索引：已启用全文索引，且去掉首尾空白后达到 ngram 分词长度。
+     * XML 中手写的搜索语句（如 UserMapper.selectByCategoryAndSearch）通过参数传入该结果
+     *
+     * @param keyword 关键词
+     */
+    public boolean useFulltext(String keyword) {
+        return fulltextEnabled && keyword != null && keyword.trim().length() >= ngramTokenSize;
+    }
+
+    /**
+     * 转换为全文检索短语（去掉会破坏短语语法的双引号）
+     */
+    private String toPhrase(String keyword) {
+        return "\"" + keyword.replace("\"", " ") + "\"";
+    }
+}
@@ -0,0 +1,479 @@
+package com.meitou.admin.service.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.meitou.admin.common.SiteContext;
+import com.meitou.admin.entity.PublishedContent;
+import com.meitou.admin.mapper.PublishedContentMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 灵感广场信息流缓存服务
+ * 按（站点，类型）在内存中维护一份已排序、有上限的已发布内容窗口（置顶优先、发布时间倒序），
+ * 广场列表直接从内存分页，发布/上下架/置顶/删除/点赞时增量更新，避免每次请求都执行分页查询和 count 查询
+ *
+ * 说明：
+ * 1. 缓存按需懒加载，超过 TTL 后下次访问重新加载（同一信息流同时只有一个请求加载），用于兜底多实例部署下其他节点的写入
+ * 2. 请求超出内存窗口（且窗口不是全量数据）时返回 null，由调用方回退到数据库查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SquareFeedCacheService {
+
+    public static final String TYPE_ALL = "all";
+
+    /**
+     * 允许缓存的类型，避免任意 type 参数撑大缓存
+     */
+    private static final Set<String> CACHEABLE_TYPES = Set.of(TYPE_ALL, "image", "video");
+
+    /**
+     * 排序规则：置顶优先、发布时间倒序、ID倒序（与数据库查询保持一致）
+     */
+    private static final Comparator<PublishedContent> FEED_ORDER = Comparator
+            .comparing((PublishedContent c) -> Boolean.TRUE.equals(c.getIsPinned()) ? 0 : 1)
+            .thenComparing(PublishedContent::getPublishedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(PublishedContent::getId, Comparator.reverseOrder());
+
+    private final PublishedContentMapper contentMapper;
+
+    /**
+     * 每个信息流最多缓存的条数
+     */
+    @Value("${square.feed.capacity:500}")
+    private int capacity;
+
+    /**
+     * 缓存有效期（秒）
+     */
+    @Value("${square.feed.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    /**
+     * 缓存：siteId -> type -> 信息流
+     */
+    private final Map<Long, Map<String, Feed>> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * 正在加载的信息流：siteId:type -> 加载结果
+     */
+    private final Map<String, CompletableFuture<Feed>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 按页码从内存分页
+     *
+     * @param type 类型：all/image/video
+     * @param offset 偏移量
+     * @param size 每页数量
+     * @return 分页结果；无法由缓存提供时返回 null
+     */
+    public FeedSlice page(String type, long offset, int size) {
+        Feed feed = getFeed(type);
+        if (feed == null || offset < 0 || size <= 0) {
+            return null;
+        }
+        PublishedContent[] entries = feed.entries;
+        if (offset + size > entries.length && !feed.exhaustive) {
+            return null;
+        }
+        int from = (int) Math.min(offset, entries.length);
+        int to = (int) Math.min(offset + size, entries.length);
+        return slice(feed, entries, from, to);
+    }
+
+    /**
+     * 按游标从内存分页
+     *
+     * @param type 类型：all/image/video
+     * @param cursor 上一页最后一条的游标，为空表示第一页
+     * @param size 每页数量
+     * @return 分页结果；无法由缓存提供时返回 null
+     */
+    public FeedSlice pageByCursor(String type, String cursor, int size) {
+        Feed feed = getFeed(type);
+        if (feed == null || size <= 0) {
+            return null;
+        }
+        PublishedContent[] entries = feed.entries;
+        int from = 0;
+        if (StringUtils.hasText(cursor)) {
+            PublishedContent key = decodeCursor(cursor);
+            if (key == null) {
+                return null;
+            }
+            from = upperBound(Arrays.asList(entries), key);
+        }
+        int to = Math.min(from + size, entries.length);
+        if (to - from < size && !feed.exhaustive) {
+            return null;
+        }
+        return slice(feed, entries, from, to);
+    }
+
+    /**
+     * 内容变为可见（发布、重新上架）
+     */
+    public void onPublished(PublishedContent content) {
+        afterCommit(() -> forEachLoadedFeed(content, feed -> {
+            feed.total++;
+            feed.upsert(content);
+        }));
+    }
+
+    /**
+     * 内容变为不可见（下架、删除）
+     */
+    public void onHidden(PublishedContent content) {
+        afterCommit(() -> forEachLoadedFeed(content, feed -> {
+            feed.total = Math.max(0, feed.total - 1);
+            feed.remove(content.getId());
+        }));
+    }
+
+    /**
+     * 内容属性变更（置顶、点赞数等），可见性不变
+     */
+    public void onUpdated(PublishedContent content) {
+        if (!"published".equals(content.getStatus())) {
+            return;
+        }
+        afterCommit(() -> forEachLoadedFeed(content, feed -> feed.upsert(content)));
+    }
+
+    /**
+     * 把已写回数据库的点赞数增量同步到缓存
+     * 只调整写回开始前就已加载的窗口（其中的点赞数不含这次增量）；写回完成后才开始加载的窗口已包含增量，不再调整；
+     * 加载与写回时间重叠的窗口无法判断是否包含增量，直接丢弃，下次访问时重新加载
+     *
+     * @param siteId 站点ID
+     * @param contentId 内容ID
+     * @param delta 已写回的变化量
+     * @param writeStartedNanos 写回开始时间（System.nanoTime）
+     * @param writeFinishedNanos 写回完成时间（System.nanoTime）
+     */
+    public void adjustLikeCount(Long siteId, Long contentId, int delta, long writeStartedNanos, long writeFinishedNanos) {
+        if (siteId == null || contentId == null || delta == 0) {
+            return;
+        }
+        Map<String, Feed> siteFeeds = feeds.get(siteId);
+        if (siteFeeds == null) {
+            return;
+        }
+        siteFeeds.forEach((type, feed) -> {
+            if (feed.loadStartedNanos - writeStartedNanos < 0) {
+                feed.adjustLikeCount(contentId, delta);
+            } else if (feed.loadStartedNanos - writeFinishedNanos <= 0 && feed.contains(contentId)) {
+                siteFeeds.remove(type, feed);
+            }
+        });
+    }
+
+    /**
+     * 清空指定站点的缓存
+     */
+    public void invalidate(Long siteId) {
+        if (siteId != null) {
+            feeds.remove(siteId);
+        }
+    }
+
+    /**
+     * 生成游标：置顶标记_发布时间（秒）_ID，发布时间为空时该段为空（排序时排在最后，与 FEED_ORDER 一致）
+     */
+    public static String encodeCursor(PublishedContent content) {
+        String epochSecond = content.getPublishedAt() == null ? ""
+                : String.valueOf(content.getPublishedAt().toEpochSecond(ZoneOffset.UTC));
+        return (Boolean.TRUE.equals(content.getIsPinned()) ? 1 : 0) + "_" + epochSecond + "_" + content.getId();
+    }
+
+    /**
+     * 解析游标，返回仅包含排序字段的内容对象（发布时间段为空时 publishedAt 为 null）；格式错误时返回 null
+     */
+    public static PublishedContent decodeCursor(String cursor) {
+        String[] parts = cursor.split("_", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            PublishedContent key = new PublishedContent();
+            key.setIsPinned("1".equals(parts[0]));
+            key.setPublishedAt(parts[1].isEmpty() ? null
+                    : LocalDateTime.ofEpochSecond(Long.parseLong(parts[1]), 0, ZoneOffset.UTC));
+            key.setId(Long.parseLong(parts[2]));
+            return key;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private FeedSlice slice(Feed feed, PublishedContent[] entries, int from, int to) {
+        List<PublishedContent> records = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            records.add(copyOf(entries[i]));
+        }
+        boolean hasMore = to < entries.length || !feed.exhaustive;
+        String nextCursor = records.isEmpty() ? null : encodeCursor(records.get(records.size() - 1));
+        return new FeedSlice(records, feed.total, nextCursor, hasMore);
+    }
+
+    private Feed getFeed(String type) {
+        Long siteId = SiteContext.getSiteId();
+        String feedType = normalizeType(type);
+        if (siteId == null || !CACHEABLE_TYPES.contains(feedType)) {
+            return null;
+        }
+        Map<String, Feed> siteFeeds = feeds.computeIfAbsent(siteId, k -> new ConcurrentHashMap<>());
+        Feed feed = siteFeeds.get(feedType);
+        if (feed == null || feed.isExpired(ttlSeconds)) {
+            feed = reload(siteId, feedType, siteFeeds, feed);
+        }
+        return feed;
+    }
+
+    /**
+     * 重新加载信息流，同一（站点，类型）同时只有一个请求查询数据库（single-flight）：
+     * 其他请求有过期窗口时继续使用旧窗口，没有时等待加载结果；加载失败时返回 null，由调用方回退到数据库查询
+     */
+    private Feed reload(Long siteId, String type, Map<String, Feed> siteFeeds, Feed stale) {
+        String key = siteId + ":" + type;
+        CompletableFuture<Feed> created = new CompletableFuture<>();
+        CompletableFuture<Feed> inFlight = loading.putIfAbsent(key, created);
+        if (inFlight != null) {
+            return stale != null ? stale : inFlight.exceptionally(e -> null).join();
+        }
+        try {
+            Feed feed = load(type);
+            siteFeeds.put(type, feed);
+            created.complete(feed);
+            return feed;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, created);
+        }
+    }
+
+    private Feed load(String type) {
+        long loadStartedNanos = System.nanoTime();
+        LambdaQueryWrapper<PublishedContent> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(PublishedContent::getStatus, "published");
+        if (!TYPE_ALL.equals(type)) {
+            wrapper.eq(PublishedContent::getType, type);
+        }
+        long total = contentMapper.selectCount(wrapper);
+
+        wrapper.orderByDesc(PublishedContent::getIsPinned);
+        wrapper.orderByDesc(PublishedContent::getPublishedAt);
+        wrapper.orderByDesc(PublishedContent::getId);
+        wrapper.last("LIMIT " + capacity);
+        List<PublishedContent> list = contentMapper.selectList(wrapper);
+
+        PublishedContent[] entries = list.toArray(new PublishedContent[0]);
+        Arrays.sort(entries, FEED_ORDER);
+        log.debug("加载广场信息流缓存 siteId={}, type={}, size={}, total={}",
+                SiteContext.getSiteId(), type, entries.length, total);
+        return new Feed(type, capacity, loadStartedNanos, entries, total, entries.length >= total);
+    }
+
+    private void forEachLoadedFeed(PublishedContent content, Consumer<Feed> action) {
+        if (content.getSiteId() == null) {
+            return;
+        }
+        Map<String, Feed> siteFeeds = feeds.get(content.getSiteId());
+        if (siteFeeds == null) {
+            return;
+        }
+        for (String type : new String[]{TYPE_ALL, content.getType()}) {
+            Feed feed = type == null ? null : siteFeeds.get(type);
+            if (feed != null) {
+                synchronized (feed) {
+                    action.accept(feed);
+                }
+                if (feed.needsReload()) {
+                    siteFeeds.remove(type, feed);
+                }
+            }
+        }
+    }
+
+    /**
+     * 事务提交后再更新缓存，避免回滚导致缓存与数据库不一致
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String normalizeType(String type) {
+        return StringUtils.hasText(type) ? type : TYPE_ALL;
+    }
+
+    /**
+     * 第一个排在 key 之后的位置
+     */
+    private static int upperBound(List<PublishedContent> entries, PublishedContent key) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (FEED_ORDER.compare(entries.get(mid), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static PublishedContent copyOf(PublishedContent source) {
+        PublishedContent copy = new PublishedContent();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    /**
+     * 缓存分页结果
+     */
+    @Getter
+    public static class FeedSlice {
+        private final List<PublishedContent> records;
+        private final long total;
+        private final String nextCursor;
+        private final boolean hasMore;
+
+        FeedSlice(List<PublishedContent> records, long total, String nextCursor, boolean hasMore) {
+            this.records = records;
+            this.total = total;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /**
+     * 单个（站点，类型）的信息流窗口
+     * 读取无锁（读取 volatile 快照数组），写入在 synchronized 中复制替换
+     */
+    private static class Feed {
+        private final String type;
+        private final int capacity;
+        private final long loadedAt = System.currentTimeMillis();
+        /**
+         * 开始查询数据库的时间（System.nanoTime），用于判断窗口是否已包含某次写回的点赞数
+         */
+        private final long loadStartedNanos;
+        private volatile PublishedContent[] entries;
+        private volatile long total;
+        /**
+         * 是否包含该信息流的全部数据（为 false 时窗口之外还有数据）
+         */
+        private volatile boolean exhaustive;
+
+        Feed(String type, int capacity, long loadStartedNanos, PublishedContent[] entries, long total, boolean exhaustive) {
+            this.type = type;
+            this.capacity = capacity;
+            this.loadStartedNanos = loadStartedNanos;
+            this.entries = entries;
+            this.total = total;
+            this.exhaustive = exhaustive;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+
+        /**
+         * 非全量窗口被删除过多时需要重新加载，否则大部分请求都会回退到数据库
+         */
+        boolean needsReload() {
+            return !exhaustive && entries.length < capacity / 2;
+        }
+
+        void upsert(PublishedContent content) {
+            if (!TYPE_ALL.equals(type) && !type.equals(content.getType())) {
+                return;
+            }
+            PublishedContent card = copyOf(content);
+            card.setIsLiked(null);
+            List<PublishedContent> list = new ArrayList<>(Arrays.asList(entries));
+            list.removeIf(e -> e.getId().equals(card.getId()));
+            // 非全量窗口只能插入到窗口范围内，窗口之后的数据未加载，插入会打乱顺序
+            if (!exhaustive && !list.isEmpty() && FEED_ORDER.compare(card, list.get(list.size() - 1)) > 0) {
+                entries = list.toArray(new PublishedContent[0]);
+                return;
+            }
+            int index = upperBound(list, card);
+            list.add(index, card);
+            if (list.size() > capacity) {
+                list.remove(list.size() - 1);
+                exhaustive = false;
+            }
+            entries = list.toArray(new PublishedContent[0]);
+        }
+
+        void remove(Long contentId) {
+            PublishedContent[] current = entries;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].getId().equals(contentId)) {
+                    PublishedContent[] next = new PublishedContent[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    entries = next;
+                    return;
+                }
+            }
+        }
+
+        boolean contains(Long contentId) {
+            for (PublishedContent entry : entries) {
+                if (entry.getId().equals(contentId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void adjustLikeCount(Long contentId, int delta) {
+            PublishedContent[] current = entries;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].getId().equals(contentId)) {
+                    PublishedContent card = copyOf(current[i]);
+                    int likeCount = card.getLikeCount() == null ? 0 : card.getLikeCount();
+                    card.setLikeCount(Math.max(0, likeCount + delta));
+                    PublishedContent[] next = current.clone();
+                    next[i] = card;
+                    entries = next;
+                    return;
+                }
+            }
+        }
+    }
+}
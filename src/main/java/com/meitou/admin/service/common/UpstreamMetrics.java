@@ -0,0 +1,205 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.entity.ApiPlatform;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 上游平台调用指标
+ * 按平台、接口类型、模型记录提交/轮询耗时分布、从提交到完成的耗时、成功/失败/超时次数，
+ * 以及存储转存的字节数和耗时、算力扣除和退还数量，通过 Prometheus 端点暴露，用于容量规划和平台路由
+ *
+ * 指标名（Prometheus 格式）：
+ * upstream_call_seconds{platform,interface,model,phase,outcome}、
+ * generation_completion_seconds{platform,interface,model,outcome}、
+ * storage_transfer_seconds / storage_transfer_bytes{direction,storage,outcome}、
+ * generation_credits_total{kind,interface,model}
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamMetrics {
+
+    public static final String PHASE_SUBMIT = "submit";
+    public static final String PHASE_POLL = "poll";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+
+    public static final String CREDITS_CHARGED = "charged";
+    public static final String CREDITS_REFUNDED = "refunded";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 执行一次上游调用并记录耗时和结果，异常原样抛出
+     *
+     * @param phase 阶段：submit-提交任务，poll-查询任务状态
+     * @param platform 平台
+     * @param type 接口类型（txt2img、img2video、image_analysis 等）
+     * @param model 模型
+     * @param call 上游调用
+     * @return 调用结果
+     */
+    public <T> T record(String phase, ApiPlatform platform, String type, String model, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            recordCall(phase, platform, type, model, System.nanoTime() - start, OUTCOME_SUCCESS);
+            return result;
+        } catch (RuntimeException e) {
+            recordCall(phase, platform, type, model, System.nanoTime() - start, outcomeOf(e));
+            throw e;
+        }
+    }
+
+    /**
+     * 记录一次上游调用（用于回调式的异步调用）
+     *
+     * @param elapsedNanos 耗时（纳秒）
+     * @param outcome 结果：success、failure、timeout
+     */
+    public void recordCall(String phase, ApiPlatform platform, String type, String model, long elapsedNanos, String outcome) {
+        Timer.builder("upstream.call")
+                .description("上游平台调用耗时")
+                .tag("platform", platformTag(platform))
+                .tag("interface", tag(type))
+                .tag("model", tag(model))
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(50))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录任务从提交（扣费建记录）到完成或失败的耗时
+     *
+     * @param submittedAt 提交时间（生成记录的创建时间），为空时不记录
+     * @param outcome 结果：success、failure、timeout
+     */
+    public void recordCompletion(ApiPlatform platform, String type, String model, LocalDateTime submittedAt, String outcome) {
+        if (submittedAt == null) {
+            return;
+        }
+        Duration elapsed = Duration.between(submittedAt, LocalDateTime.now());
+        if (elapsed.isNegative()) {
+            return;
+        }
+        Timer.builder("generation.completion")
+                .description("生成任务从提交到完成的耗时")
+                .tag("platform", platformTag(platform))
+                .tag("interface", tag(type))
+                .tag("model", tag(model))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofMinutes(30))
+                .register(meterRegistry)
+                .record(elapsed);
+    }
+
+    /**
+     * 记录一次存储转存
+     *
+     * @param direction 方向：ingest-从上游URL转存，upload-用户上传
+     * @param storage 存储类型（aliyun、tencent、local）
+     * @param bytes 传输字节数
+     * @param elapsedNanos 耗时（纳秒）
+     * @param success 是否成功
+     */
+    public void recordTransfer(String direction, String storage, long bytes, long elapsedNanos, boolean success) {
+        String outcome = success ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
+        Timer.builder("storage.transfer")
+                .description("存储转存耗时")
+                .tag("direction", direction)
+                .tag("storage", tag(storage))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (bytes > 0) {
+            DistributionSummary.builder("storage.transfer.bytes")
+                    .description("存储转存字节数")
+                    .baseUnit("bytes")
+                    .tag("direction", direction)
+                    .tag("storage", tag(storage))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    /**
+     * 记录算力扣除或退还
+     *
+     * @param kind charged-扣除，refunded-退还
+     * @param type 接口类型
+     * @param model 模型
+     * @param amount 算力数量
+     */
+    public void recordCredits(String kind, String type, String model, Integer amount) {
+        if (amount == null || amount <= 0) {
+            return;
+        }
+        Counter.builder("generation.credits")
+                .description("生成任务算力扣除/退还数量")
+                .tag("kind", kind)
+                .tag("interface", tag(type))
+                .tag("model", tag(model))
+                .register(meterRegistry)
+                .increment(amount);
+    }
+
+    /**
+     * 根据异常判断调用结果：超时类异常为 timeout，其余为 failure
+     * 业务代码常把底层异常转成只带消息的 BusinessException，因此同时按消息判断（"Read timed out"、OkHttp 的 "timeout"）
+     */
+    public static String outcomeOf(Throwable e) {
+        Throwable t = e;
+        for (int depth = 0; t != null && depth < 10; depth++, t = t.getCause()) {
+            if (t instanceof SocketTimeoutException || t instanceof TimeoutException || t instanceof InterruptedIOException) {
+                return OUTCOME_TIMEOUT;
+            }
+            String message = t.getMessage();
+            if (message != null) {
+                String lower = message.toLowerCase();
+                if (lower.contains("timed out") || lower.endsWith("timeout")) {
+                    return OUTCOME_TIMEOUT;
+                }
+            }
+        }
+        return OUTCOME_FAILURE;
+    }
+
+    private static String platformTag(ApiPlatform platform) {
+        if (platform == null) {
+            return UNKNOWN;
+        }
+        if (StringUtils.hasText(platform.getName())) {
+            return platform.getName();
+        }
+        return platform.getId() != null ? String.valueOf(platform.getId()) : UNKNOWN;
+    }
+
+    private static String tag(String value) {
+        return StringUtils.hasText(value) ? value : UNKNOWN;
+    }
+}
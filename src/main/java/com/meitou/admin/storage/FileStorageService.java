@@ -1,12 +1,23 @@
 package com.meitou.admin.storage;
 
+import com.meitou.admin.util.RemoteUrlGuard;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
  * 文件存储服务接口
- * 定义通用的文件上传方法，支持多种云存储实现（腾讯云COS、阿里云OSS等）
+ * 定义通用的文件上传方法，支持多种存储实现（腾讯云COS、阿里云OSS、本地文件系统），由 file.storage.type 选择
  */
 public interface FileStorageService {
+
+    /**
+     * 网络文件转存时的连接超时（毫秒）
+     */
+    int URL_CONNECT_TIMEOUT_MS = 10_000;
+
+    /**
+     * 网络文件转存时的读取超时（毫秒）
+     */
+    int URL_READ_TIMEOUT_MS = 120_000;
     
     /**
      * 上传文件到云存储
@@ -19,6 +30,58 @@ public interface FileStorageService {
      */
     String upload(java.io.InputStream inputStream, String folder, String fileName) throws Exception;
 
+    /**
+     * 上传已知长度的文件流到云存储
+     * 指定长度后 SDK 可以直接边读边传，无需先把整个流缓存到内存
+     *
+     * @param inputStream 文件输入流
+     * @param folder 存储文件夹路径
+     * @param fileName 文件名（包含扩展名）
+     * @param contentLength 内容长度（字节），小于 0 表示未知
+     * @return 文件的访问URL
+     * @throws Exception 上传失败时抛出异常
+     */
+    default String upload(java.io.InputStream inputStream, String folder, String fileName, long contentLength) throws Exception {
+        return upload(inputStream, folder, fileName);
+    }
+
+    /**
+     * 上传本地文件
+     * 本地存储实现使用零拷贝（FileChannel.transferTo），云存储实现按已知长度流式上传
+     *
+     * @param file 本地文件路径
+     * @param folder 存储文件夹路径
+     * @param fileName 文件名（包含扩展名）
+     * @return 文件的访问URL
+     * @throws Exception 上传失败时抛出异常
+     */
+    default String upload(java.nio.file.Path file, String folder, String fileName) throws Exception {
+        try (java.io.InputStream in = java.nio.file.Files.newInputStream(file)) {
+            return upload(in, folder, fileName, java.nio.file.Files.size(file));
+        }
+    }
+
+    /**
+     * 转存网络文件（边下载边上传，不在内存中缓存完整文件）
+     * 只接受 http/https 地址，URL 可能来自用户或上游平台，不能借此读取服务器本地文件（file:、jar: 等）；
+     * 服务端自己生成的本地文件请使用 {@link #upload(java.nio.file.Path, String, String)}
+     *
+     * @param url 网络文件URL
+     * @param folder 存储文件夹路径
+     * @param fileName 文件名（包含扩展名）
+     * @return 文件的访问URL
+     * @throws IllegalArgumentException URL 不是 http/https 地址
+     * @throws Exception 下载或上传失败时抛出异常
+     */
+    default String uploadFromUrl(String url, String folder, String fileName) throws Exception {
+        java.net.URLConnection connection = RemoteUrlGuard.requireHttp(url).toURL().openConnection();
+        connection.setConnectTimeout(URL_CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(URL_READ_TIMEOUT_MS);
+        try (java.io.InputStream in = connection.getInputStream()) {
+            return upload(in, folder, fileName, connection.getContentLengthLong());
+        }
+    }
+
     /**
      * 上传文件到云存储
      * 
@@ -39,5 +102,123 @@ public interface FileStorageService {
     default String upload(MultipartFile file) throws Exception {
         return upload(file, "");
     }
+
+    /**
+     * 根据对象键构建访问URL（对象键按路径段编码，见 {@link #encodeObjectKey(String)}）
+     *
+     * @param objectKey 对象键（文件路径）
+     * @return 文件的访问URL
+     */
+    String buildFileUrl(String objectKey);
+
+    /**
+     * 删除文件
+     *
+     * @param objectKey 对象键（文件路径）
+     * @throws Exception 删除失败时抛出异常
+     */
+    void delete(String objectKey) throws Exception;
+
+    /**
+     * 读取文件内容（调用方负责关闭流）
+     *
+     * @param objectKey 对象键（文件路径）
+     * @return 文件输入流
+     * @throws Exception 文件不存在或读取失败时抛出异常
+     */
+    java.io.InputStream download(String objectKey) throws Exception;
+
+    /**
+     * 生成下载预签名URL（HTTP GET），用于私有读的存储
+     *
+     * @param objectKey 对象键（文件路径）
+     * @param expiry 有效期
+     * @return 预签名URL
+     */
+    String presignDownload(String objectKey, java.time.Duration expiry) throws Exception;
+
+    /**
+     * 拼接对象键：文件夹路径（可选）+ 文件名
+     */
+    static String buildObjectKey(String folder, String fileName) {
+        if (folder == null || folder.isEmpty()) {
+            return fileName;
+        }
+        return folder.endsWith("/") ? folder + fileName : folder + "/" + fileName;
+    }
+
+    /**
+     * 把对象键编码为 URL 路径：逐段百分号编码（中文、空格等），保留分隔的 /
+     */
+    static String encodeObjectKey(String objectKey) {
+        String[] segments = objectKey.split("/", -1);
+        StringBuilder path = new StringBuilder(objectKey.length() + 16);
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                path.append('/');
+            }
+            path.append(org.springframework.web.util.UriUtils.encodePathSegment(segments[i], java.nio.charset.StandardCharsets.UTF_8));
+        }
+        return path.toString();
+    }
+
+    // ==================== 分片直传 ====================
+    // 客户端按分片直接上传到云存储（预签名URL），应用服务器只负责签名和登记，不经手文件内容。
+    // 分片直传是可选能力：调用方必须先检查 supportsMultipartUpload()，不支持时走普通上传。
+    // 以下默认实现对应"不支持"，只在未检查就调用时抛出 UnsupportedOperationException；支持的实现需全部覆盖
+
+    /**
+     * 是否支持分片直传；返回 true 的实现必须覆盖下面所有分片方法
+     */
+    default boolean supportsMultipartUpload() {
+        return false;
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param objectKey 对象键
+     * @param contentType 内容类型（可选）
+     * @return 分片上传ID（uploadId）
+     */
+    default String initiateMultipartUpload(String objectKey, String contentType) throws Exception {
+        throw new UnsupportedOperationException("当前存储不支持分片直传");
+    }
+
+    /**
+     * 生成上传单个分片的预签名URL（HTTP PUT）
+     *
+     * @param objectKey 对象键
+     * @param uploadId 分片上传ID
+     * @param partNumber 分片序号（从 1 开始）
+     * @param expiry 有效期
+     * @return 预签名URL
+     */
+    default String presignUploadPart(String objectKey, String uploadId, int partNumber, java.time.Duration expiry) throws Exception {
+        throw new UnsupportedOperationException("当前存储不支持分片直传");
+    }
+
+    /**
+     * 列出已上传的分片（用于断点续传和完成上传）
+     */
+    default java.util.List<UploadedPart> listParts(String objectKey, String uploadId) throws Exception {
+        throw new UnsupportedOperationException("当前存储不支持分片直传");
+    }
+
+    /**
+     * 合并分片，完成上传
+     *
+     * @return 文件的访问URL
+     */
+    default String completeMultipartUpload(String objectKey, String uploadId, java.util.List<UploadedPart> parts) throws Exception {
+        throw new UnsupportedOperationException("当前存储不支持分片直传");
+    }
+
+    /**
+     * 取消分片上传，释放已上传的分片
+     */
+    default void abortMultipartUpload(String objectKey, String uploadId) throws Exception {
+        throw new UnsupportedOperationException("当前存储不支持分片直传");
+    }
 }
 
@@ -0,0 +1,116 @@
+package com.meitou.admin.storage;
+
+import com.meitou.admin.resilience.Dependency;
+import com.meitou.admin.resilience.ResilienceGuard;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 带依赖隔离的文件存储服务
+ * 包装 file.storage.type 选中的存储实现，所有访问存储服务的调用（上传、转存、删除、读取、分片登记）
+ * 都在 STORAGE 舱壁中执行，受并发上限、超时预算和熔断保护；
+ * 只在本地计算的操作（构建URL、预签名）直接委托，不占用舱壁
+ */
+@Primary
+@Service
+public class GuardedFileStorageService implements FileStorageService {
+
+    private final FileStorageService delegate;
+    private final ResilienceGuard resilienceGuard;
+
+    public GuardedFileStorageService(List<FileStorageService> storageServices, ResilienceGuard resilienceGuard) {
+        this.delegate = storageServices.stream()
+                .filter(service -> !(service instanceof GuardedFileStorageService))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未配置文件存储实现，请检查 file.storage.type"));
+        this.resilienceGuard = resilienceGuard;
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String folder, String fileName) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.upload(inputStream, folder, fileName));
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String folder, String fileName, long contentLength) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.upload(inputStream, folder, fileName, contentLength));
+    }
+
+    @Override
+    public String upload(Path file, String folder, String fileName) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.upload(file, folder, fileName));
+    }
+
+    @Override
+    public String uploadFromUrl(String url, String folder, String fileName) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.uploadFromUrl(url, folder, fileName));
+    }
+
+    @Override
+    public String upload(MultipartFile file, String folder) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.upload(file, folder));
+    }
+
+    @Override
+    public String buildFileUrl(String objectKey) {
+        return delegate.buildFileUrl(objectKey);
+    }
+
+    @Override
+    public void delete(String objectKey) throws Exception {
+        resilienceGuard.call(Dependency.STORAGE, () -> {
+            delegate.delete(objectKey);
+            return null;
+        });
+    }
+
+    @Override
+    public InputStream download(String objectKey) throws Exception {
+        // 只保护打开连接，流的读取由调用方负责
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.download(objectKey));
+    }
+
+    @Override
+    public String presignDownload(String objectKey, Duration expiry) throws Exception {
+        return delegate.presignDownload(objectKey, expiry);
+    }
+
+    @Override
+    public boolean supportsMultipartUpload() {
+        return delegate.supportsMultipartUpload();
+    }
+
+    @Override
+    public String initiateMultipartUpload(String objectKey, String contentType) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.initiateMultipartUpload(objectKey, contentType));
+    }
+
+    @Override
+    public String presignUploadPart(String objectKey, String uploadId, int partNumber, Duration expiry) throws Exception {
+        return delegate.presignUploadPart(objectKey, uploadId, partNumber, expiry);
+    }
+
+    @Override
+    public List<UploadedPart> listParts(String objectKey, String uploadId) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.listParts(objectKey, uploadId));
+    }
+
+    @Override
+    public String completeMultipartUpload(String objectKey, String uploadId, List<UploadedPart> parts) throws Exception {
+        return resilienceGuard.call(Dependency.STORAGE, () -> delegate.completeMultipartUpload(objectKey, uploadId, parts));
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectKey, String uploadId) throws Exception {
+        resilienceGuard.call(Dependency.STORAGE, () -> {
+            delegate.abortMultipartUpload(objectKey, uploadId);
+            return null;
+        });
+    }
+}
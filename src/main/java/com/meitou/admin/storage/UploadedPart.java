@@ -0,0 +1,11 @@
+package com.meitou.admin.storage;
+
+/**
+ * 已上传的分片
+ *
+ * @param partNumber 分片序号（从 1 开始）
+ * @param etag 分片ETag
+ * @param size 分片大小（字节）
+ */
+public record UploadedPart(int partNumber, String etag, long size) {
+}
@@ -1,11 +1,22 @@
 package com.meitou.admin.storage.impl;
 
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ListPartsRequest;
 import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.PartListing;
+import com.aliyun.oss.model.PartSummary;
 import com.aliyun.oss.model.PutObjectRequest;
+import com.meitou.admin.resilience.ClientRequestException;
 import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.storage.UploadedPart;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,7 +26,12 @@ import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * 阿里云OSS文件存储服务实现类
@@ -90,6 +106,11 @@ public class AliOssServiceImpl implements FileStorageService {
     
     @Override
     public String upload(InputStream inputStream, String folder, String fileName) throws Exception {
+        return upload(inputStream, folder, fileName, -1);
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String folder, String fileName, long contentLength) throws Exception {
         // 构建对象键（文件路径）
         String objectKey;
         if (folder != null && !folder.isEmpty()) {
@@ -105,10 +126,10 @@ public class AliOssServiceImpl implements FileStorageService {
         try {
             // 设置对象元数据
             ObjectMetadata metadata = new ObjectMetadata();
-            // 注意：如果知道内容长度，最好设置 ContentLength，否则 OSS 可能会报错或需要缓存整个流
-            // 这里我们不强制设置 ContentLength，但如果可以获取到最好设置
-            // metadata.setContentLength(size); 
-            // 简单起见，不设置长度，OSS SDK 会自动处理（可能会缓存）
+            // 已知长度时设置 ContentLength，SDK 可直接边读边传；未知长度时 SDK 可能会缓存整个流
+            if (contentLength >= 0) {
+                metadata.setContentLength(contentLength);
+            }
 
             // 创建上传请求
             PutObjectRequest putObjectRequest = new PutObjectRequest(
@@ -121,27 +142,14 @@ public class AliOssServiceImpl implements FileStorageService {
             // 执行上传
             ossClient.putObject(putObjectRequest);
 
-            // 构建文件访问URL
-            String fileUrl;
-            if (domain != null && !domain.isEmpty()) {
-                // 使用自定义域名
-                if (domain.endsWith("/")) {
-                    fileUrl = domain + objectKey;
-                } else {
-                    fileUrl = domain + "/" + objectKey;
-                }
-            } else {
-                // 使用默认域名
-                // 格式：https://bucket-name.endpoint/object-key
-                fileUrl = String.format("https://%s.%s/%s", bucketName, endpoint, objectKey);
-            }
+            String fileUrl = buildFileUrl(objectKey);
 
             log.info("文件上传成功：{} -> {}", fileName, fileUrl);
             return fileUrl;
 
         } catch (OSSException e) {
             log.error("阿里云OSS上传失败：{}", e.getMessage(), e);
-            throw new Exception("文件上传失败：" + e.getMessage(), e);
+            throw failure("文件上传失败", e);
         } catch (Exception e) {
             log.error("阿里云OSS上传失败：{}", e.getMessage(), e);
             throw new Exception("文件上传失败：" + e.getMessage(), e);
@@ -170,7 +178,142 @@ public class AliOssServiceImpl implements FileStorageService {
         }
         String fileName = UUID.randomUUID().toString().replace("-", "") + extension;
         
-        return upload(file.getInputStream(), folder, fileName);
+        return upload(file.getInputStream(), folder, fileName, file.getSize());
+    }
+
+    /**
+     * 根据对象键构建访问URL
+     */
+    @Override
+    public String buildFileUrl(String objectKey) {
+        String path = FileStorageService.encodeObjectKey(objectKey);
+        if (domain != null && !domain.isEmpty()) {
+            // 使用自定义域名
+            if (domain.endsWith("/")) {
+                return domain + path;
+            } else {
+                return domain + "/" + path;
+            }
+        } else {
+            // 使用默认域名
+            // 格式：https://bucket-name.endpoint/object-key
+            return String.format("https://%s.%s/%s", bucketName, endpoint, path);
+        }
+    }
+
+    @Override
+    public void delete(String objectKey) throws Exception {
+        try {
+            ossClient.deleteObject(bucketName, objectKey);
+            log.info("文件删除成功：{}", objectKey);
+        } catch (OSSException e) {
+            log.error("阿里云OSS删除文件失败：{}", e.getMessage(), e);
+            throw failure("文件删除失败", e);
+        }
+    }
+
+    @Override
+    public InputStream download(String objectKey) throws Exception {
+        try {
+            return ossClient.getObject(bucketName, objectKey).getObjectContent();
+        } catch (OSSException e) {
+            log.error("阿里云OSS读取文件失败：{}", e.getMessage(), e);
+            throw failure("文件读取失败", e);
+        }
+    }
+
+    @Override
+    public String presignDownload(String objectKey, Duration expiry) {
+        return ossClient.generatePresignedUrl(bucketName, objectKey,
+                new Date(System.currentTimeMillis() + expiry.toMillis())).toString();
+    }
+
+    @Override
+    public boolean supportsMultipartUpload() {
+        return true;
     }
-}
 
+    @Override
+    public String initiateMultipartUpload(String objectKey, String contentType) throws Exception {
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, objectKey);
+        if (contentType != null && !contentType.isEmpty()) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            request.setObjectMetadata(metadata);
+        }
+        try {
+            return ossClient.initiateMultipartUpload(request).getUploadId();
+        } catch (OSSException e) {
+            log.error("阿里云OSS初始化分片上传失败：{}", e.getMessage(), e);
+            throw failure("初始化分片上传失败", e);
+        }
+    }
+
+    @Override
+    public String presignUploadPart(String objectKey, String uploadId, int partNumber, Duration expiry) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, objectKey, HttpMethod.PUT);
+        request.setExpiration(new Date(System.currentTimeMillis() + expiry.toMillis()));
+        request.addQueryParameter("partNumber", String.valueOf(partNumber));
+        request.addQueryParameter("uploadId", uploadId);
+        return ossClient.generatePresignedUrl(request).toString();
+    }
+
+    @Override
+    public List<UploadedPart> listParts(String objectKey, String uploadId) throws Exception {
+        List<UploadedPart> parts = new ArrayList<>();
+        ListPartsRequest request = new ListPartsRequest(bucketName, objectKey, uploadId);
+        try {
+            PartListing listing;
+            do {
+                listing = ossClient.listParts(request);
+                for (PartSummary part : listing.getParts()) {
+                    parts.add(new UploadedPart(part.getPartNumber(), part.getETag(), part.getSize()));
+                }
+                request.setPartNumberMarker(listing.getNextPartNumberMarker());
+            } while (listing.isTruncated());
+        } catch (OSSException e) {
+            log.error("阿里云OSS查询分片失败：{}", e.getMessage(), e);
+            throw failure("查询已上传分片失败", e);
+        }
+        return parts;
+    }
+
+    @Override
+    public String completeMultipartUpload(String objectKey, String uploadId, List<UploadedPart> parts) throws Exception {
+        List<PartETag> partETags = parts.stream()
+                .map(part -> new PartETag(part.partNumber(), part.etag()))
+                .collect(Collectors.toList());
+        try {
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, partETags));
+        } catch (OSSException e) {
+            log.error("阿里云OSS合并分片失败：{}", e.getMessage(), e);
+            throw failure("合并分片失败", e);
+        }
+        String fileUrl = buildFileUrl(objectKey);
+        log.info("分片直传完成：{} -> {}", objectKey, fileUrl);
+        return fileUrl;
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectKey, String uploadId) throws Exception {
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, uploadId));
+        } catch (OSSException e) {
+            log.error("阿里云OSS取消分片上传失败：{}", e.getMessage(), e);
+            throw failure("取消分片上传失败", e);
+        }
+    }
+
+    /**
+     * 包装OSS异常：对象或分片上传不存在、分片或参数错误等由请求引起的错误不计入存储故障
+     */
+    private static Exception failure(String action, OSSException e) {
+        String message = action + "：" + e.getMessage();
+        String code = e.getErrorCode();
+        if (code != null && ((code.startsWith("NoSuch") && !"NoSuchBucket".equals(code))
+                || code.startsWith("InvalidPart") || "InvalidArgument".equals(code) || code.startsWith("EntityToo"))) {
+            return new ClientRequestException(message, e);
+        }
+        return new Exception(message, e);
+    }
+}
@@ -0,0 +1,425 @@
+package com.meitou.admin.storage.impl;
+
+import com.meitou.admin.resilience.ClientRequestException;
+import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.storage.UploadedPart;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 本地文件系统存储服务实现类
+ * 用于单机部署、开发和离线测试，文件保存在 file.storage.local.root 下，由 LocalFileController 对外提供访问；
+ * 文件之间的复制（本地文件上传、分片合并）使用 FileChannel.transferTo 零拷贝，写入先落临时文件再原子移动，
+ * 读者不会看到写了一半的文件
+ *
+ * 使用 @ConditionalOnProperty 注解，只有当配置文件中 file.storage.type=local 时才会启用
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local", matchIfMissing = false)
+public class LocalFileStorageServiceImpl implements FileStorageService {
+
+    /**
+     * 分片上传暂存目录（位于存储根目录下）
+     */
+    private static final String MULTIPART_DIR = ".multipart";
+
+    /**
+     * 分片上传的对象键记录文件
+     */
+    private static final String MULTIPART_KEY_FILE = "object.key";
+
+    /**
+     * 预签名分片上传的URL路径
+     */
+    public static final String MULTIPART_PATH = "_multipart";
+
+    /**
+     * 存储根目录
+     */
+    @Value("${file.storage.local.root:uploads}")
+    private String root;
+
+    /**
+     * 文件访问地址前缀（LocalFileController 的访问路径）
+     */
+    @Value("${file.storage.local.base-url:http://localhost:8080/api/app/files}")
+    private String baseUrl;
+
+    /**
+     * 预签名URL的签名密钥（为空时启动时随机生成，重启后已签发的URL失效）
+     */
+    @Value("${file.storage.local.secret:}")
+    private String secret;
+
+    private Path rootPath;
+
+    private byte[] secretKey;
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootPath = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(rootPath.resolve(MULTIPART_DIR));
+        if (secret == null || secret.isEmpty()) {
+            secretKey = new byte[32];
+            new SecureRandom().nextBytes(secretKey);
+            log.warn("未配置 file.storage.local.secret，使用随机密钥，重启后已签发的预签名URL失效");
+        } else {
+            secretKey = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        if (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        log.info("本地文件存储初始化成功，根目录：{}", rootPath);
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String folder, String fileName) throws Exception {
+        return upload(inputStream, folder, fileName, -1);
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String folder, String fileName, long contentLength) throws Exception {
+        String objectKey = FileStorageService.buildObjectKey(folder, fileName);
+        Path target = resolve(objectKey);
+        Path temp = createTempFile(target);
+        try {
+            Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            commit(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("文件上传成功：{} -> {}", fileName, objectKey);
+        return buildFileUrl(objectKey);
+    }
+
+    @Override
+    public String upload(Path file, String folder, String fileName) throws Exception {
+        String objectKey = FileStorageService.buildObjectKey(folder, fileName);
+        Path target = resolve(objectKey);
+        Path temp = createTempFile(target);
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                transferAll(in, out);
+            }
+            commit(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("文件上传成功：{} -> {}", file, objectKey);
+        return buildFileUrl(objectKey);
+    }
+
+    @Override
+    public String upload(MultipartFile file, String folder) throws Exception {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+
+        // 生成唯一文件名
+        String originalFilename = file.getOriginalFilename();
+        String extension = "";
+        if (originalFilename != null && originalFilename.contains(".")) {
+            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        String fileName = UUID.randomUUID().toString().replace("-", "") + extension;
+        String objectKey = FileStorageService.buildObjectKey(folder, fileName);
+        Path target = resolve(objectKey);
+        Path temp = createTempFile(target);
+        try {
+            // 上传文件已落盘到容器临时目录时，transferTo 直接移动文件而不是复制
+            Files.delete(temp);
+            file.transferTo(temp);
+            commit(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("文件上传成功：{} -> {}", originalFilename, objectKey);
+        return buildFileUrl(objectKey);
+    }
+
+    @Override
+    public String buildFileUrl(String objectKey) {
+        return baseUrl + "/" + FileStorageService.encodeObjectKey(objectKey);
+    }
+
+    @Override
+    public void delete(String objectKey) throws Exception {
+        Files.deleteIfExists(resolve(objectKey));
+        log.info("文件删除成功：{}", objectKey);
+    }
+
+    @Override
+    public InputStream download(String objectKey) throws Exception {
+        try {
+            return Files.newInputStream(resolve(objectKey));
+        } catch (NoSuchFileException e) {
+            throw new ClientRequestException("文件不存在：" + objectKey, e);
+        }
+    }
+
+    @Override
+    public String presignDownload(String objectKey, Duration expiry) {
+        long expires = System.currentTimeMillis() / 1000 + expiry.toSeconds();
+        return buildFileUrl(objectKey) + "?expires=" + expires
+                + "&signature=" + sign("GET", objectKey, String.valueOf(expires));
+    }
+
+    /**
+     * 解析对象键对应的本地文件（供 LocalFileController 读取）
+     */
+    public Path resolveFile(String objectKey) {
+        return resolve(objectKey);
+    }
+
+    // ==================== 分片直传 ====================
+    // 预签名URL指向 LocalFileController 的分片上传接口，分片暂存在 .multipart/{uploadId}/ 下
+
+    @Override
+    public boolean supportsMultipartUpload() {
+        return true;
+    }
+
+    @Override
+    public String initiateMultipartUpload(String objectKey, String contentType) throws Exception {
+        // 提前校验对象键，避免合并时才发现非法路径
+        resolve(objectKey);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path dir = Files.createDirectories(multipartDir(uploadId));
+        Files.writeString(dir.resolve(MULTIPART_KEY_FILE), objectKey);
+        return uploadId;
+    }
+
+    @Override
+    public String presignUploadPart(String objectKey, String uploadId, int partNumber, Duration expiry) {
+        long expires = System.currentTimeMillis() / 1000 + expiry.toSeconds();
+        return baseUrl + "/" + MULTIPART_PATH + "/" + uploadId + "/" + partNumber
+                + "?expires=" + expires
+                + "&signature=" + sign("PUT", uploadId, String.valueOf(partNumber), String.valueOf(expires));
+    }
+
+    /**
+     * 写入一个分片（同一分片重复上传时覆盖），ETag 为分片内容的 MD5
+     *
+     * @param uploadId 分片上传ID
+     * @param partNumber 分片序号（从 1 开始）
+     * @param inputStream 分片内容
+     * @return 已上传的分片
+     */
+    public UploadedPart writePart(String uploadId, int partNumber, InputStream inputStream) throws Exception {
+        if (partNumber < 1) {
+            throw new IllegalArgumentException("分片序号必须从 1 开始");
+        }
+        Path dir = multipartDir(uploadId);
+        if (!Files.exists(dir.resolve(MULTIPART_KEY_FILE))) {
+            throw new ClientRequestException("分片上传不存在或已结束：" + uploadId);
+        }
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        Path temp = Files.createTempFile(dir, ".part-", ".tmp");
+        try {
+            try (InputStream in = new DigestInputStream(inputStream, md5)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String etag = HexFormat.of().formatHex(md5.digest());
+            long size = Files.size(temp);
+            for (Path old : partFiles(dir, partNumber)) {
+                Files.deleteIfExists(old);
+            }
+            Files.move(temp, dir.resolve(partNumber + "-" + etag + ".part"), StandardCopyOption.ATOMIC_MOVE);
+            return new UploadedPart(partNumber, etag, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public List<UploadedPart> listParts(String objectKey, String uploadId) throws Exception {
+        Path dir = multipartDir(uploadId);
+        if (!Files.isDirectory(dir)) {
+            throw new ClientRequestException("分片上传不存在或已结束：" + uploadId);
+        }
+        List<UploadedPart> parts = new ArrayList<>();
+        for (Path file : partFiles(dir, null)) {
+            String name = file.getFileName().toString();
+            int dash = name.indexOf('-');
+            parts.add(new UploadedPart(
+                    Integer.parseInt(name.substring(0, dash)),
+                    name.substring(dash + 1, name.length() - ".part".length()),
+                    Files.size(file)));
+        }
+        parts.sort(Comparator.comparingInt(UploadedPart::partNumber));
+        return parts;
+    }
+
+    @Override
+    public String completeMultipartUpload(String objectKey, String uploadId, List<UploadedPart> parts) throws Exception {
+        Path dir = multipartDir(uploadId);
+        Map<Integer, UploadedPart> uploaded = listParts(objectKey, uploadId).stream()
+                .collect(Collectors.toMap(UploadedPart::partNumber, Function.identity()));
+        Path target = resolve(objectKey);
+        Path temp = createTempFile(target);
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (UploadedPart part : parts) {
+                    UploadedPart actual = uploaded.get(part.partNumber());
+                    if (actual == null || !actual.etag().equals(part.etag())) {
+                        throw new ClientRequestException("分片 " + part.partNumber() + " 不存在或内容已变更");
+                    }
+                    Path partFile = dir.resolve(actual.partNumber() + "-" + actual.etag() + ".part");
+                    try (FileChannel in = FileChannel.open(partFile, StandardOpenOption.READ)) {
+                        transferAll(in, out);
+                    }
+                }
+            }
+            commit(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        deleteRecursively(dir);
+        String fileUrl = buildFileUrl(objectKey);
+        log.info("分片直传完成：{} -> {}", objectKey, fileUrl);
+        return fileUrl;
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectKey, String uploadId) throws Exception {
+        deleteRecursively(multipartDir(uploadId));
+    }
+
+    /**
+     * 校验预签名URL
+     *
+     * @param expires 过期时间（秒级时间戳）
+     * @param signature 签名
+     * @param parts 参与签名的内容（请求方法、对象键等）
+     * @return 签名有效且未过期时返回 true
+     */
+    public boolean verifySignature(long expires, String signature, String... parts) {
+        if (signature == null || expires < System.currentTimeMillis() / 1000) {
+            return false;
+        }
+        String[] signed = new String[parts.length + 1];
+        System.arraycopy(parts, 0, signed, 0, parts.length);
+        signed[parts.length] = String.valueOf(expires);
+        return MessageDigest.isEqual(
+                sign(signed).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String sign(String... parts) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secretKey, "HmacSHA256"));
+            byte[] digest = mac.doFinal(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("生成签名失败", e);
+        }
+    }
+
+    /**
+     * 解析对象键，拒绝跳出根目录的路径
+     */
+    private Path resolve(String objectKey) {
+        if (objectKey == null || objectKey.isEmpty()) {
+            throw new IllegalArgumentException("对象键不能为空");
+        }
+        Path path = rootPath.resolve(objectKey).normalize();
+        if (!path.startsWith(rootPath) || path.equals(rootPath) || path.startsWith(rootPath.resolve(MULTIPART_DIR))) {
+            throw new IllegalArgumentException("非法的对象键：" + objectKey);
+        }
+        return path;
+    }
+
+    private Path multipartDir(String uploadId) {
+        if (uploadId == null || !uploadId.matches("[0-9a-f]{32}")) {
+            throw new IllegalArgumentException("非法的分片上传ID：" + uploadId);
+        }
+        return rootPath.resolve(MULTIPART_DIR).resolve(uploadId);
+    }
+
+    private static List<Path> partFiles(Path dir, Integer partNumber) throws IOException {
+        String glob = (partNumber == null ? "*" : partNumber.toString()) + "-*.part";
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * 在目标文件所在目录创建临时文件（同一文件系统，保证可以原子移动）
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+    }
+
+    private static void commit(Path temp, Path target) throws IOException {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 零拷贝复制整个文件（transferTo 单次调用可能只传输部分字节）
+     */
+    private static void transferAll(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            position += in.transferTo(position, size - position, out);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
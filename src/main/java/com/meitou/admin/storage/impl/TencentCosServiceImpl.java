@@ -1,13 +1,25 @@
 package com.meitou.admin.storage.impl;
 
+import com.meitou.admin.resilience.ClientRequestException;
 import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.storage.UploadedPart;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.auth.BasicCOSCredentials;
 import com.qcloud.cos.auth.COSCredentials;
 import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.http.HttpMethodName;
 import com.qcloud.cos.http.HttpProtocol;
+import com.qcloud.cos.model.AbortMultipartUploadRequest;
+import com.qcloud.cos.model.CompleteMultipartUploadRequest;
+import com.qcloud.cos.model.GeneratePresignedUrlRequest;
+import com.qcloud.cos.model.InitiateMultipartUploadRequest;
+import com.qcloud.cos.model.ListPartsRequest;
 import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PartETag;
+import com.qcloud.cos.model.PartListing;
+import com.qcloud.cos.model.PartSummary;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.region.Region;
 import lombok.extern.slf4j.Slf4j;
@@ -19,7 +31,12 @@ import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * 腾讯云COS文件存储服务实现类
@@ -103,6 +120,11 @@ public class TencentCosServiceImpl implements FileStorageService {
     
     @Override
     public String upload(InputStream inputStream, String folder, String fileName) throws Exception {
+        return upload(inputStream, folder, fileName, -1);
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String folder, String fileName, long contentLength) throws Exception {
         // 构建对象键（文件路径）
         String objectKey;
         if (folder != null && !folder.isEmpty()) {
@@ -118,9 +140,10 @@ public class TencentCosServiceImpl implements FileStorageService {
         try {
             // 设置对象元数据
             ObjectMetadata metadata = new ObjectMetadata();
-            // 腾讯云COS可能需要ContentLength，如果不设置可能会有警告或问题，
-            // 但如果流不可重复读且未设置长度，SDK可能会缓存流。
-            // 这里为了通用性暂不设置长度。
+            // 已知长度时设置 ContentLength，SDK 可直接边读边传；未知长度时 SDK 可能会缓存整个流
+            if (contentLength >= 0) {
+                metadata.setContentLength(contentLength);
+            }
 
             // 创建上传请求
             PutObjectRequest putObjectRequest = new PutObjectRequest(
@@ -133,27 +156,14 @@ public class TencentCosServiceImpl implements FileStorageService {
             // 执行上传
             cosClient.putObject(putObjectRequest);
 
-            // 构建文件访问URL
-            String fileUrl;
-            if (domain != null && !domain.isEmpty()) {
-                // 使用自定义域名
-                if (domain.endsWith("/")) {
-                    fileUrl = domain + objectKey;
-                } else {
-                    fileUrl = domain + "/" + objectKey;
-                }
-            } else {
-                // 使用默认域名
-                fileUrl = String.format("https://%s.cos.%s.myqcloud.com/%s", 
-                        bucketName, region, objectKey);
-            }
+            String fileUrl = buildFileUrl(objectKey);
 
             log.info("文件上传成功：{} -> {}", fileName, fileUrl);
             return fileUrl;
 
         } catch (CosClientException e) {
             log.error("腾讯云COS上传失败：{}", e.getMessage(), e);
-            throw new Exception("文件上传失败：" + e.getMessage(), e);
+            throw failure("文件上传失败", e);
         }
     }
 
@@ -179,7 +189,143 @@ public class TencentCosServiceImpl implements FileStorageService {
         }
         String fileName = UUID.randomUUID().toString().replace("-", "") + extension;
         
-        return upload(file.getInputStream(), folder, fileName);
+        return upload(file.getInputStream(), folder, fileName, file.getSize());
+    }
+
+    /**
+     * 根据对象键构建访问URL
+     */
+    @Override
+    public String buildFileUrl(String objectKey) {
+        String path = FileStorageService.encodeObjectKey(objectKey);
+        if (domain != null && !domain.isEmpty()) {
+            // 使用自定义域名
+            if (domain.endsWith("/")) {
+                return domain + path;
+            } else {
+                return domain + "/" + path;
+            }
+        } else {
+            // 使用默认域名
+            return String.format("https://%s.cos.%s.myqcloud.com/%s", 
+                    bucketName, region, path);
+        }
+    }
+
+    @Override
+    public void delete(String objectKey) throws Exception {
+        try {
+            cosClient.deleteObject(bucketName, objectKey);
+            log.info("文件删除成功：{}", objectKey);
+        } catch (CosClientException e) {
+            log.error("腾讯云COS删除文件失败：{}", e.getMessage(), e);
+            throw failure("文件删除失败", e);
+        }
+    }
+
+    @Override
+    public InputStream download(String objectKey) throws Exception {
+        try {
+            return cosClient.getObject(bucketName, objectKey).getObjectContent();
+        } catch (CosClientException e) {
+            log.error("腾讯云COS读取文件失败：{}", e.getMessage(), e);
+            throw failure("文件读取失败", e);
+        }
+    }
+
+    @Override
+    public String presignDownload(String objectKey, Duration expiry) {
+        return cosClient.generatePresignedUrl(bucketName, objectKey,
+                new Date(System.currentTimeMillis() + expiry.toMillis()), HttpMethodName.GET).toString();
+    }
+
+    @Override
+    public boolean supportsMultipartUpload() {
+        return true;
     }
-}
 
+    @Override
+    public String initiateMultipartUpload(String objectKey, String contentType) throws Exception {
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null && !contentType.isEmpty()) {
+            metadata.setContentType(contentType);
+        }
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, objectKey, metadata);
+        try {
+            return cosClient.initiateMultipartUpload(request).getUploadId();
+        } catch (CosClientException e) {
+            log.error("腾讯云COS初始化分片上传失败：{}", e.getMessage(), e);
+            throw failure("初始化分片上传失败", e);
+        }
+    }
+
+    @Override
+    public String presignUploadPart(String objectKey, String uploadId, int partNumber, Duration expiry) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, objectKey, HttpMethodName.PUT);
+        request.setExpiration(new Date(System.currentTimeMillis() + expiry.toMillis()));
+        request.addRequestParameter("partNumber", String.valueOf(partNumber));
+        request.addRequestParameter("uploadId", uploadId);
+        return cosClient.generatePresignedUrl(request).toString();
+    }
+
+    @Override
+    public List<UploadedPart> listParts(String objectKey, String uploadId) throws Exception {
+        List<UploadedPart> parts = new ArrayList<>();
+        ListPartsRequest request = new ListPartsRequest(bucketName, objectKey, uploadId);
+        try {
+            PartListing listing;
+            do {
+                listing = cosClient.listParts(request);
+                for (PartSummary part : listing.getParts()) {
+                    parts.add(new UploadedPart(part.getPartNumber(), part.getETag(), part.getSize()));
+                }
+                request.setPartNumberMarker(listing.getNextPartNumberMarker());
+            } while (listing.isTruncated());
+        } catch (CosClientException e) {
+            log.error("腾讯云COS查询分片失败：{}", e.getMessage(), e);
+            throw failure("查询已上传分片失败", e);
+        }
+        return parts;
+    }
+
+    @Override
+    public String completeMultipartUpload(String objectKey, String uploadId, List<UploadedPart> parts) throws Exception {
+        List<PartETag> partETags = parts.stream()
+                .map(part -> new PartETag(part.partNumber(), part.etag()))
+                .collect(Collectors.toList());
+        try {
+            cosClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, partETags));
+        } catch (CosClientException e) {
+            log.error("腾讯云COS合并分片失败：{}", e.getMessage(), e);
+            throw failure("合并分片失败", e);
+        }
+        String fileUrl = buildFileUrl(objectKey);
+        log.info("分片直传完成：{} -> {}", objectKey, fileUrl);
+        return fileUrl;
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectKey, String uploadId) throws Exception {
+        try {
+            cosClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, uploadId));
+        } catch (CosClientException e) {
+            log.error("腾讯云COS取消分片上传失败：{}", e.getMessage(), e);
+            throw failure("取消分片上传失败", e);
+        }
+    }
+
+    /**
+     * 包装COS异常：服务端返回的 4xx（对象或分片上传不存在、参数错误等）由请求引起，不计入存储故障；
+     * 403（密钥或权限配置错误）和 408/429（过载）仍计入
+     */
+    private static Exception failure(String action, CosClientException e) {
+        String message = action + "：" + e.getMessage();
+        if (e instanceof CosServiceException se) {
+            int status = se.getStatusCode();
+            if (status >= 400 && status < 500 && status != 403 && status != 408 && status != 429) {
+                return new ClientRequestException(message, e);
+            }
+        }
+        return new Exception(message, e);
+    }
+}
@@ -0,0 +1,262 @@
+package com.meitou.admin.task;
+
+import com.meitou.admin.entity.GenerationRecord;
+import com.meitou.admin.entity.User;
+import com.meitou.admin.entity.UserTransaction;
+import com.meitou.admin.mapper.StatRollupMapper;
+import com.meitou.admin.util.HyperLogLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 数据概览增量汇总定时任务
+ * 从各数据源（流水、用户、生成记录）的水位（已汇总的最大自增ID）之后增量读取新数据，
+ * 累加到 stat_daily_site / stat_daily_user_consumption / stat_daily_generation 汇总表，
+ * 数据概览直接读取汇总表，耗时不再随流水表规模增长
+ *
+ * 说明：
+ * 1. 首次运行时水位为 0，会分批回填全部历史数据
+ * 2. 只汇总创建时间早于 (当前时间 - safetyLagSeconds) 的数据，避免跳过尚未提交的较小ID
+ * 3. 汇总写入与水位推进在同一事务中，水位用 CAS 推进，多实例并发执行时只有一个实例生效
+ * 4. 每日消耗用户同时写入 HyperLogLog 草图（stat_daily_consumer_sketch），任意日期范围的活跃用户数可合并草图估算
+ * 5. 创建时间为空的数据无法归入日期，跳过但水位照常推进，避免汇总卡在这一行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardRollupTask {
+
+    static final String SOURCE_TRANSACTIONS = "user_transactions";
+    static final String SOURCE_USERS = "users";
+    static final String SOURCE_GENERATIONS = "generation_records";
+
+    private final StatRollupMapper statRollupMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${dashboard.rollup.batchSize:2000}")
+    private int batchSize;
+
+    @Value("${dashboard.rollup.maxBatchesPerRun:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${dashboard.rollup.safetyLagSeconds:60}")
+    private long safetyLagSeconds;
+
+    @Scheduled(fixedDelayString = "${dashboard.rollup.fixedDelayMs:60000}")
+    public void rollup() {
+        rollupSource(SOURCE_TRANSACTIONS, this::rollupTransactions);
+        rollupSource(SOURCE_USERS, this::rollupUsers);
+        rollupSource(SOURCE_GENERATIONS, this::rollupGenerations);
+    }
+
+    /**
+     * 循环汇总某个数据源，直到追平或达到单次上限
+     */
+    private void rollupSource(String source, BatchProcessor processor) {
+        try {
+            statRollupMapper.initWatermark(source);
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                LocalDateTime cutoff = LocalDateTime.now().minusSeconds(safetyLagSeconds);
+                Integer processed = transactionTemplate.execute(status -> {
+                    Long lastId = statRollupMapper.selectWatermark(source);
+                    long from = lastId == null ? 0 : lastId;
+                    long next = processor.process(from, cutoff);
+                    if (next == from) {
+                        return 0;
+                    }
+                    if (statRollupMapper.advanceWatermark(source, from, next) == 0) {
+                        // 其他实例已推进水位，回滚本批次
+                        status.setRollbackOnly();
+                        return 0;
+                    }
+                    return 1;
+                });
+                if (processed == null || processed == 0) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("数据概览汇总失败 source={}: {}", source, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 汇总流水：消耗、充值、退款，以及用户每日消耗
+     */
+    private long rollupTransactions(long lastId, LocalDateTime cutoff) {
+        List<UserTransaction> rows = truncateAtCutoff(
+                statRollupMapper.selectTransactionsAfter(lastId, batchSize), UserTransaction::getCreatedAt, cutoff);
+        if (rows.isEmpty()) {
+            return lastId;
+        }
+
+        Map<String, Map<String, Object>> siteRows = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> userRows = new LinkedHashMap<>();
+        for (UserTransaction tx : rows) {
+            if (tx.getSiteId() == null || tx.getType() == null || tx.getCreatedAt() == null) {
+                continue;
+            }
+            LocalDate day = tx.getCreatedAt().toLocalDate();
+            long amount = tx.getAmount() == null ? 0 : tx.getAmount();
+            Map<String, Object> site = siteRow(siteRows, tx.getSiteId(), day);
+            switch (tx.getType()) {
+                case "CONSUME" -> {
+                    add(site, "consumption", Math.abs(amount));
+                    Map<String, Object> user = userRows.computeIfAbsent(tx.getSiteId() + "_" + day + "_" + tx.getUserId(), k -> {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("siteId", tx.getSiteId());
+                        row.put("statDate", day);
+                        row.put("userId", tx.getUserId());
+                        row.put("consumption", 0L);
+                        return row;
+                    });
+                    add(user, "consumption", Math.abs(amount));
+                }
+                case "RECHARGE" -> add(site, "recharge", amount);
+                case "REFUND" -> add(site, "refunds", Math.abs(amount));
+                default -> {
+                }
+            }
+        }
+
+        if (!siteRows.isEmpty()) {
+            statRollupMapper.upsertDailySite(new ArrayList<>(siteRows.values()));
+        }
+        if (!userRows.isEmpty()) {
+            statRollupMapper.upsertDailyUserConsumption(new ArrayList<>(userRows.values()));
+            Map<Map.Entry<Long, LocalDate>, List<Long>> usersByDay = new LinkedHashMap<>();
+            for (Map<String, Object> row : userRows.values()) {
+                usersByDay.computeIfAbsent(Map.entry((Long) row.get("siteId"), (LocalDate) row.get("statDate")), k -> new ArrayList<>())
+                        .add((Long) row.get("userId"));
+            }
+            usersByDay.forEach((key, userIds) -> {
+                statRollupMapper.refreshActiveConsumers(key.getKey(), key.getValue());
+                updateConsumerSketch(key.getKey(), key.getValue(), userIds);
+            });
+        }
+        return rows.get(rows.size() - 1).getId();
+    }
+
+    /**
+     * 把当天新出现的消耗用户加入 (站点, 日期) 的 HyperLogLog 草图（重复加入同一用户不影响结果）
+     */
+    private void updateConsumerSketch(Long siteId, LocalDate day, List<Long> userIds) {
+        Map<String, Object> existing = statRollupMapper.selectConsumerSketch(siteId, day);
+        HyperLogLog sketch = existing != null && existing.get("sketch") instanceof byte[] bytes
+                ? HyperLogLog.fromBytes(bytes)
+                : new HyperLogLog();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                sketch.add(userId);
+            }
+        }
+        statRollupMapper.upsertConsumerSketch(siteId, day, sketch.toBytes());
+    }
+
+    /**
+     * 汇总新增用户
+     */
+    private long rollupUsers(long lastId, LocalDateTime cutoff) {
+        List<User> rows = truncateAtCutoff(
+                statRollupMapper.selectUsersAfter(lastId, batchSize), User::getCreatedAt, cutoff);
+        if (rows.isEmpty()) {
+            return lastId;
+        }
+        Map<String, Map<String, Object>> siteRows = new LinkedHashMap<>();
+        for (User user : rows) {
+            if (user.getSiteId() != null && user.getCreatedAt() != null) {
+                add(siteRow(siteRows, user.getSiteId(), user.getCreatedAt().toLocalDate()), "newUsers", 1);
+            }
+        }
+        if (!siteRows.isEmpty()) {
+            statRollupMapper.upsertDailySite(new ArrayList<>(siteRows.values()));
+        }
+        return rows.get(rows.size() - 1).getId();
+    }
+
+    /**
+     * 汇总各类型生成任务数
+     */
+    private long rollupGenerations(long lastId, LocalDateTime cutoff) {
+        List<GenerationRecord> rows = truncateAtCutoff(
+                statRollupMapper.selectGenerationsAfter(lastId, batchSize), GenerationRecord::getCreatedAt, cutoff);
+        if (rows.isEmpty()) {
+            return lastId;
+        }
+        Map<String, Map<String, Object>> generationRows = new LinkedHashMap<>();
+        for (GenerationRecord record : rows) {
+            if (record.getSiteId() == null || record.getType() == null || record.getCreatedAt() == null) {
+                continue;
+            }
+            LocalDate day = record.getCreatedAt().toLocalDate();
+            Map<String, Object> row = generationRows.computeIfAbsent(record.getSiteId() + "_" + day + "_" + record.getType(), k -> {
+                Map<String, Object> r = new HashMap<>();
+                r.put("siteId", record.getSiteId());
+                r.put("statDate", day);
+                r.put("generationType", record.getType());
+                r.put("generationCount", 0L);
+                return r;
+            });
+            add(row, "generationCount", 1);
+        }
+        if (!generationRows.isEmpty()) {
+            statRollupMapper.upsertDailyGeneration(new ArrayList<>(generationRows.values()));
+        }
+        return rows.get(rows.size() - 1).getId();
+    }
+
+    /**
+     * 截断到第一条创建时间不早于 cutoff 的记录（之后的记录留到下一轮，保证水位之前的数据都已提交）；
+     * 创建时间为空的记录保留在批次中，由调用方跳过
+     */
+    private <T> List<T> truncateAtCutoff(List<T> rows, Function<T, LocalDateTime> createdAt, LocalDateTime cutoff) {
+        for (int i = 0; i < rows.size(); i++) {
+            LocalDateTime time = createdAt.apply(rows.get(i));
+            if (time != null && !time.isBefore(cutoff)) {
+                return rows.subList(0, i);
+            }
+        }
+        return rows;
+    }
+
+    private Map<String, Object> siteRow(Map<String, Map<String, Object>> siteRows, Long siteId, LocalDate day) {
+        return siteRows.computeIfAbsent(siteId + "_" + day, k -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("siteId", siteId);
+            row.put("statDate", day);
+            row.put("newUsers", 0L);
+            row.put("consumption", 0L);
+            row.put("recharge", 0L);
+            row.put("refunds", 0L);
+            return row;
+        });
+    }
+
+    private void add(Map<String, Object> row, String key, long delta) {
+        row.put(key, ((Number) Objects.requireNonNullElse(row.get(key), 0L)).longValue() + delta);
+    }
+
+    @FunctionalInterface
+    private interface BatchProcessor {
+        /**
+         * 处理 lastId 之后的一批数据
+         *
+         * @return 新的水位（没有可处理的数据时返回 lastId）
+         */
+        long process(long lastId, LocalDateTime cutoff);
+    }
+}
@@ -53,7 +53,7 @@ public class GenerationCleanupTask {
             if (record.getSiteId() == null) {
                 continue;
             }
-            runWithSiteContext(record.getSiteId(), () -> {
+            SiteContext.runWith(record.getSiteId(), () -> {
                 try {
                     generationService.getTaskStatus(record.getId());
                 } catch (Exception e) {
@@ -80,7 +80,7 @@ public class GenerationCleanupTask {
                 if (record.getSiteId() == null) {
                     continue;
                 }
-                runWithSiteContext(record.getSiteId(), () -> processStuckRecord(record));
+                SiteContext.runWith(record.getSiteId(), () -> processStuckRecord(record));
             } catch (Exception e) {
                 log.error("处理卡死任务失败 ID={}: {}", record.getId(), e.getMessage());
             }
@@ -125,18 +125,4 @@ public class GenerationCleanupTask {
             return null;
         });
     }
-
-    private void runWithSiteContext(Long siteId, Runnable runnable) {
-        Long originalSiteId = SiteContext.getSiteId();
-        try {
-            SiteContext.setSiteId(siteId);
-            runnable.run();
-        } finally {
-            if (originalSiteId == null) {
-                SiteContext.clear();
-            } else {
-                SiteContext.setSiteId(originalSiteId);
-            }
-        }
-    }
 }
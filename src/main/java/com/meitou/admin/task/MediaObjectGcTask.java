@@ -0,0 +1,92 @@
+package com.meitou.admin.task;
+
+import com.meitou.admin.entity.MediaObject;
+import com.meitou.admin.mapper.MediaObjectMapper;
+import com.meitou.admin.service.common.MediaDedupService;
+import com.meitou.admin.storage.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 媒体对象清理定时任务
+ * 删除引用计数为 0 且超过保留期的去重文件
+ *
+ * 默认关闭：业务表均为逻辑删除，且历史数据中的URL可能在索引建立前已被其他记录引用，
+ * 确认引用关系完整后再通过 media.dedup.gc.enabled 开启
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MediaObjectGcTask {
+
+    private final MediaObjectMapper mediaObjectMapper;
+    private final FileStorageService fileStorageService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${media.dedup.gc.enabled:false}")
+    private boolean enabled;
+
+    @Value("${media.dedup.gc.graceHours:72}")
+    private long graceHours;
+
+    @Value("${media.dedup.gc.batchSize:100}")
+    private int batchSize;
+
+    @Value("${file.storage.type:}")
+    private String storageType;
+
+    @Scheduled(fixedDelayString = "${media.dedup.gc.fixedDelayMs:3600000}")
+    public void collect() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusHours(graceHours);
+        List<MediaObject> candidates = new ArrayList<>(
+                mediaObjectMapper.selectUnreferenced(MediaDedupService.STORAGE_FILE, before, batchSize));
+        // 历史上生成结果固定转存到 file.storage.aliyun 配置的 bucket，仅当当前存储就是该 bucket 时才能清理
+        if ("aliyun".equals(storageType)) {
+            candidates.addAll(mediaObjectMapper.selectUnreferenced(MediaDedupService.STORAGE_OSS, before, batchSize));
+        }
+        int deleted = 0;
+        for (MediaObject candidate : candidates) {
+            try {
+                Boolean removed = transactionTemplate.execute(status -> {
+                    // 行锁期间并发的命中（ref_count + 1）会等待，提交后发现记录已删除再重新上传
+                    MediaObject locked = mediaObjectMapper.lockUnreferenced(candidate.getId());
+                    if (locked == null) {
+                        return false;
+                    }
+                    deleteObject(locked);
+                    mediaObjectMapper.deleteUnreferenced(locked.getId());
+                    return true;
+                });
+                if (Boolean.TRUE.equals(removed)) {
+                    deleted++;
+                }
+            } catch (Exception e) {
+                log.warn("清理媒体对象失败 id={}, key={}: {}", candidate.getId(), candidate.getObjectKey(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("已清理 {} 个未被引用的媒体对象", deleted);
+        }
+    }
+
+    private void deleteObject(MediaObject object) {
+        try {
+            fileStorageService.delete(object.getObjectKey());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+}
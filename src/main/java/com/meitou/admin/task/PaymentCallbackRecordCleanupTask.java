@@ -0,0 +1,43 @@
+package com.meitou.admin.task;
+
+import com.meitou.admin.mapper.PaymentCallbackRecordMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 支付回调去重记录清理定时任务
+ * 支付平台只会在有限时间内重试通知（微信约 24 小时，支付宝约 25 小时），过期记录不再需要；
+ * 即使清理后收到迟到的重复通知，订单状态的条件更新也能保证不会重复入账
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentCallbackRecordCleanupTask {
+
+    private final PaymentCallbackRecordMapper paymentCallbackRecordMapper;
+
+    @Value("${payment.callback.dedup.retentionDays:30}")
+    private int retentionDays;
+
+    @Value("${payment.callback.dedup.batchSize:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${payment.callback.dedup.fixedDelayMs:3600000}")
+    public void purgeExpiredRecords() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = paymentCallbackRecordMapper.deleteBefore(before, batchSize);
+            total += deleted;
+        } while (deleted >= batchSize);
+        if (total > 0) {
+            log.info("已清理 {} 条过期的支付回调去重记录", total);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.meitou.admin.task;
+
+import com.meitou.admin.service.app.RechargeReconcileService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 充值订单对账定时任务
+ * 补入账回调丢失的已支付订单，并过期超时未支付的订单；多实例同时运行时由订单状态的条件更新保证不会重复入账
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RechargeOrderReconcileTask {
+
+    private final RechargeReconcileService rechargeReconcileService;
+
+    @Value("${payment.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(initialDelayString = "${payment.reconcile.initialDelayMs:60000}",
+            fixedDelayString = "${payment.reconcile.fixedDelayMs:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rechargeReconcileService.reconcile();
+        } catch (Exception e) {
+            log.error("充值订单对账失败", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.meitou.admin.task;
+
+import com.meitou.admin.service.app.DirectUploadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分片直传会话清理定时任务
+ * 取消过期未完成的分片上传，释放云存储中残留的分片（未合并的分片同样占用存储空间）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadSessionCleanupTask {
+
+    private final DirectUploadService directUploadService;
+
+    @Value("${upload.direct.cleanup.batchSize:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${upload.direct.cleanup.fixedDelayMs:600000}")
+    public void abortExpiredUploads() {
+        int aborted = directUploadService.abortExpired(batchSize);
+        if (aborted > 0) {
+            log.info("已取消 {} 个过期的分片上传", aborted);
+        }
+    }
+}
@@ -1,103 +1,156 @@
 package com.meitou.admin.util;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AES加密工具类
  * 用于加密和解密敏感数据，如API密钥
+ *
+ * 密文格式带版本前缀：v1:Base64(IV + AES-GCM密文)，判断是否为密文只需检查前缀。
+ * 旧版本的密文为不带前缀的 Base64(AES-ECB密文)，仍可解密；保存时通过 {@link #migrate(String)} 转为新格式。
+ *
+ * 平台 apiKey 和支付密钥在每次请求中都要解密，解密结果按密文缓存，密文变更或删除时调用 {@link #invalidate(String)}；
+ * Cipher 实例按线程复用，避免每次调用 Cipher.getInstance
  */
 public class AesEncryptUtil {
-    
+
     /**
      * 加密密钥（16字节，对应AES-128）
      * 注意：生产环境中应该从配置文件或环境变量读取，不要硬编码
      * 这里使用一个固定的密钥，实际项目中应该使用更安全的方式管理密钥
      */
     private static final String SECRET_KEY = "MeitouAdminKey!X"; // 16字节密钥
-    
+
     /**
      * 加密算法
      */
     private static final String ALGORITHM = "AES";
-    
+
+    /**
+     * 旧版加密模式（无版本前缀的密文）
+     */
+    private static final String LEGACY_TRANSFORMATION = "AES/ECB/PKCS5Padding";
+
+    /**
+     * 当前加密模式
+     */
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /**
+     * 当前密文版本前缀；旧版密文是纯 Base64，不会包含冒号
+     */
+    static final String VERSION_PREFIX = "v1:";
+
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    /**
+     * 解密缓存上限，超过后整体清空（平台和支付密钥的数量远小于该值）
+     */
+    private static final int CACHE_LIMIT = 1024;
+
+    private static final SecretKeySpec LEGACY_KEY =
+            new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+
+    /**
+     * v1 密钥：由原密钥经 SHA-256 派生的 256 位密钥，不与 ECB 共用同一密钥
+     */
+    private static final SecretKeySpec KEY_V1 = new SecretKeySpec(sha256(SECRET_KEY + ":v1"), ALGORITHM);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newCipher(TRANSFORMATION));
+
+    /**
+     * ECB 解密不需要 IV，初始化一次后可反复 doFinal
+     */
+    private static final ThreadLocal<Cipher> LEGACY_DECRYPT_CIPHER = ThreadLocal.withInitial(() -> {
+        Cipher cipher = newCipher(LEGACY_TRANSFORMATION);
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, LEGACY_KEY);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化解密器失败", e);
+        }
+        return cipher;
+    });
+
     /**
-     * 加密模式
+     * 密文 → 明文
      */
-    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
-    
+    private static final Map<String, String> DECRYPT_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 加密字符串
-     * 
+     *
      * @param plainText 明文
-     * @return Base64编码的密文
+     * @return 带版本前缀的密文
      */
     public static String encrypt(String plainText) {
         if (plainText == null || plainText.isEmpty()) {
             return plainText;
         }
-        
+
         try {
-            // 创建密钥规范
-            SecretKeySpec secretKey = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-            
-            // 创建加密器
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            
-            // 加密
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, KEY_V1, new GCMParameterSpec(TAG_BITS, iv));
             byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            
-            // 返回Base64编码的密文
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+
+            byte[] payload = ByteBuffer.allocate(IV_LENGTH + encryptedBytes.length).put(iv).put(encryptedBytes).array();
+            String encrypted = VERSION_PREFIX + Base64.getEncoder().encodeToString(payload);
+            cache(encrypted, plainText);
+            return encrypted;
         } catch (Exception e) {
             throw new RuntimeException("加密失败: " + e.getMessage(), e);
         }
     }
-    
+
     /**
-     * 解密字符串
-     * 
-     * @param encryptedText Base64编码的密文
+     * 解密字符串，同时支持当前格式和旧版 ECB 密文
+     *
+     * @param encryptedText 密文
      * @return 明文，如果解密失败则返回null（表示需要重新设置）
      */
     public static String decrypt(String encryptedText) {
         if (encryptedText == null || encryptedText.isEmpty()) {
             return encryptedText;
         }
-        
-        try {
-            // 创建密钥规范
-            SecretKeySpec secretKey = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-            
-            // 创建解密器
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            
-            // Base64解码
-            byte[] encryptedBytes = Base64.getDecoder().decode(encryptedText);
-            
-            // 解密
-            byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
-            
-            // 返回明文
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            // 如果解密失败，可能是：
-            // 1. 使用了旧密钥加密的数据（密钥已更改）
-            // 2. 数据本身就不是加密的
-            // 3. Base64解码失败
-            // 返回null表示解密失败，需要重新设置
-            return null;
+        String cached = DECRYPT_CACHE.get(encryptedText);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 解密失败可能是：
+        // 1. 使用了旧密钥加密的数据（密钥已更改）
+        // 2. 数据本身就不是加密的
+        // 3. Base64解码失败
+        // 返回null表示解密失败，需要重新设置
+        String plainText = encryptedText.startsWith(VERSION_PREFIX)
+                ? decryptV1(encryptedText)
+                : decryptLegacy(encryptedText);
+        if (plainText != null) {
+            cache(encryptedText, plainText);
         }
+        return plainText;
     }
-    
+
     /**
      * 判断字符串是否为加密的密文
-     * 通过尝试解密来判断，如果解密成功且结果与原值不同，则为密文
-     * 
+     * 当前格式只检查版本前缀；旧版密文需要满足 Base64 格式且能解密为不同的值
+     *
      * @param text 待判断的文本
      * @return 是否为密文
      */
@@ -105,30 +158,124 @@ public class AesEncryptUtil {
         if (text == null || text.isEmpty()) {
             return false;
         }
-        
+        if (text.startsWith(VERSION_PREFIX)) {
+            return true;
+        }
+        if (!looksLikeLegacyCiphertext(text)) {
+            return false;
+        }
+        String decrypted = decrypt(text);
+        // 如果解密后的值与原值不同，说明是密文
+        return decrypted != null && !decrypted.equals(text);
+    }
+
+    /**
+     * 判断是否为需要迁移的旧版密文
+     */
+    public static boolean isLegacyEncrypted(String text) {
+        return text != null && !text.startsWith(VERSION_PREFIX) && isEncrypted(text);
+    }
+
+    /**
+     * 将旧版密文转为当前格式，其他值（当前格式密文、明文、无法解密的值）原样返回
+     *
+     * @param text 密文
+     * @return 当前格式的密文
+     */
+    public static String migrate(String text) {
+        if (!isLegacyEncrypted(text)) {
+            return text;
+        }
+        String plainText = decrypt(text);
+        invalidate(text);
+        return encrypt(plainText);
+    }
+
+    /**
+     * 密文已被替换或删除时调用，移除缓存的明文
+     *
+     * @param encryptedText 密文
+     */
+    public static void invalidate(String encryptedText) {
+        if (encryptedText != null) {
+            DECRYPT_CACHE.remove(encryptedText);
+        }
+    }
+
+    /**
+     * 清空解密缓存（如更换密钥后）
+     */
+    public static void clearCache() {
+        DECRYPT_CACHE.clear();
+    }
+
+    static int cacheSize() {
+        return DECRYPT_CACHE.size();
+    }
+
+    private static String decryptV1(String encryptedText) {
         try {
-            // 首先检查是否为Base64格式（加密后的字符串应该是Base64编码）
-            // Base64字符串只包含A-Z, a-z, 0-9, +, /, =字符
-            if (!text.matches("^[A-Za-z0-9+/=]+$")) {
-                return false;
+            byte[] payload = Base64.getDecoder().decode(encryptedText.substring(VERSION_PREFIX.length()));
+            if (payload.length <= IV_LENGTH) {
+                return null;
             }
-            
-            // 尝试Base64解码
-            byte[] decodedBytes = Base64.getDecoder().decode(text);
-            
-            // 如果能成功解码，尝试解密
-            SecretKeySpec secretKey = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-            String decrypted = new String(decryptedBytes, StandardCharsets.UTF_8);
-            
-            // 如果解密后的值与原值不同，说明是密文
-            return !decrypted.equals(text);
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, KEY_V1, new GCMParameterSpec(TAG_BITS, payload, 0, IV_LENGTH));
+            byte[] decryptedBytes = cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH);
+            return new String(decryptedBytes, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String decryptLegacy(String encryptedText) {
+        try {
+            byte[] encryptedBytes = Base64.getDecoder().decode(encryptedText);
+            byte[] decryptedBytes = LEGACY_DECRYPT_CIPHER.get().doFinal(encryptedBytes);
+            return new String(decryptedBytes, StandardCharsets.UTF_8);
         } catch (Exception e) {
-            // 如果解密失败，说明不是我们加密的密文
+            return null;
+        }
+    }
+
+    /**
+     * 旧版密文是 16 字节分组的 Base64：长度为 4 的倍数，且只包含 Base64 字符
+     */
+    private static boolean looksLikeLegacyCiphertext(String text) {
+        if (text.length() < 24 || text.length() % 4 != 0) {
             return false;
         }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean base64 = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '+' || c == '/' || c == '=';
+            if (!base64) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void cache(String encryptedText, String plainText) {
+        if (DECRYPT_CACHE.size() >= CACHE_LIMIT) {
+            DECRYPT_CACHE.clear();
+        }
+        DECRYPT_CACHE.put(encryptedText, plainText);
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("创建加密器失败: " + transformation, e);
+        }
     }
-}
 
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.meitou.admin.util;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+
+/**
+ * 外部URL校验工具类
+ * 服务端按用户提交的URL发起请求（下载源文件、截帧）前调用，防止借服务端访问内网地址或读取本地文件（SSRF）。
+ *
+ * 只做请求前的校验：域名解析结果在真正连接时可能变化（DNS rebinding），
+ * 调用方还应禁止自动跟随重定向，或对重定向目标再次校验
+ */
+public class RemoteUrlGuard {
+
+    private RemoteUrlGuard() {
+    }
+
+    /**
+     * 校验为 http/https 地址（拒绝 file:、jar:、ftp: 等其他协议）
+     *
+     * @param url 地址
+     * @return 规范化后的 URI
+     * @throws IllegalArgumentException 地址格式错误或协议不支持
+     */
+    public static URI requireHttp(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("URL不能为空");
+        }
+        URI uri;
+        try {
+            uri = new URI(url.trim()).normalize();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("URL格式错误: " + url);
+        }
+        String scheme = uri.getScheme();
+        if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))
+                || uri.getHost() == null || uri.getHost().isEmpty()) {
+            throw new IllegalArgumentException("只支持 http/https 地址: " + url);
+        }
+        return uri;
+    }
+
+    /**
+     * 校验为 http/https 地址，且域名解析出的所有地址都是公网地址
+     *
+     * @param url 地址
+     * @return 规范化后的 URI
+     * @throws IllegalArgumentException 协议不支持、域名无法解析或指向内网地址
+     */
+    public static URI requirePublicHttp(String url) {
+        URI uri = requireHttp(url);
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("无法解析域名: " + uri.getHost());
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublicAddress(address)) {
+                throw new IllegalArgumentException("不允许访问内网地址: " + uri.getHost());
+            }
+        }
+        return uri;
+    }
+
+    /**
+     * 是否为公网地址：排除本机、内网、链路本地、组播、运营商级 NAT（100.64.0.0/10）和 IPv6 唯一本地地址（fc00::/7）
+     */
+    static boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            return first != 0 && first < 240 && !(first == 100 && second >= 64 && second < 128);
+        }
+        return (bytes[0] & 0xfe) != 0xfc;
+    }
+}
@@ -0,0 +1,91 @@
+package com.meitou.admin.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 不可变的有序 long 集合
+ * 底层为排序后的原始 long 数组，相比 Set&lt;Long&gt; 没有装箱和哈希节点开销（每个元素 8 字节），
+ * 查询使用二分查找；add/remove 返回新实例（写时复制），可安全地在多线程间共享读取
+ */
+public final class SortedLongSet {
+
+    public static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+    private final long[] values;
+
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    /**
+     * 从集合构建（自动排序、去重，忽略 null）
+     */
+    public static SortedLongSet of(Collection<Long> source) {
+        if (source == null || source.isEmpty()) {
+            return EMPTY;
+        }
+        long[] array = source.stream()
+                .filter(v -> v != null)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        return array.length == 0 ? EMPTY : new SortedLongSet(array);
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 添加元素，已存在时返回自身
+     */
+    public SortedLongSet add(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] next = new long[values.length + 1];
+        System.arraycopy(values, 0, next, 0, insertAt);
+        next[insertAt] = value;
+        System.arraycopy(values, insertAt, next, insertAt + 1, values.length - insertAt);
+        return new SortedLongSet(next);
+    }
+
+    /**
+     * 移除元素，不存在时返回自身
+     */
+    public SortedLongSet remove(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+        long[] next = new long[values.length - 1];
+        System.arraycopy(values, 0, next, 0, index);
+        System.arraycopy(values, index + 1, next, index, values.length - index - 1);
+        return new SortedLongSet(next);
+    }
+
+    /**
+     * 求交集：返回 candidates 中包含在本集合里的元素（保持 candidates 的顺序）
+     */
+    public long[] intersect(long[] candidates) {
+        long[] result = new long[candidates.length];
+        int count = 0;
+        for (long candidate : candidates) {
+            if (contains(candidate)) {
+                result[count++] = candidate;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,25 @@
+-- Add FULLTEXT (ngram) indexes for admin keyword search
+-- Replaces LIKE '%keyword%' full scans in square / user / asset / invitation code search
+-- Requires MySQL 5.7.6+ (ngram parser), ngram_token_size defaults to 2
+--
+-- Stopwords must be disabled when the indexes are built. With the ngram parser InnoDB drops every token that
+-- contains a word from the default stopword list ("a", "i", "is", "at", "com", ...), so phrases containing them
+-- would stop matching rows that LIKE '%keyword%' finds. The setting is captured per index at creation time;
+-- environments that already ran this script without it must run rebuild_fulltext_search_indexes_without_stopwords.sql
+
+USE `meitou_admin`;
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE `published_contents`
+ADD FULLTEXT INDEX `ft_published_contents_search` (`title`, `user_name`) WITH PARSER ngram;
+
+ALTER TABLE `users`
+ADD FULLTEXT INDEX `ft_users_search` (`username`, `email`, `phone`) WITH PARSER ngram;
+
+ALTER TABLE `user_assets`
+ADD FULLTEXT INDEX `ft_user_assets_search` (`title`, `user_name`) WITH PARSER ngram;
+
+ALTER TABLE `invitation_codes`
+ADD FULLTEXT INDEX `ft_invitation_codes_code` (`code`) WITH PARSER ngram,
+ADD FULLTEXT INDEX `ft_invitation_codes_channel` (`channel`) WITH PARSER ngram;
@@ -0,0 +1,12 @@
+-- Add low-resolution preview columns filled by the thumbnail/preview derivation pipeline
+
+USE `meitou_admin`;
+
+ALTER TABLE `generation_records`
+ADD COLUMN `preview_url` VARCHAR(500) DEFAULT NULL COMMENT '预览图URL（低分辨率）';
+
+ALTER TABLE `user_assets`
+ADD COLUMN `preview` VARCHAR(500) DEFAULT NULL COMMENT '预览图URL（低分辨率）' AFTER `thumbnail`;
+
+ALTER TABLE `published_contents`
+ADD COLUMN `preview` VARCHAR(500) DEFAULT NULL COMMENT '预览图URL（低分辨率）' AFTER `thumbnail`;
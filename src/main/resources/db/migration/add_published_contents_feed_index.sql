@@ -0,0 +1,6 @@
+-- Add composite index for the square feed (published, pinned first, newest first)
+
+USE `meitou_admin`;
+
+ALTER TABLE `published_contents`
+ADD INDEX `idx_site_status_feed` (`site_id`, `status`, `is_pinned`, `published_at`, `id`);
@@ -0,0 +1,6 @@
+-- Add composite index for folder thumbnail lookup (latest image / video per folder)
+
+USE `meitou_admin`;
+
+ALTER TABLE `user_assets`
+ADD INDEX `idx_user_folder_type_upload` (`user_id`, `folder`, `type`, `upload_date`);
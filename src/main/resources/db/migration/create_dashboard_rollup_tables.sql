@@ -0,0 +1,45 @@
+-- Create daily rollup tables for the admin dashboard
+-- Maintained incrementally by DashboardRollupTask from a per-source high-water mark (auto-increment id)
+
+USE `meitou_admin`;
+
+-- 1. Per (site, day) aggregates
+CREATE TABLE IF NOT EXISTS `stat_daily_site` (
+  `site_id` BIGINT NOT NULL COMMENT '站点ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `new_users` INT NOT NULL DEFAULT 0 COMMENT '新增用户数',
+  `active_consumers` INT NOT NULL DEFAULT 0 COMMENT '当日产生消耗的用户数',
+  `consumption` BIGINT NOT NULL DEFAULT 0 COMMENT '消耗积分（CONSUME 流水绝对值之和）',
+  `recharge` BIGINT NOT NULL DEFAULT 0 COMMENT '充值积分（RECHARGE 流水之和）',
+  `refunds` BIGINT NOT NULL DEFAULT 0 COMMENT '退款积分（REFUND 流水之和）',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`site_id`, `stat_date`),
+  KEY `idx_stat_date` (`stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='站点每日统计汇总表';
+
+-- 2. Per (site, day, user) consumption
+CREATE TABLE IF NOT EXISTS `stat_daily_user_consumption` (
+  `site_id` BIGINT NOT NULL COMMENT '站点ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `consumption` BIGINT NOT NULL DEFAULT 0 COMMENT '消耗积分',
+  PRIMARY KEY (`site_id`, `stat_date`, `user_id`),
+  KEY `idx_stat_date_user` (`stat_date`, `user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户每日消耗汇总表';
+
+-- 3. Per (site, day, generation type) counts
+CREATE TABLE IF NOT EXISTS `stat_daily_generation` (
+  `site_id` BIGINT NOT NULL COMMENT '站点ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `generation_type` VARCHAR(20) NOT NULL COMMENT '生成类型：txt2img/img2img/txt2video/img2video/voice 等',
+  `generation_count` INT NOT NULL DEFAULT 0 COMMENT '提交的生成任务数',
+  PRIMARY KEY (`site_id`, `stat_date`, `generation_type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每日生成任务统计表';
+
+-- 4. High-water marks of the incremental rollup job
+CREATE TABLE IF NOT EXISTS `stat_rollup_watermarks` (
+  `name` VARCHAR(50) NOT NULL COMMENT '数据源名称',
+  `last_id` BIGINT NOT NULL DEFAULT 0 COMMENT '已汇总的最大ID',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='统计汇总水位表';
@@ -0,0 +1,20 @@
+-- Create media_objects content-addressed index (SHA-256 -> stored object) with reference counting
+-- Identical uploads and generation results reuse the existing object instead of storing a new copy
+
+USE `meitou_admin`;
+
+CREATE TABLE IF NOT EXISTS `media_objects` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `storage` VARCHAR(20) NOT NULL COMMENT '存储位置：storage-文件存储服务，oss-生成结果使用的阿里云OSS',
+  `content_hash` CHAR(64) NOT NULL COMMENT '内容 SHA-256（十六进制）',
+  `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+  `object_key` VARCHAR(512) NOT NULL COMMENT '对象键',
+  `url` VARCHAR(768) NOT NULL COMMENT '访问URL',
+  `ref_count` INT NOT NULL DEFAULT 1 COMMENT '引用计数',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_storage_hash` (`storage`, `content_hash`, `file_size`),
+  KEY `idx_url` (`url`(255)),
+  KEY `idx_unreferenced` (`ref_count`, `updated_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='媒体对象内容寻址索引表';
@@ -0,0 +1,15 @@
+-- Create payment_callback_records dedup table for payment notifications
+-- Repeated notifications (provider retries) are acknowledged without re-verifying signatures or touching the order
+
+USE `meitou_admin`;
+
+CREATE TABLE IF NOT EXISTS `payment_callback_records` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `payment_type` VARCHAR(20) NOT NULL COMMENT '支付方式：wechat-微信支付，alipay-支付宝支付',
+  `notify_id` VARCHAR(128) NOT NULL COMMENT '支付平台通知ID（微信为通知 id，支付宝为 notify_id）',
+  `order_no` VARCHAR(64) NOT NULL COMMENT '订单号',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '处理时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_type_notify` (`payment_type`, `notify_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='支付回调去重记录表';
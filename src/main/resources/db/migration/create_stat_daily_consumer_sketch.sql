@@ -0,0 +1,13 @@
+-- Create per (site, day) HyperLogLog sketches of consuming users
+-- Maintained by DashboardRollupTask together with stat_daily_user_consumption; date ranges are answered by merging sketches
+
+USE `meitou_admin`;
+
+CREATE TABLE IF NOT EXISTS `stat_daily_consumer_sketch` (
+  `site_id` BIGINT NOT NULL COMMENT '站点ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `sketch` VARBINARY(4096) NOT NULL COMMENT '当日产生消耗用户的 HyperLogLog 寄存器（precision=12）',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`site_id`, `stat_date`),
+  KEY `idx_stat_date` (`stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每日消耗用户去重计数草图表';
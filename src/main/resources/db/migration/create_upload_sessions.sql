@@ -0,0 +1,28 @@
+-- Create upload_sessions table for multipart direct-to-storage uploads
+-- The server only signs part URLs and registers the asset on completion; file bytes never pass through the app
+
+USE `meitou_admin`;
+
+CREATE TABLE IF NOT EXISTS `upload_sessions` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '会话ID',
+  `upload_id` VARCHAR(128) NOT NULL COMMENT '云存储分片上传ID',
+  `object_key` VARCHAR(512) NOT NULL COMMENT '对象键',
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `site_id` BIGINT NOT NULL COMMENT '站点ID',
+  `file_name` VARCHAR(255) NOT NULL COMMENT '原始文件名',
+  `title` VARCHAR(255) DEFAULT NULL COMMENT '资产标题',
+  `type` VARCHAR(20) NOT NULL COMMENT '资产类型：image/video/audio',
+  `folder` VARCHAR(255) DEFAULT NULL COMMENT '资产文件夹路径',
+  `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+  `part_size` BIGINT NOT NULL COMMENT '分片大小（字节）',
+  `part_count` INT NOT NULL COMMENT '分片数量',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'uploading' COMMENT '状态：uploading/completed/aborted',
+  `asset_id` BIGINT DEFAULT NULL COMMENT '完成后登记的资产ID',
+  `expires_at` DATETIME NOT NULL COMMENT '过期时间',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_upload_id` (`upload_id`),
+  KEY `idx_user_status` (`site_id`, `user_id`, `status`),
+  KEY `idx_status_expires` (`status`, `expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='分片直传会话表';
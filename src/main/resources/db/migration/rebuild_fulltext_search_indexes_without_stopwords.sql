@@ -0,0 +1,25 @@
+-- Rebuild the FULLTEXT (ngram) search indexes with stopwords disabled
+-- Only for environments where add_fulltext_search_indexes.sql was run before it disabled stopwords;
+-- the stopword setting is captured when an index is created, so the indexes are dropped and created again
+
+USE `meitou_admin`;
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE `published_contents`
+DROP INDEX `ft_published_contents_search`,
+ADD FULLTEXT INDEX `ft_published_contents_search` (`title`, `user_name`) WITH PARSER ngram;
+
+ALTER TABLE `users`
+DROP INDEX `ft_users_search`,
+ADD FULLTEXT INDEX `ft_users_search` (`username`, `email`, `phone`) WITH PARSER ngram;
+
+ALTER TABLE `user_assets`
+DROP INDEX `ft_user_assets_search`,
+ADD FULLTEXT INDEX `ft_user_assets_search` (`title`, `user_name`) WITH PARSER ngram;
+
+ALTER TABLE `invitation_codes`
+DROP INDEX `ft_invitation_codes_code`,
+DROP INDEX `ft_invitation_codes_channel`,
+ADD FULLTEXT INDEX `ft_invitation_codes_code` (`code`) WITH PARSER ngram,
+ADD FULLTEXT INDEX `ft_invitation_codes_channel` (`channel`) WITH PARSER ngram;
@@ -0,0 +1,68 @@
+package com.meitou.admin.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+class SiteContextTest {
+
+    @AfterEach
+    void tearDown() {
+        SiteContext.clear();
+    }
+
+    @Test
+    void runWith_restoresPreviousSite() {
+        SiteContext.setSiteId(1L);
+        SiteContext.runWith(2L, () -> Assertions.assertEquals(2L, SiteContext.getSiteId()));
+        Assertions.assertEquals(1L, SiteContext.getSiteId());
+
+        SiteContext.clear();
+        Assertions.assertEquals(3L, SiteContext.supplyWith(3L, SiteContext::getSiteId));
+        Assertions.assertNull(SiteContext.getSiteId());
+    }
+
+    @Test
+    void runWith_restoresPreviousSiteOnException() {
+        SiteContext.setSiteId(1L);
+        Assertions.assertThrows(IllegalStateException.class, () -> SiteContext.runWith(2L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        Assertions.assertEquals(1L, SiteContext.getSiteId());
+    }
+
+    @Test
+    void wrap_capturesSiteAtWrapTime() {
+        SiteContext.setSiteId(5L);
+        Runnable task = SiteContext.wrap(() -> Assertions.assertEquals(5L, SiteContext.getSiteId()));
+        SiteContext.setSiteId(6L);
+        task.run();
+        Assertions.assertEquals(6L, SiteContext.getSiteId());
+    }
+
+    @Test
+    void executor_propagatesSiteAndDoesNotLeakBetweenTasks() throws Exception {
+        ThreadPoolExecutor executor = new SiteContextThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), Thread::new, new ThreadPoolExecutor.AbortPolicy());
+        try {
+            SiteContext.setSiteId(7L);
+            Assertions.assertEquals(7L, executor.submit(SiteContext::getSiteId).get());
+
+            SiteContext.clear();
+            Assertions.assertNull(executor.submit(SiteContext::getSiteId).get());
+
+            SiteContext.setSiteId(8L);
+            Long chained = CompletableFuture.supplyAsync(SiteContext::getSiteId, executor)
+                    .thenApplyAsync(siteId -> siteId + SiteContext.getSiteId(), executor)
+                    .get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(16L, chained);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
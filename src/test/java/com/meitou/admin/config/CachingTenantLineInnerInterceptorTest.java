@@ -0,0 +1,157 @@
+package com.meitou.admin.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.meitou.admin.common.SiteContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+
+class CachingTenantLineInnerInterceptorTest {
+
+    private final CachingTenantLineInnerInterceptor interceptor =
+            new CachingTenantLineInnerInterceptor(new MybatisPlusConfig.SiteTenantLineHandler(), 2);
+
+    @AfterEach
+    void tearDown() {
+        SiteContext.clear();
+    }
+
+    @Test
+    void templateRendersSameSqlAsPlainInterceptor() {
+        TenantLineInnerInterceptor plain = new TenantLineInnerInterceptor(new MybatisPlusConfig.SiteTenantLineHandler());
+        SiteContext.setSiteId(3L);
+
+        String select = "SELECT u.id, o.amount FROM users u LEFT JOIN recharge_orders o ON o.user_id = u.id WHERE u.phone = ?";
+        CachingTenantLineInnerInterceptor.SqlTemplate template = interceptor.template("select", select, false);
+        Assertions.assertEquals(plain.parserSingle(select, null), template.render("3"));
+        Assertions.assertArrayEquals(new int[]{0, 2}, template.tenantParameterIndexes());
+        Assertions.assertEquals(3, template.parameterCount());
+
+        String update = "UPDATE users SET balance = balance - ? WHERE id = ?";
+        template = interceptor.template("update", update, true);
+        Assertions.assertEquals(plain.parserMulti(update, null), template.render("3"));
+        Assertions.assertArrayEquals(new int[]{2}, template.tenantParameterIndexes());
+    }
+
+    @Test
+    void ignoredTableHasNoTenantParameter() {
+        CachingTenantLineInnerInterceptor.SqlTemplate template =
+                interceptor.template("admin", "SELECT * FROM backend_admins WHERE username = ?", false);
+
+        Assertions.assertEquals(0, template.tenantParameterIndexes().length);
+        Assertions.assertEquals(1, template.parameterCount());
+    }
+
+    @Test
+    void questionMarksInsideQuotesAreNotParameters() {
+        String rewritten = "SELECT * FROM t WHERE a = '?' AND b = ? AND site_id = "
+                + CachingTenantLineInnerInterceptor.PLACEHOLDER;
+        CachingTenantLineInnerInterceptor.SqlTemplate template = CachingTenantLineInnerInterceptor.SqlTemplate.parse(rewritten);
+
+        Assertions.assertEquals("SELECT * FROM t WHERE a = '?' AND b = ? AND site_id = ?", template.sql());
+        Assertions.assertArrayEquals(new int[]{1}, template.tenantParameterIndexes());
+        Assertions.assertEquals(2, template.parameterCount());
+    }
+
+    @Test
+    void templateIsSharedAcrossSitesAndEvictedByLru() {
+        String sql = "SELECT * FROM users WHERE id = ?";
+        SiteContext.setSiteId(1L);
+        CachingTenantLineInnerInterceptor.SqlTemplate first = interceptor.template("a", sql, false);
+        SiteContext.setSiteId(2L);
+        Assertions.assertSame(first, interceptor.template("a", sql, false));
+        Assertions.assertEquals(1, interceptor.getHits());
+        Assertions.assertEquals(1, interceptor.getMisses());
+
+        interceptor.template("b", sql, false);
+        interceptor.template("c", sql, false);
+        Assertions.assertEquals(2, interceptor.getSize());
+        Assertions.assertNotSame(first, interceptor.template("a", sql, false));
+        Assertions.assertEquals(0.2, interceptor.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void beforePrepareBindsTenantIdAsParameter() throws Exception {
+        TenantLineInnerInterceptor plain = new TenantLineInnerInterceptor(new MybatisPlusConfig.SiteTenantLineHandler());
+        SiteContext.setSiteId(3L);
+        Configuration configuration = new Configuration();
+        String sql = "UPDATE users SET nickname = ? WHERE id = ?";
+        Map<String, Object> parameter = new HashMap<>(Map.of("nickname", "n", "id", 7L));
+        BoundSql boundSql = boundSql(configuration, sql, parameter, "nickname", "id");
+        RoutingStatementHandler handler = new RoutingStatementHandler(Mockito.mock(Executor.class),
+                mappedStatement(configuration, "UserMapper.updateNickname", sql, SqlCommandType.UPDATE),
+                parameter, RowBounds.DEFAULT, null, boundSql);
+
+        interceptor.beforePrepare(handler, null, null);
+
+        Assertions.assertSame(boundSql, handler.getBoundSql());
+        Assertions.assertEquals(plain.parserMulti(sql, null).replace("site_id = 3", "site_id = ?"), boundSql.getSql());
+        Assertions.assertEquals(List.of("nickname", "id", CachingTenantLineInnerInterceptor.TENANT_PARAMETER), properties(boundSql));
+        Assertions.assertEquals(Long.class, boundSql.getParameterMappings().get(2).getJavaType());
+        Assertions.assertEquals(3L, boundSql.getAdditionalParameter(CachingTenantLineInnerInterceptor.TENANT_PARAMETER));
+    }
+
+    @Test
+    void paginationCountQueryCarriesTenantParameter() throws Exception {
+        SiteContext.setSiteId(3L);
+        Configuration configuration = new Configuration();
+        String sql = "SELECT * FROM users WHERE phone = ?";
+        Map<String, Object> parameter = new HashMap<>(Map.of("page", new Page<>(1, 10), "phone", "138"));
+        BoundSql boundSql = boundSql(configuration, sql, parameter, "phone");
+        MappedStatement ms = mappedStatement(configuration, "UserMapper.selectPage", sql, SqlCommandType.SELECT);
+        Executor executor = Mockito.mock(Executor.class);
+
+        // 与 MybatisPlusConfig 相同的顺序：先改写租户条件，分页插件再由改写后的 BoundSql 生成 count 查询
+        interceptor.beforeQuery(executor, ms, parameter, RowBounds.DEFAULT, null, boundSql);
+        new PaginationInnerInterceptor(DbType.MYSQL).willDoQuery(executor, ms, parameter, RowBounds.DEFAULT, null, boundSql);
+
+        ArgumentCaptor<BoundSql> countSql = ArgumentCaptor.forClass(BoundSql.class);
+        Mockito.verify(executor).query(any(), any(), any(), any(), any(), countSql.capture());
+        BoundSql count = countSql.getValue();
+        Assertions.assertTrue(count.getSql().toUpperCase().contains("COUNT("), count.getSql());
+        Assertions.assertTrue(count.getSql().contains("site_id = ?"), count.getSql());
+        Assertions.assertEquals(count.getSql().chars().filter(c -> c == '?').count(), count.getParameterMappings().size());
+        Assertions.assertEquals(List.of("phone", CachingTenantLineInnerInterceptor.TENANT_PARAMETER), properties(count));
+        Assertions.assertEquals(3L, count.getAdditionalParameter(CachingTenantLineInnerInterceptor.TENANT_PARAMETER));
+    }
+
+    private static BoundSql boundSql(Configuration configuration, String sql, Object parameter, String... properties) {
+        List<ParameterMapping> mappings = new ArrayList<>();
+        for (String property : properties) {
+            mappings.add(new ParameterMapping.Builder(configuration, property, Object.class).build());
+        }
+        return new BoundSql(configuration, sql, mappings, parameter);
+    }
+
+    private static MappedStatement mappedStatement(Configuration configuration, String id, String sql, SqlCommandType type) {
+        return new MappedStatement.Builder(configuration, id,
+                parameterObject -> new BoundSql(configuration, sql, new ArrayList<>(), parameterObject), type)
+                .resultMaps(List.of(new ResultMap.Builder(configuration, id + "-result", Map.class, new ArrayList<>()).build()))
+                .build();
+    }
+
+    private static List<String> properties(BoundSql boundSql) {
+        return boundSql.getParameterMappings().stream().map(ParameterMapping::getProperty).toList();
+    }
+}
@@ -0,0 +1,62 @@
+package com.meitou.admin.config;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 安全配置测试：负载均衡和发布脚本不带 Token 访问健康检查
+ */
+@SpringJUnitWebConfig(classes = {SecurityConfig.class, SecurityConfigTest.ActuatorStub.class})
+class SecurityConfigTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+    }
+
+    @Test
+    void healthProbesArePublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+    }
+
+    @Test
+    void startupTimelineRequiresAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/startup")).andExpect(status().isForbidden());
+    }
+
+    /**
+     * 代替 actuator 端点，只用于验证访问控制
+     */
+    @Configuration
+    @EnableWebMvc
+    @RestController
+    static class ActuatorStub {
+
+        @GetMapping({"/actuator/health", "/actuator/health/readiness", "/actuator/health/liveness", "/actuator/startup"})
+        String ok() {
+            return "ok";
+        }
+    }
+}
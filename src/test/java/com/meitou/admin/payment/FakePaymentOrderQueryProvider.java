@@ -0,0 +1,59 @@
+package com.meitou.admin.payment;
+
+import com.meitou.admin.entity.PaymentConfig;
+import com.meitou.admin.entity.RechargeOrder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地假支付平台：按订单号返回预设的订单状态，未预设的订单视为未支付
+ */
+public class FakePaymentOrderQueryProvider implements PaymentOrderQueryProvider {
+
+    private final String paymentType;
+    private final Map<String, PaymentOrderStatus.State> states = new ConcurrentHashMap<>();
+    private final Map<String, RuntimeException> failures = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+
+    public FakePaymentOrderQueryProvider(String paymentType) {
+        this.paymentType = paymentType;
+    }
+
+    public FakePaymentOrderQueryProvider paid(String orderNo) {
+        states.put(orderNo, PaymentOrderStatus.State.PAID);
+        return this;
+    }
+
+    public FakePaymentOrderQueryProvider state(String orderNo, PaymentOrderStatus.State state) {
+        states.put(orderNo, state);
+        return this;
+    }
+
+    public FakePaymentOrderQueryProvider failing(String orderNo, RuntimeException failure) {
+        failures.put(orderNo, failure);
+        return this;
+    }
+
+    public int getQueries() {
+        return queries.get();
+    }
+
+    @Override
+    public String getPaymentType() {
+        return paymentType;
+    }
+
+    @Override
+    public PaymentOrderStatus query(RechargeOrder order, PaymentConfig paymentConfig) {
+        queries.incrementAndGet();
+        RuntimeException failure = failures.get(order.getOrderNo());
+        if (failure != null) {
+            throw failure;
+        }
+        PaymentOrderStatus.State state = states.getOrDefault(order.getOrderNo(), PaymentOrderStatus.State.NOT_PAID);
+        Map<String, String> orderData = Map.of("out_trade_no", order.getOrderNo(), "state", state.name());
+        return new PaymentOrderStatus(state, state == PaymentOrderStatus.State.PAID ? "T" + order.getOrderNo() : null, orderData);
+    }
+}
@@ -0,0 +1,143 @@
+package com.meitou.admin.resilience;
+
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class ResilienceGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResilienceGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("resilience.sms.maxConcurrent", "1")
+                .withProperty("resilience.sms.timeoutMs", "200")
+                .withProperty("resilience.sms.failureThreshold", "2")
+                .withProperty("resilience.sms.openSeconds", "60")
+                .withProperty("resilience.avatar.maxConcurrent", "4")
+                .withProperty("resilience.avatar.timeoutMs", "200")
+                .withProperty("resilience.avatar.failureThreshold", "2")
+                .withProperty("resilience.avatar.openSeconds", "60");
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new ResilienceGuard(environment, meterRegistry);
+        guard.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.destroy();
+    }
+
+    @Test
+    void rejectsWhenBulkheadIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            caller.submit(() -> guard.supply(Dependency.SMS, () -> {
+                started.countDown();
+                await(release);
+                return "ok";
+            }));
+            Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            DependencyUnavailableException e = Assertions.assertThrows(DependencyUnavailableException.class,
+                    () -> guard.supply(Dependency.SMS, () -> "second"));
+            Assertions.assertEquals(DependencyUnavailableException.Reason.REJECTED, e.getReason());
+            // 舱壁拒绝不计入故障
+            Assertions.assertEquals(CircuitBreaker.State.CLOSED, guard.getState(Dependency.SMS));
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void timesOutAndOpensBreakerAfterConsecutiveFailures() {
+        DependencyUnavailableException timeout = Assertions.assertThrows(DependencyUnavailableException.class,
+                () -> guard.supply(Dependency.AVATAR, () -> {
+                    sleep(2000);
+                    return "late";
+                }));
+        Assertions.assertEquals(DependencyUnavailableException.Reason.TIMEOUT, timeout.getReason());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> guard.supply(Dependency.AVATAR, () -> {
+            throw new IllegalStateException("connection reset");
+        }));
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, guard.getState(Dependency.AVATAR));
+
+        DependencyUnavailableException open = Assertions.assertThrows(DependencyUnavailableException.class,
+                () -> guard.supply(Dependency.AVATAR, () -> "ok"));
+        Assertions.assertEquals(DependencyUnavailableException.Reason.CIRCUIT_OPEN, open.getReason());
+        Assertions.assertEquals(1.0, meterRegistry.get("resilience.circuit.open").tag("dependency", "avatar").gauge().value());
+    }
+
+    @Test
+    void rejectedRequestDoesNotCountAsFailure() {
+        for (int i = 0; i < 3; i++) {
+            BusinessException e = Assertions.assertThrows(BusinessException.class, () -> guard.supply(Dependency.SMS, () -> {
+                throw new BusinessException(ErrorCode.API_RESPONSE_ERROR.getCode(), "invalid phone");
+            }));
+            Assertions.assertEquals(ErrorCode.API_RESPONSE_ERROR.getCode(), e.getCode());
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, guard.getState(Dependency.SMS));
+    }
+
+    @Test
+    void clientErrorsDoNotOpenBreaker() {
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> guard.call(Dependency.SMS, () -> {
+                throw new IllegalArgumentException("非法的对象键");
+            }));
+            Assertions.assertThrows(Exception.class, () -> guard.call(Dependency.SMS, () -> {
+                throw new Exception("文件读取失败", new ClientRequestException("文件不存在"));
+            }));
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, guard.getState(Dependency.SMS));
+    }
+
+    @Test
+    void fallbackIsUsedWhenDependencyFails() {
+        String result = guard.supply(Dependency.SMS, () -> {
+            throw new IllegalStateException("503");
+        }, () -> "fallback");
+
+        Assertions.assertEquals("fallback", result);
+        Assertions.assertEquals(1.0, meterRegistry.get("resilience.calls")
+                .tag("dependency", "sms").tag("outcome", ResilienceGuard.OUTCOME_FALLBACK).counter().count());
+    }
+
+    @Test
+    void nestedCallOnSameDependencyRunsInline() {
+        String result = guard.supply(Dependency.SMS, () -> guard.supply(Dependency.SMS, () -> "inner"));
+        Assertions.assertEquals("inner", result);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.alipay.api.response.AlipayTradePrecreateResponse;
 import com.alipay.api.response.AlipayTradePagePayResponse;
 import com.alipay.api.response.AlipayTradeWapPayResponse;
 import com.meitou.admin.config.PaymentProperties;
+import com.meitou.admin.resilience.ResilienceGuard;
+import com.meitou.admin.service.common.PaymentClientRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -15,7 +17,7 @@ class PaymentServiceTest {
 
     @Test
     void shouldFallbackToWapPay_whenSubCodeForbidden() {
-        PaymentService paymentService = new PaymentService();
+        PaymentService paymentService = new PaymentService(new PaymentClientRegistry(), Mockito.mock(ResilienceGuard.class));
         AlipayTradePrecreateResponse response = new AlipayTradePrecreateResponse();
         response.setSubCode("ACQ.ACCESS_FORBIDDEN");
         Assertions.assertTrue(paymentService.shouldFallbackToWapPay(response));
@@ -23,7 +25,7 @@ class PaymentServiceTest {
 
     @Test
     void isMobileUserAgent_detectsCommonMobileAgents() {
-        PaymentService paymentService = new PaymentService();
+        PaymentService paymentService = new PaymentService(new PaymentClientRegistry(), Mockito.mock(ResilienceGuard.class));
         Assertions.assertTrue(paymentService.isMobileUserAgent("Mozilla/5.0 (iPhone; CPU iPhone OS 16_0 like Mac OS X)"));
         Assertions.assertTrue(paymentService.isMobileUserAgent("Mozilla/5.0 (Linux; Android 13; Pixel 7)"));
         Assertions.assertFalse(paymentService.isMobileUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64)"));
@@ -31,7 +33,7 @@ class PaymentServiceTest {
 
     @Test
     void createAlipayWapPayForm_allowsEmptyReturnUrl() throws Exception {
-        PaymentService paymentService = new PaymentService();
+        PaymentService paymentService = new PaymentService(new PaymentClientRegistry(), Mockito.mock(ResilienceGuard.class));
 
         PaymentProperties.AlipayConfig config = new PaymentProperties.AlipayConfig();
         config.setAppId("test");
@@ -50,7 +52,7 @@ class PaymentServiceTest {
 
     @Test
     void createAlipayPagePayForm_allowsEmptyReturnUrl() throws Exception {
-        PaymentService paymentService = new PaymentService();
+        PaymentService paymentService = new PaymentService(new PaymentClientRegistry(), Mockito.mock(ResilienceGuard.class));
 
         PaymentProperties.AlipayConfig config = new PaymentProperties.AlipayConfig();
         config.setAppId("test");
@@ -0,0 +1,157 @@
+package com.meitou.admin.service.app;
+
+import com.meitou.admin.entity.PaymentConfig;
+import com.meitou.admin.entity.RechargeOrder;
+import com.meitou.admin.mapper.PaymentConfigMapper;
+import com.meitou.admin.mapper.RechargeOrderMapper;
+import com.meitou.admin.payment.FakePaymentOrderQueryProvider;
+import com.meitou.admin.payment.PaymentOrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class RechargeReconcileServiceTest {
+
+    private RechargeOrderMapper rechargeOrderMapper;
+    private PaymentConfigMapper paymentConfigMapper;
+    private RechargeService rechargeService;
+    private FakePaymentOrderQueryProvider provider;
+    private MeterRegistry meterRegistry;
+    private RechargeReconcileService service;
+
+    @BeforeEach
+    void setUp() {
+        rechargeOrderMapper = Mockito.mock(RechargeOrderMapper.class);
+        paymentConfigMapper = Mockito.mock(PaymentConfigMapper.class);
+        rechargeService = Mockito.mock(RechargeService.class);
+        provider = new FakePaymentOrderQueryProvider("wechat");
+
+        PaymentConfig config = new PaymentConfig();
+        config.setId(1L);
+        Mockito.when(paymentConfigMapper.selectBySiteAndTypeIgnoreTenant(1L, "wechat")).thenReturn(config);
+        Mockito.when(rechargeService.settleReconciledOrder(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(true);
+        Mockito.when(rechargeOrderMapper.cancelUnfinished(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new RechargeReconcileService(rechargeOrderMapper, paymentConfigMapper, rechargeService, List.of(provider), meterRegistry);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxOrdersPerRun", 100);
+        ReflectionTestUtils.setField(service, "threads", 2);
+        ReflectionTestUtils.setField(service, "minAgeMinutes", 5L);
+        ReflectionTestUtils.setField(service, "expireMinutes", 120L);
+        ReflectionTestUtils.setField(service, "batchTimeoutSeconds", 10L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void reconcile_settlesPaidAndExpiresStaleOrders() {
+        RechargeOrder paid = order(1L, "paying", 30);
+        RechargeOrder freshUnpaid = order(2L, "paying", 30);
+        RechargeOrder staleClosed = order(3L, "paying", 300);
+        RechargeOrder stalePending = order(4L, "pending", 300);
+        provider.paid("O1").state("O3", PaymentOrderStatus.State.CLOSED);
+        mockPages(List.of(paid, freshUnpaid), List.of(staleClosed, stalePending));
+
+        RechargeReconcileService.RunSummary summary = service.reconcile();
+
+        Assertions.assertEquals(4, summary.scanned());
+        Assertions.assertEquals(3, summary.queried());
+        Assertions.assertEquals(1, summary.settled());
+        Assertions.assertEquals(2, summary.expired());
+        Mockito.verify(rechargeService).settleReconciledOrder(ArgumentMatchers.eq(paid), ArgumentMatchers.eq("TO1"), ArgumentMatchers.any());
+        Mockito.verify(rechargeOrderMapper).cancelUnfinished(List.of(3L, 4L));
+        // 第二页从上一页最后一条订单ID开始
+        Mockito.verify(rechargeOrderMapper).selectUnfinishedAfter(ArgumentMatchers.eq(2L), ArgumentMatchers.any(), ArgumentMatchers.eq(2));
+
+        Assertions.assertEquals(1, meterRegistry.get("recharge.reconcile.runs").functionCounter().count());
+        Assertions.assertEquals(4, meterRegistry.get("recharge.reconcile.orders").tag("result", "scanned").functionCounter().count());
+        Assertions.assertEquals(2, meterRegistry.get("recharge.reconcile.orders").tag("result", "expired").functionCounter().count());
+        Assertions.assertEquals(1, meterRegistry.get("recharge.reconcile.duration").timer().count());
+    }
+
+    @Test
+    void reconcile_keepsOrdersWhoseQueryFailed() {
+        RechargeOrder failing = order(1L, "paying", 300);
+        provider.failing("O1", new IllegalStateException("network"));
+        mockPages(List.of(failing));
+
+        RechargeReconcileService.RunSummary summary = service.reconcile();
+
+        Assertions.assertEquals(1, summary.failed());
+        Assertions.assertEquals(0, summary.expired());
+        Mockito.verify(rechargeOrderMapper, Mockito.never()).cancelUnfinished(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    void reconcile_doesNotQueryOrdersWithoutProvider() {
+        RechargeOrder unsupported = order(1L, "paying", 300);
+        unsupported.setPaymentType("bank");
+        mockPages(List.of(unsupported));
+
+        RechargeReconcileService.RunSummary summary = service.reconcile();
+
+        Assertions.assertEquals(0, provider.getQueries());
+        Assertions.assertEquals(1, summary.expired());
+    }
+
+    @Test
+    void reconcile_continuesFromLastRunAndWrapsAround() {
+        List<RechargeOrder> orders = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            orders.add(order(id, "paying", 30));
+        }
+        Mockito.when(rechargeOrderMapper.selectUnfinishedAfter(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyInt()))
+                .thenAnswer(invocation -> {
+                    long lastId = invocation.getArgument(0);
+                    int limit = invocation.getArgument(2);
+                    return orders.stream().filter(order -> order.getId() > lastId).limit(limit).toList();
+                });
+        ReflectionTestUtils.setField(service, "maxOrdersPerRun", 2);
+
+        Assertions.assertEquals(2, service.reconcile().scanned());
+        Assertions.assertEquals(2, service.reconcile().scanned());
+        // 第三轮扫完 5 号后从头开始，处理到本轮上限为止
+        Assertions.assertEquals(3, service.reconcile().scanned());
+
+        Mockito.verify(rechargeOrderMapper, Mockito.times(2)).selectUnfinishedAfter(ArgumentMatchers.eq(0L), ArgumentMatchers.any(), ArgumentMatchers.eq(2));
+        Mockito.verify(rechargeOrderMapper).selectUnfinishedAfter(ArgumentMatchers.eq(2L), ArgumentMatchers.any(), ArgumentMatchers.eq(2));
+        Mockito.verify(rechargeOrderMapper).selectUnfinishedAfter(ArgumentMatchers.eq(4L), ArgumentMatchers.any(), ArgumentMatchers.eq(2));
+        Assertions.assertEquals(2L, ReflectionTestUtils.getField(service, "cursor"));
+    }
+
+    @SafeVarargs
+    private void mockPages(List<RechargeOrder>... pages) {
+        List<List<RechargeOrder>> answers = new ArrayList<>(List.of(pages));
+        answers.add(List.of());
+        Mockito.when(rechargeOrderMapper.selectUnfinishedAfter(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyInt()))
+                .thenAnswer(invocation -> answers.remove(0));
+    }
+
+    private RechargeOrder order(Long id, String status, int ageMinutes) {
+        RechargeOrder order = new RechargeOrder();
+        order.setId(id);
+        order.setOrderNo("O" + id);
+        order.setStatus(status);
+        order.setPaymentType("wechat");
+        order.setSiteId(1L);
+        order.setCreatedAt(LocalDateTime.now().minusMinutes(ageMinutes));
+        return order;
+    }
+}
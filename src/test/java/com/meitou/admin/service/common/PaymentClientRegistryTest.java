@@ -0,0 +1,58 @@
+package com.meitou.admin.service.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PaymentClientRegistryTest {
+
+    @Test
+    void get_reusesClientWhileConfigUnchanged() {
+        PaymentClientRegistry registry = new PaymentClientRegistry();
+        AtomicInteger builds = new AtomicInteger();
+
+        Object first = registry.get("wechat", 1L, "{\"appId\":\"a\"}", json -> new Object[]{builds.incrementAndGet()});
+        Object second = registry.get("wechat", 1L, "{\"appId\":\"a\"}", json -> new Object[]{builds.incrementAndGet()});
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, builds.get());
+    }
+
+    @Test
+    void get_rebuildsWhenConfigJsonChanges() {
+        PaymentClientRegistry registry = new PaymentClientRegistry();
+
+        String first = registry.get("alipay", 1L, "{\"appId\":\"a\"}", json -> "client:" + json);
+        String second = registry.get("alipay", 1L, "{\"appId\":\"b\"}", json -> "client:" + json);
+
+        Assertions.assertEquals("client:{\"appId\":\"a\"}", first);
+        Assertions.assertEquals("client:{\"appId\":\"b\"}", second);
+        Assertions.assertEquals(1, registry.size());
+    }
+
+    @Test
+    void invalidate_dropsAllClientsOfConfig() {
+        PaymentClientRegistry registry = new PaymentClientRegistry();
+        registry.get("wechat", 1L, "{}", json -> new Object());
+        registry.get("alipay", 1L, "{}", json -> new Object());
+        registry.get("wechat", 2L, "{}", json -> new Object());
+
+        registry.invalidate(1L);
+
+        Assertions.assertEquals(1, registry.size());
+    }
+
+    @Test
+    void get_doesNotCacheFailedBuilds() {
+        PaymentClientRegistry registry = new PaymentClientRegistry();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> registry.get("wechat", 1L, "{}", json -> {
+                    throw new IllegalStateException("bad config");
+                }));
+
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals("ok", registry.get("wechat", 1L, "{}", json -> "ok"));
+    }
+}
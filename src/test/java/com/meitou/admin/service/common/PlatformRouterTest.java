@@ -0,0 +1,111 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.entity.ApiPlatform;
+import com.meitou.admin.exception.BusinessException;
+import com.meitou.admin.exception.ErrorCode;
+import com.meitou.admin.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+class PlatformRouterTest {
+
+    private PlatformRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new PlatformRouter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(router, "ewmaAlpha", 0.2);
+        ReflectionTestUtils.setField(router, "latencyReferenceMs", 5000L);
+        ReflectionTestUtils.setField(router, "failureThreshold", 3);
+        ReflectionTestUtils.setField(router, "openSeconds", 30L);
+        ReflectionTestUtils.setField(router, "maxAttempts", 3);
+    }
+
+    @Test
+    void breakerOpensAfterConsecutiveFailuresAndPlatformIsSkipped() {
+        ApiPlatform broken = platform(1L, "broken");
+        ApiPlatform healthy = platform(2L, "healthy");
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(router.tryAcquire(broken));
+            Assertions.assertThrows(BusinessException.class, () -> router.execute(broken, () -> {
+                throw new BusinessException(ErrorCode.API_CALL_FAILED.getCode(), "Read timed out");
+            }));
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, router.getState(1L));
+        Assertions.assertFalse(router.tryAcquire(broken));
+        Assertions.assertEquals(List.of(healthy), router.route(List.of(broken, healthy)));
+    }
+
+    @Test
+    void rejectedRequestDoesNotCountAsPlatformFailure() {
+        ApiPlatform platform = platform(1L, "strict");
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThrows(BusinessException.class, () -> router.execute(platform, () -> {
+                throw new BusinessException(ErrorCode.API_RESPONSE_ERROR.getCode(), "prompt rejected");
+            }));
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, router.getState(1L));
+        Assertions.assertFalse(PlatformRouter.isPlatformFailure(
+                new BusinessException(ErrorCode.API_RESPONSE_ERROR.getCode(), "prompt rejected")));
+        Assertions.assertTrue(PlatformRouter.isPlatformFailure(new RuntimeException("connection reset")));
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrialAndClosesOnSuccess() {
+        ReflectionTestUtils.setField(router, "openSeconds", 0L);
+        ApiPlatform platform = platform(1L, "flaky");
+        for (int i = 0; i < 3; i++) {
+            router.tryAcquire(platform);
+            Assertions.assertThrows(RuntimeException.class, () -> router.execute(platform, () -> {
+                throw new RuntimeException("503");
+            }));
+        }
+
+        Assertions.assertTrue(router.tryAcquire(platform));
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, router.getState(1L));
+        Assertions.assertFalse(router.tryAcquire(platform));
+
+        Assertions.assertEquals("ok", router.execute(platform, () -> "ok"));
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, router.getState(1L));
+        Assertions.assertTrue(router.tryAcquire(platform));
+    }
+
+    @Test
+    void routePrefersHealthierPlatform() {
+        ReflectionTestUtils.setField(router, "failureThreshold", 100);
+        ApiPlatform slow = platform(1L, "slow");
+        ApiPlatform fast = platform(2L, "fast");
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThrows(RuntimeException.class, () -> router.execute(slow, () -> {
+                throw new RuntimeException("502");
+            }));
+            router.execute(fast, () -> "ok");
+        }
+
+        int fastFirst = 0;
+        for (int i = 0; i < 1000; i++) {
+            List<ApiPlatform> routed = router.route(List.of(slow, fast));
+            Assertions.assertEquals(2, routed.size());
+            if (routed.get(0) == fast) {
+                fastFirst++;
+            }
+        }
+        Assertions.assertTrue(fastFirst > 800, "fastFirst=" + fastFirst);
+    }
+
+    private static ApiPlatform platform(Long id, String name) {
+        ApiPlatform platform = new ApiPlatform();
+        platform.setId(id);
+        platform.setName(name);
+        return platform;
+    }
+}
@@ -0,0 +1,43 @@
+package com.meitou.admin.service.common;
+
+import com.meitou.admin.entity.PublishedContent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+class SquareFeedCacheServiceTest {
+
+    @Test
+    void cursor_roundTripsPublishedAt() {
+        PublishedContent content = content(12L, true, LocalDateTime.of(2024, 5, 1, 8, 30));
+
+        String cursor = SquareFeedCacheService.encodeCursor(content);
+        PublishedContent key = SquareFeedCacheService.decodeCursor(cursor);
+
+        Assertions.assertEquals("1_1714552200_12", cursor);
+        Assertions.assertTrue(key.getIsPinned());
+        Assertions.assertEquals(content.getPublishedAt(), key.getPublishedAt());
+        Assertions.assertEquals(12L, key.getId());
+    }
+
+    @Test
+    void cursor_keepsNullPublishedAt() {
+        String cursor = SquareFeedCacheService.encodeCursor(content(7L, false, null));
+        PublishedContent key = SquareFeedCacheService.decodeCursor(cursor);
+
+        Assertions.assertEquals("0__7", cursor);
+        Assertions.assertNull(key.getPublishedAt());
+        Assertions.assertEquals(7L, key.getId());
+        Assertions.assertNull(SquareFeedCacheService.decodeCursor("0_x_7"));
+        Assertions.assertNull(SquareFeedCacheService.decodeCursor("0_7"));
+    }
+
+    private static PublishedContent content(Long id, boolean pinned, LocalDateTime publishedAt) {
+        PublishedContent content = new PublishedContent();
+        content.setId(id);
+        content.setIsPinned(pinned);
+        content.setPublishedAt(publishedAt);
+        return content;
+    }
+}
@@ -0,0 +1,209 @@
+package com.meitou.admin.storage;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * FileStorageService 一致性测试
+ * 各存储实现继承本类并提供实例，验证上传、转存、读取、删除、预签名和分片上传的行为一致
+ */
+public abstract class FileStorageServiceConformanceTest {
+
+    private static final int LARGE_BYTES = 64 * 1024 * 1024;
+
+    @TempDir
+    protected Path tempDir;
+
+    protected FileStorageService storage;
+
+    /**
+     * 创建待测存储实例
+     *
+     * @param workDir 可供实例使用的临时目录
+     */
+    protected abstract FileStorageService createStorage(Path workDir) throws Exception;
+
+    /**
+     * 上传一个分片（对应客户端向预签名URL发起的 PUT）
+     */
+    protected abstract UploadedPart uploadPart(String objectKey, String uploadId, int partNumber, byte[] content) throws Exception;
+
+    @BeforeEach
+    void setUpStorage() throws Exception {
+        storage = createStorage(tempDir.resolve("storage"));
+    }
+
+    @Test
+    void uploadStream_thenDownload() throws Exception {
+        byte[] content = randomBytes(10_000);
+        String url = storage.upload(new ByteArrayInputStream(content), "images/", "a.png", content.length);
+
+        Assertions.assertEquals(storage.buildFileUrl("images/a.png"), url);
+        Assertions.assertArrayEquals(content, read("images/a.png"));
+    }
+
+    @Test
+    void uploadStream_withUnknownLength() throws Exception {
+        byte[] content = randomBytes(5_000);
+        storage.upload(new ByteArrayInputStream(content), "images", "b.png");
+
+        Assertions.assertArrayEquals(content, read("images/b.png"));
+    }
+
+    @Test
+    void upload_overwritesExistingObject() throws Exception {
+        storage.upload(new ByteArrayInputStream(randomBytes(100)), "", "c.bin", 100);
+        byte[] second = randomBytes(50);
+        storage.upload(new ByteArrayInputStream(second), "", "c.bin", second.length);
+
+        Assertions.assertArrayEquals(second, read("c.bin"));
+    }
+
+    @Test
+    void uploadPath_thenDownload() throws Exception {
+        byte[] content = randomBytes(3 * 1024 * 1024 + 17);
+        Path source = Files.write(tempDir.resolve("source.bin"), content);
+        storage.upload(source, "videos/", "d.mp4");
+
+        Assertions.assertArrayEquals(content, read("videos/d.mp4"));
+    }
+
+    @Test
+    void uploadFromUrl_thenDownload() throws Exception {
+        byte[] content = randomBytes(200_000);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/remote.png", exchange -> {
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        });
+        server.start();
+        try {
+            storage.uploadFromUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/remote.png", "images/", "e.png");
+        } finally {
+            server.stop(0);
+        }
+
+        Assertions.assertArrayEquals(content, read("images/e.png"));
+    }
+
+    @Test
+    void uploadFromUrl_rejectsLocalFiles() throws Exception {
+        Path source = Files.write(tempDir.resolve("secret.txt"), randomBytes(10));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> storage.uploadFromUrl(source.toUri().toString(), "images/", "x.png"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> storage.uploadFromUrl("jar:" + source.toUri() + "!/a", "images/", "x.png"));
+        Assertions.assertThrows(Exception.class, () -> read("images/x.png"));
+    }
+
+    @Test
+    void delete_removesObject() throws Exception {
+        storage.upload(new ByteArrayInputStream(randomBytes(10)), "tmp/", "f.bin", 10);
+        storage.delete("tmp/f.bin");
+
+        Assertions.assertThrows(Exception.class, () -> read("tmp/f.bin"));
+    }
+
+    @Test
+    void presignDownload_returnsUrl() throws Exception {
+        storage.upload(new ByteArrayInputStream(randomBytes(10)), "", "g.bin", 10);
+        String url = storage.presignDownload("g.bin", Duration.ofMinutes(5));
+
+        Assertions.assertTrue(url.startsWith(storage.buildFileUrl("g.bin")), url);
+    }
+
+    @Test
+    void nonAsciiObjectKey_urlsAreEncoded() throws Exception {
+        byte[] content = randomBytes(100);
+        String key = "我的素材 2024/封面 #1.png";
+        String url = storage.upload(new ByteArrayInputStream(content), "我的素材 2024/", "封面 #1.png", content.length);
+
+        Assertions.assertEquals(storage.buildFileUrl(key), url);
+        Assertions.assertTrue(url.chars().allMatch(c -> c > ' ' && c < 128), url);
+        Assertions.assertTrue(URI.create(url).getPath().endsWith("/" + key), url);
+        Assertions.assertArrayEquals(content, read(key));
+
+        String presigned = storage.presignDownload(key, Duration.ofMinutes(5));
+        Assertions.assertTrue(URI.create(presigned).getPath().endsWith("/" + key), presigned);
+    }
+
+    @Test
+    void multipartUpload_resumesAndCompletesInPartOrder() throws Exception {
+        Assertions.assertTrue(storage.supportsMultipartUpload());
+        byte[] first = randomBytes(1024 * 1024);
+        byte[] second = randomBytes(300_000);
+        String key = "assets/h.mp4";
+        String uploadId = storage.initiateMultipartUpload(key, "video/mp4");
+
+        // 乱序上传，且第二个分片重传一次
+        uploadPart(key, uploadId, 2, randomBytes(10));
+        uploadPart(key, uploadId, 2, second);
+        uploadPart(key, uploadId, 1, first);
+
+        List<UploadedPart> parts = storage.listParts(key, uploadId);
+        Assertions.assertEquals(2, parts.size());
+        Assertions.assertEquals(1, parts.get(0).partNumber());
+        Assertions.assertEquals(second.length, parts.get(1).size());
+
+        String url = storage.completeMultipartUpload(key, uploadId, parts);
+        Assertions.assertEquals(storage.buildFileUrl(key), url);
+
+        byte[] expected = new byte[first.length + second.length];
+        System.arraycopy(first, 0, expected, 0, first.length);
+        System.arraycopy(second, 0, expected, first.length, second.length);
+        Assertions.assertArrayEquals(expected, read(key));
+    }
+
+    @Test
+    void multipartUpload_abortDiscardsParts() throws Exception {
+        String key = "assets/i.mp4";
+        String uploadId = storage.initiateMultipartUpload(key, null);
+        uploadPart(key, uploadId, 1, randomBytes(100));
+        storage.abortMultipartUpload(key, uploadId);
+
+        Assertions.assertThrows(Exception.class, () -> storage.listParts(key, uploadId));
+        Assertions.assertThrows(Exception.class, () -> read(key));
+    }
+
+    @Test
+    void largeUpload_streamAndFileKeepContent() throws Exception {
+        byte[] content = randomBytes(LARGE_BYTES);
+        Path source = Files.write(tempDir.resolve("large.bin"), content);
+
+        storage.upload(new ByteArrayInputStream(content), "perf/", "stream.bin", content.length);
+        storage.upload(source, "perf/", "file.bin");
+
+        Assertions.assertArrayEquals(content, read("perf/stream.bin"));
+        Assertions.assertArrayEquals(content, read("perf/file.bin"));
+    }
+
+    private byte[] read(String objectKey) throws Exception {
+        try (InputStream in = storage.download(objectKey)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.meitou.admin.storage.impl;
+
+import com.meitou.admin.controller.app.LocalFileController;
+import com.meitou.admin.storage.FileStorageService;
+import com.meitou.admin.storage.FileStorageServiceConformanceTest;
+import com.meitou.admin.storage.UploadedPart;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+class LocalFileStorageServiceImplTest extends FileStorageServiceConformanceTest {
+
+    private LocalFileStorageServiceImpl local;
+
+    @Override
+    protected FileStorageService createStorage(Path workDir) throws Exception {
+        local = new LocalFileStorageServiceImpl();
+        ReflectionTestUtils.setField(local, "root", workDir.toString());
+        ReflectionTestUtils.setField(local, "baseUrl", "http://localhost:8080/api/app/files/");
+        ReflectionTestUtils.setField(local, "secret", "test-secret");
+        local.init();
+        return local;
+    }
+
+    @Override
+    protected UploadedPart uploadPart(String objectKey, String uploadId, int partNumber, byte[] content) throws Exception {
+        return local.writePart(uploadId, partNumber, new ByteArrayInputStream(content));
+    }
+
+    @Test
+    void presignedUrls_verifyUntilExpired() {
+        String url = local.presignUploadPart("a.mp4", "0123456789abcdef0123456789abcdef", 3, Duration.ofMinutes(5));
+        String query = URI.create(url).getQuery();
+        long expires = Long.parseLong(query.substring("expires=".length(), query.indexOf('&')));
+        String signature = query.substring(query.indexOf("signature=") + "signature=".length());
+
+        Assertions.assertTrue(local.verifySignature(expires, signature, "PUT", "0123456789abcdef0123456789abcdef", "3"));
+        Assertions.assertFalse(local.verifySignature(expires, signature, "PUT", "0123456789abcdef0123456789abcdef", "4"));
+        Assertions.assertFalse(local.verifySignature(System.currentTimeMillis() / 1000 - 1, signature,
+                "PUT", "0123456789abcdef0123456789abcdef", "3"));
+    }
+
+    @Test
+    void controller_decodesEncodedKeyBeforeSignatureCheck() throws Exception {
+        String key = "我的素材 2024/封面.png";
+        local.upload(new ByteArrayInputStream(new byte[]{1, 2, 3}), "我的素材 2024/", "封面.png", 3);
+        URI presigned = URI.create(local.presignDownload(key, Duration.ofMinutes(5)));
+        String query = presigned.getQuery();
+        long expires = Long.parseLong(query.substring("expires=".length(), query.indexOf('&')));
+        String signature = query.substring(query.indexOf("signature=") + "signature=".length());
+        LocalFileController controller = new LocalFileController(local);
+
+        // 与容器一致，getRequestURI() 返回未解码的路径
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", presigned.getRawPath());
+        Assertions.assertEquals(HttpStatus.OK, controller.getFile(request, expires, signature).getStatusCode());
+        Assertions.assertEquals(HttpStatus.OK, controller.getFile(request, null, null).getStatusCode());
+        Assertions.assertEquals(HttpStatus.FORBIDDEN, controller.getFile(request, expires, signature + "0").getStatusCode());
+    }
+
+    @Test
+    void objectKey_cannotEscapeRoot() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> local.upload(new ByteArrayInputStream(new byte[1]), "../", "evil.txt", 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> local.upload(new ByteArrayInputStream(new byte[1]), ".multipart/", "evil.txt", 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> local.writePart("../../etc", 1, new ByteArrayInputStream(new byte[1])));
+    }
+}
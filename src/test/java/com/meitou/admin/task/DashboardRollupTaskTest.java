@@ -0,0 +1,82 @@
+package com.meitou.admin.task;
+
+import com.meitou.admin.entity.User;
+import com.meitou.admin.entity.UserTransaction;
+import com.meitou.admin.mapper.StatRollupMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+class DashboardRollupTaskTest {
+
+    private StatRollupMapper statRollupMapper;
+    private DashboardRollupTask task;
+
+    @BeforeEach
+    void setUp() {
+        statRollupMapper = Mockito.mock(StatRollupMapper.class);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(ArgumentMatchers.any())).thenReturn(new SimpleTransactionStatus());
+        Mockito.when(statRollupMapper.advanceWatermark(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+
+        task = new DashboardRollupTask(statRollupMapper, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(task, "batchSize", 100);
+        ReflectionTestUtils.setField(task, "maxBatchesPerRun", 1);
+        ReflectionTestUtils.setField(task, "safetyLagSeconds", 60L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowsWithoutCreatedAtAreSkippedButWatermarkAdvances() {
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+        Mockito.when(statRollupMapper.selectTransactionsAfter(0L, 100))
+                .thenReturn(List.of(transaction(1L, null), transaction(2L, createdAt), transaction(3L, null)));
+        Mockito.when(statRollupMapper.selectUsersAfter(0L, 100)).thenReturn(List.of(user(7L, null)));
+
+        task.rollup();
+
+        Mockito.verify(statRollupMapper).advanceWatermark(DashboardRollupTask.SOURCE_TRANSACTIONS, 0L, 3L);
+        Mockito.verify(statRollupMapper).advanceWatermark(DashboardRollupTask.SOURCE_USERS, 0L, 7L);
+        Mockito.verify(statRollupMapper, Mockito.never()).advanceWatermark(ArgumentMatchers.eq(DashboardRollupTask.SOURCE_GENERATIONS),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong());
+
+        // 只有创建时间完整的一条计入汇总
+        ArgumentCaptor<List<Map<String, Object>>> siteRows = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(statRollupMapper).upsertDailySite(siteRows.capture());
+        Assertions.assertEquals(1, siteRows.getValue().size());
+        Assertions.assertEquals(LocalDate.from(createdAt), siteRows.getValue().get(0).get("statDate"));
+        Assertions.assertEquals(5L, siteRows.getValue().get(0).get("consumption"));
+    }
+
+    private static UserTransaction transaction(Long id, LocalDateTime createdAt) {
+        UserTransaction tx = new UserTransaction();
+        tx.setId(id);
+        tx.setSiteId(1L);
+        tx.setUserId(10L);
+        tx.setType("CONSUME");
+        tx.setAmount(-5);
+        tx.setCreatedAt(createdAt);
+        return tx;
+    }
+
+    private static User user(Long id, LocalDateTime createdAt) {
+        User user = new User();
+        user.setId(id);
+        user.setSiteId(1L);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
@@ -0,0 +1,83 @@
+package com.meitou.admin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+class AesEncryptUtilTest {
+
+    @BeforeEach
+    void setUp() {
+        AesEncryptUtil.clearCache();
+    }
+
+    @Test
+    void encrypt_producesVersionedCiphertextThatRoundTrips() {
+        String encrypted = AesEncryptUtil.encrypt("sk-test-0123456789");
+        Assertions.assertTrue(encrypted.startsWith(AesEncryptUtil.VERSION_PREFIX));
+        Assertions.assertNotEquals(encrypted, AesEncryptUtil.encrypt("sk-test-0123456789"));
+
+        AesEncryptUtil.clearCache();
+        Assertions.assertEquals("sk-test-0123456789", AesEncryptUtil.decrypt(encrypted));
+        Assertions.assertTrue(AesEncryptUtil.isEncrypted(encrypted));
+        Assertions.assertFalse(AesEncryptUtil.isLegacyEncrypted(encrypted));
+    }
+
+    @Test
+    void decrypt_supportsLegacyEcbCiphertext() throws Exception {
+        String legacy = legacyEncrypt("sk-legacy-key");
+        Assertions.assertEquals("sk-legacy-key", AesEncryptUtil.decrypt(legacy));
+        Assertions.assertTrue(AesEncryptUtil.isEncrypted(legacy));
+        Assertions.assertTrue(AesEncryptUtil.isLegacyEncrypted(legacy));
+    }
+
+    @Test
+    void migrate_convertsLegacyCiphertextOnly() throws Exception {
+        String legacy = legacyEncrypt("sk-legacy-key");
+        String migrated = AesEncryptUtil.migrate(legacy);
+        Assertions.assertTrue(migrated.startsWith(AesEncryptUtil.VERSION_PREFIX));
+        Assertions.assertEquals("sk-legacy-key", AesEncryptUtil.decrypt(migrated));
+
+        Assertions.assertSame(migrated, AesEncryptUtil.migrate(migrated));
+        Assertions.assertEquals("plain-text", AesEncryptUtil.migrate("plain-text"));
+        Assertions.assertNull(AesEncryptUtil.migrate(null));
+    }
+
+    @Test
+    void isEncrypted_rejectsPlainTextAndTamperedCiphertext() {
+        Assertions.assertFalse(AesEncryptUtil.isEncrypted("sk-plain-0123456789abcdef"));
+        Assertions.assertFalse(AesEncryptUtil.isEncrypted("ABCDEFGHIJKLMNOPQRSTUVWX"));
+        Assertions.assertFalse(AesEncryptUtil.isEncrypted(""));
+        Assertions.assertFalse(AesEncryptUtil.isEncrypted(null));
+
+        String encrypted = AesEncryptUtil.encrypt("secret");
+        AesEncryptUtil.clearCache();
+        char last = encrypted.charAt(encrypted.length() - 3);
+        String tampered = encrypted.substring(0, encrypted.length() - 3) + (last == 'A' ? 'B' : 'A')
+                + encrypted.substring(encrypted.length() - 2);
+        Assertions.assertNull(AesEncryptUtil.decrypt(tampered));
+    }
+
+    @Test
+    void invalidate_removesCachedPlainText() {
+        String encrypted = AesEncryptUtil.encrypt("secret");
+        Assertions.assertEquals(1, AesEncryptUtil.cacheSize());
+        Assertions.assertEquals("secret", AesEncryptUtil.decrypt(encrypted));
+
+        AesEncryptUtil.invalidate(encrypted);
+        Assertions.assertEquals(0, AesEncryptUtil.cacheSize());
+        Assertions.assertEquals("secret", AesEncryptUtil.decrypt(encrypted));
+        Assertions.assertEquals(1, AesEncryptUtil.cacheSize());
+    }
+
+    private static String legacyEncrypt(String plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("MeitouAdminKey!X".getBytes(StandardCharsets.UTF_8), "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.meitou.admin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void cardinality_isWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long i = 1; i <= 100_000; i++) {
+            sketch.add(i);
+        }
+        double error = Math.abs(sketch.cardinality() - 100_000) / 100_000.0;
+        Assertions.assertTrue(error < 3 * sketch.relativeStandardError(), "error=" + error);
+    }
+
+    @Test
+    void add_ignoresDuplicates() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int round = 0; round < 5; round++) {
+            for (long i = 1; i <= 100; i++) {
+                sketch.add(i);
+            }
+        }
+        Assertions.assertEquals(100, sketch.cardinality(), 2);
+    }
+
+    @Test
+    void merge_equalsUnionAfterRoundTrip() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long i = 0; i < 30_000; i++) {
+            first.add(i);
+            union.add(i);
+        }
+        for (long i = 20_000; i < 60_000; i++) {
+            second.add(i);
+            union.add(i);
+        }
+        HyperLogLog merged = HyperLogLog.fromBytes(first.toBytes()).merge(HyperLogLog.fromBytes(second.toBytes()));
+        Assertions.assertEquals(union.cardinality(), merged.cardinality());
+    }
+
+    @Test
+    void fromBytes_rejectsInvalidLength() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[100]));
+    }
+}
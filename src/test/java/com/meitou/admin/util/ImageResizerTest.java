@@ -0,0 +1,54 @@
+package com.meitou.admin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+class ImageResizerTest {
+
+    @Test
+    void fit_keepsAspectRatio() {
+        BufferedImage source = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage result = ImageResizer.fit(source, 400);
+        Assertions.assertEquals(400, result.getWidth());
+        Assertions.assertEquals(200, result.getHeight());
+        Assertions.assertEquals(BufferedImage.TYPE_INT_RGB, result.getType());
+    }
+
+    @Test
+    void fit_doesNotUpscale() {
+        BufferedImage source = new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB);
+        BufferedImage result = ImageResizer.fit(source, 400);
+        Assertions.assertEquals(120, result.getWidth());
+        Assertions.assertEquals(80, result.getHeight());
+    }
+
+    @Test
+    void read_subsamplesLargeImages() throws Exception {
+        BufferedImage source = new BufferedImage(3200, 1600, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(source, "png", png);
+
+        BufferedImage decoded = ImageResizer.read(new ByteArrayInputStream(png.toByteArray()), 400);
+        Assertions.assertEquals(800, decoded.getWidth());
+        Assertions.assertEquals(400, decoded.getHeight());
+    }
+
+    @Test
+    void read_returnsNullForUnknownFormat() throws Exception {
+        Assertions.assertNull(ImageResizer.read(new ByteArrayInputStream("not an image".getBytes()), 400));
+    }
+
+    @Test
+    void toJpeg_roundTrips() throws Exception {
+        BufferedImage image = ImageResizer.fit(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), 320);
+        byte[] jpeg = ImageResizer.toJpeg(image, 0.8f);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg));
+        Assertions.assertEquals(320, decoded.getWidth());
+        Assertions.assertEquals(240, decoded.getHeight());
+    }
+}
@@ -0,0 +1,25 @@
+package com.meitou.admin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RemoteUrlGuardTest {
+
+    @Test
+    void requireHttp_rejectsOtherSchemes() {
+        Assertions.assertEquals("https", RemoteUrlGuard.requireHttp("https://example.com/a.png").getScheme());
+        for (String url : new String[]{"file:///etc/passwd", "jar:file:/app.jar!/a", "concat:a|b", "ftp://example.com/a", "https:///a", ""}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> RemoteUrlGuard.requireHttp(url), url);
+        }
+    }
+
+    @Test
+    void requirePublicHttp_rejectsPrivateAddresses() {
+        for (String url : new String[]{"http://127.0.0.1/", "http://10.0.0.8/", "http://172.16.1.1/", "http://192.168.1.1/",
+                "http://169.254.169.254/latest/meta-data", "http://100.64.0.1/", "http://0.0.0.0/", "http://[::1]/",
+                "http://[fd00::1]/", "http://[::ffff:127.0.0.1]/", "http://user@127.0.0.1/"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> RemoteUrlGuard.requirePublicHttp(url), url);
+        }
+        Assertions.assertEquals("8.8.8.8", RemoteUrlGuard.requirePublicHttp("https://8.8.8.8/a.png").getHost());
+    }
+}
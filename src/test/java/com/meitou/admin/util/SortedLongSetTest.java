@@ -0,0 +1,41 @@
+package com.meitou.admin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class SortedLongSetTest {
+
+    @Test
+    void of_sortsAndDeduplicates() {
+        SortedLongSet set = SortedLongSet.of(Arrays.asList(5L, 1L, 5L, null, 3L));
+        Assertions.assertEquals(3, set.size());
+        Assertions.assertTrue(set.contains(1L));
+        Assertions.assertTrue(set.contains(3L));
+        Assertions.assertTrue(set.contains(5L));
+        Assertions.assertFalse(set.contains(2L));
+    }
+
+    @Test
+    void addAndRemove_returnNewInstances() {
+        SortedLongSet set = SortedLongSet.of(Arrays.asList(10L, 30L));
+        SortedLongSet added = set.add(20L);
+        Assertions.assertFalse(set.contains(20L));
+        Assertions.assertTrue(added.contains(20L));
+        Assertions.assertSame(added, added.add(20L));
+
+        SortedLongSet removed = added.remove(10L);
+        Assertions.assertFalse(removed.contains(10L));
+        Assertions.assertEquals(2, removed.size());
+        Assertions.assertSame(removed, removed.remove(99L));
+        Assertions.assertSame(SortedLongSet.EMPTY, SortedLongSet.of(Arrays.asList(1L)).remove(1L));
+    }
+
+    @Test
+    void intersect_keepsCandidateOrder() {
+        SortedLongSet set = SortedLongSet.of(Arrays.asList(2L, 4L, 6L, 8L));
+        Assertions.assertArrayEquals(new long[]{8L, 2L}, set.intersect(new long[]{8L, 3L, 2L}));
+        Assertions.assertArrayEquals(new long[0], SortedLongSet.EMPTY.intersect(new long[]{1L}));
+    }
+}